@@ -32,6 +32,13 @@ public class DatabaseConstants {
     public static final long BUTTON_STOP_ID = BUTTON_ON_ID - 3;
     public static final long BUTTON_DOWN_ID = BUTTON_ON_ID - 4;
 
+    /**
+     * ID Constants used to identify pairing actions of AutoPair Receivers (not stored in database)
+     */
+    public static final long BUTTON_PAIR_ID = BUTTON_ON_ID - 5;
+    public static final long BUTTON_UNPAIR_ID = BUTTON_ON_ID - 6;
+    public static final long BUTTON_UNPAIR_ALL_ID = BUTTON_ON_ID - 7;
+
     public static final Integer INVALID_GATEWAY_PORT = -1;
 
     /**
@@ -27,4 +27,8 @@ public class ActionNotSupportedException extends Exception {
         super("Action not supported by receiver: " + action);
     }
 
+    public ActionNotSupportedException(long buttonId) {
+        super("Action not supported by receiver: Button ID " + buttonId);
+    }
+
 }
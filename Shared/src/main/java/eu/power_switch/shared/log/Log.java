@@ -45,6 +45,17 @@ public class Log {
         throw new UnsupportedOperationException("This class is non-instantiable");
     }
 
+    /**
+     * Check if debug messages are logged
+     * <p/>
+     * Use this to avoid building log messages on hot paths when they are discarded anyway.
+     *
+     * @return true if debug messages are logged
+     */
+    public static boolean isDebugEnabled() {
+        return log.isDebugEnabled();
+    }
+
     /**
      * Log Debug
      *
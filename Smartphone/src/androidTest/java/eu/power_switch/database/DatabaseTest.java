@@ -86,6 +86,17 @@ public class DatabaseTest extends ApplicationTest {
         thread2.join();
     }
 
+    @Test
+    public void testReopenAfterCloseConnection() throws Exception {
+        String localAddress = "localAddress[" + System.nanoTime() + "]";
+        long id = DatabaseHandler.addGateway(new ConnAir((long) 0, true, "Gateway", "Firmware", localAddress,
+                49880, "wanAddress", 49880, Collections.<String>emptySet()));
+
+        DatabaseHandler.closeConnection();
+
+        assertEquals(localAddress, DatabaseHandler.getGateway(id).getLocalHost());
+    }
+
     @Test
     public void testPerformanceTest() throws Exception {
         for (int i = 0; i < 200; i++) {
@@ -0,0 +1,141 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+
+import eu.power_switch.ApplicationTest;
+import eu.power_switch.database.table.action.ReceiverActionTable;
+import eu.power_switch.database.table.apartment.ApartmentGatewayRelationTable;
+import eu.power_switch.database.table.gateway.GatewaySsidTable;
+import eu.power_switch.database.table.history.HistoryTable;
+import eu.power_switch.database.table.receiver.ReceiverTable;
+import eu.power_switch.database.table.receiver.UniversalButtonTable;
+import eu.power_switch.database.table.room.RoomTable;
+import eu.power_switch.database.table.scene.SceneItemTable;
+import eu.power_switch.database.table.timer.TimerWeekdayTable;
+
+/**
+ * Makes sure the hot lookups of the database handlers are answered through an index instead of a full table scan
+ */
+public class QueryPlanTest extends ApplicationTest {
+
+    private Database database;
+    private SQLiteDatabase db;
+
+    protected void setUp() throws Exception {
+        database = new Database(getContext());
+        db = database.getReadableDatabase();
+    }
+
+    protected void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    public void testReceiversOfRoom() throws Exception {
+        String plan = explain("SELECT * FROM " + ReceiverTable.TABLE_NAME +
+                " WHERE " + ReceiverTable.COLUMN_ROOM_ID + "=1" +
+                " ORDER BY " + ReceiverTable.COLUMN_POSITION_IN_ROOM + " ASC");
+        assertUsesIndex(plan, ReceiverTable.INDEX_ROOM_ID);
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void testRoomsOfApartment() throws Exception {
+        String plan = explain("SELECT * FROM " + RoomTable.TABLE_NAME +
+                " WHERE " + RoomTable.COLUMN_APARTMENT_ID + "=1" +
+                " ORDER BY " + RoomTable.COLUMN_POSITION + " ASC");
+        assertUsesIndex(plan, RoomTable.INDEX_APARTMENT_ID);
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void testItemsOfScene() throws Exception {
+        assertUsesIndex(explain("SELECT * FROM " + SceneItemTable.TABLE_NAME +
+                " WHERE " + SceneItemTable.COLUMN_SCENE_ID + "=1"), SceneItemTable.INDEX_SCENE_ID);
+        assertUsesIndex(explain("SELECT * FROM " + SceneItemTable.TABLE_NAME +
+                " WHERE " + SceneItemTable.COLUMN_RECEIVER_ID + "=1"), SceneItemTable.INDEX_RECEIVER_ID);
+    }
+
+    @Test
+    public void testButtonsOfReceiver() throws Exception {
+        assertUsesIndex(explain("SELECT * FROM " + UniversalButtonTable.TABLE_NAME +
+                " WHERE " + UniversalButtonTable.COLUMN_RECEIVER_ID + "=1"), UniversalButtonTable.INDEX_RECEIVER_ID);
+    }
+
+    @Test
+    public void testActionDetails() throws Exception {
+        assertUsesIndex(explain("SELECT * FROM " + ReceiverActionTable.TABLE_NAME +
+                " WHERE " + ReceiverActionTable.COLUMN_ACTION_ID + "=1"), ReceiverActionTable.INDEX_ACTION_ID);
+    }
+
+    @Test
+    public void testGatewayRelations() throws Exception {
+        assertUsesIndex(explain("SELECT * FROM " + ApartmentGatewayRelationTable.TABLE_NAME +
+                        " WHERE " + ApartmentGatewayRelationTable.COLUMN_GATEWAY_ID + "=1"),
+                ApartmentGatewayRelationTable.INDEX_GATEWAY_ID);
+        assertUsesIndex(explain("SELECT * FROM " + GatewaySsidTable.TABLE_NAME +
+                " WHERE " + GatewaySsidTable.COLUMN_GATEWAY_ID + "=1"), GatewaySsidTable.INDEX_GATEWAY_ID);
+    }
+
+    @Test
+    public void testWeekdaysOfTimer() throws Exception {
+        assertUsesIndex(explain("SELECT * FROM " + TimerWeekdayTable.TABLE_NAME +
+                " WHERE " + TimerWeekdayTable.COLUMN_TIMER_ID + "=1"), TimerWeekdayTable.INDEX_TIMER_ID);
+    }
+
+    @Test
+    public void testHistory() throws Exception {
+        String plan = explain("SELECT * FROM " + HistoryTable.TABLE_NAME +
+                " ORDER BY " + HistoryTable.COLUMN_TIME + " ASC");
+        assertUsesIndex(plan, HistoryTable.INDEX_TIME);
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+
+        assertUsesIndex(explain("DELETE FROM " + HistoryTable.TABLE_NAME +
+                " WHERE " + HistoryTable.COLUMN_TIME + " <= 1"), HistoryTable.INDEX_TIME);
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertTrue(plan, plan.contains("INDEX " + index));
+    }
+
+    /**
+     * Get the query plan of a statement
+     *
+     * @param sql SQL statement
+     * @return details of all steps of the query plan, one per line
+     */
+    private String explain(String sql) {
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        try {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detailColumn)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+}
@@ -21,12 +21,14 @@ package eu.power_switch.database.receivers;
 import org.junit.Test;
 
 import java.util.LinkedList;
+import java.util.Map;
 
 import eu.power_switch.database.DatabaseTest;
 import eu.power_switch.database.handler.ReceiverReflectionMagic;
 import eu.power_switch.obj.receiver.DipReceiver;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.ReceiverRegistry;
 import eu.power_switch.obj.receiver.UniversalReceiver;
 
 public class ReceiverReflectionMagicTest extends DatabaseTest {
@@ -37,8 +39,18 @@ public class ReceiverReflectionMagicTest extends DatabaseTest {
     }
 
     @Test
-    public void testGetConstructor() throws Exception {
-        fail("Test not implemented.");
+    public void testRegistryContainsAllModels() throws Exception {
+        for (Map.Entry<String, String> model : Receiver.receiverMap.entrySet()) {
+            ReceiverRegistry.Entry entry = ReceiverRegistry.getByModel(model.getKey());
+            assertNotNull(entry);
+            assertEquals(model.getValue(), entry.getReceiverClass().getName());
+            assertSame(entry, ReceiverRegistry.getByClassName(model.getValue()));
+            assertSame(entry, ReceiverRegistry.getByTypeCode(entry.getTypeCode()));
+
+            Receiver dummy = ReceiverReflectionMagic.getDummy(getContext(), model.getValue());
+            assertEquals(entry.getReceiverClass(), dummy.getClass());
+            assertEquals(model.getKey(), dummy.getModel());
+        }
     }
 
     @Test
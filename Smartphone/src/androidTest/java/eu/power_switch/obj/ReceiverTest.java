@@ -19,6 +19,7 @@
 package eu.power_switch.obj;
 
 import java.util.Collections;
+import java.util.List;
 
 import eu.power_switch.ApplicationTest;
 import eu.power_switch.obj.gateway.BrematicGWY433;
@@ -37,6 +38,22 @@ public abstract class ReceiverTest extends ApplicationTest {
 
     protected Gateway[] gateways = new Gateway[]{connAir, itgw, brematicGWY433};
 
-    protected Class<?>[] argClassesGetSignal = new Class[]{Gateway.class, String.class};
+    protected Class<?>[] argClassesGetSignal = new Class[]{Gateway.class, long.class};
+
+    /**
+     * Get the bitmask of a list of dip states
+     *
+     * @param dips dip states, in order
+     * @return bitmask, bit n is set if dip n is checked
+     */
+    protected static int toDipMask(List<Boolean> dips) {
+        int mask = 0;
+        for (int i = 0; i < dips.size(); i++) {
+            if (dips.get(i)) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
 
 }
@@ -24,9 +24,9 @@ import org.junit.Test;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.ReceiverTest;
 import eu.power_switch.obj.receiver.device.brennenstuhl.RCS1000NComfort;
+import eu.power_switch.shared.constants.DatabaseConstants;
 
 /**
  * Created by Markus on 08.08.2015.
@@ -50,19 +50,19 @@ public class RCS1000NComfort_Test extends ReceiverTest {
         dips.add(false); // D
         dips.add(false); // E
 
-        receiver = new RCS1000NComfort(getContext(), (long) 0, "Name", dips, (long) 0);
+        receiver = new RCS1000NComfort(getContext(), (long) 0, "Name", toDipMask(dips), (long) 0);
 
         Method method = receiver.getClass().getDeclaredMethod("getSignal", argClassesGetSignal);
         method.setAccessible(true);
 
-        Object[] argObjects = new Object[]{connAir, getContext().getString(R.string.on)};
+        Object[] argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_ON_ID};
         String generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // ON
         String expectedMessage = "TXP:0,0,10,5600,350,25,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,14;";
         Assert.assertEquals(expectedMessage, generatedMessage);
 
-        argObjects = new Object[]{connAir, getContext().getString(R.string.off)};
+        argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_OFF_ID};
         generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // OFF
@@ -85,19 +85,19 @@ public class RCS1000NComfort_Test extends ReceiverTest {
         dips.add(false); // D
         dips.add(false); // E
 
-        receiver = new RCS1000NComfort(getContext(), (long) 0, "Name", dips, (long) 0);
+        receiver = new RCS1000NComfort(getContext(), (long) 0, "Name", toDipMask(dips), (long) 0);
 
         String methodName = "getSignal";
         Method method = receiver.getClass().getDeclaredMethod(methodName, argClassesGetSignal);
         method.setAccessible(true);
-        Object[] argObjects = new Object[]{connAir, getContext().getString(R.string.on)};
+        Object[] argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_ON_ID};
         String generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // ON
         String expectedMessage = "TXP:0,0,10,5600,350,25,1,3,1,3,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,14;";
         Assert.assertEquals(expectedMessage, generatedMessage);
 
-        argObjects = new Object[]{connAir, getContext().getString(R.string.off)};
+        argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_OFF_ID};
         generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // OFF
@@ -120,19 +120,19 @@ public class RCS1000NComfort_Test extends ReceiverTest {
         dips.add(false); // D
         dips.add(false); // E
 
-        receiver = new RCS1000NComfort(getContext(), (long) 0, "Name", dips, (long) 0);
+        receiver = new RCS1000NComfort(getContext(), (long) 0, "Name", toDipMask(dips), (long) 0);
 
         String methodName = "getSignal";
         Method method = receiver.getClass().getDeclaredMethod(methodName, argClassesGetSignal);
         method.setAccessible(true);
-        Object[] argObjects = new Object[]{connAir, getContext().getString(R.string.on)};
+        Object[] argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_ON_ID};
         String generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // ON
         String expectedMessage = "TXP:0,0,10,5600,350,25,1,3,1,3,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,14;";
         Assert.assertEquals(expectedMessage, generatedMessage);
 
-        argObjects = new Object[]{connAir, getContext().getString(R.string.off)};
+        argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_OFF_ID};
         generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // OFF
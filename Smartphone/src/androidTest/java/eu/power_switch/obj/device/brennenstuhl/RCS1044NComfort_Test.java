@@ -24,9 +24,9 @@ import org.junit.Test;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.ReceiverTest;
 import eu.power_switch.obj.receiver.device.brennenstuhl.RCS1044NComfort;
+import eu.power_switch.shared.constants.DatabaseConstants;
 
 /**
  * Created by Markus on 08.08.2015.
@@ -48,19 +48,19 @@ public class RCS1044NComfort_Test extends ReceiverTest {
         dips.add(false); // D
         dips.add(false); // E
 
-        RCS1044NComfort receiver = new RCS1044NComfort(getContext(), (long) 0, "Name", dips, (long) 0);
+        RCS1044NComfort receiver = new RCS1044NComfort(getContext(), (long) 0, "Name", toDipMask(dips), (long) 0);
 
         Method method = RCS1044NComfort.class.getDeclaredMethod("getSignal", argClassesGetSignal);
         method.setAccessible(true);
 
-        Object[] argObjects = new Object[]{connAir, getContext().getString(R.string.on)};
+        Object[] argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_ON_ID};
         String generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // ON
         String expectedMessage = "TXP:0,0,10,5600,350,25,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,14;";
         Assert.assertEquals(expectedMessage, generatedMessage);
 
-        argObjects = new Object[]{connAir, getContext().getString(R.string.off)};
+        argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_OFF_ID};
         generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // OFF
@@ -83,19 +83,19 @@ public class RCS1044NComfort_Test extends ReceiverTest {
         dips.add(false); // D
         dips.add(false); // E
 
-        RCS1044NComfort receiver = new RCS1044NComfort(getContext(), (long) 0, "Name", dips, (long) 0);
+        RCS1044NComfort receiver = new RCS1044NComfort(getContext(), (long) 0, "Name", toDipMask(dips), (long) 0);
 
         String methodName = "getSignal";
         Method method = RCS1044NComfort.class.getDeclaredMethod(methodName, argClassesGetSignal);
         method.setAccessible(true);
-        Object[] argObjects = new Object[]{connAir, getContext().getString(R.string.on)};
+        Object[] argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_ON_ID};
         String generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // ON
         String expectedMessage = "TXP:0,0,10,5600,350,25,1,3,1,3,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,14;";
         Assert.assertEquals(expectedMessage, generatedMessage);
 
-        argObjects = new Object[]{connAir, getContext().getString(R.string.off)};
+        argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_OFF_ID};
         generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // OFF
@@ -118,19 +118,19 @@ public class RCS1044NComfort_Test extends ReceiverTest {
         dips.add(false); // D
         dips.add(false); // E
 
-        RCS1044NComfort receiver = new RCS1044NComfort(getContext(), (long) 0, "Name", dips, (long) 0);
+        RCS1044NComfort receiver = new RCS1044NComfort(getContext(), (long) 0, "Name", toDipMask(dips), (long) 0);
 
         String methodName = "getSignal";
         Method method = RCS1044NComfort.class.getDeclaredMethod(methodName, argClassesGetSignal);
         method.setAccessible(true);
-        Object[] argObjects = new Object[]{connAir, getContext().getString(R.string.on)};
+        Object[] argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_ON_ID};
         String generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // ON
         String expectedMessage = "TXP:0,0,10,5600,350,25,1,3,1,3,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,3,3,1,1,3,3,1,1,3,3,1,1,3,1,3,1,3,3,1,1,14;";
         Assert.assertEquals(expectedMessage, generatedMessage);
 
-        argObjects = new Object[]{connAir, getContext().getString(R.string.off)};
+        argObjects = new Object[]{connAir, DatabaseConstants.BUTTON_OFF_ID};
         generatedMessage = (String) method.invoke(receiver, argObjects);
 
         // OFF
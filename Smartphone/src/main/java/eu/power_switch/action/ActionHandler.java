@@ -24,7 +24,9 @@ import android.support.design.widget.Snackbar;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import eu.power_switch.R;
@@ -35,13 +37,17 @@ import eu.power_switch.history.HistoryHelper;
 import eu.power_switch.history.HistoryItem;
 import eu.power_switch.network.NetworkHandler;
 import eu.power_switch.network.NetworkPackage;
-import eu.power_switch.obj.Apartment;
+import eu.power_switch.network.PackageOutcome;
+import eu.power_switch.network.RouteCache;
+import eu.power_switch.network.RoutingContext;
+import eu.power_switch.network.SendResult;
 import eu.power_switch.obj.Room;
 import eu.power_switch.obj.Scene;
 import eu.power_switch.obj.SceneItem;
 import eu.power_switch.obj.button.Button;
 import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.SignalCache;
 import eu.power_switch.settings.SmartphonePreferencesHandler;
 import eu.power_switch.shared.constants.AlarmClockConstants;
 import eu.power_switch.shared.constants.SleepAsAndroidConstants;
@@ -64,13 +70,16 @@ public class ActionHandler {
      * @param context  any suitable context
      * @param receiver receiver to execute on
      * @param button   button to activate
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull Receiver receiver, @NonNull Button button) {
+    public static SendResult execute(@NonNull Context context, @NonNull Receiver receiver, @NonNull Button button) {
         try {
-            executeReceiverAction(context, receiver, button);
+            SendResult result = executeReceiverAction(context, receiver, button, NetworkPackage.Priority.INTERACTIVE);
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.receiver_action_history_text, receiver.getName(), button.getName())));
+
+            return result;
         } catch (ActionNotSupportedException e) {
             Log.e("Action not supported by Receiver!", e);
             StatusMessageHandler.showInfoMessage(context,
@@ -87,21 +96,23 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
-    private static void executeReceiverAction(@NonNull Context context, @NonNull Receiver receiver, @NonNull Button button) throws Exception {
+    private static SendResult executeReceiverAction(@NonNull Context context, @NonNull Receiver receiver, @NonNull Button button,
+                                                    @NonNull NetworkPackage.Priority priority) throws Exception {
         NetworkHandler.init(context);
 
-        List<NetworkPackage> networkPackages = new ArrayList<>();
-        Apartment apartment = DatabaseHandler.getContainingApartment(receiver);
+        RoutingContext routingContext = DatabaseHandler.getRoutingContext(receiver);
 
-        if (apartment.getAssociatedGateways().isEmpty()) {
+        if (routingContext.getAssociatedGateways().isEmpty()) {
             StatusMessageHandler.showInfoMessage(context, R.string.apartment_has_no_associated_gateways,
                     Snackbar.LENGTH_LONG);
-            return;
+            return null;
         } else {
             boolean hasActiveGateway = false;
-            for (Gateway gateway : apartment.getAssociatedGateways()) {
+            for (Gateway gateway : routingContext.getAssociatedGateways()) {
                 if (gateway.isActive()) {
                     hasActiveGateway = true;
                     break;
@@ -110,20 +121,17 @@ public class ActionHandler {
 
             if (!hasActiveGateway) {
                 StatusMessageHandler.showInfoMessage(context, R.string.no_active_gateway, Snackbar.LENGTH_LONG);
-                return;
+                return null;
             }
         }
 
-        for (Gateway gateway : apartment.getAssociatedGateways()) {
-            if (gateway.isActive()) {
-                networkPackages.add(getNetworkPackage(apartment, gateway, receiver, button));
-            }
-        }
+        List<Gateway> gateways = GatewayRouter.rankGateways(routingContext, getReachableGateways(routingContext));
+        List<GatewayRouter.RoutedSignal> routedSignals = new ArrayList<>();
+        routedSignals.add(GatewayRouter.route(receiver, button, gateways));
 
-        NetworkHandler.send(networkPackages);
+        SendResult result = send(routingContext, routedSignals, priority);
 
-        // set on object, as well as in database
-        receiver.setLastActivatedButtonId(button.getId());
+        // set in database only, Receivers are immutable
         DatabaseHandler.setLastActivatedButtonId(receiver.getId(), button.getId());
 
         if (SmartphonePreferencesHandler.getHighlightLastActivatedButton()) {
@@ -132,6 +140,8 @@ public class ActionHandler {
         if (WearablePreferencesHandler.getHighlightLastActivatedButton()) {
             UtilityService.forceWearDataUpdate(context);
         }
+
+        return result;
     }
 
     /**
@@ -140,13 +150,16 @@ public class ActionHandler {
      * @param context    any suitable context
      * @param room       room to execute on
      * @param buttonName button name to execute on each receiver
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull Room room, @NonNull String buttonName) {
+    public static SendResult execute(@NonNull Context context, @NonNull Room room, @NonNull String buttonName) {
         try {
-            executeRoomAction(context, room, buttonName);
+            SendResult result = executeRoomAction(context, room, buttonName, NetworkPackage.Priority.INTERACTIVE);
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.room_action_history_text, room.getName(), buttonName)));
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -155,6 +168,8 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
     /**
@@ -163,13 +178,16 @@ public class ActionHandler {
      * @param context  any suitable context
      * @param room     room to execute on
      * @param buttonId button ID to execute on each receiver
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull Room room, @NonNull long buttonId) {
+    public static SendResult execute(@NonNull Context context, @NonNull Room room, @NonNull long buttonId) {
         try {
-            executeRoomAction(context, room, buttonId);
+            SendResult result = executeRoomAction(context, room, buttonId, NetworkPackage.Priority.INTERACTIVE);
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.room_action_history_text, room.getName(), Button.getName(context, buttonId))));
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -178,19 +196,22 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
-    private static void executeRoomAction(@NonNull Context context, @NonNull Room room, @NonNull String buttonName) throws Exception {
+    private static SendResult executeRoomAction(@NonNull Context context, @NonNull Room room, @NonNull String buttonName,
+                                                @NonNull NetworkPackage.Priority priority) throws Exception {
         NetworkHandler.init(context);
 
-        Apartment apartment = DatabaseHandler.getContainingApartment(room);
-        if (apartment.getAssociatedGateways().isEmpty()) {
+        RoutingContext routingContext = DatabaseHandler.getRoutingContext(room);
+        if (routingContext.getAssociatedGateways().isEmpty()) {
             StatusMessageHandler.showInfoMessage(context, R.string.apartment_has_no_associated_gateways,
                     Snackbar.LENGTH_LONG);
-            return;
+            return null;
         } else {
             boolean hasActiveGateway = false;
-            for (Gateway gateway : apartment.getAssociatedGateways()) {
+            for (Gateway gateway : routingContext.getAssociatedGateways()) {
                 if (gateway.isActive()) {
                     hasActiveGateway = true;
                     break;
@@ -199,44 +220,44 @@ public class ActionHandler {
 
             if (!hasActiveGateway) {
                 StatusMessageHandler.showInfoMessage(context, R.string.no_active_gateway, Snackbar.LENGTH_LONG);
-                return;
+                return null;
             }
         }
 
-        List<NetworkPackage> networkPackages = new ArrayList<>();
+        // resolve the name once, static Buttons are matched by ID
+        Long staticButtonId = Button.getStaticButtonId(context, buttonName);
+
+        List<GatewayRouter.RoutedSignal> routedSignals = new ArrayList<>();
+        List<Gateway> gateways = GatewayRouter.rankGateways(routingContext, getReachableGateways(routingContext));
         for (Receiver receiver : room.getReceivers()) {
             try {
-                Button button = receiver.getButtonCaseInsensitive(buttonName);
-                for (Gateway gateway : apartment.getAssociatedGateways()) {
-                    if (gateway.isActive()) {
-                        try {
-                            networkPackages.add(getNetworkPackage(apartment, gateway, receiver, button));
-
-                            // set on object, as well as in database
-                            receiver.setLastActivatedButtonId(button.getId());
-                            DatabaseHandler.setLastActivatedButtonId(receiver.getId(), button.getId());
-                        } catch (ActionNotSupportedException e) {
-                            Log.e("Action not supported by Receiver!", e);
-                            StatusMessageHandler.showInfoMessage(context,
-                                    context.getString(R.string.action_not_supported_by_receiver), 5000);
-                        } catch (GatewayNotSupportedException e) {
-                            Log.e("Gateway not supported by Receiver!", e);
-                            StatusMessageHandler.showInfoMessage(context,
-                                    context.getString(R.string.gateway_not_supported_by_receiver), 5000);
-                        }
-                    }
+                Button button = getButton(receiver, staticButtonId, buttonName);
+                try {
+                    routedSignals.add(GatewayRouter.route(receiver, button, gateways));
+
+                    // set in database only, Receivers are immutable
+                    DatabaseHandler.setLastActivatedButtonId(receiver.getId(), button.getId());
+                } catch (ActionNotSupportedException e) {
+                    Log.e("Action not supported by Receiver!", e);
+                    StatusMessageHandler.showInfoMessage(context,
+                            context.getString(R.string.action_not_supported_by_receiver), 5000);
+                } catch (GatewayNotSupportedException e) {
+                    Log.e("Gateway not supported by Receiver!", e);
+                    StatusMessageHandler.showInfoMessage(context,
+                            context.getString(R.string.gateway_not_supported_by_receiver), 5000);
                 }
             } catch (NoSuchElementException e) {
                 // ignore if Receiver doesnt support this action
             }
         }
 
-        if (networkPackages.size() <= 0) {
+        SendResult result = null;
+        if (routedSignals.isEmpty()) {
             Log.d(context.getString(R.string.no_receiver_supports_this_action));
             StatusMessageHandler.showInfoMessage(context,
                     context.getString(R.string.no_receiver_supports_this_action), Snackbar.LENGTH_LONG);
         } else {
-            NetworkHandler.send(networkPackages);
+            result = send(routingContext, routedSignals, priority);
         }
 
         if (SmartphonePreferencesHandler.getHighlightLastActivatedButton()) {
@@ -245,19 +266,43 @@ public class ActionHandler {
         if (WearablePreferencesHandler.getHighlightLastActivatedButton()) {
             UtilityService.forceWearDataUpdate(context);
         }
+
+        return result;
     }
 
-    private static void executeRoomAction(@NonNull Context context, @NonNull Room room, @NonNull long buttonId) throws Exception {
+    /**
+     * Get a Button of a Receiver by its static Button ID, or by name if it is not a static Button
+     *
+     * @param receiver       Receiver
+     * @param staticButtonId ID of static Button, null if the name does not belong to a static Button
+     * @param buttonName     name of Button
+     * @return Button
+     * @throws NoSuchElementException if the Receiver has no such Button
+     */
+    private static Button getButton(Receiver receiver, Long staticButtonId, String buttonName) {
+        if (staticButtonId != null) {
+            for (Button button : receiver.getButtons()) {
+                if (staticButtonId.equals(button.getId())) {
+                    return button;
+                }
+            }
+        }
+        // Universal Buttons have custom names
+        return receiver.getButtonCaseInsensitive(buttonName);
+    }
+
+    private static SendResult executeRoomAction(@NonNull Context context, @NonNull Room room, @NonNull long buttonId,
+                                                @NonNull NetworkPackage.Priority priority) throws Exception {
         NetworkHandler.init(context);
 
-        Apartment apartment = DatabaseHandler.getContainingApartment(room);
-        if (apartment.getAssociatedGateways().isEmpty()) {
+        RoutingContext routingContext = DatabaseHandler.getRoutingContext(room);
+        if (routingContext.getAssociatedGateways().isEmpty()) {
             StatusMessageHandler.showInfoMessage(context, R.string.apartment_has_no_associated_gateways,
                     Snackbar.LENGTH_LONG);
-            return;
+            return null;
         } else {
             boolean hasActiveGateway = false;
-            for (Gateway gateway : apartment.getAssociatedGateways()) {
+            for (Gateway gateway : routingContext.getAssociatedGateways()) {
                 if (gateway.isActive()) {
                     hasActiveGateway = true;
                     break;
@@ -266,44 +311,41 @@ public class ActionHandler {
 
             if (!hasActiveGateway) {
                 StatusMessageHandler.showInfoMessage(context, R.string.no_active_gateway, Snackbar.LENGTH_LONG);
-                return;
+                return null;
             }
         }
 
-        List<NetworkPackage> networkPackages = new ArrayList<>();
+        List<GatewayRouter.RoutedSignal> routedSignals = new ArrayList<>();
+        List<Gateway> gateways = GatewayRouter.rankGateways(routingContext, getReachableGateways(routingContext));
         for (Receiver receiver : room.getReceivers()) {
             try {
                 Button button = receiver.getButton(buttonId);
-                for (Gateway gateway : apartment.getAssociatedGateways()) {
-                    if (gateway.isActive()) {
-                        try {
-                            networkPackages.add(getNetworkPackage(apartment, gateway, receiver, button));
-                        } catch (ActionNotSupportedException e) {
-                            Log.e("Action not supported by Receiver!", e);
-                            StatusMessageHandler.showInfoMessage(context,
-                                    context.getString(R.string.action_not_supported_by_receiver), 5000);
-                        } catch (GatewayNotSupportedException e) {
-                            Log.e("Gateway not supported by Receiver!", e);
-                            StatusMessageHandler.showInfoMessage(context,
-                                    context.getString(R.string.gateway_not_supported_by_receiver), 5000);
-                        }
-                    }
+                try {
+                    routedSignals.add(GatewayRouter.route(receiver, button, gateways));
+                } catch (ActionNotSupportedException e) {
+                    Log.e("Action not supported by Receiver!", e);
+                    StatusMessageHandler.showInfoMessage(context,
+                            context.getString(R.string.action_not_supported_by_receiver), 5000);
+                } catch (GatewayNotSupportedException e) {
+                    Log.e("Gateway not supported by Receiver!", e);
+                    StatusMessageHandler.showInfoMessage(context,
+                            context.getString(R.string.gateway_not_supported_by_receiver), 5000);
                 }
 
-                // set on object, as well as in database
-                receiver.setLastActivatedButtonId(button.getId());
+                // set in database only, Receivers are immutable
                 DatabaseHandler.setLastActivatedButtonId(receiver.getId(), button.getId());
             } catch (NoSuchElementException e) {
                 // ignore if Receiver doesnt support this action
             }
         }
 
-        if (networkPackages.size() <= 0) {
+        SendResult result = null;
+        if (routedSignals.isEmpty()) {
             Log.d(context.getString(R.string.no_receiver_supports_this_action));
             StatusMessageHandler.showInfoMessage(context,
                     context.getString(R.string.no_receiver_supports_this_action), Snackbar.LENGTH_LONG);
         } else {
-            NetworkHandler.send(networkPackages);
+            result = send(routingContext, routedSignals, priority);
         }
 
         if (SmartphonePreferencesHandler.getHighlightLastActivatedButton()) {
@@ -312,6 +354,8 @@ public class ActionHandler {
         if (WearablePreferencesHandler.getHighlightLastActivatedButton()) {
             UtilityService.forceWearDataUpdate(context);
         }
+
+        return result;
     }
 
     /**
@@ -319,13 +363,16 @@ public class ActionHandler {
      *
      * @param context any suitable context
      * @param scene   scene to execute
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull Scene scene) {
+    public static SendResult execute(@NonNull Context context, @NonNull Scene scene) {
         try {
-            executeScene(context, scene);
+            SendResult result = executeScene(context, scene, NetworkPackage.Priority.BULK);
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.scene_action_history_text, scene.getName())));
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -334,21 +381,22 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
-    private static void executeScene(@NonNull Context context, @NonNull Scene scene) throws Exception {
+    private static SendResult executeScene(@NonNull Context context, @NonNull Scene scene,
+                                           @NonNull NetworkPackage.Priority priority) throws Exception {
         NetworkHandler.init(context);
 
-        List<NetworkPackage> networkPackages = new ArrayList<>();
-
-        Apartment apartment = DatabaseHandler.getContainingApartment(scene);
-        if (apartment.getAssociatedGateways().isEmpty()) {
+        RoutingContext routingContext = DatabaseHandler.getRoutingContext(scene);
+        if (routingContext.getAssociatedGateways().isEmpty()) {
             StatusMessageHandler.showInfoMessage(context,
                     R.string.apartment_has_no_associated_gateways, Snackbar.LENGTH_LONG);
-            return;
+            return null;
         } else {
             boolean hasActiveGateway = false;
-            for (Gateway gateway : apartment.getAssociatedGateways()) {
+            for (Gateway gateway : routingContext.getAssociatedGateways()) {
                 if (gateway.isActive()) {
                     hasActiveGateway = true;
                     break;
@@ -357,24 +405,21 @@ public class ActionHandler {
 
             if (!hasActiveGateway) {
                 StatusMessageHandler.showInfoMessage(context, R.string.no_active_gateway, Snackbar.LENGTH_LONG);
-                return;
+                return null;
             }
         }
 
+        List<GatewayRouter.RoutedSignal> routedSignals = new ArrayList<>();
+        List<Gateway> gateways = GatewayRouter.rankGateways(routingContext, getReachableGateways(routingContext));
         for (SceneItem sceneItem : scene.getSceneItems()) {
-            for (Gateway gateway : apartment.getAssociatedGateways()) {
-                if (gateway.isActive()) {
-                    networkPackages.add(getNetworkPackage(apartment, gateway, sceneItem.getReceiver(), sceneItem.getActiveButton()));
+            routedSignals.add(GatewayRouter.route(sceneItem.getReceiver(), sceneItem.getActiveButton(), gateways));
 
-                    // set on object, as well as in database
-                    sceneItem.getReceiver().setLastActivatedButtonId(sceneItem.getActiveButton().getId());
-                    DatabaseHandler.setLastActivatedButtonId(sceneItem.getReceiver()
-                            .getId(), sceneItem.getActiveButton().getId());
-                }
-            }
+            // set in database only, Receivers are immutable
+            DatabaseHandler.setLastActivatedButtonId(sceneItem.getReceiver()
+                    .getId(), sceneItem.getActiveButton().getId());
         }
 
-        NetworkHandler.send(networkPackages);
+        SendResult result = send(routingContext, routedSignals, priority);
 
         if (SmartphonePreferencesHandler.getHighlightLastActivatedButton()) {
             ReceiverWidgetProvider.forceWidgetUpdate(context);
@@ -382,6 +427,8 @@ public class ActionHandler {
         if (WearablePreferencesHandler.getHighlightLastActivatedButton()) {
             UtilityService.forceWearDataUpdate(context);
         }
+
+        return result;
     }
 
     /**
@@ -389,13 +436,16 @@ public class ActionHandler {
      *
      * @param context any suitable context
      * @param timer   timer to execute
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull Timer timer) {
+    public static SendResult execute(@NonNull Context context, @NonNull Timer timer) {
         try {
-            executeActions(context, timer.getActions());
+            SendResult result = executeActions(context, timer.getActions());
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.timer_action_history_text, timer.getName())));
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -404,6 +454,8 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
     /**
@@ -411,14 +463,17 @@ public class ActionHandler {
      *
      * @param context any suitable context
      * @param event   event type
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull SleepAsAndroidConstants.SLEEP_AS_ANDROID_ALARM_EVENT event) {
+    public static SendResult execute(@NonNull Context context, @NonNull SleepAsAndroidConstants.SLEEP_AS_ANDROID_ALARM_EVENT event) {
         try {
             List<Action> actions = DatabaseHandler.getAlarmActions(event);
-            executeActions(context, actions);
+            SendResult result = executeActions(context, actions);
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.sleep_as_android_action_history_text, event.toString())));
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -427,6 +482,8 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
     /**
@@ -434,14 +491,17 @@ public class ActionHandler {
      *
      * @param context any suitable context
      * @param event   alarm event type
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull AlarmClockConstants.Event event) {
+    public static SendResult execute(@NonNull Context context, @NonNull AlarmClockConstants.Event event) {
         try {
             List<Action> actions = DatabaseHandler.getAlarmActions(event);
-            executeActions(context, actions);
+            SendResult result = executeActions(context, actions);
 
             HistoryHelper.add(context, new HistoryItem((long) -1, Calendar.getInstance(),
                     context.getString(R.string.alarm_clock_action_history_text, event.toString())));
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -450,6 +510,8 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
     /**
@@ -458,10 +520,11 @@ public class ActionHandler {
      * @param context   any suitable context
      * @param geofence  geofence
      * @param eventType event type
+     * @return result that is completed when all signals are sent, null if nothing was sent
      */
-    public static void execute(@NonNull Context context, @NonNull Geofence geofence, @NonNull Geofence.EventType eventType) {
+    public static SendResult execute(@NonNull Context context, @NonNull Geofence geofence, @NonNull Geofence.EventType eventType) {
         try {
-            executeActions(context, geofence.getActions(eventType));
+            SendResult result = executeActions(context, geofence.getActions(eventType));
 
             HistoryItem historyItem;
             if (Geofence.EventType.ENTER.equals(eventType)) {
@@ -476,6 +539,8 @@ public class ActionHandler {
             }
 
             HistoryHelper.add(context, historyItem);
+
+            return result;
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(context, e);
             try {
@@ -484,81 +549,149 @@ public class ActionHandler {
                 Log.e(e1);
             }
         }
+
+        return null;
     }
 
-    private static void executeActions(@NonNull Context context, @NonNull List<Action> actions) throws Exception {
+    private static SendResult executeActions(@NonNull Context context, @NonNull List<Action> actions) throws Exception {
+        List<SendResult> results = new ArrayList<>();
         for (Action action : actions) {
             switch (action.getActionType()) {
                 case Action.ACTION_TYPE_RECEIVER:
                     ReceiverAction receiverAction = (ReceiverAction) action;
-                    executeReceiverAction(context, receiverAction.getReceiver(), receiverAction.getButton());
+                    results.add(executeReceiverAction(context, receiverAction.getReceiver(), receiverAction.getButton(),
+                            NetworkPackage.Priority.AUTOMATION));
                     break;
                 case Action.ACTION_TYPE_ROOM:
                     RoomAction roomAction = (RoomAction) action;
-                    executeRoomAction(context, roomAction.getRoom(), roomAction.getButtonName());
+                    results.add(executeRoomAction(context, roomAction.getRoom(), roomAction.getButtonName(),
+                            NetworkPackage.Priority.AUTOMATION));
                     break;
                 case Action.ACTION_TYPE_SCENE:
                     SceneAction sceneAction = (SceneAction) action;
-                    executeScene(context, sceneAction.getScene());
+                    results.add(executeScene(context, sceneAction.getScene(), NetworkPackage.Priority.AUTOMATION));
                     break;
             }
         }
+
+        return SendResult.combine(results);
     }
 
-    private static NetworkPackage getNetworkPackage(Apartment apartment, Gateway gateway, Receiver receiver, Button button) throws Exception {
-        String signal = receiver.getSignal(gateway, button.getName());
-
-        if (gateway.hasValidLocalAddress() && !gateway.hasValidWanAddress()) {
-            // only valid local address
-            Log.d("Using local address");
-            return getLocalNetworkPackage(gateway, signal);
-        } else if (!gateway.hasValidLocalAddress() && gateway.hasValidWanAddress()) {
-            // only valid WAN address
-            Log.d("Using WAN address");
-            return getWanNetworkPackage(gateway, signal);
-        } else if (gateway.hasValidLocalAddress() && gateway.hasValidWanAddress()) {
-            // decide if local or WAN address should be used
-            if (NetworkHandler.isWifiConnected() || NetworkHandler.isEthernetConnected()) {
-                if (NetworkHandler.isInternetConnected()) {
-                    if (!gateway.getSsids().isEmpty()) {
-                        if (gateway.getSsids().contains(NetworkHandler.getConnectedWifiSSID())) {
-                            Log.d("Using local address, connected to SSID specified in Gateway");
-                            return getLocalNetworkPackage(gateway, signal);
-                        } else {
-                            Log.d("Using WAN address, connected to unspecified SSID");
-                            return getWanNetworkPackage(gateway, signal);
-                        }
-                    } else {
-                        if (apartment.getGeofence() != null &&
-                                apartment.getGeofence().isActive() &&
-                                Geofence.STATE_INSIDE.equals(apartment.getGeofence().getState())) {
-                            Log.d("Using local address, inside geofence");
-                            return getLocalNetworkPackage(gateway, signal);
-                        } else {
-                            Log.d("Using WAN address, outside or missing geofence data");
-                            return getWanNetworkPackage(gateway, signal);
-                        }
-                    }
+    /**
+     * Get all active Gateways of an Apartment that are not known to be down
+     * <p/>
+     * If every active Gateway is down, all of them are returned, as sending can't be worse than doing nothing.
+     *
+     * @param routingContext routing context of the Apartment
+     * @return list of Gateways
+     */
+    private static List<Gateway> getReachableGateways(RoutingContext routingContext) {
+        List<Gateway> activeGateways = new ArrayList<>();
+        List<Gateway> reachableGateways = new ArrayList<>();
+        for (Gateway gateway : routingContext.getAssociatedGateways()) {
+            if (gateway.isActive()) {
+                activeGateways.add(gateway);
+                RouteCache.Route route = null;
+                try {
+                    route = NetworkHandler.getRoute(routingContext, gateway);
+                } catch (Exception e) {
+                    Log.e(e);
+                }
+                if (NetworkHandler.isGatewayDown(gateway, route)) {
+                    Log.d("Skipping Gateway " + gateway.getName() + ", it is known to be down");
                 } else {
-                    Log.d("Using local address, no WAN (Internet connection) available");
-                    return getLocalNetworkPackage(gateway, signal);
+                    reachableGateways.add(gateway);
                 }
-            } else {
-                Log.d("Using WAN address, no WiFi or LAN available");
-                return getWanNetworkPackage(gateway, signal);
             }
+        }
+
+        if (reachableGateways.isEmpty()) {
+            return activeGateways;
         } else {
-            throw new Exception("Invalid Gateway configuration!");
+            return reachableGateways;
+        }
+    }
+
+    /**
+     * Send routed signals according to the Gateway policy of their Receiver
+     * <p/>
+     * Signals are sent once through their primary Gateway, unless the Receiver opted in to be sent through every
+     * compatible Gateway. If sending a signal with a fallback fails, it is sent again through its next Gateway.
+     *
+     * @param routingContext routing context of the Apartment the Gateways are associated with
+     * @param routedSignals  signals to send
+     * @param priority       priority of the signals
+     * @return result of the NetworkPackages sent right away
+     */
+    private static SendResult send(final RoutingContext routingContext, List<GatewayRouter.RoutedSignal> routedSignals,
+                                   final NetworkPackage.Priority priority) throws Exception {
+        List<NetworkPackage> networkPackages = new ArrayList<>();
+        final Map<NetworkPackage, GatewayRouter.RoutedSignal> signalsWithFallback = new IdentityHashMap<>();
+        for (GatewayRouter.RoutedSignal routedSignal : routedSignals) {
+            for (Gateway gateway : routedSignal.getGateways()) {
+                NetworkPackage networkPackage = getNetworkPackage(routingContext, gateway,
+                        routedSignal.getReceiver(), routedSignal.getButton(), priority);
+                networkPackages.add(networkPackage);
+                if (routedSignal.hasFallback()) {
+                    signalsWithFallback.put(networkPackage, routedSignal);
+                }
+            }
+        }
+
+        SendResult result = NetworkHandler.send(networkPackages);
+
+        if (!signalsWithFallback.isEmpty()) {
+            result.addOnCompleteListener(new SendResult.OnCompleteListener() {
+                @Override
+                public void onComplete(SendResult result) {
+                    List<GatewayRouter.RoutedSignal> fallbackSignals = new ArrayList<>();
+                    for (PackageOutcome outcome : result.getOutcomes()) {
+                        GatewayRouter.RoutedSignal routedSignal = signalsWithFallback.get(outcome.getNetworkPackage());
+                        if (routedSignal != null && outcome.getState() == PackageOutcome.State.FAILED) {
+                            Log.w("Sending through Gateway " + routedSignal.getPrimaryGateway().getName() +
+                                    " failed, trying next Gateway");
+                            fallbackSignals.add(routedSignal.getFallback());
+                        }
+                    }
+
+                    if (!fallbackSignals.isEmpty()) {
+                        try {
+                            send(routingContext, fallbackSignals, priority);
+                        } catch (Exception e) {
+                            Log.e("Error sending through fallback Gateway", e);
+                        }
+                    }
+                }
+            });
+        }
+
+        return result;
+    }
+
+    private static NetworkPackage getNetworkPackage(RoutingContext routingContext, Gateway gateway, Receiver receiver,
+                                                    Button button, NetworkPackage.Priority priority) throws Exception {
+        byte[] signal = SignalCache.getSignal(receiver, gateway, button);
+
+        switch (NetworkHandler.getRoute(routingContext, gateway)) {
+            case LOCAL:
+                return getLocalNetworkPackage(gateway, receiver, button, signal, priority);
+            case WAN:
+            default:
+                return getWanNetworkPackage(gateway, receiver, button, signal, priority);
         }
     }
 
-    private static NetworkPackage getLocalNetworkPackage(Gateway gateway, String signal) {
+    private static NetworkPackage getLocalNetworkPackage(Gateway gateway, Receiver receiver, Button button, byte[] signal,
+                                                         NetworkPackage.Priority priority) {
         return new NetworkPackage(gateway.getCommunicationType(),
-                gateway.getLocalHost(), gateway.getLocalPort(), signal, gateway.getTimeout());
+                gateway.getLocalHost(), gateway.getLocalPort(), signal, gateway.getTimeout(),
+                gateway.getId(), receiver.getId(), button.getId(), priority, gateway.getBurstSize());
     }
 
-    private static NetworkPackage getWanNetworkPackage(Gateway gateway, String signal) {
+    private static NetworkPackage getWanNetworkPackage(Gateway gateway, Receiver receiver, Button button, byte[] signal,
+                                                       NetworkPackage.Priority priority) {
         return new NetworkPackage(gateway.getCommunicationType(),
-                gateway.getWanHost(), gateway.getWanPort(), signal, gateway.getTimeout());
+                gateway.getWanHost(), gateway.getWanPort(), signal, gateway.getTimeout(),
+                gateway.getId(), receiver.getId(), button.getId(), priority, gateway.getBurstSize());
     }
 }
\ No newline at end of file
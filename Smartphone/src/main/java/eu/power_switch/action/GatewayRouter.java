@@ -0,0 +1,262 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.action;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.power_switch.network.NetworkHandler;
+import eu.power_switch.network.RouteCache;
+import eu.power_switch.network.RoutingContext;
+import eu.power_switch.obj.button.Button;
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.SignalCache;
+import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
+import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Chooses the Gateway(s) a Receiver signal is sent through
+ * <p/>
+ * Instead of sending every signal through every Gateway of an Apartment, each signal is sent once through the
+ * preferred Gateway of the Receiver, or the nearest Gateway that supports it if there is none.
+ * Sending to a Gateway succeeds even if its radio signal does not reach the Receiver, so Receivers can opt in to
+ * fall back to the next Gateway if sending fails, or to be sent through every compatible Gateway
+ * (see {@link Receiver.GatewayPolicy}).
+ * <p/>
+ * Gateways are ranked by:
+ * <ol>
+ * <li>the connected WiFi is one of the Gateway's SSIDs</li>
+ * <li>the Gateway is reached via its local address (see {@link RouteCache})</li>
+ * <li>the last measured round trip time</li>
+ * </ol>
+ * Whether a Receiver can be controlled through a Gateway is remembered in a compatibility matrix,
+ * so every pair is only checked once.
+ */
+public class GatewayRouter {
+
+    /**
+     * Compatibility matrix, key is built from Receiver and Gateway (see {@link #getCompatibilityKey(Receiver, Gateway)})
+     */
+    private static final ConcurrentHashMap<String, Boolean> compatibility = new ConcurrentHashMap<>();
+
+    /**
+     * Rank Gateways, nearest first
+     * <p/>
+     * Gateways that can not be reached at all (no valid local or WAN address) are removed.
+     *
+     * @param routingContext routing context of the Apartment the Gateways are associated with
+     * @param gateways       Gateways to rank
+     * @return ranked list of Gateways
+     */
+    @WorkerThread
+    @NonNull
+    static List<Gateway> rankGateways(@NonNull RoutingContext routingContext, @NonNull List<Gateway> gateways) {
+        String ssid = null;
+        try {
+            ssid = NetworkHandler.getConnectedWifiSSID();
+        } catch (Exception e) {
+            Log.e(e);
+        }
+
+        final Map<Gateway, Long> scores = new HashMap<>();
+        List<Gateway> rankedGateways = new ArrayList<>();
+        for (Gateway gateway : gateways) {
+            long score;
+            try {
+                score = NetworkHandler.getRoute(routingContext, gateway) == RouteCache.Route.LOCAL ? 0 : 2;
+            } catch (Exception e) {
+                Log.e("Gateway " + gateway.getName() + " is not reachable", e);
+                continue;
+            }
+            if (ssid == null || !gateway.getSsids().contains(ssid)) {
+                score += 4;
+            }
+
+            scores.put(gateway, score);
+            rankedGateways.add(gateway);
+        }
+
+        // stable sort keeps the original order of equally ranked Gateways
+        Collections.sort(rankedGateways, new Comparator<Gateway>() {
+            @Override
+            public int compare(Gateway lhs, Gateway rhs) {
+                int result = scores.get(lhs).compareTo(scores.get(rhs));
+                if (result != 0) {
+                    return result;
+                }
+
+                long lhsRoundTripTime = NetworkHandler.getGatewayRoundTripTime(lhs);
+                long rhsRoundTripTime = NetworkHandler.getGatewayRoundTripTime(rhs);
+                if (lhsRoundTripTime < 0 || rhsRoundTripTime < 0) {
+                    // unknown round trip times are ranked last
+                    return lhsRoundTripTime < 0 ? (rhsRoundTripTime < 0 ? 0 : 1) : -1;
+                }
+                return lhsRoundTripTime < rhsRoundTripTime ? -1 : (lhsRoundTripTime == rhsRoundTripTime ? 0 : 1);
+            }
+        });
+
+        return rankedGateways;
+    }
+
+    /**
+     * Route a signal to the compatible Gateways of a Receiver, its preferred Gateway first
+     *
+     * @param receiver       Receiver
+     * @param button         Button to activate
+     * @param rankedGateways Gateways ranked by {@link #rankGateways(RoutingContext, List)}
+     * @return routed signal
+     * @throws GatewayNotSupportedException if none of the Gateways supports the Receiver
+     * @throws ActionNotSupportedException  if the Receiver does not support the Button
+     */
+    @NonNull
+    static RoutedSignal route(@NonNull Receiver receiver, @NonNull Button button,
+                              @NonNull List<Gateway> rankedGateways)
+            throws GatewayNotSupportedException, ActionNotSupportedException {
+        List<Gateway> compatibleGateways = new ArrayList<>();
+        for (Gateway gateway : rankedGateways) {
+            if (isCompatible(receiver, button, gateway)) {
+                if (gateway.getId().equals(receiver.getPreferredGatewayId())) {
+                    compatibleGateways.add(0, gateway);
+                } else {
+                    compatibleGateways.add(gateway);
+                }
+            }
+        }
+
+        if (compatibleGateways.isEmpty()) {
+            throw new GatewayNotSupportedException();
+        }
+        return new RoutedSignal(receiver, button, compatibleGateways);
+    }
+
+    /**
+     * Check if a Receiver can be controlled through a Gateway
+     *
+     * @param receiver Receiver
+     * @param button   Button to activate
+     * @param gateway  Gateway
+     * @return true if compatible
+     * @throws ActionNotSupportedException if the Receiver does not support the Button
+     */
+    private static boolean isCompatible(Receiver receiver, Button button, Gateway gateway)
+            throws ActionNotSupportedException {
+        String key = getCompatibilityKey(receiver, gateway);
+        Boolean compatible = compatibility.get(key);
+        if (compatible != null) {
+            return compatible;
+        }
+
+        try {
+            if (SignalCache.getSignal(receiver, gateway, button) != null) {
+                compatibility.put(key, true);
+                return true;
+            } else {
+                // some Receivers return no signal for a missing action too, so this is not remembered
+                return false;
+            }
+        } catch (GatewayNotSupportedException e) {
+            Log.d("Gateway " + gateway.getName() + " does not support Receiver " + receiver.getName());
+            compatibility.put(key, false);
+            return false;
+        }
+    }
+
+    /**
+     * Get the key of a Receiver and Gateway pair in the compatibility matrix
+     * <p/>
+     * Models and types are part of the key, so an edited Receiver or Gateway is checked again.
+     */
+    private static String getCompatibilityKey(Receiver receiver, Gateway gateway) {
+        return receiver.getId() + "|" + receiver.getModel() + "|" + receiver.getType() + "|"
+                + gateway.getId() + "|" + gateway.getModel();
+    }
+
+    /**
+     * Forget all known compatibilities, called whenever Receivers or Gateways may have changed
+     */
+    public static void clear() {
+        compatibility.clear();
+    }
+
+    /**
+     * A signal for a Receiver with the Gateways it can be sent through, the primary Gateway first
+     */
+    static class RoutedSignal {
+
+        private final Receiver receiver;
+        private final Button button;
+        private final List<Gateway> gateways;
+
+        private RoutedSignal(Receiver receiver, Button button, List<Gateway> gateways) {
+            this.receiver = receiver;
+            this.button = button;
+            this.gateways = gateways;
+        }
+
+        Receiver getReceiver() {
+            return receiver;
+        }
+
+        Button getButton() {
+            return button;
+        }
+
+        /**
+         * @return preferred or nearest compatible Gateway
+         */
+        Gateway getPrimaryGateway() {
+            return gateways.get(0);
+        }
+
+        /**
+         * @return Gateways the signal is sent through right away, according to the Gateway policy of the Receiver
+         */
+        List<Gateway> getGateways() {
+            if (receiver.getGatewayPolicy() == Receiver.GatewayPolicy.ALL) {
+                return gateways;
+            } else {
+                return gateways.subList(0, 1);
+            }
+        }
+
+        /**
+         * @return true if there is another Gateway to try if sending through the primary one fails
+         */
+        boolean hasFallback() {
+            return receiver.getGatewayPolicy() == Receiver.GatewayPolicy.FALLBACK && gateways.size() > 1;
+        }
+
+        /**
+         * @return the same signal routed to the next fallback Gateway
+         */
+        RoutedSignal getFallback() {
+            return new RoutedSignal(receiver, button, gateways.subList(1, gateways.size()));
+        }
+    }
+}
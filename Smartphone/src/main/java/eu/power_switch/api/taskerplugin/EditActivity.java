@@ -63,6 +63,11 @@ import eu.power_switch.shared.log.Log;
  */
 public class EditActivity extends AbstractPluginActivity {
 
+    /**
+     * Time Tasker waits for an action to finish in milliseconds
+     */
+    private static final int SYNCHRONOUS_EXECUTION_TIMEOUT = 15000;
+
     private static final Comparator<String> compareToIgnoreCase = new Comparator<String>() {
         @Override
         public int compare(String lhs, String rhs) {
@@ -850,6 +855,11 @@ public class EditActivity extends AbstractPluginActivity {
             resultIntent.putExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE, resultBundle);
             resultIntent.putExtra(com.twofortyfouram.locale.Intent.EXTRA_STRING_BLURB, blurb);
 
+            if (TaskerPlugin.Setting.hostSupportsSynchronousExecution(getIntent().getExtras())) {
+                // wait until all signals are sent before continuing the task
+                TaskerPlugin.Setting.requestTimeoutMS(resultIntent, SYNCHRONOUS_EXECUTION_TIMEOUT);
+            }
+
             setResult(RESULT_OK, resultIntent);
         }
 
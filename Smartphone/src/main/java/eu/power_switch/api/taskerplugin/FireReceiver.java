@@ -29,6 +29,7 @@ import java.util.NoSuchElementException;
 import eu.power_switch.R;
 import eu.power_switch.action.ActionHandler;
 import eu.power_switch.database.handler.DatabaseHandler;
+import eu.power_switch.network.SendResult;
 import eu.power_switch.obj.Apartment;
 import eu.power_switch.obj.Room;
 import eu.power_switch.obj.Scene;
@@ -45,17 +46,55 @@ import eu.power_switch.shared.log.Log;
 public class FireReceiver extends BroadcastReceiver {
 
     @Override
-    public void onReceive(Context context, Intent intent) {
+    public void onReceive(Context context, final Intent intent) {
         Log.d(FireReceiver.class, intent);
 
         if (com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING.equals(intent.getAction())) {
             // no validation check done here,
             // because the intent contains more extras (added by tasker) than before
-            parseActionIntent(context, intent);
+            SendResult result = parseActionIntent(context, intent);
+
+            if (isOrderedBroadcast()) {
+                reportResult(context, intent, result);
+            }
+        }
+    }
+
+    /**
+     * Report the outcome of an action back to Tasker (synchronous execution)
+     *
+     * @param context any suitable context
+     * @param intent  intent received from Tasker
+     * @param result  result of the executed action, null if nothing was sent
+     */
+    private void reportResult(Context context, final Intent intent, SendResult result) {
+        if (result == null) {
+            setResultCode(TaskerPlugin.Setting.RESULT_CODE_FAILED);
+        } else if (result.isDone()) {
+            setResultCode(getResultCode(result));
+        } else {
+            setResultCode(TaskerPlugin.Setting.RESULT_CODE_PENDING);
+
+            final Context applicationContext = context.getApplicationContext();
+            result.addOnCompleteListener(new SendResult.OnCompleteListener() {
+                @Override
+                public void onComplete(SendResult result) {
+                    Log.d(FireReceiver.class, result);
+                    TaskerPlugin.Setting.signalFinish(applicationContext, intent, getResultCode(result), null);
+                }
+            });
         }
     }
 
-    private void parseActionIntent(Context context, Intent intent) {
+    private static int getResultCode(SendResult result) {
+        if (result.isSuccessful()) {
+            return TaskerPlugin.Setting.RESULT_CODE_OK;
+        } else {
+            return TaskerPlugin.Setting.RESULT_CODE_FAILED;
+        }
+    }
+
+    private SendResult parseActionIntent(Context context, Intent intent) {
         try {
             Bundle extras = intent.getExtras();
 
@@ -69,7 +108,7 @@ public class FireReceiver extends BroadcastReceiver {
                 Receiver receiver = room.getReceiverCaseInsensitive(extras.getString(ApiConstants.KEY_RECEIVER).trim());
                 Button button = receiver.getButtonCaseInsensitive(extras.getString(ApiConstants.KEY_BUTTON).trim());
 
-                ActionHandler.execute(context, receiver, button);
+                return ActionHandler.execute(context, receiver, button);
             } else if (extras.containsKey(ApiConstants.KEY_APARTMENT) &&
                     extras.containsKey(ApiConstants.KEY_ROOM) &&
                     extras.containsKey(ApiConstants.KEY_BUTTON)) {
@@ -78,14 +117,14 @@ public class FireReceiver extends BroadcastReceiver {
                 Room room = apartment.getRoomCaseInsensitive(extras.getString(ApiConstants.KEY_ROOM).trim());
                 String buttonName = extras.getString(ApiConstants.KEY_BUTTON).trim();
 
-                ActionHandler.execute(context, room, buttonName);
+                return ActionHandler.execute(context, room, buttonName);
             } else if (extras.containsKey(ApiConstants.KEY_APARTMENT) &&
                     extras.containsKey(ApiConstants.KEY_SCENE)) {
 
                 Apartment apartment = DatabaseHandler.getApartmentCaseInsensitive(extras.getString(ApiConstants.KEY_APARTMENT).trim());
                 Scene scene = apartment.getSceneCaseInsensitive(extras.getString(ApiConstants.KEY_SCENE).trim());
 
-                ActionHandler.execute(context, scene);
+                return ActionHandler.execute(context, scene);
             } else {
                 Toast.makeText(context, context.getString(R.string.invalid_arguments), Toast.LENGTH_LONG).show();
             }
@@ -96,5 +135,7 @@ public class FireReceiver extends BroadcastReceiver {
             Log.e("Error parsing intent!", e);
             Toast.makeText(context, context.getString(R.string.error_parsing_intent, e.getMessage()), Toast.LENGTH_LONG).show();
         }
+
+        return null;
     }
 }
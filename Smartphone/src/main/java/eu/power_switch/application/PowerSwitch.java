@@ -31,6 +31,7 @@ import android.support.multidex.MultiDexApplication;
 import org.apache.log4j.LogManager;
 
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -40,6 +41,7 @@ import eu.power_switch.gui.StatusMessageHandler;
 import eu.power_switch.network.NetworkHandler;
 import eu.power_switch.obj.Apartment;
 import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.obj.receiver.SignalCache;
 import eu.power_switch.settings.DeveloperPreferencesHandler;
 import eu.power_switch.settings.SmartphonePreferencesHandler;
 import eu.power_switch.shared.log.Log;
@@ -189,9 +191,13 @@ public class PowerSwitch extends MultiDexApplication {
                         Log.d(geofence.toString());
                     }
 
-                    for (Gateway gateway : DatabaseHandler.getAllGateways()) {
+                    List<Gateway> gateways = DatabaseHandler.getAllGateways();
+                    for (Gateway gateway : gateways) {
                         Log.d(gateway.toString() + "\n");
                     }
+
+                    // compute all signals now, so executing an action doesn't have to
+                    SignalCache.warmUp(DatabaseHandler.getAllReceivers(), gateways);
                 } catch (Exception e) {
                     Log.e(e);
                 }
@@ -201,6 +207,7 @@ public class PowerSwitch extends MultiDexApplication {
 
     @Override
     public void onTerminate() {
+        NetworkHandler.shutdown();
         LogManager.shutdown();
 
         super.onTerminate();
@@ -33,6 +33,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
+import eu.power_switch.database.handler.DatabaseHandler;
 import eu.power_switch.settings.SmartphonePreferencesHandler;
 import eu.power_switch.shared.exception.backup.BackupAlreadyExistsException;
 import eu.power_switch.shared.exception.backup.BackupNotFoundException;
@@ -136,13 +137,18 @@ public class BackupHandler {
             }
 
             try {
-                // copy database
-                src = new File(context.getFilesDir().getParent() + File.separator + "databases");
-                dst = new File(SmartphonePreferencesHandler.getBackupPath() + File.separator
+                // copy database, closing the connection moves all changes from the write-ahead log into the file
+                final File databaseSrc = new File(context.getFilesDir().getParent() + File.separator + "databases");
+                final File databaseDst = new File(SmartphonePreferencesHandler.getBackupPath() + File.separator
                         + name + File.separator + "databases");
-                if (src.exists()) {
-                    copyDirectory(src, dst);
-                }
+                DatabaseHandler.runWithClosedConnection(new DatabaseHandler.ClosedConnectionTask() {
+                    @Override
+                    public void run() throws Exception {
+                        if (databaseSrc.exists()) {
+                            copyDirectory(databaseSrc, databaseDst);
+                        }
+                    }
+                });
 
                 // copy preferences
                 src = new File(context.getFilesDir().getParent() + File.separator + "shared_prefs");
@@ -215,19 +221,27 @@ public class BackupHandler {
         if (src.exists()) {
             try {
                 // create destination path object
-                File dst = new File(context.getFilesDir().getParent());
+                final File dst = new File(context.getFilesDir().getParent());
+                final File backupSrc = src;
 
-                // delete existing files
-                for (File fileOrFolder : dst.listFiles()) {
-                    if (fileOrFolder.getPath().equals(context.getFilesDir().getParent() + File.separator
-                            + "shared_prefs")
-                            || fileOrFolder.getPath().equals(context.getFilesDir().getParent() + File.separator +
-                            "databases")) {
-                        deleteRecursive(fileOrFolder);
+                // the database files must not be replaced while they are in use
+                DatabaseHandler.runWithClosedConnection(new DatabaseHandler.ClosedConnectionTask() {
+                    @Override
+                    public void run() throws Exception {
+                        // delete existing files
+                        for (File fileOrFolder : dst.listFiles()) {
+                            if (fileOrFolder.getPath().equals(context.getFilesDir().getParent() + File.separator
+                                    + "shared_prefs")
+                                    || fileOrFolder.getPath().equals(context.getFilesDir().getParent() +
+                                    File.separator + "databases")) {
+                                deleteRecursive(fileOrFolder);
+                            }
+                        }
+                        // copy directory to system folder
+                        copyDirectory(backupSrc, dst);
+                        DatabaseHandler.invalidateCache();
                     }
-                }
-                // copy directory to system folder
-                copyDirectory(src, dst);
+                });
             } catch (Exception e) {
                 Log.e(e);
                 throw new RestoreBackupException(e);
@@ -35,6 +35,7 @@ import eu.power_switch.database.table.apartment.ApartmentGeofenceRelationTable;
 import eu.power_switch.database.table.apartment.ApartmentTable;
 import eu.power_switch.database.table.gateway.GatewaySsidTable;
 import eu.power_switch.database.table.gateway.GatewayTable;
+import eu.power_switch.database.table.generation.GenerationTable;
 import eu.power_switch.database.table.geofence.GeofenceActionTable;
 import eu.power_switch.database.table.geofence.GeofenceTable;
 import eu.power_switch.database.table.history.HistoryTable;
@@ -60,7 +61,7 @@ import eu.power_switch.gui.StatusMessageHandler;
 public class Database extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "PSdatabase.db";
-    private static final int DATABASE_VERSION = 17;
+    private static final int DATABASE_VERSION = 22;
 
     private Context context;
 
@@ -78,8 +79,6 @@ public class Database extends SQLiteOpenHelper {
             GatewaySsidTable.onCreate(db);
 
             ReceiverTable.onCreate(db);
-            MasterSlaveTable.onCreate(db);
-            DipTable.onCreate(db);
             AutoPairTable.onCreate(db);
             UniversalButtonTable.onCreate(db);
 
@@ -118,6 +117,7 @@ public class Database extends SQLiteOpenHelper {
             RoomWidgetTable.onCreate(db);
             SceneWidgetTable.onCreate(db);
 
+            GenerationTable.onCreate(db);
 
             db.setTransactionSuccessful();
         } catch (Exception e) {
@@ -155,6 +155,7 @@ public class Database extends SQLiteOpenHelper {
             SceneItemTable.onUpgrade(db, oldVersion, newVersion);
 
             ReceiverTable.onUpgrade(db, oldVersion, newVersion);
+            // after ReceiverTable, which moves their content
             MasterSlaveTable.onUpgrade(db, oldVersion, newVersion);
             DipTable.onUpgrade(db, oldVersion, newVersion);
             AutoPairTable.onUpgrade(db, oldVersion, newVersion);
@@ -186,6 +187,8 @@ public class Database extends SQLiteOpenHelper {
 
             HistoryTable.onUpgrade(db, oldVersion, newVersion);
 
+            GenerationTable.onUpgrade(db, oldVersion, newVersion);
+
             switch (oldVersion) {
                 case 1:
                     db.execSQL("DROP TABLE IF EXISTS " + "widgets");
@@ -297,7 +300,15 @@ public class Database extends SQLiteOpenHelper {
                 case 10:
                 case 11:
                 case 12:
-                    break;
+                case 13:
+                case 14:
+                case 15:
+                case 16:
+                case 17:
+                case 18:
+                case 19:
+                    // collect statistics for the query planner, after all tables created their indices
+                    db.execSQL("ANALYZE;");
             }
 
             db.setTransactionSuccessful();
@@ -21,6 +21,7 @@ package eu.power_switch.database.handler;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -30,13 +31,11 @@ import java.util.NoSuchElementException;
 import eu.power_switch.database.table.apartment.ApartmentGatewayRelationTable;
 import eu.power_switch.database.table.apartment.ApartmentGeofenceRelationTable;
 import eu.power_switch.database.table.apartment.ApartmentTable;
-import eu.power_switch.google_play_services.geofence.Geofence;
 import eu.power_switch.obj.Apartment;
 import eu.power_switch.obj.Room;
 import eu.power_switch.obj.Scene;
 import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.receiver.Receiver;
-import eu.power_switch.settings.SmartphonePreferencesHandler;
 
 /**
  * Provides database methods for managing Apartments
@@ -133,20 +132,7 @@ abstract class ApartmentHandler {
      */
     @NonNull
     protected static Apartment get(String name) throws Exception {
-        Apartment apartment = null;
-        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME,
-                ApartmentTable.ALL_COLUMNS, ApartmentTable.COLUMN_NAME + "=='" + name + "'",
-                null, null, null, null);
-
-        if (cursor.moveToFirst()) {
-            apartment = dbToApartment(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(name);
-        }
-
-        cursor.close();
-        return apartment;
+        return getSingle(ApartmentTable.COLUMN_NAME + "=='" + name + "'", name);
     }
 
     /**
@@ -157,19 +143,7 @@ abstract class ApartmentHandler {
      */
     @NonNull
     protected static Apartment getCaseInsensitive(String name) throws Exception {
-        Apartment apartment = null;
-        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME, ApartmentTable.ALL_COLUMNS, ApartmentTable.COLUMN_NAME + "=='" +
-                name + "' COLLATE NOCASE", null, null, null, null);
-
-        if (cursor.moveToFirst()) {
-            apartment = dbToApartment(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(name);
-        }
-
-        cursor.close();
-        return apartment;
+        return getSingle(ApartmentTable.COLUMN_NAME + "=='" + name + "' COLLATE NOCASE", name);
     }
 
     /**
@@ -180,20 +154,23 @@ abstract class ApartmentHandler {
      */
     @NonNull
     protected static Apartment get(Long id) throws Exception {
-        Apartment apartment = null;
-        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME,
-                ApartmentTable.ALL_COLUMNS, ApartmentTable.COLUMN_ID + "==" + id,
-                null, null, null, null);
+        return getSingle(ApartmentTable.COLUMN_ID + "==" + id, String.valueOf(id));
+    }
 
-        if (cursor.moveToFirst()) {
-            apartment = dbToApartment(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(String.valueOf(id));
+    /**
+     * Gets the first Apartment matching a selection from Database
+     *
+     * @param selection   WHERE clause
+     * @param description description of the Apartment used if it does not exist
+     * @return Apartment
+     */
+    @NonNull
+    private static Apartment getSingle(String selection, String description) throws Exception {
+        List<Apartment> apartments = new GraphLoader().loadApartments(selection);
+        if (apartments.isEmpty()) {
+            throw new NoSuchElementException(description);
         }
-
-        cursor.close();
-        return apartment;
+        return apartments.get(0);
     }
 
     /**
@@ -274,87 +251,56 @@ abstract class ApartmentHandler {
     }
 
     /**
-     * Get Name of all Apartment
+     * Get the IDs of all Apartments associated with a Geofence
      *
-     * @return List of Apartment names
+     * @param geofenceId ID of Geofence, null for any Geofence
+     * @return list of Apartment IDs
      */
-    public static ArrayList<String> getAllNames() throws Exception {
-        ArrayList<String> apartmentNames = new ArrayList<>();
+    protected static ArrayList<Long> getIdsByGeofence(@Nullable Long geofenceId) throws Exception {
+        ArrayList<Long> apartmentIds = new ArrayList<>();
 
-        String[] columns = {ApartmentTable.COLUMN_NAME};
-        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME, columns, null, null, null, null, null);
+        String[] columns = {ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID};
+        String selection = geofenceId != null ? ApartmentGeofenceRelationTable.COLUMN_GEOFENCE_ID + "=" + geofenceId : null;
+        Cursor cursor = DatabaseHandler.database.query(true, ApartmentGeofenceRelationTable.TABLE_NAME, columns,
+                selection, null, null, null, null, null);
         cursor.moveToFirst();
 
         while (!cursor.isAfterLast()) {
-            apartmentNames.add(cursor.getString(0));
+            apartmentIds.add(cursor.getLong(0));
             cursor.moveToNext();
         }
-
         cursor.close();
-        return apartmentNames;
+        return apartmentIds;
     }
 
     /**
-     * Gets all Apartments from Database
+     * Get Name of all Apartment
      *
-     * @return List of Apartments
+     * @return List of Apartment names
      */
-    protected static List<Apartment> getAll() throws Exception {
-        List<Apartment> apartments = new ArrayList<>();
-        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME,
-                ApartmentTable.ALL_COLUMNS, null, null, null, null, null);
+    public static ArrayList<String> getAllNames() throws Exception {
+        ArrayList<String> apartmentNames = new ArrayList<>();
+
+        String[] columns = {ApartmentTable.COLUMN_NAME};
+        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME, columns, null, null, null, null, null);
         cursor.moveToFirst();
 
         while (!cursor.isAfterLast()) {
-            Apartment apartment = dbToApartment(cursor);
-            apartments.add(apartment);
+            apartmentNames.add(cursor.getString(0));
             cursor.moveToNext();
         }
-        cursor.close();
-        return apartments;
-    }
 
-    private static Long getAssociatedGeofenceId(Long apartmentId) throws Exception {
-        String[] columns = {ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID,
-                ApartmentGeofenceRelationTable.COLUMN_GEOFENCE_ID};
-        Cursor cursor = DatabaseHandler.database.query(ApartmentGeofenceRelationTable.TABLE_NAME,
-                columns, ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID + "=" + apartmentId,
-                null, null, null, null);
-        if (!cursor.moveToFirst()) {
-            return null;
-        }
-
-        Long geofenceId = cursor.getLong(1);
         cursor.close();
-        return geofenceId;
+        return apartmentNames;
     }
 
     /**
-     * Get Gateways that are associated with an Apartment
+     * Gets all Apartments from Database
      *
-     * @param apartmentId ID of Apartment
-     * @return List of Gateways
+     * @return List of Apartments
      */
-    private static LinkedList<Gateway> getAssociatedGateways(Long apartmentId) throws Exception {
-        LinkedList<Gateway> associatedGateways = new LinkedList<>();
-
-        String[] columns = {
-                ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID,
-                ApartmentGatewayRelationTable.COLUMN_GATEWAY_ID
-        };
-        Cursor cursor = DatabaseHandler.database.query(ApartmentGatewayRelationTable.TABLE_NAME, columns,
-                ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID + "==" + apartmentId, null, null, null, null);
-        cursor.moveToFirst();
-
-        while (!cursor.isAfterLast()) {
-            Long gatewayId = cursor.getLong(1);
-            Gateway gateway = GatewayHandler.get(gatewayId);
-            associatedGateways.add(gateway);
-            cursor.moveToNext();
-        }
-
-        cursor.close();
-        return associatedGateways;
+    protected static List<Apartment> getAll() throws Exception {
+        return new GraphLoader().loadApartments(null);
     }
 
     /**
@@ -383,25 +329,4 @@ abstract class ApartmentHandler {
         DatabaseHandler.database.delete(ApartmentGatewayRelationTable.TABLE_NAME,
                 ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID + "==" + apartmentId, null);
     }
-
-    /**
-     * Creates a Apartment Object out of Database information
-     *
-     * @param c cursor pointing to a Apartment database entry
-     * @return Apartment
-     */
-    private static Apartment dbToApartment(Cursor c) throws Exception {
-        Long apartmentId = c.getLong(0);
-        String name = c.getString(1);
-        LinkedList<Room> rooms = RoomHandler.getByApartment(apartmentId);
-        LinkedList<Scene> scenes = SceneHandler.getByApartment(apartmentId);
-        LinkedList<Gateway> gateways = getAssociatedGateways(apartmentId);
-
-        Geofence geofence = GeofenceHandler.get(getAssociatedGeofenceId(apartmentId));
-
-        boolean isActive = SmartphonePreferencesHandler.getCurrentApartmentId().equals(apartmentId);
-
-        Apartment apartment = new Apartment(apartmentId, isActive, name, rooms, scenes, gateways, geofence);
-        return apartment;
-    }
 }
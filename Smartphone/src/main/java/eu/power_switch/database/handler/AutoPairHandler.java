@@ -21,6 +21,8 @@ package eu.power_switch.database.handler;
 import android.content.ContentValues;
 import android.database.Cursor;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import eu.power_switch.database.table.receiver.AutoPairTable;
@@ -84,4 +86,26 @@ abstract class AutoPairHandler {
         cursor.close();
         return seed;
     }
+
+    /**
+     * Returns the seeds of a set of AutoPairReceivers.
+     *
+     * @param receiverIds SQL selecting the IDs of the receivers (e.g. a sub query).
+     * @return Map <Receiver ID> -> <Seed>
+     */
+    protected static Map<Long, Long> getSeeds(String receiverIds) throws Exception {
+        Map<Long, Long> seeds = new HashMap<>();
+        String[] columns = {AutoPairTable.COLUMN_RECEIVER_ID, AutoPairTable.COLUMN_SEED};
+        Cursor cursor = DatabaseHandler.database.query(AutoPairTable.TABLE_NAME, columns,
+                AutoPairTable.COLUMN_RECEIVER_ID + " IN (" + receiverIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            seeds.put(cursor.getLong(0), cursor.getLong(1));
+            cursor.moveToNext();
+        }
+
+        cursor.close();
+        return seeds;
+    }
 }
@@ -19,7 +19,10 @@
 package eu.power_switch.database.handler;
 
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.WorkerThread;
@@ -28,13 +31,15 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import eu.power_switch.action.Action;
+import eu.power_switch.action.GatewayRouter;
 import eu.power_switch.database.Database;
+import eu.power_switch.database.table.generation.GenerationTable;
 import eu.power_switch.google_play_services.geofence.Geofence;
 import eu.power_switch.history.HistoryItem;
+import eu.power_switch.network.RoutingContext;
 import eu.power_switch.obj.Apartment;
 import eu.power_switch.obj.Room;
 import eu.power_switch.obj.Scene;
@@ -42,6 +47,7 @@ import eu.power_switch.obj.UniversalButton;
 import eu.power_switch.obj.button.Button;
 import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.SignalCache;
 import eu.power_switch.phone.call.CallEvent;
 import eu.power_switch.shared.constants.AlarmClockConstants;
 import eu.power_switch.shared.constants.SleepAsAndroidConstants;
@@ -79,12 +85,41 @@ public final class DatabaseHandler {
     protected static Database dbHelper;
     /**
      * Database Object
+     * <p/>
+     * One long-lived connection in write-ahead-log mode, opened on first access.
+     * SQLiteDatabase pools the underlying connections itself: reads of different threads run in parallel,
+     * even while another thread is inside a write transaction, writes are serialized.
+     */
+    protected static volatile SQLiteDatabase database;
+    /**
+     * Guards the lifecycle of the connection
+     * <p/>
+     * Every read or write scope holds the shared (read) lock, so scopes never block each other here.
+     * Closing the connection (see {@link #closeConnection()}) needs the exclusive (write) lock
+     * and waits until all running scopes are finished.
+     */
+    private static ReentrantReadWriteLock connectionLock;
+    /**
+     * Stack of open scopes of the current thread, true for a write scope (transaction)
      */
-    protected static SQLiteDatabase database;
+    private static final ThreadLocal<LinkedList<Boolean>> scopes = new ThreadLocal<LinkedList<Boolean>>() {
+        @Override
+        protected LinkedList<Boolean> initialValue() {
+            return new LinkedList<>();
+        }
+    };
+    /**
+     * Outermost write scope of the current thread, null if there is none
+     */
+    private static final ThreadLocal<WriteScope> writeScope = new ThreadLocal<>();
     /**
-     * Lock Object to monitor and prevent parallel database access
+     * Notified by every process after changing the Database, see {@link #notifyDatabaseChanged()}
      */
-    private static Lock lock;
+    private static Uri changeUri;
+    /**
+     * Marks the cache for a check of the Database generation when another process changed the Database
+     */
+    private static ContentObserver changeObserver;
 
     /**
      * Private Constructor
@@ -110,56 +145,290 @@ public final class DatabaseHandler {
         }
         Log.d(DatabaseHandler.class, "Init Database Handler...");
 
-        lock = new ReentrantLock();
+        connectionLock = new ReentrantReadWriteLock();
 
         DatabaseHandler.context = context;
         dbHelper = new Database(context);
+
+        changeUri = Uri.parse("content://" + context.getPackageName() + ".database/generation");
+        changeObserver = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                ModelCache.markDatabaseChanged();
+            }
+        };
+        context.getContentResolver().registerContentObserver(changeUri, false, changeObserver);
+    }
+
+    /**
+     * Get the Database connection, open it if necessary
+     * <p/>
+     * Must only be called while holding the shared lock.
+     */
+    private static SQLiteDatabase getDatabase() {
+        SQLiteDatabase db = database;
+        if (db == null) {
+            synchronized (DatabaseHandler.class) {
+                db = database;
+                if (db == null) {
+                    db = dbHelper.getWritableDatabase();
+                    if (!db.enableWriteAheadLogging()) {
+                        Log.w("Write-ahead logging is not available, reads will block on writes");
+                    }
+                    database = db;
+                }
+            }
+        }
+        return db;
     }
 
     /**
-     * Open Database for read-only access
+     * Begin a read scope
+     * <p/>
+     * Must be ended with {@link #close()}. Read scopes of different threads run in parallel.
      */
-    synchronized private static void openReadable() throws Exception {
-        lock.lock();
+    private static void openReadable() throws Exception {
+        connectionLock.readLock().lock();
         try {
-            database = dbHelper.getReadableDatabase();
+            getDatabase();
+            scopes.get().push(false);
         } catch (Exception e) {
             Log.e("Error getting read-only Database", e);
-            lock.unlock();
+            connectionLock.readLock().unlock();
             throw e;
         }
     }
 
     /**
-     * Open Database for read-write access
-     */
-    synchronized private static void openWritable() throws Exception {
-        lock.lock();
-        try {
-            database = dbHelper.getWritableDatabase();
-            database.beginTransaction();
+     * Begin a write scope, which is a transaction
+     * <p/>
+     * Must be ended with {@link #close()}, changes are only committed if
+     * {@link SQLiteDatabase#setTransactionSuccessful()} was called before.
+     * Write scopes can be nested, they are committed together with the outermost one.
+     * The outermost write scope increments the generation of the Database (see {@link GenerationTable})
+     * and applies the changes collected by {@link #stage()} to the cache after it was committed.
+     */
+    private static void openWritable() throws Exception {
+        connectionLock.readLock().lock();
+        try {
+            SQLiteDatabase db = getDatabase();
+            if (writeScope.get() == null) {
+                WriteScope scope = new WriteScope();
+                // IMMEDIATE transaction, readers are not blocked in write-ahead-log mode
+                db.beginTransactionWithListenerNonExclusive(scope);
+                try {
+                    // committed together with the changes, so other processes notice them
+                    GenerationTable.increment(db);
+                    scope.generation = GenerationTable.get(db);
+                } catch (Exception e) {
+                    db.endTransaction();
+                    throw e;
+                }
+                writeScope.set(scope);
+            } else {
+                db.beginTransactionNonExclusive();
+            }
+            scopes.get().push(true);
         } catch (Exception e) {
             Log.e("Error getting writable Database", e);
-            lock.unlock();
+            connectionLock.readLock().unlock();
             throw e;
         }
     }
 
     /**
-     * Close Database
+     * End the current read or write scope
+     * <p/>
+     * The connection is kept open.
      */
     private static void close() {
         try {
-            if (database.inTransaction()) {
-                database.endTransaction();
+            if (scopes.get().pop()) {
+                if (scopes.get().contains(true)) {
+                    database.endTransaction();
+                } else {
+                    endWriteScope();
+                }
             }
-            if (database.isOpen()) {
+        } catch (Exception e) {
+            Log.e("Error ending Database transaction", e);
+        } finally {
+            connectionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * End the outermost write scope and apply its changes to the cache if it was committed
+     */
+    private static void endWriteScope() {
+        WriteScope scope = writeScope.get();
+        writeScope.remove();
+        try {
+            database.endTransaction();
+        } catch (RuntimeException e) {
+            // unknown whether the changes were committed
+            ModelCache.invalidateAll();
+            throw e;
+        }
+        if (scope.committed) {
+            ModelCache.apply(scope.generation, scope.update);
+            notifyDatabaseChanged();
+        }
+    }
+
+    /**
+     * Get the changes of the current write scope, which are applied to the cache after it was committed
+     * <p/>
+     * Must only be called inside a write scope, after the changed objects were written.
+     *
+     * @return changes of the outermost write scope
+     */
+    private static ModelCache.Update stage() {
+        return writeScope.get().update;
+    }
+
+    /**
+     * Add the current state of Apartments to the changes of the current write scope
+     *
+     * @param apartmentIds IDs of Apartments
+     */
+    private static void stageApartments(List<Long> apartmentIds) throws Exception {
+        for (Long apartmentId : apartmentIds) {
+            stage().put(ApartmentHandler.get(apartmentId));
+        }
+    }
+
+    /**
+     * Tell other processes that the Database was changed, so they check their cache
+     */
+    private static void notifyDatabaseChanged() {
+        try {
+            // this process is not notified itself, its cache is already up to date
+            context.getContentResolver().notifyChange(changeUri, changeObserver);
+        } catch (Exception e) {
+            Log.e("Error notifying about Database change", e);
+        }
+    }
+
+    /**
+     * Close the Database connection
+     * <p/>
+     * Waits until all running read and write scopes are finished, which also moves all changes from the
+     * write-ahead log into the database file. The connection is opened again on the next access.
+     * Use {@link #runWithClosedConnection(ClosedConnectionTask)} to copy or replace the database files
+     * (e.g. for backups), so the connection is not opened again while doing so.
+     * Must not be called inside a read or write scope.
+     */
+    @WorkerThread
+    public static void closeConnection() {
+        connectionLock.writeLock().lock();
+        try {
+            closeDatabase();
+        } finally {
+            connectionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close the Database connection and run a task before any other thread can open it again
+     * <p/>
+     * All read and write scopes of other threads wait until the task is finished, so the task can safely copy
+     * or replace the database files. The task must not access the Database itself.
+     * Must not be called inside a read or write scope.
+     *
+     * @param task task to run while the connection is closed
+     * @throws Exception if the task failed
+     */
+    @WorkerThread
+    public static void runWithClosedConnection(@NonNull ClosedConnectionTask task) throws Exception {
+        connectionLock.writeLock().lock();
+        try {
+            closeDatabase();
+            task.run();
+        } finally {
+            connectionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close the Database connection, must be called while holding the write lock
+     */
+    private static void closeDatabase() {
+        try {
+            if (database != null) {
                 dbHelper.close();
+                database = null;
             }
         } catch (Exception e) {
             Log.e("Error closing Database", e);
+        }
+    }
+
+    /**
+     * Get the current generation of the cache
+     * <p/>
+     * The generation of the Database is only read if another process reported a change since the last check.
+     *
+     * @return generation of the cache (see {@link ModelCache#getGeneration()})
+     */
+    private static long getCacheGeneration() throws Exception {
+        long databaseChanges = ModelCache.getDatabaseChanges();
+        if (!ModelCache.needsDatabaseCheck(databaseChanges)) {
+            return ModelCache.getGeneration();
+        }
+        openReadable();
+        try {
+            return ModelCache.getGeneration(GenerationTable.get(database), databaseChanges);
+        } catch (Exception e) {
+            Log.e(e);
+            throw e;
         } finally {
-            lock.unlock();
+            close();
+        }
+    }
+
+    /**
+     * Remove all cached Apartments, Rooms, Scenes, Receivers and Gateways and everything derived from them
+     * <p/>
+     * Changes made through DatabaseHandler update the cache themselves. Only needs to be called if the
+     * Database was changed without using DatabaseHandler, e.g. by restoring a backup.
+     */
+    public static void invalidateCache() {
+        ModelCache.invalidateAll();
+        ModelCache.markDatabaseChanged();
+        SignalCache.invalidateAll();
+        GatewayRouter.clear();
+    }
+
+    /**
+     * Outermost write scope of a thread
+     */
+    private static final class WriteScope implements SQLiteTransactionListener {
+
+        /**
+         * Changes to apply to the cache after the transaction was committed
+         */
+        final ModelCache.Update update = new ModelCache.Update();
+        /**
+         * Generation of the Database written by this scope
+         */
+        long generation;
+        /**
+         * True if the transaction was committed
+         */
+        boolean committed;
+
+        @Override
+        public void onBegin() {
+        }
+
+        @Override
+        public void onCommit() {
+            committed = true;
+        }
+
+        @Override
+        public void onRollback() {
         }
     }
 
@@ -181,6 +450,7 @@ public final class DatabaseHandler {
         long id = -1;
         try {
             id = ApartmentHandler.add(apartment);
+            stage().put(ApartmentHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -201,7 +471,12 @@ public final class DatabaseHandler {
     public static void deleteApartment(Long id) throws Exception {
         openWritable();
         try {
+            List<Long> roomIds = RoomHandler.getIdsByApartment(id);
             ApartmentHandler.delete(id);
+            for (Long roomId : roomIds) {
+                stage().removeRoom(roomId);
+            }
+            stage().removeApartment(id);
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -221,6 +496,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             ApartmentHandler.update(apartment);
+            stage().put(ApartmentHandler.get(apartment.getId()));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -283,10 +559,16 @@ public final class DatabaseHandler {
     @Nullable
     @WorkerThread
     public static Apartment getApartment(Long id) throws Exception {
+        long generation = getCacheGeneration();
+        Apartment apartment = ModelCache.getApartment(id);
+        if (apartment != null) {
+            return apartment;
+        }
+
         openReadable();
-        Apartment apartment = null;
         try {
             apartment = ApartmentHandler.get(id);
+            ModelCache.put(generation, apartment);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -371,10 +653,16 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static List<Apartment> getAllApartments() throws Exception {
+        long generation = getCacheGeneration();
+        List<Apartment> apartments = ModelCache.getAllApartments();
+        if (apartments != null) {
+            return apartments;
+        }
+
         openReadable();
-        List<Apartment> apartments = new ArrayList<>();
         try {
             apartments = ApartmentHandler.getAll();
+            ModelCache.putAllApartments(generation, apartments);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -393,61 +681,99 @@ public final class DatabaseHandler {
     @Nullable
     @WorkerThread
     public static Apartment getContainingApartment(Receiver receiver) throws Exception {
+        return getApartment(getRoom(receiver.getRoomId()).getApartmentId());
+    }
+
+    /**
+     * Get Apartment that contains a specific Room
+     *
+     * @param room Room
+     * @return Apartment
+     */
+    @Nullable
+    @WorkerThread
+    public static Apartment getContainingApartment(Room room) throws Exception {
+        return getApartment(room.getApartmentId());
+    }
+
+    /**
+     * Get Apartment that contains a specific Scene
+     *
+     * @param scene Scene
+     * @return Apartment
+     */
+    @Nullable
+    @WorkerThread
+    public static Apartment getContainingApartment(Scene scene) throws Exception {
+        return getApartment(scene.getApartmentId());
+    }
+
+    /**
+     * Get RoutingContext of the Apartment that contains a specific Receiver
+     * <p/>
+     * This is much cheaper than loading the whole Apartment, use it when only the Gateways are needed.
+     *
+     * @param receiver Receiver
+     * @return RoutingContext
+     */
+    @NonNull
+    @WorkerThread
+    public static RoutingContext getRoutingContext(Receiver receiver) throws Exception {
         openReadable();
-        Apartment apartment = null;
+        RoutingContext routingContext = null;
         try {
-            apartment = ApartmentHandler.get(receiver);
+            routingContext = RoutingContextHandler.getByRoom(receiver.getRoomId());
         } catch (Exception e) {
             Log.e(e);
             throw e;
         } finally {
             close();
         }
-        return apartment;
+        return routingContext;
     }
 
     /**
-     * Get Apartment that contains a specific Room
+     * Get RoutingContext of the Apartment that contains a specific Room
      *
      * @param room Room
-     * @return Apartment
+     * @return RoutingContext
      */
-    @Nullable
+    @NonNull
     @WorkerThread
-    public static Apartment getContainingApartment(Room room) throws Exception {
+    public static RoutingContext getRoutingContext(Room room) throws Exception {
         openReadable();
-        Apartment apartment = null;
+        RoutingContext routingContext = null;
         try {
-            apartment = ApartmentHandler.get(room);
+            routingContext = RoutingContextHandler.get(room.getApartmentId());
         } catch (Exception e) {
             Log.e(e);
             throw e;
         } finally {
             close();
         }
-        return apartment;
+        return routingContext;
     }
 
     /**
-     * Get Apartment that contains a specific Scene
+     * Get RoutingContext of the Apartment that contains a specific Scene
      *
      * @param scene Scene
-     * @return Apartment
+     * @return RoutingContext
      */
-    @Nullable
+    @NonNull
     @WorkerThread
-    public static Apartment getContainingApartment(Scene scene) throws Exception {
+    public static RoutingContext getRoutingContext(Scene scene) throws Exception {
         openReadable();
-        Apartment apartment = null;
+        RoutingContext routingContext = null;
         try {
-            apartment = ApartmentHandler.get(scene);
+            routingContext = RoutingContextHandler.get(scene.getApartmentId());
         } catch (Exception e) {
             Log.e(e);
             throw e;
         } finally {
             close();
         }
-        return apartment;
+        return routingContext;
     }
 
     /**
@@ -470,6 +796,7 @@ public final class DatabaseHandler {
         long id = -1;
         try {
             id = RoomHandler.add(room);
+            stage().put(RoomHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -492,6 +819,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             RoomHandler.update(id, newName);
+            stage().put(RoomHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -512,6 +840,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             RoomHandler.updateCollapsed(id, isCollapsed);
+            stage().setCollapsed(id, isCollapsed);
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -532,6 +861,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             RoomHandler.setPosition(roomId, position);
+            stage().put(RoomHandler.get(roomId));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -551,6 +881,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             RoomHandler.delete(id);
+            stage().removeRoom(id);
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -613,10 +944,16 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static Room getRoom(Long id) throws Exception {
+        long generation = getCacheGeneration();
+        Room room = ModelCache.getRoom(id);
+        if (room != null) {
+            return room;
+        }
+
         openReadable();
-        Room room = null;
         try {
             room = RoomHandler.get(id);
+            ModelCache.put(generation, room);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -655,10 +992,18 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static List<Room> getRooms(Long apartmentId) throws Exception {
+        long generation = getCacheGeneration();
+        List<Room> rooms = ModelCache.getRooms(apartmentId);
+        if (rooms != null) {
+            return rooms;
+        }
+
         openReadable();
-        List<Room> rooms = new ArrayList<>();
         try {
             rooms = RoomHandler.getByApartment(apartmentId);
+            for (Room room : rooms) {
+                ModelCache.put(generation, room);
+            }
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -707,6 +1052,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             ReceiverHandler.add(receiver);
+            stage().put(RoomHandler.get(receiver.getRoomId()));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -725,7 +1071,13 @@ public final class DatabaseHandler {
     public static void updateReceiver(Receiver receiver) throws Exception {
         openWritable();
         try {
+            Long previousRoomId = ReceiverHandler.getRoomId(receiver.getId());
             ReceiverHandler.update(receiver);
+            if (!previousRoomId.equals(receiver.getRoomId())) {
+                stage().put(RoomHandler.get(previousRoomId));
+                stage().put(RoomHandler.get(receiver.getRoomId()));
+            }
+            stage().put(ReceiverHandler.get(receiver.getId()));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -744,10 +1096,16 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static Receiver getReceiver(Long id) throws Exception {
+        long generation = getCacheGeneration();
+        Receiver receiver = ModelCache.getReceiver(id);
+        if (receiver != null) {
+            return receiver;
+        }
+
         openReadable();
-        Receiver receiver = null;
         try {
             receiver = ReceiverHandler.get(id);
+            ModelCache.put(generation, receiver);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -813,6 +1171,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             ReceiverHandler.setPositionInRoom(receiverId, position);
+            stage().put(ReceiverHandler.get(receiverId));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -853,6 +1212,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             ReceiverHandler.delete(id);
+            stage().removeReceiver(id);
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -917,6 +1277,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             ReceiverHandler.setLastActivatedButtonId(receiverId, buttonId);
+            stage().put(ReceiverHandler.get(receiverId));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -944,6 +1305,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             SceneHandler.add(scene);
+            stage().put(ApartmentHandler.get(scene));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -963,6 +1325,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             SceneHandler.update(scene);
+            stage().put(ApartmentHandler.get(scene));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -982,6 +1345,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             SceneHandler.delete(id);
+            stage().removeScene(id);
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1022,10 +1386,16 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static Scene getScene(Long id) throws Exception {
+        long generation = getCacheGeneration();
+        Scene scene = ModelCache.getScene(id);
+        if (scene != null) {
+            return scene;
+        }
+
         openReadable();
-        Scene scene = null;
         try {
             scene = SceneHandler.get(id);
+            ModelCache.put(generation, scene);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -1043,10 +1413,18 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static List<Scene> getScenes(Long apartmentId) throws Exception {
+        long generation = getCacheGeneration();
+        List<Scene> scenes = ModelCache.getScenes(apartmentId);
+        if (scenes != null) {
+            return scenes;
+        }
+
         openReadable();
-        List<Scene> scenes = new ArrayList<>();
         try {
             scenes = SceneHandler.getByApartment(apartmentId);
+            for (Scene scene : scenes) {
+                ModelCache.put(generation, scene);
+            }
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -1098,6 +1476,7 @@ public final class DatabaseHandler {
         long id;
         try {
             id = GatewayHandler.add(gateway);
+            stage().put(GatewayHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1118,6 +1497,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GatewayHandler.enable(id);
+            stage().put(GatewayHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1137,6 +1517,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GatewayHandler.disable(id);
+            stage().put(GatewayHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1162,6 +1543,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GatewayHandler.update(id, name, model, localAddress, localPort, wanAddress, wanPort, ssids);
+            stage().put(GatewayHandler.get(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1180,7 +1562,12 @@ public final class DatabaseHandler {
     public static void deleteGateway(Long id) throws Exception {
         openWritable();
         try {
+            List<Long> receiverIds = ReceiverHandler.getIdsByPreferredGateway(id);
             GatewayHandler.delete(id);
+            stage().removeGateway(id);
+            for (Long receiverId : receiverIds) {
+                stage().put(ReceiverHandler.get(receiverId));
+            }
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1199,10 +1586,16 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static Gateway getGateway(Long id) throws Exception {
+        long generation = getCacheGeneration();
+        Gateway gateway = ModelCache.getGateway(id);
+        if (gateway != null) {
+            return gateway;
+        }
+
         openReadable();
-        Gateway gateway = null;
         try {
             gateway = GatewayHandler.get(id);
+            ModelCache.put(generation, gateway);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -1220,10 +1613,16 @@ public final class DatabaseHandler {
     @NonNull
     @WorkerThread
     public static List<Gateway> getAllGateways() throws Exception {
+        long generation = getCacheGeneration();
+        List<Gateway> gateways = ModelCache.getAllGateways();
+        if (gateways != null) {
+            return gateways;
+        }
+
         openReadable();
-        List<Gateway> gateways = new ArrayList<>();
         try {
             gateways = GatewayHandler.getAll();
+            ModelCache.putAllGateways(generation, gateways);
         } catch (Exception e) {
             Log.e(e);
             throw e;
@@ -1892,6 +2291,7 @@ public final class DatabaseHandler {
         openWritable();
         long id;
         try {
+            // not associated with any Apartment yet
             id = GeofenceHandler.add(geofence);
             database.setTransactionSuccessful();
         } catch (Exception e) {
@@ -1913,6 +2313,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GeofenceHandler.update(geofence);
+            stageApartments(ApartmentHandler.getIdsByGeofence(geofence.getId()));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1932,6 +2333,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GeofenceHandler.enable(id);
+            stageApartments(ApartmentHandler.getIdsByGeofence(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1951,6 +2353,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GeofenceHandler.disable(id);
+            stageApartments(ApartmentHandler.getIdsByGeofence(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1968,6 +2371,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GeofenceHandler.disableAll();
+            stageApartments(ApartmentHandler.getIdsByGeofence(null));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -1985,6 +2389,7 @@ public final class DatabaseHandler {
         openWritable();
         try {
             GeofenceHandler.updateState(id, state);
+            stageApartments(ApartmentHandler.getIdsByGeofence(id));
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -2003,7 +2408,9 @@ public final class DatabaseHandler {
     public static void deleteGeofence(Long id) throws Exception {
         openWritable();
         try {
+            List<Long> apartmentIds = ApartmentHandler.getIdsByGeofence(id);
             GeofenceHandler.delete(id);
+            stageApartments(apartmentIds);
             database.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(e);
@@ -2080,4 +2487,12 @@ public final class DatabaseHandler {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Task that is run while the Database connection is closed
+     *
+     * @see #runWithClosedConnection(ClosedConnectionTask)
+     */
+    public interface ClosedConnectionTask {
+        void run() throws Exception;
+    }
+}
@@ -23,14 +23,17 @@ import android.database.Cursor;
 import android.support.annotation.NonNull;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 import eu.power_switch.database.table.apartment.ApartmentGatewayRelationTable;
 import eu.power_switch.database.table.gateway.GatewaySsidTable;
 import eu.power_switch.database.table.gateway.GatewayTable;
+import eu.power_switch.database.table.receiver.ReceiverTable;
 import eu.power_switch.obj.gateway.BrematicGWY433;
 import eu.power_switch.obj.gateway.ConnAir;
 import eu.power_switch.obj.gateway.EZControl_XS1;
@@ -143,6 +146,12 @@ abstract class GatewayHandler {
         DatabaseHandler.database.delete(ApartmentGatewayRelationTable.TABLE_NAME, ApartmentGatewayRelationTable
                 .COLUMN_GATEWAY_ID + "=" + id, null);
 
+        // Receivers preferring this Gateway use the nearest one again
+        ContentValues values = new ContentValues();
+        values.putNull(ReceiverTable.COLUMN_PREFERRED_GATEWAY_ID);
+        DatabaseHandler.database.update(ReceiverTable.TABLE_NAME, values,
+                ReceiverTable.COLUMN_PREFERRED_GATEWAY_ID + "=" + id, null);
+
         deleteSSIDs(id);
         DatabaseHandler.database.delete(GatewayTable.TABLE_NAME, GatewayTable.COLUMN_ID + "=" + id, null);
     }
@@ -205,6 +214,34 @@ abstract class GatewayHandler {
         return ssids;
     }
 
+    /**
+     * Get the SSIDs of a set of Gateways
+     *
+     * @param gatewayIds SQL selecting the IDs of the Gateways (e.g. a sub query)
+     * @return Map <Gateway ID> -> <SSIDs>
+     */
+    protected static Map<Long, Set<String>> getSSIDsOfGateways(String gatewayIds) throws Exception {
+        Map<Long, Set<String>> ssids = new HashMap<>();
+
+        Cursor cursor = DatabaseHandler.database.query(GatewaySsidTable.TABLE_NAME, GatewaySsidTable.ALL_COLUMNS,
+                GatewaySsidTable.COLUMN_GATEWAY_ID + " IN (" + gatewayIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            Long gatewayId = cursor.getLong(1);
+            Set<String> gatewaySsids = ssids.get(gatewayId);
+            if (gatewaySsids == null) {
+                gatewaySsids = new HashSet<>();
+                ssids.put(gatewayId, gatewaySsids);
+            }
+            gatewaySsids.add(cursor.getString(2));
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return ssids;
+    }
+
     /**
      * Gets all Gateways from Database
      *
@@ -268,7 +305,17 @@ abstract class GatewayHandler {
      * @return Gateway, can be null
      */
     private static Gateway dbToGateway(@NonNull Cursor c) throws Exception {
-        Gateway gateway;
+        return dbToGateway(c, getSSIDs(c.getLong(0)));
+    }
+
+    /**
+     * Creates a Gateway Object out of Database information, with SSIDs that were loaded in advance
+     *
+     * @param c     cursor pointing to a gateway database entry
+     * @param ssids SSIDs of the Gateway
+     * @return Gateway
+     */
+    protected static Gateway dbToGateway(@NonNull Cursor c, @NonNull Set<String> ssids) throws Exception {
         Long id = c.getLong(0);
         boolean active = c.getInt(1) > 0;
         String name = c.getString(2);
@@ -278,9 +325,22 @@ abstract class GatewayHandler {
         int localPort = c.getInt(6);
         String wanAddress = c.getString(7);
         int wanPort = c.getInt(8);
-        Set<String> ssids = getSSIDs(id);
 
-        switch (rawModel) {
+        return newGateway(rawModel, id, active, name, firmware, localAddress, localPort, wanAddress, wanPort, ssids);
+    }
+
+    /**
+     * Creates a Gateway Object of the given model
+     *
+     * @param model model of the Gateway
+     * @return Gateway
+     * @throws GatewayUnknownException if the model is unknown
+     */
+    protected static Gateway newGateway(@NonNull String model, Long id, boolean active, String name, String firmware,
+                                        String localAddress, int localPort, String wanAddress, int wanPort,
+                                        @NonNull Set<String> ssids) throws GatewayUnknownException {
+        Gateway gateway;
+        switch (model) {
             case BrematicGWY433.MODEL:
                 gateway = new BrematicGWY433(id, active, name, firmware, localAddress, localPort, wanAddress, wanPort, ssids);
                 break;
@@ -297,7 +357,7 @@ abstract class GatewayHandler {
                 gateway = new RaspyRFM(id, active, name, firmware, localAddress, localPort, wanAddress, wanPort, ssids);
                 break;
             default:
-                throw new GatewayUnknownException(rawModel);
+                throw new GatewayUnknownException(model);
         }
 
         return gateway;
@@ -272,6 +272,25 @@ abstract class GeofenceHandler {
      * @return Geofence, can be null
      */
     private static Geofence dbToGeofence(Cursor c) throws Exception {
+        Long id = c.getLong(0);
+
+        HashMap<Geofence.EventType, List<Action>> actionsMap = new HashMap<>();
+        for (Geofence.EventType eventType : Geofence.EventType.values()) {
+            actionsMap.put(eventType, GeofenceActionHandler.get(id, eventType));
+        }
+
+        return dbToGeofence(c, actionsMap);
+    }
+
+    /**
+     * Creates a Geofence Object out of Database information, with Actions that were loaded in advance
+     *
+     * @param c          cursor pointing to a geofence database entry
+     * @param actionsMap Actions of the Geofence for every event type
+     * @return Geofence
+     */
+    protected static Geofence dbToGeofence(Cursor c, HashMap<Geofence.EventType, List<Action>> actionsMap)
+            throws Exception {
         Geofence geofence;
         Long id = c.getLong(0);
         boolean active = c.getInt(1) > 0;
@@ -294,11 +313,6 @@ abstract class GeofenceHandler {
             location = new LatLng(latitude, longitude);
         }
 
-        HashMap<Geofence.EventType, List<Action>> actionsMap = new HashMap<>();
-        for (Geofence.EventType eventType : Geofence.EventType.values()) {
-            actionsMap.put(eventType, GeofenceActionHandler.get(id, eventType));
-        }
-
         geofence = new Geofence(id, active, name, location, radius, snapshot, actionsMap, state);
         return geofence;
     }
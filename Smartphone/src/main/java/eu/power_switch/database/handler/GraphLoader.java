@@ -0,0 +1,590 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.database.handler;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import eu.power_switch.action.Action;
+import eu.power_switch.action.ReceiverAction;
+import eu.power_switch.action.RoomAction;
+import eu.power_switch.action.SceneAction;
+import eu.power_switch.database.table.action.ActionTable;
+import eu.power_switch.database.table.action.ReceiverActionTable;
+import eu.power_switch.database.table.action.RoomActionTable;
+import eu.power_switch.database.table.action.SceneActionTable;
+import eu.power_switch.database.table.apartment.ApartmentGatewayRelationTable;
+import eu.power_switch.database.table.apartment.ApartmentGeofenceRelationTable;
+import eu.power_switch.database.table.apartment.ApartmentTable;
+import eu.power_switch.database.table.gateway.GatewayTable;
+import eu.power_switch.database.table.geofence.GeofenceActionTable;
+import eu.power_switch.database.table.geofence.GeofenceTable;
+import eu.power_switch.database.table.receiver.ReceiverTable;
+import eu.power_switch.database.table.room.RoomTable;
+import eu.power_switch.database.table.scene.SceneItemTable;
+import eu.power_switch.database.table.scene.SceneTable;
+import eu.power_switch.google_play_services.geofence.Geofence;
+import eu.power_switch.obj.Apartment;
+import eu.power_switch.obj.Room;
+import eu.power_switch.obj.Scene;
+import eu.power_switch.obj.SceneItem;
+import eu.power_switch.obj.UniversalButton;
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.settings.SmartphonePreferencesHandler;
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Loads Apartments, Rooms, Scenes and Receivers together with everything they contain
+ * <p/>
+ * Instead of querying the details of every object one at a time, each table is queried once for all objects
+ * of a level (selected by an IN (SELECT ...) sub query) and the object graph is assembled in memory.
+ * This way the number of queries does not depend on the number of loaded objects.
+ * <p/>
+ * Every object is only created once per loader, e.g. a Receiver that is part of a Room and of a Scene is
+ * the same instance in both. A loader must only be used inside a single database scope.
+ */
+class GraphLoader {
+
+    /**
+     * Map <ID> -> <Receiver> of all loaded Receivers
+     */
+    private final Map<Long, Receiver> receivers = new HashMap<>();
+    /**
+     * Map <ID> -> <Room> of all loaded Rooms
+     */
+    private final Map<Long, Room> rooms = new HashMap<>();
+    /**
+     * Map <ID> -> <Scene> of all loaded Scenes
+     */
+    private final Map<Long, Scene> scenes = new HashMap<>();
+    /**
+     * Map <ID> -> <Name> of all known Apartments
+     */
+    private final Map<Long, String> apartmentNames = new HashMap<>();
+
+    /**
+     * Load Apartments with their Rooms, Scenes, Gateways and Geofence
+     *
+     * @param selection WHERE clause on the Apartment table, null to load all Apartments
+     * @return list of Apartments
+     */
+    @NonNull
+    List<Apartment> loadApartments(@Nullable String selection) throws Exception {
+        Map<Long, String> names = new LinkedHashMap<>();
+        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME, ApartmentTable.ALL_COLUMNS,
+                selection, null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            names.put(cursor.getLong(0), cursor.getString(1));
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        List<Apartment> apartments = new ArrayList<>();
+        if (names.isEmpty()) {
+            return apartments;
+        }
+        apartmentNames.putAll(names);
+
+        String apartmentIds = toInList(names.keySet());
+
+        Map<Long, List<Room>> roomsByApartment = new HashMap<>();
+        for (Room room : loadRooms(RoomTable.COLUMN_APARTMENT_ID + " IN " + apartmentIds)) {
+            getList(roomsByApartment, room.getApartmentId()).add(room);
+        }
+
+        Map<Long, List<Scene>> scenesByApartment = new HashMap<>();
+        for (Scene scene : loadScenes(SceneTable.COLUMN_APARTMENT_ID + " IN " + apartmentIds)) {
+            getList(scenesByApartment, scene.getApartmentId()).add(scene);
+        }
+
+        Map<Long, List<Gateway>> gatewaysByApartment = loadAssociatedGateways(apartmentIds);
+        Map<Long, Geofence> geofenceByApartment = loadAssociatedGeofences(apartmentIds);
+
+        Long currentApartmentId = SmartphonePreferencesHandler.getCurrentApartmentId();
+        for (Map.Entry<Long, String> apartment : names.entrySet()) {
+            Long id = apartment.getKey();
+            apartments.add(new Apartment(id, currentApartmentId.equals(id), apartment.getValue(),
+                    getList(roomsByApartment, id), getList(scenesByApartment, id),
+                    getList(gatewaysByApartment, id), geofenceByApartment.get(id)));
+        }
+
+        return apartments;
+    }
+
+    /**
+     * Load Rooms with their Receivers
+     *
+     * @param selection WHERE clause on the Room table, null to load all Rooms
+     * @return list of Rooms, ordered by position
+     */
+    @NonNull
+    List<Room> loadRooms(@Nullable String selection) throws Exception {
+        Map<Long, List<Receiver>> receiversByRoom = new HashMap<>();
+        for (Receiver receiver : loadReceivers(ReceiverTable.COLUMN_ROOM_ID + " IN (" +
+                selectIds(RoomTable.TABLE_NAME, RoomTable.COLUMN_ID, selection) + ")")) {
+            getList(receiversByRoom, receiver.getRoomId()).add(receiver);
+        }
+
+        boolean autoCollapseRooms = SmartphonePreferencesHandler.getAutoCollapseRooms();
+
+        List<Room> result = new ArrayList<>();
+        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, RoomTable.ALL_COLUMNS, selection,
+                null, null, null, RoomTable.COLUMN_POSITION + " ASC");
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long id = cursor.getLong(0);
+            Room room = rooms.get(id);
+            if (room == null) {
+                room = new Room(id, cursor.getLong(1), cursor.getString(2), cursor.getInt(3), cursor.getInt(4) > 0);
+                room.setCollapsed(autoCollapseRooms);
+                room.addReceivers(getList(receiversByRoom, id));
+                rooms.put(id, room);
+            }
+            result.add(room);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return result;
+    }
+
+    /**
+     * Load Scenes with their SceneItems
+     *
+     * @param selection WHERE clause on the Scene table, null to load all Scenes
+     * @return list of Scenes
+     */
+    @NonNull
+    List<Scene> loadScenes(@Nullable String selection) throws Exception {
+        // {<Scene ID>, <Receiver ID>, <Button ID>} of all SceneItems
+        List<long[]> sceneItems = new ArrayList<>();
+        Set<Long> missingReceiverIds = new HashSet<>();
+        Cursor cursor = DatabaseHandler.database.query(SceneItemTable.TABLE_NAME, SceneItemTable.ALL_COLUMNS,
+                SceneItemTable.COLUMN_SCENE_ID + " IN (" + selectIds(SceneTable.TABLE_NAME, SceneTable.COLUMN_ID,
+                        selection) + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long receiverId = cursor.getLong(2);
+            sceneItems.add(new long[]{cursor.getLong(1), receiverId, cursor.getLong(3)});
+            if (!receivers.containsKey(receiverId)) {
+                missingReceiverIds.add(receiverId);
+            }
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        if (!missingReceiverIds.isEmpty()) {
+            loadReceivers(ReceiverTable.COLUMN_ID + " IN " + toInList(missingReceiverIds));
+        }
+
+        Map<Long, List<SceneItem>> itemsByScene = new HashMap<>();
+        for (long[] sceneItem : sceneItems) {
+            Receiver receiver = require(receivers, sceneItem[1]);
+            getList(itemsByScene, sceneItem[0]).add(new SceneItem(receiver, receiver.getButton(sceneItem[2])));
+        }
+
+        List<Scene> result = new ArrayList<>();
+        cursor = DatabaseHandler.database.query(SceneTable.TABLE_NAME, SceneTable.ALL_COLUMNS, selection,
+                null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long id = cursor.getLong(0);
+            Scene scene = scenes.get(id);
+            if (scene == null) {
+                scene = new Scene(id, cursor.getLong(1), cursor.getString(2));
+                for (SceneItem sceneItem : getList(itemsByScene, id)) {
+                    scene.addSceneItem(sceneItem);
+                }
+                scenes.put(id, scene);
+            }
+            result.add(scene);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return result;
+    }
+
+    /**
+     * Load Receivers with their details
+     *
+     * @param selection WHERE clause on the Receiver table, null to load all Receivers
+     * @return list of Receivers, ordered by Room and position in Room
+     */
+    @NonNull
+    List<Receiver> loadReceivers(@Nullable String selection) throws Exception {
+        String receiverIds = selectIds(ReceiverTable.TABLE_NAME, ReceiverTable.COLUMN_ID, selection);
+        Map<Long, List<UniversalButton>> universalButtons =
+                UniversalButtonHandler.getUniversalButtonsOfReceivers(receiverIds);
+        Map<Long, Long> seeds = AutoPairHandler.getSeeds(receiverIds);
+
+        List<Receiver> result = new ArrayList<>();
+        Cursor cursor = DatabaseHandler.database.query(ReceiverTable.TABLE_NAME, ReceiverTable.ALL_COLUMNS, selection,
+                null, null, null, ReceiverTable.COLUMN_ROOM_ID + "," + ReceiverTable.COLUMN_POSITION_IN_ROOM + " ASC");
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long id = cursor.getLong(0);
+            Receiver receiver = receivers.get(id);
+            if (receiver == null) {
+                receiver = ReceiverReflectionMagic.fromDatabase(DatabaseHandler.context, cursor,
+                        universalButtons, seeds);
+                receivers.put(id, receiver);
+            }
+            result.add(receiver);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return result;
+    }
+
+    /**
+     * Load the Gateways associated with a set of Apartments
+     *
+     * @param apartmentIds IN list of Apartment IDs
+     * @return Map <Apartment ID> -> <Gateways>
+     */
+    private Map<Long, List<Gateway>> loadAssociatedGateways(String apartmentIds) throws Exception {
+        String gatewayIds = "SELECT " + ApartmentGatewayRelationTable.COLUMN_GATEWAY_ID +
+                " FROM " + ApartmentGatewayRelationTable.TABLE_NAME +
+                " WHERE " + ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID + " IN " + apartmentIds;
+        Map<Long, Set<String>> ssids = GatewayHandler.getSSIDsOfGateways(gatewayIds);
+
+        Map<Long, Gateway> gateways = new HashMap<>();
+        Cursor cursor = DatabaseHandler.database.query(GatewayTable.TABLE_NAME, GatewayTable.ALL_COLUMNS,
+                GatewayTable.COLUMN_ID + " IN (" + gatewayIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long id = cursor.getLong(0);
+            Set<String> gatewaySsids = ssids.get(id);
+            if (gatewaySsids == null) {
+                gatewaySsids = new HashSet<>();
+            }
+            gateways.put(id, GatewayHandler.dbToGateway(cursor, gatewaySsids));
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        Map<Long, List<Gateway>> gatewaysByApartment = new HashMap<>();
+        String[] columns = {ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID,
+                ApartmentGatewayRelationTable.COLUMN_GATEWAY_ID};
+        cursor = DatabaseHandler.database.query(ApartmentGatewayRelationTable.TABLE_NAME, columns,
+                ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID + " IN " + apartmentIds, null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            getList(gatewaysByApartment, cursor.getLong(0)).add(require(gateways, cursor.getLong(1)));
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return gatewaysByApartment;
+    }
+
+    /**
+     * Load the Geofences associated with a set of Apartments
+     *
+     * @param apartmentIds IN list of Apartment IDs
+     * @return Map <Apartment ID> -> <Geofence>
+     */
+    private Map<Long, Geofence> loadAssociatedGeofences(String apartmentIds) throws Exception {
+        String geofenceIds = "SELECT " + ApartmentGeofenceRelationTable.COLUMN_GEOFENCE_ID +
+                " FROM " + ApartmentGeofenceRelationTable.TABLE_NAME +
+                " WHERE " + ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID + " IN " + apartmentIds;
+
+        // {<Geofence ID>, <Action ID>} and event type of all Geofence Actions
+        List<long[]> geofenceActions = new ArrayList<>();
+        List<Geofence.EventType> eventTypes = new ArrayList<>();
+        String[] columns = {GeofenceActionTable.COLUMN_GEOFENCE_ID, GeofenceActionTable.COLUMN_ACTION_ID,
+                GeofenceActionTable.COLUMN_EVENT_TYPE};
+        Cursor cursor = DatabaseHandler.database.query(GeofenceActionTable.TABLE_NAME, columns,
+                GeofenceActionTable.COLUMN_GEOFENCE_ID + " IN (" + geofenceIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            Geofence.EventType eventType = getEventType(cursor.getString(2));
+            if (eventType != null) {
+                geofenceActions.add(new long[]{cursor.getLong(0), cursor.getLong(1)});
+                eventTypes.add(eventType);
+            }
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        Map<Long, Action> actions = new HashMap<>();
+        if (!geofenceActions.isEmpty()) {
+            actions = loadActions(ActionTable.COLUMN_ID + " IN (SELECT " + GeofenceActionTable.COLUMN_ACTION_ID +
+                    " FROM " + GeofenceActionTable.TABLE_NAME +
+                    " WHERE " + GeofenceActionTable.COLUMN_GEOFENCE_ID + " IN (" + geofenceIds + "))");
+        }
+
+        Map<Long, HashMap<Geofence.EventType, List<Action>>> actionsByGeofence = new HashMap<>();
+        for (int i = 0; i < geofenceActions.size(); i++) {
+            long geofenceId = geofenceActions.get(i)[0];
+            HashMap<Geofence.EventType, List<Action>> actionsMap = actionsByGeofence.get(geofenceId);
+            if (actionsMap == null) {
+                actionsMap = newActionsMap();
+                actionsByGeofence.put(geofenceId, actionsMap);
+            }
+            actionsMap.get(eventTypes.get(i)).add(require(actions, geofenceActions.get(i)[1]));
+        }
+
+        Map<Long, Geofence> geofences = new HashMap<>();
+        cursor = DatabaseHandler.database.query(GeofenceTable.TABLE_NAME, GeofenceTable.ALL_COLUMNS,
+                GeofenceTable.COLUMN_ID + " IN (" + geofenceIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long id = cursor.getLong(0);
+            HashMap<Geofence.EventType, List<Action>> actionsMap = actionsByGeofence.get(id);
+            if (actionsMap == null) {
+                actionsMap = newActionsMap();
+            }
+            geofences.put(id, GeofenceHandler.dbToGeofence(cursor, actionsMap));
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        Map<Long, Geofence> geofenceByApartment = new HashMap<>();
+        columns = new String[]{ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID,
+                ApartmentGeofenceRelationTable.COLUMN_GEOFENCE_ID};
+        cursor = DatabaseHandler.database.query(ApartmentGeofenceRelationTable.TABLE_NAME, columns,
+                ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID + " IN " + apartmentIds, null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            // an Apartment has only one Geofence, the first one wins
+            if (!geofenceByApartment.containsKey(cursor.getLong(0))) {
+                geofenceByApartment.put(cursor.getLong(0), require(geofences, cursor.getLong(1)));
+            }
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return geofenceByApartment;
+    }
+
+    /**
+     * Load Actions with the Rooms, Receivers and Scenes they refer to
+     *
+     * @param selection WHERE clause on the Action table
+     * @return Map <Action ID> -> <Action>
+     */
+    private Map<Long, Action> loadActions(@NonNull String selection) throws Exception {
+        String actionIds = selectIds(ActionTable.TABLE_NAME, ActionTable.COLUMN_ID, selection);
+        Set<Long> missingRoomIds = new HashSet<>();
+        Set<Long> missingReceiverIds = new HashSet<>();
+        Set<Long> missingSceneIds = new HashSet<>();
+
+        // {<Room ID>, <Receiver ID>, <Button ID>} of every ReceiverAction
+        Map<Long, long[]> receiverActions = new HashMap<>();
+        String[] columns = {ReceiverActionTable.COLUMN_ACTION_ID, ReceiverActionTable.COLUMN_ROOM_ID,
+                ReceiverActionTable.COLUMN_RECEIVER_ID, ReceiverActionTable.COLUMN_BUTTON_ID};
+        Cursor cursor = DatabaseHandler.database.query(ReceiverActionTable.TABLE_NAME, columns,
+                ReceiverActionTable.COLUMN_ACTION_ID + " IN (" + actionIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long[] receiverAction = {cursor.getLong(1), cursor.getLong(2), cursor.getLong(3)};
+            receiverActions.put(cursor.getLong(0), receiverAction);
+            addIfMissing(rooms, receiverAction[0], missingRoomIds);
+            addIfMissing(receivers, receiverAction[1], missingReceiverIds);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        // <Room ID> and <Button name> of every RoomAction
+        Map<Long, Long> roomActionRooms = new HashMap<>();
+        Map<Long, String> roomActionButtonNames = new HashMap<>();
+        columns = new String[]{RoomActionTable.COLUMN_ACTION_ID, RoomActionTable.COLUMN_ROOM_ID,
+                RoomActionTable.COLUMN_BUTTON_NAME};
+        cursor = DatabaseHandler.database.query(RoomActionTable.TABLE_NAME, columns,
+                RoomActionTable.COLUMN_ACTION_ID + " IN (" + actionIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            roomActionRooms.put(cursor.getLong(0), cursor.getLong(1));
+            roomActionButtonNames.put(cursor.getLong(0), cursor.getString(2));
+            addIfMissing(rooms, cursor.getLong(1), missingRoomIds);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        // <Scene ID> of every SceneAction
+        Map<Long, Long> sceneActionScenes = new HashMap<>();
+        columns = new String[]{SceneActionTable.COLUMN_ACTION_ID, SceneActionTable.COLUMN_SCENE_ID};
+        cursor = DatabaseHandler.database.query(SceneActionTable.TABLE_NAME, columns,
+                SceneActionTable.COLUMN_ACTION_ID + " IN (" + actionIds + ")", null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            sceneActionScenes.put(cursor.getLong(0), cursor.getLong(1));
+            addIfMissing(scenes, cursor.getLong(1), missingSceneIds);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        if (!missingRoomIds.isEmpty()) {
+            loadRooms(RoomTable.COLUMN_ID + " IN " + toInList(missingRoomIds));
+            // Receivers of the loaded Rooms are not missing anymore
+            missingReceiverIds.removeAll(receivers.keySet());
+        }
+        if (!missingReceiverIds.isEmpty()) {
+            loadReceivers(ReceiverTable.COLUMN_ID + " IN " + toInList(missingReceiverIds));
+        }
+        if (!missingSceneIds.isEmpty()) {
+            loadScenes(SceneTable.COLUMN_ID + " IN " + toInList(missingSceneIds));
+        }
+        loadMissingApartmentNames();
+
+        Map<Long, Action> actions = new HashMap<>();
+        cursor = DatabaseHandler.database.query(ActionTable.TABLE_NAME, ActionTable.ALL_COLUMNS, selection,
+                null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            long actionId = cursor.getLong(0);
+            String actionType = cursor.getString(1);
+
+            Action action;
+            if (Action.ACTION_TYPE_RECEIVER.equals(actionType)) {
+                long[] receiverAction = require(receiverActions, actionId);
+                Room room = require(rooms, receiverAction[0]);
+                Receiver receiver = require(receivers, receiverAction[1]);
+                action = new ReceiverAction(actionId, require(apartmentNames, room.getApartmentId()), room, receiver,
+                        receiver.getButton(receiverAction[2]));
+            } else if (Action.ACTION_TYPE_ROOM.equals(actionType)) {
+                Room room = require(rooms, require(roomActionRooms, actionId));
+                action = new RoomAction(actionId, require(apartmentNames, room.getApartmentId()), room,
+                        roomActionButtonNames.get(actionId));
+            } else if (Action.ACTION_TYPE_SCENE.equals(actionType)) {
+                Scene scene = require(scenes, require(sceneActionScenes, actionId));
+                action = new SceneAction(actionId, require(apartmentNames, scene.getApartmentId()), scene);
+            } else {
+                Log.e("Unknown ActionType!");
+                cursor.close();
+                throw new RuntimeException("Unknown ActionType: " + actionType);
+            }
+
+            actions.put(actionId, action);
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return actions;
+    }
+
+    /**
+     * Load the names of all Apartments of loaded Rooms and Scenes, that are not known yet
+     */
+    private void loadMissingApartmentNames() throws Exception {
+        Set<Long> missingApartmentIds = new HashSet<>();
+        for (Room room : rooms.values()) {
+            addIfMissing(apartmentNames, room.getApartmentId(), missingApartmentIds);
+        }
+        for (Scene scene : scenes.values()) {
+            addIfMissing(apartmentNames, scene.getApartmentId(), missingApartmentIds);
+        }
+        if (missingApartmentIds.isEmpty()) {
+            return;
+        }
+
+        String[] columns = {ApartmentTable.COLUMN_ID, ApartmentTable.COLUMN_NAME};
+        Cursor cursor = DatabaseHandler.database.query(ApartmentTable.TABLE_NAME, columns,
+                ApartmentTable.COLUMN_ID + " IN " + toInList(missingApartmentIds), null, null, null, null);
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            apartmentNames.put(cursor.getLong(0), cursor.getString(1));
+            cursor.moveToNext();
+        }
+        cursor.close();
+    }
+
+    private static HashMap<Geofence.EventType, List<Action>> newActionsMap() {
+        HashMap<Geofence.EventType, List<Action>> actionsMap = new HashMap<>();
+        for (Geofence.EventType eventType : Geofence.EventType.values()) {
+            actionsMap.put(eventType, new ArrayList<Action>());
+        }
+        return actionsMap;
+    }
+
+    @Nullable
+    private static Geofence.EventType getEventType(String name) {
+        for (Geofence.EventType eventType : Geofence.EventType.values()) {
+            if (eventType.name().equals(name)) {
+                return eventType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build a sub query selecting the IDs of all rows of a table that match a selection
+     */
+    private static String selectIds(String table, String idColumn, @Nullable String selection) {
+        String select = "SELECT " + idColumn + " FROM " + table;
+        if (selection != null) {
+            select += " WHERE " + selection;
+        }
+        return select;
+    }
+
+    /**
+     * Build an SQL IN list, e.g. "(1,2,3)"
+     */
+    private static String toInList(Collection<Long> ids) {
+        StringBuilder inList = new StringBuilder("(");
+        for (Long id : ids) {
+            if (inList.length() > 1) {
+                inList.append(',');
+            }
+            inList.append(id);
+        }
+        return inList.append(')').toString();
+    }
+
+    private static <T> List<T> getList(Map<Long, List<T>> lists, Long key) {
+        List<T> list = lists.get(key);
+        if (list == null) {
+            list = new LinkedList<>();
+            lists.put(key, list);
+        }
+        return list;
+    }
+
+    private static <T> T require(Map<Long, T> objects, Long id) {
+        T object = objects.get(id);
+        if (object == null) {
+            throw new NoSuchElementException(String.valueOf(id));
+        }
+        return object;
+    }
+
+    private static void addIfMissing(Map<Long, ?> objects, Long id, Set<Long> missingIds) {
+        if (!objects.containsKey(id)) {
+            missingIds.add(id);
+        }
+    }
+}
@@ -0,0 +1,880 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.database.handler;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.power_switch.obj.Apartment;
+import eu.power_switch.obj.Room;
+import eu.power_switch.obj.Scene;
+import eu.power_switch.obj.SceneItem;
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.obj.receiver.Receiver;
+
+/**
+ * Process wide cache of Apartments, Rooms, Scenes, Receivers and Gateways, indexed by ID
+ * <p/>
+ * The cache is filled by the read methods of {@link DatabaseHandler}. Its write methods collect the changed objects
+ * in an {@link Update}, which is applied when the write transaction was committed (see {@link #apply(long, Update)}).
+ * <p/>
+ * Apartments, Rooms, Scenes and Gateways are copied when they are added to or returned from the cache, so callers
+ * can modify them freely. Receivers are immutable (see {@link Receiver#makeImmutable()}) and therefore shared.
+ * <p/>
+ * Every type of object is kept in an LRU cache with a maximum number of entries, so huge setups can't use up
+ * all memory.
+ * <p/>
+ * A reader has to get the current generation (see {@link #getGeneration()}) before reading from the Database.
+ * Objects read are only added to the cache if it was not changed in the meantime,
+ * so an object that was changed while it was read is never cached.
+ * <p/>
+ * Changes made by other processes (e.g. the ":background" process) are noticed by the generation of the Database
+ * itself (see {@link eu.power_switch.database.table.generation.GenerationTable}), which every write transaction
+ * increments. It is only read again after another process reported a change (see {@link #markDatabaseChanged()}).
+ */
+abstract class ModelCache {
+
+    private static final int MAX_APARTMENTS = 16;
+    private static final int MAX_ROOMS = 256;
+    private static final int MAX_SCENES = 256;
+    private static final int MAX_RECEIVERS = 1024;
+    private static final int MAX_GATEWAYS = 64;
+
+    private static final LruCache<Long, Apartment> apartments = new LruCache<>(MAX_APARTMENTS);
+    private static final LruCache<Long, Room> rooms = new LruCache<>(MAX_ROOMS);
+    private static final LruCache<Long, Scene> scenes = new LruCache<>(MAX_SCENES);
+    private static final LruCache<Long, Receiver> receivers = new LruCache<>(MAX_RECEIVERS);
+    private static final LruCache<Long, Gateway> gateways = new LruCache<>(MAX_GATEWAYS);
+
+    private static final Comparator<Room> ROOM_POSITION = new Comparator<Room>() {
+        @Override
+        public int compare(Room lhs, Room rhs) {
+            return compareNullable(lhs.getPositionInApartment(), rhs.getPositionInApartment());
+        }
+    };
+    private static final Comparator<Receiver> RECEIVER_POSITION = new Comparator<Receiver>() {
+        @Override
+        public int compare(Receiver lhs, Receiver rhs) {
+            return compareNullable(lhs.getPositionInRoom(), rhs.getPositionInRoom());
+        }
+    };
+
+    /**
+     * IDs of all Apartments, null if not all of them are cached
+     */
+    private static List<Long> allApartmentIds;
+    /**
+     * IDs of all Gateways, null if not all of them are cached
+     */
+    private static List<Long> allGatewayIds;
+
+    /**
+     * Incremented on every change of the cache
+     */
+    private static long generation;
+    /**
+     * Generation of the Database the cache is based on, -1 if unknown
+     */
+    private static long databaseGeneration = -1;
+    /**
+     * Number of changes reported by other processes
+     */
+    private static final AtomicLong databaseChanges = new AtomicLong();
+    /**
+     * Number of reported changes when the generation of the Database was last checked, -1 if never
+     */
+    private static long checkedDatabaseChanges = -1;
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private ModelCache() {
+        throw new UnsupportedOperationException("This class is non-instantiable");
+    }
+
+    /**
+     * Report a change of the Database made by another process
+     * <p/>
+     * The generation of the Database is checked again by the next reader.
+     */
+    static void markDatabaseChanged() {
+        databaseChanges.incrementAndGet();
+    }
+
+    /**
+     * Get the number of changes reported by other processes
+     *
+     * @return number of changes, to be passed to {@link #getGeneration(long, long)}
+     */
+    static long getDatabaseChanges() {
+        return databaseChanges.get();
+    }
+
+    /**
+     * Check if the generation of the Database has to be read before using the cache
+     *
+     * @param databaseChanges number of changes reported by other processes (see {@link #getDatabaseChanges()})
+     * @return true if changes were reported since the last check
+     */
+    static synchronized boolean needsDatabaseCheck(long databaseChanges) {
+        return databaseChanges != checkedDatabaseChanges;
+    }
+
+    /**
+     * Get the current generation of the cache
+     * <p/>
+     * Must be called before reading objects from the Database that should be added to the cache.
+     *
+     * @return generation
+     */
+    static synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the current generation of the cache after checking the generation of the Database
+     * <p/>
+     * The cache is invalidated if the Database was changed by another process since it was last checked.
+     *
+     * @param databaseGeneration current generation of the Database
+     * @param databaseChanges    number of changes reported before the Database was read
+     * @return generation
+     */
+    static synchronized long getGeneration(long databaseGeneration, long databaseChanges) {
+        if (databaseGeneration != ModelCache.databaseGeneration) {
+            invalidateAll();
+            ModelCache.databaseGeneration = databaseGeneration;
+        }
+        checkedDatabaseChanges = databaseChanges;
+        return generation;
+    }
+
+    /**
+     * Apply the changes of a committed write transaction of this process
+     * <p/>
+     * If the Database was changed by another process in between, the whole cache is invalidated instead.
+     *
+     * @param writtenGeneration generation of the Database after the write
+     * @param update            changed objects
+     */
+    static synchronized void apply(long writtenGeneration, @NonNull Update update) {
+        if (databaseGeneration != writtenGeneration - 1) {
+            invalidateAll();
+        } else if (!update.changes.isEmpty()) {
+            // reads that started before are not added anymore
+            generation++;
+            update.apply();
+        }
+        databaseGeneration = writtenGeneration;
+    }
+
+    /**
+     * Remove all cached objects
+     */
+    static synchronized void invalidateAll() {
+        generation++;
+        apartments.evictAll();
+        rooms.evictAll();
+        scenes.evictAll();
+        receivers.evictAll();
+        gateways.evictAll();
+        allApartmentIds = null;
+        allGatewayIds = null;
+    }
+
+    /**
+     * Get a cached Apartment
+     *
+     * @param id ID of Apartment
+     * @return Apartment, null if it is not cached
+     */
+    @Nullable
+    static synchronized Apartment getApartment(@Nullable Long id) {
+        Apartment apartment = id != null ? apartments.get(id) : null;
+        return apartment != null ? copy(apartment) : null;
+    }
+
+    /**
+     * Get a cached Room
+     *
+     * @param id ID of Room
+     * @return Room, null if it is not cached
+     */
+    @Nullable
+    static synchronized Room getRoom(@Nullable Long id) {
+        Room room = id != null ? rooms.get(id) : null;
+        return room != null ? copy(room) : null;
+    }
+
+    /**
+     * Get a cached Scene
+     *
+     * @param id ID of Scene
+     * @return Scene, null if it is not cached
+     */
+    @Nullable
+    static synchronized Scene getScene(@Nullable Long id) {
+        Scene scene = id != null ? scenes.get(id) : null;
+        return scene != null ? copy(scene) : null;
+    }
+
+    /**
+     * Get a cached Receiver
+     *
+     * @param id ID of Receiver
+     * @return immutable Receiver, null if it is not cached
+     */
+    @Nullable
+    static synchronized Receiver getReceiver(@Nullable Long id) {
+        return id != null ? receivers.get(id) : null;
+    }
+
+    /**
+     * Get a cached Gateway
+     *
+     * @param id ID of Gateway
+     * @return Gateway, null if it is not cached
+     */
+    @Nullable
+    static synchronized Gateway getGateway(@Nullable Long id) {
+        Gateway gateway = id != null ? gateways.get(id) : null;
+        return gateway != null ? copy(gateway) : null;
+    }
+
+    /**
+     * Get all Apartments
+     *
+     * @return list of Apartments, null if not all of them are cached
+     */
+    @Nullable
+    static synchronized List<Apartment> getAllApartments() {
+        List<Apartment> allApartments = getAll(apartments, allApartmentIds);
+        if (allApartments == null) {
+            return null;
+        }
+        List<Apartment> copies = new ArrayList<>(allApartments.size());
+        for (Apartment apartment : allApartments) {
+            copies.add(copy(apartment));
+        }
+        return copies;
+    }
+
+    /**
+     * Get all Gateways
+     *
+     * @return list of Gateways, null if not all of them are cached
+     */
+    @Nullable
+    static synchronized List<Gateway> getAllGateways() {
+        List<Gateway> allGateways = getAll(gateways, allGatewayIds);
+        return allGateways != null ? copyGateways(allGateways) : null;
+    }
+
+    /**
+     * Get all Rooms of an Apartment
+     *
+     * @param apartmentId ID of Apartment
+     * @return list of Rooms, null if the Apartment is not cached
+     */
+    @Nullable
+    static synchronized List<Room> getRooms(@Nullable Long apartmentId) {
+        Apartment apartment = apartmentId != null ? apartments.get(apartmentId) : null;
+        if (apartment == null) {
+            return null;
+        }
+        List<Room> copies = new ArrayList<>(apartment.getRooms().size());
+        for (Room room : apartment.getRooms()) {
+            copies.add(copy(room));
+        }
+        return copies;
+    }
+
+    /**
+     * Get all Scenes of an Apartment
+     *
+     * @param apartmentId ID of Apartment
+     * @return list of Scenes, null if the Apartment is not cached
+     */
+    @Nullable
+    static synchronized List<Scene> getScenes(@Nullable Long apartmentId) {
+        Apartment apartment = apartmentId != null ? apartments.get(apartmentId) : null;
+        if (apartment == null) {
+            return null;
+        }
+        List<Scene> copies = new ArrayList<>(apartment.getScenes().size());
+        for (Scene scene : apartment.getScenes()) {
+            copies.add(copy(scene));
+        }
+        return copies;
+    }
+
+    /**
+     * Add an Apartment and everything it contains
+     *
+     * @param generation generation of the cache before the Apartment was read
+     * @param apartment  Apartment
+     */
+    static synchronized void put(long generation, @NonNull Apartment apartment) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        putApartment(copy(apartment));
+    }
+
+    /**
+     * Add all Apartments and everything they contain
+     *
+     * @param generation    generation of the cache before the Apartments were read
+     * @param allApartments all Apartments
+     */
+    static synchronized void putAllApartments(long generation, @NonNull List<Apartment> allApartments) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Apartment apartment : allApartments) {
+            putApartment(copy(apartment));
+            ids.add(apartment.getId());
+        }
+        allApartmentIds = allApartments.size() <= MAX_APARTMENTS ? ids : null;
+    }
+
+    /**
+     * Add a Room and its Receivers
+     *
+     * @param generation generation of the cache before the Room was read
+     * @param room       Room
+     */
+    static synchronized void put(long generation, @NonNull Room room) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        putRoom(copy(room));
+    }
+
+    /**
+     * Add a Scene and its Receivers
+     *
+     * @param generation generation of the cache before the Scene was read
+     * @param scene      Scene
+     */
+    static synchronized void put(long generation, @NonNull Scene scene) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        putScene(copy(scene));
+    }
+
+    /**
+     * Add a Receiver
+     *
+     * @param generation generation of the cache before the Receiver was read
+     * @param receiver   Receiver
+     */
+    static synchronized void put(long generation, @NonNull Receiver receiver) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        receivers.put(receiver.getId(), receiver);
+    }
+
+    /**
+     * Add a Gateway
+     *
+     * @param generation generation of the cache before the Gateway was read
+     * @param gateway    Gateway
+     */
+    static synchronized void put(long generation, @NonNull Gateway gateway) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        gateways.put(gateway.getId(), copy(gateway));
+    }
+
+    /**
+     * Add all Gateways
+     *
+     * @param generation  generation of the cache before the Gateways were read
+     * @param allGateways all Gateways
+     */
+    static synchronized void putAllGateways(long generation, @NonNull List<Gateway> allGateways) {
+        if (generation != ModelCache.generation) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Gateway gateway : allGateways) {
+            gateways.put(gateway.getId(), copy(gateway));
+            ids.add(gateway.getId());
+        }
+        allGatewayIds = allGateways.size() <= MAX_GATEWAYS ? ids : null;
+    }
+
+
+    /**
+     * Changes of a write transaction, applied to the cache after it was committed (see {@link #apply(long, Update)})
+     * <p/>
+     * Changed objects must be read inside the transaction, after they were written.
+     * Changes are applied in the order they were added.
+     */
+    static final class Update {
+
+        private final List<Runnable> changes = new ArrayList<>();
+
+        /**
+         * Add or replace an Apartment and everything it contains
+         *
+         * @param apartment Apartment
+         */
+        void put(@NonNull Apartment apartment) {
+            final Apartment copy = copy(apartment);
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    updateApartment(copy);
+                }
+            });
+        }
+
+        /**
+         * Add or replace a Room and its Receivers
+         *
+         * @param room Room
+         */
+        void put(@NonNull Room room) {
+            final Room copy = copy(room);
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    updateRoom(copy);
+                }
+            });
+        }
+
+        /**
+         * Replace every cached instance of a Receiver
+         *
+         * @param receiver immutable Receiver
+         */
+        void put(@NonNull final Receiver receiver) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    updateReceiver(receiver);
+                }
+            });
+        }
+
+        /**
+         * Add or replace a Gateway
+         *
+         * @param gateway Gateway
+         */
+        void put(@NonNull Gateway gateway) {
+            final Gateway copy = copy(gateway);
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    updateGateway(copy);
+                }
+            });
+        }
+
+        /**
+         * Set the collapsed state of a Room
+         *
+         * @param roomId      ID of Room
+         * @param isCollapsed true if collapsed
+         */
+        void setCollapsed(@NonNull final Long roomId, final boolean isCollapsed) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    updateCollapsed(roomId, isCollapsed);
+                }
+            });
+        }
+
+        /**
+         * Remove an Apartment and everything it contains
+         *
+         * @param id ID of Apartment
+         */
+        void removeApartment(@NonNull final Long id) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    ModelCache.removeApartment(id);
+                }
+            });
+        }
+
+        /**
+         * Remove a Room and its Receivers
+         *
+         * @param id ID of Room
+         */
+        void removeRoom(@NonNull final Long id) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    ModelCache.removeRoom(id);
+                }
+            });
+        }
+
+        /**
+         * Remove a Scene
+         *
+         * @param id ID of Scene
+         */
+        void removeScene(@NonNull final Long id) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    ModelCache.removeScene(id);
+                }
+            });
+        }
+
+        /**
+         * Remove every cached instance of a Receiver
+         *
+         * @param id ID of Receiver
+         */
+        void removeReceiver(@NonNull final Long id) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    ModelCache.removeReceiver(id);
+                }
+            });
+        }
+
+        /**
+         * Remove a Gateway
+         *
+         * @param id ID of Gateway
+         */
+        void removeGateway(@NonNull final Long id) {
+            changes.add(new Runnable() {
+                @Override
+                public void run() {
+                    ModelCache.removeGateway(id);
+                }
+            });
+        }
+
+        /**
+         * Apply all changes, must be called while holding the lock of {@link ModelCache}
+         */
+        private void apply() {
+            for (Runnable change : changes) {
+                change.run();
+            }
+        }
+    }
+
+    private static void putApartment(Apartment apartment) {
+        apartments.put(apartment.getId(), apartment);
+        for (Room room : apartment.getRooms()) {
+            putRoom(room);
+        }
+        for (Scene scene : apartment.getScenes()) {
+            putScene(scene);
+        }
+        for (Gateway gateway : apartment.getAssociatedGateways()) {
+            gateways.put(gateway.getId(), gateway);
+        }
+    }
+
+    private static void putRoom(Room room) {
+        rooms.put(room.getId(), room);
+        for (Receiver receiver : room.getReceivers()) {
+            receivers.put(receiver.getId(), receiver);
+        }
+    }
+
+    private static void putScene(Scene scene) {
+        scenes.put(scene.getId(), scene);
+        for (SceneItem sceneItem : scene.getSceneItems()) {
+            receivers.put(sceneItem.getReceiver().getId(), sceneItem.getReceiver());
+        }
+    }
+
+    private static void updateApartment(Apartment apartment) {
+        putApartment(apartment);
+        allApartmentIds = addId(allApartmentIds, apartment.getId(), MAX_APARTMENTS);
+    }
+
+    private static void updateRoom(Room room) {
+        putRoom(room);
+        for (Apartment apartment : apartments.snapshot().values()) {
+            if (apartment.getId().equals(room.getApartmentId())) {
+                List<Room> apartmentRooms = apartment.getRooms();
+                removeRoom(apartmentRooms, room.getId());
+                apartmentRooms.add(room);
+                Collections.sort(apartmentRooms, ROOM_POSITION);
+            }
+        }
+    }
+
+    private static void updateReceiver(Receiver receiver) {
+        receivers.put(receiver.getId(), receiver);
+        // a Receiver can be cached more than once, if it was read separately from its Room or Scene
+        for (Room room : getCachedRooms()) {
+            List<Receiver> roomReceivers = room.getReceivers();
+            for (int i = 0; i < roomReceivers.size(); i++) {
+                if (receiver.getId().equals(roomReceivers.get(i).getId())) {
+                    roomReceivers.set(i, receiver);
+                    Collections.sort(roomReceivers, RECEIVER_POSITION);
+                    break;
+                }
+            }
+        }
+        for (Scene scene : getCachedScenes()) {
+            List<SceneItem> sceneItems = scene.getSceneItems();
+            for (int i = 0; i < sceneItems.size(); i++) {
+                SceneItem sceneItem = sceneItems.get(i);
+                if (receiver.getId().equals(sceneItem.getReceiver().getId())) {
+                    sceneItems.set(i, new SceneItem(receiver, sceneItem.getActiveButton()));
+                }
+            }
+        }
+    }
+
+    private static void updateGateway(Gateway gateway) {
+        gateways.put(gateway.getId(), gateway);
+        allGatewayIds = addId(allGatewayIds, gateway.getId(), MAX_GATEWAYS);
+        for (Apartment apartment : apartments.snapshot().values()) {
+            List<Gateway> associatedGateways = apartment.getAssociatedGateways();
+            for (int i = 0; i < associatedGateways.size(); i++) {
+                if (gateway.getId().equals(associatedGateways.get(i).getId())) {
+                    associatedGateways.set(i, gateway);
+                }
+            }
+        }
+    }
+
+    private static void updateCollapsed(Long roomId, boolean isCollapsed) {
+        for (Room room : getCachedRooms()) {
+            if (roomId.equals(room.getId())) {
+                room.setCollapsed(isCollapsed);
+            }
+        }
+    }
+
+    private static void removeApartment(Long id) {
+        apartments.remove(id);
+        if (allApartmentIds != null) {
+            allApartmentIds.remove(id);
+        }
+        for (Room room : rooms.snapshot().values()) {
+            if (id.equals(room.getApartmentId())) {
+                removeRoom(room.getId());
+            }
+        }
+        for (Scene scene : scenes.snapshot().values()) {
+            if (id.equals(scene.getApartmentId())) {
+                removeScene(scene.getId());
+            }
+        }
+    }
+
+    private static void removeRoom(Long id) {
+        rooms.remove(id);
+        for (Receiver receiver : receivers.snapshot().values()) {
+            if (id.equals(receiver.getRoomId())) {
+                removeReceiver(receiver.getId());
+            }
+        }
+        for (Apartment apartment : apartments.snapshot().values()) {
+            removeRoom(apartment.getRooms(), id);
+        }
+    }
+
+    private static void removeRoom(List<Room> rooms, Long id) {
+        Iterator<Room> iterator = rooms.iterator();
+        while (iterator.hasNext()) {
+            if (id.equals(iterator.next().getId())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void removeScene(Long id) {
+        scenes.remove(id);
+        for (Apartment apartment : apartments.snapshot().values()) {
+            Iterator<Scene> iterator = apartment.getScenes().iterator();
+            while (iterator.hasNext()) {
+                if (id.equals(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static void removeReceiver(Long id) {
+        receivers.remove(id);
+        for (Room room : getCachedRooms()) {
+            Iterator<Receiver> iterator = room.getReceivers().iterator();
+            while (iterator.hasNext()) {
+                if (id.equals(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+        for (Scene scene : getCachedScenes()) {
+            Iterator<SceneItem> iterator = scene.getSceneItems().iterator();
+            while (iterator.hasNext()) {
+                if (id.equals(iterator.next().getReceiver().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static void removeGateway(Long id) {
+        gateways.remove(id);
+        if (allGatewayIds != null) {
+            allGatewayIds.remove(id);
+        }
+        for (Apartment apartment : apartments.snapshot().values()) {
+            Iterator<Gateway> iterator = apartment.getAssociatedGateways().iterator();
+            while (iterator.hasNext()) {
+                if (id.equals(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get all cached Rooms, including the ones of cached Apartments
+     */
+    private static List<Room> getCachedRooms() {
+        List<Room> cachedRooms = new ArrayList<>(rooms.snapshot().values());
+        for (Apartment apartment : apartments.snapshot().values()) {
+            cachedRooms.addAll(apartment.getRooms());
+        }
+        return cachedRooms;
+    }
+
+    /**
+     * Get all cached Scenes, including the ones of cached Apartments
+     */
+    private static List<Scene> getCachedScenes() {
+        List<Scene> cachedScenes = new ArrayList<>(scenes.snapshot().values());
+        for (Apartment apartment : apartments.snapshot().values()) {
+            cachedScenes.addAll(apartment.getScenes());
+        }
+        return cachedScenes;
+    }
+
+    /**
+     * Add an ID to a list of all IDs
+     *
+     * @return list of IDs, null if it is unknown or too long
+     */
+    private static List<Long> addId(@Nullable List<Long> ids, Long id, int maxSize) {
+        if (ids == null || ids.contains(id)) {
+            return ids;
+        }
+        if (ids.size() >= maxSize) {
+            return null;
+        }
+        ids.add(id);
+        return ids;
+    }
+
+    private static int compareNullable(Integer lhs, Integer rhs) {
+        if (lhs == null) {
+            return rhs == null ? 0 : 1;
+        }
+        return rhs == null ? -1 : lhs.compareTo(rhs);
+    }
+
+    private static Apartment copy(Apartment apartment) {
+        List<Room> roomCopies = new ArrayList<>(apartment.getRooms().size());
+        for (Room room : apartment.getRooms()) {
+            roomCopies.add(copy(room));
+        }
+        List<Scene> sceneCopies = new ArrayList<>(apartment.getScenes().size());
+        for (Scene scene : apartment.getScenes()) {
+            sceneCopies.add(copy(scene));
+        }
+        return new Apartment(apartment.getId(), apartment.isActive(), apartment.getName(), roomCopies, sceneCopies,
+                copyGateways(apartment.getAssociatedGateways()), apartment.getGeofence());
+    }
+
+    private static Room copy(Room room) {
+        Room copy = new Room(room.getId(), room.getApartmentId(), room.getName(), room.getPositionInApartment(),
+                room.isCollapsed());
+        copy.addReceivers(room.getReceivers());
+        return copy;
+    }
+
+    private static Scene copy(Scene scene) {
+        Scene copy = new Scene(scene.getId(), scene.getApartmentId(), scene.getName());
+        for (SceneItem sceneItem : scene.getSceneItems()) {
+            copy.addSceneItem(new SceneItem(sceneItem.getReceiver(), sceneItem.getActiveButton()));
+        }
+        return copy;
+    }
+
+    private static Gateway copy(Gateway gateway) {
+        return GatewayHandler.newGateway(gateway.getModel(), gateway.getId(), gateway.isActive(), gateway.getName(),
+                gateway.getFirmware(), gateway.getLocalHost(), gateway.getLocalPort(), gateway.getWanHost(),
+                gateway.getWanPort(), new HashSet<>(gateway.getSsids()));
+    }
+
+    private static List<Gateway> copyGateways(List<Gateway> gateways) {
+        List<Gateway> copies = new ArrayList<>(gateways.size());
+        for (Gateway gateway : gateways) {
+            copies.add(copy(gateway));
+        }
+        return copies;
+    }
+
+    private static <T> List<T> getAll(LruCache<Long, T> cache, List<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        List<T> all = new ArrayList<>();
+        for (Long id : ids) {
+            T object = cache.get(id);
+            if (object == null) {
+                // evicted
+                return null;
+            }
+            all.add(object);
+        }
+        return all;
+    }
+}
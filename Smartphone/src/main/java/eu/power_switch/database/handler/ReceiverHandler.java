@@ -31,6 +31,8 @@ import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.DipReceiver;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.ReceiverRegistry;
+import eu.power_switch.obj.receiver.SignalCache;
 import eu.power_switch.obj.receiver.UniversalReceiver;
 import eu.power_switch.shared.log.Log;
 
@@ -59,7 +61,10 @@ abstract class ReceiverHandler {
         values.put(ReceiverTable.COLUMN_ROOM_ID, receiver.getRoomId());
         values.put(ReceiverTable.COLUMN_MODEL, receiver.getModel());
         values.put(ReceiverTable.COLUMN_CLASSNAME, receiver.getClass().getName());
+        values.put(ReceiverTable.COLUMN_TYPE_CODE, ReceiverRegistry.get(receiver).getTypeCode());
         values.put(ReceiverTable.COLUMN_TYPE, receiver.getType().toString());
+        putAddress(values, receiver);
+        putGatewayPolicy(values, receiver);
         values.put(ReceiverTable.COLUMN_POSITION_IN_ROOM, RoomHandler.get(receiver.getRoomId()).getReceivers().size());
 
         Long dbInsertReturnValue = DatabaseHandler.database.insert(ReceiverTable.TABLE_NAME, null, values);
@@ -71,6 +76,44 @@ abstract class ReceiverHandler {
         }
     }
 
+    /**
+     * Put the packed address of a Receiver into its database values
+     * <p/>
+     * Dips and Master/Slave channels are stored in the Receiver table itself,
+     * so loading these Receivers does not need another query.
+     *
+     * @param values   database values of the Receiver
+     * @param receiver the Receiver
+     */
+    private static void putAddress(ContentValues values, Receiver receiver) {
+        switch (receiver.getType()) {
+            case MASTER_SLAVE:
+                values.put(ReceiverTable.COLUMN_ADDRESS, ((MasterSlaveReceiver) receiver).getChannels());
+                break;
+            case DIPS:
+                values.put(ReceiverTable.COLUMN_ADDRESS, ((DipReceiver) receiver).getDipMask());
+                break;
+            default:
+                values.putNull(ReceiverTable.COLUMN_ADDRESS);
+                break;
+        }
+    }
+
+    /**
+     * Put the preferred Gateway and Gateway policy of a Receiver into its database values
+     *
+     * @param values   database values of the Receiver
+     * @param receiver the Receiver
+     */
+    private static void putGatewayPolicy(ContentValues values, Receiver receiver) {
+        if (receiver.getPreferredGatewayId() == null) {
+            values.putNull(ReceiverTable.COLUMN_PREFERRED_GATEWAY_ID);
+        } else {
+            values.put(ReceiverTable.COLUMN_PREFERRED_GATEWAY_ID, receiver.getPreferredGatewayId());
+        }
+        values.put(ReceiverTable.COLUMN_GATEWAY_POLICY, receiver.getGatewayPolicy().name());
+    }
+
     /**
      * Insert Receiver details into related database tables
      *
@@ -80,15 +123,6 @@ abstract class ReceiverHandler {
     private static void insertDetails(Receiver receiver, Long receiverId) throws Exception {
         Receiver.Type type = receiver.getType();
         switch (type) {
-            case MASTER_SLAVE:
-                MasterSlaveReceiver receiverAsMasterSlave = (MasterSlaveReceiver) receiver;
-                MasterSlaveReceiverHandler.add(receiverId, receiverAsMasterSlave.getMaster(),
-                        receiverAsMasterSlave.getSlave());
-                break;
-            case DIPS:
-                DipReceiver receiverAsDipReceiver = (DipReceiver) receiver;
-                DipHandler.add(receiverId, receiverAsDipReceiver);
-                break;
             case UNIVERSAL:
                 UniversalReceiver receiverAsUniversalReceiver = (UniversalReceiver) receiver;
                 UniversalButtonHandler.addUniversalButtons(receiverId, receiverAsUniversalReceiver.getButtons());
@@ -113,12 +147,17 @@ abstract class ReceiverHandler {
         values.put(ReceiverTable.COLUMN_ROOM_ID, receiver.getRoomId());
         values.put(ReceiverTable.COLUMN_MODEL, receiver.getModel());
         values.put(ReceiverTable.COLUMN_CLASSNAME, receiver.getClass().getName());
+        values.put(ReceiverTable.COLUMN_TYPE_CODE, ReceiverRegistry.get(receiver).getTypeCode());
         values.put(ReceiverTable.COLUMN_TYPE, receiver.getType().toString());
+        putAddress(values, receiver);
+        putGatewayPolicy(values, receiver);
 
         DatabaseHandler.database.update(ReceiverTable.TABLE_NAME, values,
                 ReceiverTable.COLUMN_ID + "=" + receiver.getId(), null);
 
         SceneItemHandler.update(receiver.getId());
+
+        SignalCache.invalidate(receiver.getId());
     }
 
     /**
@@ -141,19 +180,54 @@ abstract class ReceiverHandler {
      */
     @NonNull
     protected static Receiver get(Long id) throws Exception {
-        Receiver receiver = null;
-        Cursor cursor = DatabaseHandler.database.query(ReceiverTable.TABLE_NAME, ReceiverTable.ALL_COLUMNS, ReceiverTable.COLUMN_ID + "="
-                + id, null, null, null, null);
+        List<Receiver> receivers = new GraphLoader().loadReceivers(ReceiverTable.COLUMN_ID + "=" + id);
+        if (receivers.isEmpty()) {
+            throw new NoSuchElementException(String.valueOf(id));
+        }
+        return receivers.get(0);
+    }
 
+    /**
+     * Gets the ID of the Room containing a Receiver
+     *
+     * @param id ID of Receiver
+     * @return ID of Room
+     */
+    @NonNull
+    protected static Long getRoomId(Long id) throws Exception {
+        Long roomId;
+        String[] columns = {ReceiverTable.COLUMN_ROOM_ID};
+        Cursor cursor = DatabaseHandler.database.query(ReceiverTable.TABLE_NAME, columns, ReceiverTable.COLUMN_ID +
+                "=" + id, null, null, null, null);
         if (cursor.moveToFirst()) {
-            receiver = dbToReceiver(cursor);
+            roomId = cursor.getLong(0);
         } else {
             cursor.close();
             throw new NoSuchElementException(String.valueOf(id));
         }
+        cursor.close();
+        return roomId;
+    }
 
+    /**
+     * Gets the IDs of all Receivers preferring a Gateway
+     *
+     * @param gatewayId ID of Gateway
+     * @return list of Receiver IDs
+     */
+    protected static ArrayList<Long> getIdsByPreferredGateway(Long gatewayId) throws Exception {
+        ArrayList<Long> receiverIds = new ArrayList<>();
+        String[] columns = {ReceiverTable.COLUMN_ID};
+        Cursor cursor = DatabaseHandler.database.query(ReceiverTable.TABLE_NAME, columns,
+                ReceiverTable.COLUMN_PREFERRED_GATEWAY_ID + "=" + gatewayId, null, null, null, null);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            receiverIds.add(cursor.getLong(0));
+            cursor.moveToNext();
+        }
         cursor.close();
-        return receiver;
+        return receiverIds;
     }
 
     /**
@@ -180,18 +254,7 @@ abstract class ReceiverHandler {
      * @return List of Receivers
      */
     protected static ArrayList<Receiver> getByRoom(Long roomId) throws Exception {
-        ArrayList<Receiver> receivers = new ArrayList<>();
-        Cursor cursor = DatabaseHandler.database.query(ReceiverTable.TABLE_NAME, ReceiverTable.ALL_COLUMNS, ReceiverTable.COLUMN_ROOM_ID +
-                "=" + roomId, null, null, null, ReceiverTable.COLUMN_POSITION_IN_ROOM + " ASC");
-        cursor.moveToFirst();
-
-        while (!cursor.isAfterLast()) {
-            receivers.add(dbToReceiver(cursor));
-            cursor.moveToNext();
-        }
-        cursor.close();
-
-        return receivers;
+        return new ArrayList<>(new GraphLoader().loadReceivers(ReceiverTable.COLUMN_ROOM_ID + "=" + roomId));
     }
 
     /**
@@ -200,16 +263,7 @@ abstract class ReceiverHandler {
      * @return List of Receivers
      */
     protected static List<Receiver> getAll() throws Exception {
-        List<Receiver> receivers = new ArrayList<>();
-        Cursor cursor = DatabaseHandler.database.query(ReceiverTable.TABLE_NAME, ReceiverTable.ALL_COLUMNS, null, null, null, null, null);
-        cursor.moveToFirst();
-
-        while (!cursor.isAfterLast()) {
-            receivers.add(dbToReceiver(cursor));
-            cursor.moveToNext();
-        }
-        cursor.close();
-        return receivers;
+        return new GraphLoader().loadReceivers(null);
     }
 
     /**
@@ -229,6 +283,8 @@ abstract class ReceiverHandler {
 
         deleteDetails(id);
         DatabaseHandler.database.delete(ReceiverTable.TABLE_NAME, ReceiverTable.COLUMN_ID + "=" + id, null);
+
+        SignalCache.invalidate(id);
     }
 
     /**
@@ -238,12 +294,6 @@ abstract class ReceiverHandler {
      */
     private static void deleteDetails(Long id) throws Exception {
         switch (getType(id)) {
-            case DIPS:
-                DipHandler.delete(id);
-                break;
-            case MASTER_SLAVE:
-                MasterSlaveReceiverHandler.delete(id);
-                break;
             case UNIVERSAL:
                 UniversalButtonHandler.deleteUniversalButtons(id);
                 break;
@@ -343,14 +393,4 @@ abstract class ReceiverHandler {
         DatabaseHandler.database.update(ReceiverTable.TABLE_NAME, values,
                 ReceiverTable.COLUMN_ID + "=" + receiverId, null);
     }
-
-    /**
-     * Creates a Receiver Object out of Database information
-     *
-     * @param c cursor pointing to a Receiver database entry
-     * @return Receiver
-     */
-    private static Receiver dbToReceiver(Cursor c) throws Exception {
-        return ReceiverReflectionMagic.fromDatabase(DatabaseHandler.context, c);
-    }
 }
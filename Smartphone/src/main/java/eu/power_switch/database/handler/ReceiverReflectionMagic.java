@@ -20,20 +20,24 @@ package eu.power_switch.database.handler;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.support.annotation.Nullable;
 
-import java.lang.reflect.Constructor;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import eu.power_switch.obj.UniversalButton;
-import eu.power_switch.obj.receiver.AutoPairReceiver;
-import eu.power_switch.obj.receiver.DipReceiver;
-import eu.power_switch.obj.receiver.MasterSlaveReceiver;
+import eu.power_switch.obj.receiver.MasterSlaveChannels;
 import eu.power_switch.obj.receiver.Receiver;
-import eu.power_switch.obj.receiver.UniversalReceiver;
+import eu.power_switch.obj.receiver.ReceiverRegistry;
+import eu.power_switch.shared.log.Log;
 
 /**
- *
+ * Creates Receivers from their database representation
+ * <p/>
+ * Receivers are created by the factories of the {@link ReceiverRegistry}, no reflection is used.
+ * They are immutable (see {@link Receiver#makeImmutable()}).
  */
 public abstract class ReceiverReflectionMagic {
 
@@ -54,9 +58,23 @@ public abstract class ReceiverReflectionMagic {
      * @return The complete Receiver object.
      */
     public static Receiver fromDatabase(Context context, Cursor cursor) throws Exception {
+        return fromDatabase(context, cursor, null, null);
+    }
+
+    /**
+     * Creates a Receiver based on a database cursor, using details that were loaded in advance.
+     *
+     * @param context          The application context for all database operations.
+     * @param cursor           A database cursor with one element.
+     * @param universalButtons Map <Receiver ID> -> <Buttons> of UNIVERSAL Receivers, null to query them.
+     * @param seeds            Map <Receiver ID> -> <Seed> of AUTOPAIR Receivers, null to query them.
+     * @return The complete, immutable Receiver object.
+     */
+    public static Receiver fromDatabase(Context context, Cursor cursor,
+                                        @Nullable Map<Long, List<UniversalButton>> universalButtons,
+                                        @Nullable Map<Long, Long> seeds) throws Exception {
         Long id = cursor.getLong(0);
         String name = cursor.getString(1);
-        String model = cursor.getString(2);
         Receiver.Type type = Receiver.Type.getEnum(cursor.getString(3));
         String className = cursor.getString(4);
         Long roomId = cursor.getLong(5);
@@ -68,65 +86,69 @@ public abstract class ReceiverReflectionMagic {
 
         Long lastActivatedButtonId = cursor.getLong(7);
 
-        Receiver receiver = null;
+        ReceiverRegistry.Entry entry = null;
+        if (!cursor.isNull(8)) {
+            entry = ReceiverRegistry.getByTypeCode(cursor.getInt(8));
+        }
+        if (entry == null) {
+            entry = getEntry(className);
+        }
+        ReceiverRegistry.Factory factory = entry.getFactory();
 
-        Constructor<?> constructor = getConstructor(className, type);
+        Receiver receiver = null;
 
         switch (type) {
             case MASTER_SLAVE:
-                Character channelMaster = MasterSlaveReceiverHandler.getMaster(id);
-                int channelSlave = MasterSlaveReceiverHandler.getSlave(id);
-                receiver = (Receiver) constructor.newInstance(context, id, name, channelMaster, channelSlave, roomId);
+                short channels;
+                if (cursor.isNull(9)) {
+                    Log.w("Receiver " + id + " has no channels, using default");
+                    channels = MasterSlaveChannels.DEFAULT;
+                } else {
+                    channels = cursor.getShort(9);
+                }
+                receiver = factory.newMasterSlaveReceiver(context, id, name, MasterSlaveChannels.getMaster(channels),
+                        MasterSlaveChannels.getSlave(channels), roomId);
                 break;
             case DIPS:
-                LinkedList<Boolean> dips = DipHandler.getDips(id);
-                receiver = (Receiver) constructor.newInstance(context, id, name, dips, roomId);
+                int dipMask = cursor.getInt(9);
+                receiver = factory.newDipReceiver(context, id, name, dipMask, roomId);
                 break;
             case UNIVERSAL:
-                List<UniversalButton> buttons = UniversalButtonHandler.getUniversalButtons(id);
-                receiver = (Receiver) constructor.newInstance(context, id, name, buttons, roomId);
+                List<UniversalButton> buttons;
+                if (universalButtons == null) {
+                    buttons = UniversalButtonHandler.getUniversalButtons(id);
+                } else if (universalButtons.containsKey(id)) {
+                    buttons = universalButtons.get(id);
+                } else {
+                    buttons = new ArrayList<>();
+                }
+                receiver = factory.newUniversalReceiver(context, id, name, buttons, roomId);
                 break;
             case AUTOPAIR:
-                long seed = AutoPairHandler.getSeed(id);
-                receiver = (Receiver) constructor.newInstance(context, id, name, seed, roomId);
+                long seed;
+                if (seeds == null) {
+                    seed = AutoPairHandler.getSeed(id);
+                } else if (seeds.containsKey(id)) {
+                    seed = seeds.get(id);
+                } else {
+                    throw new NoSuchElementException(String.valueOf(id));
+                }
+                receiver = factory.newAutoPairReceiver(context, id, name, seed, roomId);
                 break;
         }
 
         receiver.setPositionInRoom(positionInRoom);
         receiver.setLastActivatedButtonId(lastActivatedButtonId);
+        if (!cursor.isNull(10)) {
+            receiver.setPreferredGatewayId(cursor.getLong(10));
+        }
+        receiver.setGatewayPolicy(Receiver.GatewayPolicy.getEnum(cursor.getString(11)));
+        // shared by the Database cache
+        receiver.makeImmutable();
 
         return receiver;
     }
 
-    /**
-     * Find an appropriate constructor for the given class and receiver type
-     *
-     * @param className Class name
-     * @param type      type of Receiver
-     * @return Constructor
-     * @throws ClassNotFoundException
-     * @throws NoSuchMethodException
-     * @throws IllegalArgumentException
-     */
-    public static Constructor<?> getConstructor(String className, Receiver.Type type) throws ClassNotFoundException,
-            NoSuchMethodException, IllegalArgumentException {
-        Class<?> myClass = Class.forName(className);
-
-        switch (type) {
-            case DIPS:
-                return myClass.getConstructor(Context.class, Long.class, String.class, LinkedList.class, Long.class);
-            case MASTER_SLAVE:
-                return myClass.getConstructor(Context.class, Long.class, String.class, char.class, int.class,
-                        Long.class);
-            case UNIVERSAL:
-                return myClass.getConstructor(Context.class, Long.class, String.class, List.class, Long.class);
-            case AUTOPAIR:
-                return myClass.getConstructor(Context.class, Long.class, String.class, long.class, Long.class);
-            default:
-                throw new ClassNotFoundException("Unknown type " + type.toString());
-        }
-    }
-
     /**
      * Gives you the type of a Receiver based on its java path.
      *
@@ -134,24 +156,7 @@ public abstract class ReceiverReflectionMagic {
      * @return The type of the Receiver or null if unknown.
      */
     public static Receiver.Type getType(String javaPath) throws ClassNotFoundException {
-
-        Class<?> myClass = Class.forName(javaPath);
-        Class<?>[] implementedInterfaces = myClass.getInterfaces();
-
-        for (Class<?> someClass : implementedInterfaces) {
-            if (someClass.equals(MasterSlaveReceiver.class)) {
-                return Receiver.Type.MASTER_SLAVE;
-            } else if (someClass.equals(DipReceiver.class)) {
-                return Receiver.Type.DIPS;
-            } else if (someClass.equals(AutoPairReceiver.class)) {
-                return Receiver.Type.AUTOPAIR;
-            }
-        }
-        if (myClass.equals(UniversalReceiver.class)) {
-            return Receiver.Type.UNIVERSAL;
-        }
-
-        throw new ClassNotFoundException("Unknown Receiver Type/Classpath");
+        return getEntry(javaPath).getDefaultType();
     }
 
     /**
@@ -162,35 +167,14 @@ public abstract class ReceiverReflectionMagic {
      * @return Receiver object
      */
     public static Receiver getDummy(Context context, String javaPath) throws Exception {
-        long dummyReceiverId = 0;
-        String dummyReceiverName = "dummy";
-
-        Class<?> myClass = Class.forName(javaPath);
-        Class<?>[] implementedInterfaces = myClass.getInterfaces();
-
-        for (Class<?> someClass : implementedInterfaces) {
-            if (someClass.equals(MasterSlaveReceiver.class)) {
-                Constructor<?> constructor = myClass.getConstructor(Context.class, Long.class, String.class, char
-                        .class, int.class, Long.class);
-                return (Receiver) constructor.newInstance(context, dummyReceiverId, dummyReceiverName, 'A', 0,
-                        null);
-            } else if (someClass.equals(DipReceiver.class)) {
-                Constructor<?> constructor;
-                constructor = myClass.getConstructor(Context.class, Long.class, String.class, LinkedList.class, Long.class);
-                return (Receiver) constructor.newInstance(context, dummyReceiverId, dummyReceiverName, new
-                        LinkedList<Boolean>(), null);
-            } else if (someClass.equals(AutoPairReceiver.class)) {
-                Constructor<?> constructor = myClass.getConstructor(Context.class, Long.class, String.class, long
-                        .class, Long.class);
-                return (Receiver) constructor.newInstance(context, dummyReceiverId, dummyReceiverName, -1, null);
-            }
-        }
+        return getEntry(javaPath).newDummy(context);
+    }
 
-        if (myClass.equals(UniversalReceiver.class)) {
-            return new UniversalReceiver(context, dummyReceiverId, dummyReceiverName, new
-                    LinkedList<UniversalButton>(), null);
+    private static ReceiverRegistry.Entry getEntry(String javaPath) throws ClassNotFoundException {
+        ReceiverRegistry.Entry entry = ReceiverRegistry.getByClassName(javaPath);
+        if (entry == null) {
+            throw new ClassNotFoundException("Unknown Receiver Type/Classpath: " + javaPath);
         }
-
-        throw new RuntimeException("Unknown Receiver");
+        return entry;
     }
 }
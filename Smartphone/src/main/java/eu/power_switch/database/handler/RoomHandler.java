@@ -30,7 +30,6 @@ import java.util.NoSuchElementException;
 import eu.power_switch.database.table.room.RoomTable;
 import eu.power_switch.obj.Room;
 import eu.power_switch.obj.receiver.Receiver;
-import eu.power_switch.settings.SmartphonePreferencesHandler;
 
 /**
  * Provides database methods for managing Rooms
@@ -130,19 +129,7 @@ abstract class RoomHandler {
      */
     @NonNull
     protected static Room get(String name) throws Exception {
-        Room room = null;
-        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, RoomTable.ALL_COLUMNS, RoomTable.COLUMN_NAME + "=='" +
-                name + "'", null, null, null, null);
-
-        if (cursor.moveToFirst()) {
-            room = dbToRoom(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(name);
-        }
-
-        cursor.close();
-        return room;
+        return getSingle(RoomTable.COLUMN_NAME + "=='" + name + "'", name);
     }
 
     /**
@@ -153,20 +140,7 @@ abstract class RoomHandler {
      */
     @NonNull
     protected static Room getCaseInsensitive(String name) throws Exception {
-        Room room = null;
-        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, RoomTable.ALL_COLUMNS, RoomTable.COLUMN_NAME + "=='" +
-                name.toLowerCase() + "' COLLATE NOCASE", null, null, null, null);
-        cursor.moveToFirst();
-
-        if (cursor.moveToFirst()) {
-            room = dbToRoom(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(name);
-        }
-
-        cursor.close();
-        return room;
+        return getSingle(RoomTable.COLUMN_NAME + "=='" + name.toLowerCase() + "' COLLATE NOCASE", name);
     }
 
     /**
@@ -177,20 +151,45 @@ abstract class RoomHandler {
      */
     @NonNull
     protected static Room get(Long id) throws Exception {
-        Room room = null;
-        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, RoomTable.ALL_COLUMNS,
-                RoomTable.COLUMN_ID + "==" + id, null, null, null, null);
+        return getSingle(RoomTable.COLUMN_ID + "==" + id, String.valueOf(id));
+    }
 
+    /**
+     * Gets the ID of the Apartment containing a Room
+     *
+     * @param id ID of Room
+     * @return ID of Apartment
+     */
+    @NonNull
+    protected static Long getApartmentId(Long id) throws Exception {
+        Long apartmentId;
+        String[] columns = {RoomTable.COLUMN_APARTMENT_ID};
+        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, columns, RoomTable.COLUMN_ID + "==" + id,
+                null, null, null, null);
         if (cursor.moveToFirst()) {
-            room = dbToRoom(cursor);
-            room.setCollapsed(SmartphonePreferencesHandler.getAutoCollapseRooms());
+            apartmentId = cursor.getLong(0);
         } else {
             cursor.close();
             throw new NoSuchElementException(String.valueOf(id));
         }
-
         cursor.close();
-        return room;
+        return apartmentId;
+    }
+
+    /**
+     * Gets the first Room matching a selection from Database
+     *
+     * @param selection   WHERE clause
+     * @param description description of the Room used if it does not exist
+     * @return Room
+     */
+    @NonNull
+    private static Room getSingle(String selection, String description) throws Exception {
+        List<Room> rooms = new GraphLoader().loadRooms(selection);
+        if (rooms.isEmpty()) {
+            throw new NoSuchElementException(description);
+        }
+        return rooms.get(0);
     }
 
     /**
@@ -200,22 +199,7 @@ abstract class RoomHandler {
      * @return list of Rooms
      */
     public static LinkedList<Room> getByApartment(Long apartmentId) throws Exception {
-        LinkedList<Room> rooms = new LinkedList<>();
-        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, RoomTable.ALL_COLUMNS, RoomTable.COLUMN_APARTMENT_ID +
-                        "==" + apartmentId,
-                null, null, null, RoomTable.COLUMN_POSITION + " ASC");
-        cursor.moveToFirst();
-
-        boolean autoCollapseRooms = SmartphonePreferencesHandler.getAutoCollapseRooms();
-
-        while (!cursor.isAfterLast()) {
-            Room room = dbToRoom(cursor);
-            room.setCollapsed(autoCollapseRooms);
-            rooms.add(room);
-            cursor.moveToNext();
-        }
-        cursor.close();
-        return rooms;
+        return new LinkedList<>(new GraphLoader().loadRooms(RoomTable.COLUMN_APARTMENT_ID + "==" + apartmentId));
     }
 
     /**
@@ -244,37 +228,6 @@ abstract class RoomHandler {
      * @return List of Rooms
      */
     protected static List<Room> getAll() throws Exception {
-        List<Room> rooms = new ArrayList<>();
-        Cursor cursor = DatabaseHandler.database.query(RoomTable.TABLE_NAME, RoomTable.ALL_COLUMNS, null, null, null, null, null);
-        cursor.moveToFirst();
-
-        boolean autoCollapseRooms = SmartphonePreferencesHandler.getAutoCollapseRooms();
-
-        while (!cursor.isAfterLast()) {
-            Room room = dbToRoom(cursor);
-            room.setCollapsed(autoCollapseRooms);
-            rooms.add(room);
-            cursor.moveToNext();
-        }
-        cursor.close();
-        return rooms;
-    }
-
-    /**
-     * Creates a Room Object out of Database information
-     *
-     * @param c cursor pointing to a Room database entry
-     * @return Room
-     */
-    private static Room dbToRoom(Cursor c) throws Exception {
-        long id = c.getLong(0);
-        long apartmentId = c.getLong(1);
-        String name = c.getString(2);
-        int position = c.getInt(3);
-        boolean isCollapsed = c.getInt(4) > 0;
-
-        Room room = new Room(id, apartmentId, name, position, isCollapsed);
-        room.addReceivers(ReceiverHandler.getByRoom(room.getId()));
-        return room;
+        return new GraphLoader().loadRooms(null);
     }
 }
@@ -0,0 +1,133 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.database.handler;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import eu.power_switch.database.table.apartment.ApartmentGatewayRelationTable;
+import eu.power_switch.database.table.apartment.ApartmentGeofenceRelationTable;
+import eu.power_switch.database.table.gateway.GatewayTable;
+import eu.power_switch.database.table.geofence.GeofenceTable;
+import eu.power_switch.database.table.room.RoomTable;
+import eu.power_switch.google_play_services.geofence.Geofence;
+import eu.power_switch.network.RoutingContext;
+import eu.power_switch.obj.gateway.Gateway;
+
+/**
+ * Provides database methods for loading the RoutingContext of an Apartment
+ * <p/>
+ * Only the associated Gateways, their SSIDs and the state of the Geofence are loaded, using two queries.
+ */
+abstract class RoutingContextHandler {
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private RoutingContextHandler() {
+        throw new UnsupportedOperationException("This class is non-instantiable");
+    }
+
+    /**
+     * Gets the RoutingContext of an Apartment
+     *
+     * @param apartmentId ID of Apartment
+     * @return RoutingContext
+     */
+    @NonNull
+    protected static RoutingContext get(@NonNull Long apartmentId) throws Exception {
+        return get(String.valueOf(apartmentId));
+    }
+
+    /**
+     * Gets the RoutingContext of the Apartment containing a Room
+     *
+     * @param roomId ID of Room
+     * @return RoutingContext
+     */
+    @NonNull
+    protected static RoutingContext getByRoom(@NonNull Long roomId) throws Exception {
+        return get("(SELECT " + RoomTable.COLUMN_APARTMENT_ID + " FROM " + RoomTable.TABLE_NAME +
+                " WHERE " + RoomTable.COLUMN_ID + "=" + roomId + ")");
+    }
+
+    /**
+     * Gets the RoutingContext of an Apartment
+     *
+     * @param apartmentIdSql SQL expression evaluating to the ID of the Apartment
+     * @return RoutingContext
+     */
+    private static RoutingContext get(String apartmentIdSql) throws Exception {
+        Map<Long, Set<String>> ssids = GatewayHandler.getSSIDsOfGateways(
+                "SELECT " + ApartmentGatewayRelationTable.COLUMN_GATEWAY_ID +
+                        " FROM " + ApartmentGatewayRelationTable.TABLE_NAME +
+                        " WHERE " + ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID + "=" + apartmentIdSql);
+
+        // Gateway columns in the order of GatewayTable.ALL_COLUMNS, followed by the Geofence state
+        StringBuilder columns = new StringBuilder();
+        for (String column : GatewayTable.ALL_COLUMNS) {
+            columns.append("g.").append(column).append(", ");
+        }
+        columns.append("f.").append(GeofenceTable.COLUMN_ACTIVE).append(", ")
+                .append("f.").append(GeofenceTable.COLUMN_STATE);
+        int geofenceIndex = GatewayTable.ALL_COLUMNS.length;
+
+        Cursor cursor = DatabaseHandler.database.rawQuery("SELECT " + columns +
+                " FROM " + ApartmentGatewayRelationTable.TABLE_NAME + " r" +
+                " JOIN " + GatewayTable.TABLE_NAME + " g" +
+                " ON g." + GatewayTable.COLUMN_ID + "=r." + ApartmentGatewayRelationTable.COLUMN_GATEWAY_ID +
+                " LEFT JOIN " + ApartmentGeofenceRelationTable.TABLE_NAME + " a" +
+                " ON a." + ApartmentGeofenceRelationTable.COLUMN_APARTMENT_ID +
+                "=r." + ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID +
+                " LEFT JOIN " + GeofenceTable.TABLE_NAME + " f" +
+                " ON f." + GeofenceTable.COLUMN_ID + "=a." + ApartmentGeofenceRelationTable.COLUMN_GEOFENCE_ID +
+                " WHERE r." + ApartmentGatewayRelationTable.COLUMN_APARTMENT_ID + "=" + apartmentIdSql, null);
+        cursor.moveToFirst();
+
+        List<Gateway> gateways = new ArrayList<>();
+        Set<Long> gatewayIds = new HashSet<>();
+        boolean insideGeofence = false;
+        while (!cursor.isAfterLast()) {
+            insideGeofence = cursor.getInt(geofenceIndex) > 0 &&
+                    Geofence.STATE_INSIDE.equals(cursor.getString(geofenceIndex + 1));
+
+            // a Gateway is listed once for every Geofence of the Apartment
+            Long gatewayId = cursor.getLong(0);
+            if (gatewayIds.add(gatewayId)) {
+                Set<String> gatewaySsids = ssids.get(gatewayId);
+                if (gatewaySsids == null) {
+                    gatewaySsids = new HashSet<>();
+                }
+                gateways.add(GatewayHandler.dbToGateway(cursor, gatewaySsids));
+            }
+            cursor.moveToNext();
+        }
+        cursor.close();
+
+        return new RoutingContext(gateways, insideGeofence);
+    }
+}
@@ -19,17 +19,14 @@
 package eu.power_switch.database.handler;
 
 import android.content.ContentValues;
-import android.database.Cursor;
 import android.support.annotation.NonNull;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 import eu.power_switch.database.table.scene.SceneTable;
 import eu.power_switch.obj.Scene;
-import eu.power_switch.obj.SceneItem;
 import eu.power_switch.shared.log.Log;
 
 /**
@@ -104,19 +101,7 @@ abstract class SceneHandler {
      */
     @NonNull
     protected static Scene get(String name) throws Exception {
-        Scene scene = null;
-        Cursor cursor = DatabaseHandler.database.query(SceneTable.TABLE_NAME, SceneTable.ALL_COLUMNS, SceneTable.COLUMN_NAME + "=='" + name + "'", null,
-                null, null, null);
-
-        if (cursor.moveToFirst()) {
-            scene = dbToScene(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(name);
-        }
-
-        cursor.close();
-        return scene;
+        return getSingle(SceneTable.COLUMN_NAME + "=='" + name + "'", name);
     }
 
     /**
@@ -127,33 +112,27 @@ abstract class SceneHandler {
      */
     @NonNull
     protected static Scene get(Long id) throws Exception {
-        Scene scene = null;
-        Cursor cursor = DatabaseHandler.database.query(SceneTable.TABLE_NAME, SceneTable.ALL_COLUMNS, SceneTable.COLUMN_ID + "==" + id, null, null, null,
-                null);
-
-        if (cursor.moveToFirst()) {
-            scene = dbToScene(cursor);
-        } else {
-            cursor.close();
-            throw new NoSuchElementException(String.valueOf(id));
-        }
+        return getSingle(SceneTable.COLUMN_ID + "==" + id, String.valueOf(id));
+    }
 
-        cursor.close();
-        return scene;
+    /**
+     * Gets the first Scene matching a selection from Database
+     *
+     * @param selection   WHERE clause
+     * @param description description of the Scene used if it does not exist
+     * @return Scene
+     */
+    @NonNull
+    private static Scene getSingle(String selection, String description) throws Exception {
+        List<Scene> scenes = new GraphLoader().loadScenes(selection);
+        if (scenes.isEmpty()) {
+            throw new NoSuchElementException(description);
+        }
+        return scenes.get(0);
     }
 
     public static LinkedList<Scene> getByApartment(Long id) throws Exception {
-        LinkedList<Scene> scenes = new LinkedList<>();
-        Cursor cursor = DatabaseHandler.database.query(SceneTable.TABLE_NAME, SceneTable.ALL_COLUMNS, SceneTable.COLUMN_APARTMENT_ID +
-                "==" + id, null, null, null, null);
-        cursor.moveToFirst();
-
-        while (!cursor.isAfterLast()) {
-            scenes.add(dbToScene(cursor));
-            cursor.moveToNext();
-        }
-        cursor.close();
-        return scenes;
+        return new LinkedList<>(new GraphLoader().loadScenes(SceneTable.COLUMN_APARTMENT_ID + "==" + id));
     }
 
     /**
@@ -162,35 +141,7 @@ abstract class SceneHandler {
      * @return List of Scene
      */
     protected static List<Scene> getAll() throws Exception {
-        List<Scene> scenes = new ArrayList<>();
-        Cursor cursor = DatabaseHandler.database.query(SceneTable.TABLE_NAME, SceneTable.ALL_COLUMNS, null, null, null, null, null);
-        cursor.moveToFirst();
-
-        while (!cursor.isAfterLast()) {
-            scenes.add(dbToScene(cursor));
-            cursor.moveToNext();
-        }
-        cursor.close();
-        return scenes;
-    }
-
-    /**
-     * Creates a Scene Object out of Database information
-     *
-     * @param c cursor pointing to a Scene database entry
-     * @return Scene
-     */
-    private static Scene dbToScene(Cursor c) throws Exception {
-        long id = c.getLong(0);
-        long apartmentId = c.getLong(1);
-        String name = c.getString(2);
-        int position = c.getInt(3);
-
-        Scene scene = new Scene(id, apartmentId, name);
-        for (SceneItem item : SceneItemHandler.getSceneItems(scene.getId())) {
-            scene.addSceneItem(item);
-        }
-        return scene;
+        return new GraphLoader().loadScenes(null);
     }
 
 }
\ No newline at end of file
@@ -22,8 +22,6 @@ import android.content.ContentValues;
 import android.database.Cursor;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.NoSuchElementException;
 
 import eu.power_switch.database.table.scene.SceneItemTable;
@@ -109,27 +107,6 @@ abstract class SceneItemHandler {
         add(scene.getId(), scene.getSceneItems());
     }
 
-    /**
-     * Get a list of all SceneItems associated with a Scene
-     *
-     * @param sceneId ID of Scene
-     * @return list of SceneItems
-     */
-    protected static List<SceneItem> getSceneItems(Long sceneId) throws Exception {
-        LinkedList<SceneItem> sceneItems = new LinkedList<>();
-
-        Cursor cursor = DatabaseHandler.database.query(SceneItemTable.TABLE_NAME, SceneItemTable.ALL_COLUMNS,
-                SceneItemTable.COLUMN_SCENE_ID + "==" + sceneId, null, null, null, null);
-        cursor.moveToFirst();
-        while (!cursor.isAfterLast()) {
-            sceneItems.add(dbToSceneItem(cursor));
-            cursor.moveToNext();
-        }
-
-        cursor.close();
-        return sceneItems;
-    }
-
     /**
      * Deletes a SceneItem
      *
@@ -159,20 +136,4 @@ abstract class SceneItemHandler {
         DatabaseHandler.database.delete(SceneItemTable.TABLE_NAME, SceneItemTable.COLUMN_SCENE_ID + "==" + sceneId, null);
     }
 
-    /**
-     * Creates a SceneItem Object out of Database information
-     *
-     * @param c cursor pointing to a SceneItem database entry
-     * @return SceneItem
-     */
-    private static SceneItem dbToSceneItem(Cursor c) throws Exception {
-        long receiverId = c.getLong(2);
-        long activeButtonId = c.getLong(3);
-
-        Receiver receiver = ReceiverHandler.get(receiverId);
-
-        SceneItem sceneItem = new SceneItem(receiver, receiver.getButton(activeButtonId));
-        return sceneItem;
-    }
-
 }
\ No newline at end of file
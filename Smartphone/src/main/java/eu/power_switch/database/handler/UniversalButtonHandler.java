@@ -22,7 +22,9 @@ import android.content.ContentValues;
 import android.database.Cursor;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import eu.power_switch.database.table.receiver.UniversalButtonTable;
@@ -132,6 +134,34 @@ abstract class UniversalButtonHandler {
         return buttons;
     }
 
+    /**
+     * Gets all Buttons associated with a set of Receivers
+     *
+     * @param receiverIds SQL selecting the IDs of the Receivers (e.g. a sub query)
+     * @return Map <Receiver ID> -> <Buttons>
+     */
+    protected static Map<Long, List<UniversalButton>> getUniversalButtonsOfReceivers(String receiverIds) throws Exception {
+        Map<Long, List<UniversalButton>> buttons = new HashMap<>();
+        Cursor cursor = DatabaseHandler.database.query(UniversalButtonTable.TABLE_NAME, UniversalButtonTable.ALL_COLUMNS,
+                UniversalButtonTable.COLUMN_RECEIVER_ID + " IN (" + receiverIds + ")", null, null, null,
+                UniversalButtonTable.COLUMN_RECEIVER_ID + "," + UniversalButtonTable.COLUMN_ID);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            UniversalButton button = dbToUniversalButton(cursor);
+            List<UniversalButton> receiverButtons = buttons.get(button.getReceiverId());
+            if (receiverButtons == null) {
+                receiverButtons = new ArrayList<>();
+                buttons.put(button.getReceiverId(), receiverButtons);
+            }
+            receiverButtons.add(button);
+            cursor.moveToNext();
+        }
+
+        cursor.close();
+        return buttons;
+    }
+
     /**
      * Creates a Button Object out of Database information
      *
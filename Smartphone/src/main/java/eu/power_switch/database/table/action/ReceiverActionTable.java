@@ -32,6 +32,15 @@ public class ReceiverActionTable {
     public static final String COLUMN_RECEIVER_ID = "receiver_id";
     public static final String COLUMN_BUTTON_ID = "button_id";
 
+    /**
+     * Index on the details of an Action
+     */
+    public static final String INDEX_ACTION_ID = TABLE_NAME + "_action_id_index";
+    /**
+     * Index on the Actions of a Receiver
+     */
+    public static final String INDEX_RECEIVER_ID = TABLE_NAME + "_receiver_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -43,10 +52,15 @@ public class ReceiverActionTable {
                 ActionTable.TABLE_NAME + "(" + ActionTable.COLUMN_ID +
             ")" +
         ");";
+    private static final String INDEX_ACTION_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_ACTION_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_ACTION_ID + ");";
+    private static final String INDEX_RECEIVER_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_RECEIVER_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_RECEIVER_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -61,7 +75,23 @@ public class ReceiverActionTable {
             case 8:
                 onCreate(db);
                 break;
-
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_ACTION_ID_CREATE);
+        db.execSQL(INDEX_RECEIVER_ID_CREATE);
+    }
 }
\ No newline at end of file
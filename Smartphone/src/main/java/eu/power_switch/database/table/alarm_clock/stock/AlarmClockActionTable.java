@@ -32,15 +32,29 @@ public class AlarmClockActionTable {
     public static final String COLUMN_ALARM_TYPE_ID = "alarm_type_id";
     public static final String COLUMN_ACTION_ID = "action_id";
 
+    /**
+     * Index on the Actions of an alarm event
+     */
+    public static final String INDEX_ALARM_TYPE_ID = TABLE_NAME + "_alarm_type_id_index";
+    /**
+     * Index on the alarm event of an Action
+     */
+    public static final String INDEX_ACTION_ID = TABLE_NAME + "_action_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ALARM_TYPE_ID + " integer not null," +
             COLUMN_ACTION_ID + " integer not null" +
         ");";
+    private static final String INDEX_ALARM_TYPE_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_ALARM_TYPE_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_ALARM_TYPE_ID + "," + COLUMN_ACTION_ID + ");";
+    private static final String INDEX_ACTION_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_ACTION_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_ACTION_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -63,7 +77,15 @@ public class AlarmClockActionTable {
             case 16:
                 onCreate(db);
                 break;
-
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_ALARM_TYPE_ID_CREATE);
+        db.execSQL(INDEX_ACTION_ID_CREATE);
+    }
 }
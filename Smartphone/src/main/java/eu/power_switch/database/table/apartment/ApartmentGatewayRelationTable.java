@@ -35,6 +35,11 @@ public class ApartmentGatewayRelationTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_APARTMENT_ID, COLUMN_GATEWAY_ID};
 
+    /**
+     * Index on the Apartments of a Gateway, the primary key already covers the other direction
+     */
+    public static final String INDEX_GATEWAY_ID = TABLE_NAME + "_gateway_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_APARTMENT_ID + " integer not null," +
@@ -45,10 +50,13 @@ public class ApartmentGatewayRelationTable {
                 GatewayTable.TABLE_NAME + "(" + GatewayTable.COLUMN_ID + "), " +
             "PRIMARY KEY (" + COLUMN_APARTMENT_ID + ", " + COLUMN_GATEWAY_ID + ")" +
             ");";
+    private static final String INDEX_GATEWAY_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_GATEWAY_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_GATEWAY_ID + "," + COLUMN_APARTMENT_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -83,6 +91,12 @@ public class ApartmentGatewayRelationTable {
             } catch (Exception e) {
                 e.printStackTrace();
             }
+        } else if (oldVersion <= 19) {
+            createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_GATEWAY_ID_CREATE);
+    }
 }
\ No newline at end of file
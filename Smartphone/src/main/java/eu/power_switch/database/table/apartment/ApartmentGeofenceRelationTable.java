@@ -31,6 +31,11 @@ public class ApartmentGeofenceRelationTable {
     public static final String COLUMN_APARTMENT_ID = "apartment_id";
     public static final String COLUMN_GEOFENCE_ID = "geofence_id";
 
+    /**
+     * Index on the Apartment of a Geofence, the primary key already covers the other direction
+     */
+    public static final String INDEX_GEOFENCE_ID = TABLE_NAME + "_geofence_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_APARTMENT_ID + " integer not null," +
@@ -41,10 +46,13 @@ public class ApartmentGeofenceRelationTable {
                 GeofenceTable.TABLE_NAME + "(" + GeofenceTable.COLUMN_ID + "), " +
             "PRIMARY KEY (" + COLUMN_APARTMENT_ID + ", " + COLUMN_GEOFENCE_ID + ")" +
             ");";
+    private static final String INDEX_GEOFENCE_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_GEOFENCE_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_GEOFENCE_ID + "," + COLUMN_APARTMENT_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -64,6 +72,18 @@ public class ApartmentGeofenceRelationTable {
                 db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
                 onCreate(db);
                 break;
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_GEOFENCE_ID_CREATE);
+    }
 }
\ No newline at end of file
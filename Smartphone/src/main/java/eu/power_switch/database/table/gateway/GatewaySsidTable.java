@@ -34,16 +34,24 @@ public class GatewaySsidTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_ID, COLUMN_GATEWAY_ID, COLUMN_SSID};
 
+    /**
+     * Index on the SSIDs of a Gateway
+     */
+    public static final String INDEX_GATEWAY_ID = TABLE_NAME + "_gateway_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
             COLUMN_GATEWAY_ID + " integer not null, " +
             COLUMN_SSID + " text not null " +
             ");";
+    private static final String INDEX_GATEWAY_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_GATEWAY_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_GATEWAY_ID + "," + COLUMN_SSID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -65,7 +73,15 @@ public class GatewaySsidTable {
             case 15:
                 onCreate(db);
                 break;
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
 
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_GATEWAY_ID_CREATE);
+    }
 }
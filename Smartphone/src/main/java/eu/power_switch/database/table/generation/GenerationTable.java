@@ -0,0 +1,77 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.database.table.generation;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Generation Table description
+ * <p/>
+ * Contains a single row with a counter that is incremented by every write transaction, so all processes using
+ * the Database can cheaply check if it was changed since they last read from it.
+ */
+public class GenerationTable {
+
+    public static final String TABLE_NAME = "generation";
+    public static final String COLUMN_ID = "_id";
+    public static final String COLUMN_GENERATION = "generation";
+
+    //@formatter:off
+    private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
+            COLUMN_ID + " integer primary key," +
+            COLUMN_GENERATION + " integer not null" +
+            ");";
+    private static final String ROW_INSERT = "INSERT INTO " + TABLE_NAME + "(" + COLUMN_ID + "," +
+            COLUMN_GENERATION + ") VALUES (0, 0);";
+    private static final String GENERATION_INCREMENT = "UPDATE " + TABLE_NAME + " SET " + COLUMN_GENERATION +
+            "=" + COLUMN_GENERATION + "+1;";
+    private static final String GENERATION_QUERY = "SELECT " + COLUMN_GENERATION + " FROM " + TABLE_NAME + ";";
+    //@formatter:on
+
+    public static void onCreate(SQLiteDatabase db) {
+        db.execSQL(TABLE_CREATE);
+        db.execSQL(ROW_INSERT);
+    }
+
+    public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 21) {
+            onCreate(db);
+        }
+    }
+
+    /**
+     * Increment the generation, must be called inside a write transaction
+     *
+     * @param db database
+     */
+    public static void increment(SQLiteDatabase db) {
+        db.execSQL(GENERATION_INCREMENT);
+    }
+
+    /**
+     * Get the current generation
+     *
+     * @param db database
+     * @return generation
+     */
+    public static long get(SQLiteDatabase db) {
+        return DatabaseUtils.longForQuery(db, GENERATION_QUERY, null);
+    }
+}
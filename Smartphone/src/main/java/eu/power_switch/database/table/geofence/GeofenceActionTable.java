@@ -34,6 +34,11 @@ public class GeofenceActionTable {
     public static final String COLUMN_ACTION_ID = "action_id";
     public static final String COLUMN_EVENT_TYPE = "event_type";
 
+    /**
+     * Index on the Geofence of an Action, the primary key already covers the other direction
+     */
+    public static final String INDEX_ACTION_ID = TABLE_NAME + "_action_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_GEOFENCE_ID + " integer not null," +
@@ -45,10 +50,13 @@ public class GeofenceActionTable {
                 ActionTable.TABLE_NAME + "(" + ActionTable.COLUMN_ID + "), " +
             "PRIMARY KEY (" + COLUMN_GEOFENCE_ID + ", " + COLUMN_ACTION_ID + ")" +
         ");";
+    private static final String INDEX_ACTION_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_ACTION_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_ACTION_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -68,6 +76,18 @@ public class GeofenceActionTable {
                 db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
                 onCreate(db);
                 break;
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_ACTION_ID_CREATE);
+    }
 }
@@ -33,6 +33,11 @@ public class HistoryTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_ID, COLUMN_DESCRIPTION, COLUMN_DESCRIPTION_LONG, COLUMN_TIME};
 
+    /**
+     * Index on the time of history items, used for sorting and deleting old items
+     */
+    public static final String INDEX_TIME = TABLE_NAME + "_time_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -40,10 +45,13 @@ public class HistoryTable {
             COLUMN_DESCRIPTION + " text not null," +
             COLUMN_DESCRIPTION_LONG + " text not null" +
         ");";
+    private static final String INDEX_TIME_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_TIME + " ON " +
+            TABLE_NAME + "(" + COLUMN_TIME + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -65,6 +73,16 @@ public class HistoryTable {
             case 13:
             case 14:
                 db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_DESCRIPTION_LONG + " text not null DEFAULT '';");
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_TIME_CREATE);
+    }
 }
\ No newline at end of file
@@ -22,6 +22,9 @@ import android.database.sqlite.SQLiteDatabase;
 
 /**
  * Dip table description
+ * <p/>
+ * Only exists in databases older than version 19, dips are stored as a bitmask in
+ * {@link ReceiverTable#COLUMN_ADDRESS} since then.
  */
 public class DipTable {
 
@@ -31,31 +34,28 @@ public class DipTable {
     public static final String COLUMN_STATE = "active";
     public static final String COLUMN_RECEIVER_ID = "receiver";
 
-    //@formatter:off
-    private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
-            COLUMN_ID + " integer primary key autoincrement," +
-            COLUMN_POSITION + " integer not null," +
-            COLUMN_STATE + " integer not null," +
-            COLUMN_RECEIVER_ID + " integer not null," +
-                "FOREIGN KEY(" + COLUMN_RECEIVER_ID  + ") REFERENCES " +
-                ReceiverTable.TABLE_NAME + "(" + ReceiverTable.COLUMN_ID +
-            ")" +
-    ");";
-    //@formatter:on
-
-    public static void onCreate(SQLiteDatabase db) {
-        db.execSQL(TABLE_CREATE);
-    }
-
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         switch (oldVersion) {
             case 1:
-                db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-                onCreate(db);
-                break;
             case 2:
-                break;
-
+            case 3:
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+                // dips are moved to ReceiverTable by ReceiverTable.onUpgrade()
+                db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
         }
     }
 }
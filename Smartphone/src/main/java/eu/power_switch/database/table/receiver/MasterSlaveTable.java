@@ -22,6 +22,9 @@ import android.database.sqlite.SQLiteDatabase;
 
 /**
  * Master/Slave table description
+ * <p/>
+ * Only exists in databases older than version 19, channels are stored packed in
+ * {@link ReceiverTable#COLUMN_ADDRESS} since then.
  */
 public class MasterSlaveTable {
 
@@ -31,32 +34,29 @@ public class MasterSlaveTable {
     public static final String COLUMN_SLAVE = "slave";
     public static final String COLUMN_RECEIVER_ID = "receiver";
 
-    //@formatter:off
-    private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
-            COLUMN_ID + " integer primary key autoincrement," +
-            COLUMN_MASTER + " text not null," +
-            COLUMN_SLAVE + " integer not null," +
-            COLUMN_RECEIVER_ID + " integer not null," +
-                "FOREIGN KEY(" + COLUMN_RECEIVER_ID + ") REFERENCES " +
-                ReceiverTable.TABLE_NAME + "(" + ReceiverTable.COLUMN_ID +
-            ")" +
-    ");";
-    //@formatter:on
-
-    public static void onCreate(SQLiteDatabase db) {
-        db.execSQL(TABLE_CREATE);
-    }
-
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         switch (oldVersion) {
             case 1:
                 db.execSQL("DROP TABLE IF EXISTS " + "master_slave_receiver");
-                db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-                onCreate(db);
-                break;
             case 2:
-                break;
-
+            case 3:
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+                // channels are moved to ReceiverTable by ReceiverTable.onUpgrade()
+                db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
         }
     }
 }
@@ -23,7 +23,10 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import eu.power_switch.database.table.room.RoomTable;
+import eu.power_switch.obj.receiver.DipSwitch;
+import eu.power_switch.obj.receiver.MasterSlaveChannels;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.ReceiverRegistry;
 import eu.power_switch.shared.log.Log;
 
 /**
@@ -40,10 +43,29 @@ public class ReceiverTable {
     public static final String COLUMN_ROOM_ID = "room";
     public static final String COLUMN_POSITION_IN_ROOM = "positionInRoom";
     public static final String COLUMN_LAST_ACTIVATED_BUTTON_ID = "lastActivatedButton";
+    public static final String COLUMN_TYPE_CODE = "typeCode";
+    /**
+     * Packed address of DIPS (dip bitmask) and MASTER_SLAVE (packed channels) Receivers
+     */
+    public static final String COLUMN_ADDRESS = "address";
+    /**
+     * ID of the Gateway signals are sent through first, null to use the nearest Gateway
+     */
+    public static final String COLUMN_PREFERRED_GATEWAY_ID = "preferredGateway";
+    /**
+     * {@link Receiver.GatewayPolicy}, null for {@link Receiver.GatewayPolicy#SINGLE}
+     */
+    public static final String COLUMN_GATEWAY_POLICY = "gatewayPolicy";
 
     public static final String[] ALL_COLUMNS = {
             COLUMN_ID, COLUMN_NAME, COLUMN_MODEL, COLUMN_TYPE, COLUMN_CLASSNAME, COLUMN_ROOM_ID,
-            COLUMN_POSITION_IN_ROOM, COLUMN_LAST_ACTIVATED_BUTTON_ID};
+            COLUMN_POSITION_IN_ROOM, COLUMN_LAST_ACTIVATED_BUTTON_ID, COLUMN_TYPE_CODE, COLUMN_ADDRESS,
+            COLUMN_PREFERRED_GATEWAY_ID, COLUMN_GATEWAY_POLICY};
+
+    /**
+     * Index on the Receivers of a Room, in order of their position
+     */
+    public static final String INDEX_ROOM_ID = TABLE_NAME + "_room_id_index";
 
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
@@ -55,14 +77,21 @@ public class ReceiverTable {
             COLUMN_ROOM_ID + " integer not null," +
             COLUMN_POSITION_IN_ROOM + " integer," +
             COLUMN_LAST_ACTIVATED_BUTTON_ID + " integer," +
+            COLUMN_TYPE_CODE + " integer," +
+            COLUMN_ADDRESS + " integer," +
+            COLUMN_PREFERRED_GATEWAY_ID + " integer," +
+            COLUMN_GATEWAY_POLICY + " text," +
                 "FOREIGN KEY(" + COLUMN_ROOM_ID + ") REFERENCES " +
                 RoomTable.TABLE_NAME + "(" + RoomTable.COLUMN_ID +
             ")" +
     ");";
+    private static final String INDEX_ROOM_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_ROOM_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_ROOM_ID + "," + COLUMN_POSITION_IN_ROOM + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -112,6 +141,132 @@ public class ReceiverTable {
                 }
 
                 cursor.close();
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_TYPE_CODE + " integer;");
+                updateTypeCodes(db);
+            case 18:
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_ADDRESS + " integer;");
+                updateDipAddresses(db);
+                updateMasterSlaveAddresses(db);
+            case 19:
+                createIndices(db);
+            case 20:
+            case 21:
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_PREFERRED_GATEWAY_ID + " integer;");
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_GATEWAY_POLICY + " text;");
+        }
+    }
+
+    /**
+     * Pack the dips of every DIPS Receiver from the old dip table into a bitmask
+     *
+     * @param db database
+     */
+    private static void updateDipAddresses(SQLiteDatabase db) {
+        String[] columns = {DipTable.COLUMN_RECEIVER_ID, DipTable.COLUMN_POSITION, DipTable.COLUMN_STATE};
+        Cursor cursor = db.query(DipTable.TABLE_NAME, columns, null, null, null, null,
+                DipTable.COLUMN_RECEIVER_ID + "," + DipTable.COLUMN_POSITION);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            long receiverId = cursor.getLong(0);
+            int mask = 0;
+            int position = 0;
+            while (!cursor.isAfterLast() && cursor.getLong(0) == receiverId) {
+                // rows are ordered by position, so the n-th row of a Receiver is dip n
+                if (cursor.getInt(2) != 0 && position < DipSwitch.MAX_DIPS) {
+                    mask |= 1 << position;
+                }
+                position++;
+                cursor.moveToNext();
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ADDRESS, mask);
+            db.update(TABLE_NAME, values, COLUMN_ID + "=" + receiverId, null);
+        }
+
+        cursor.close();
+    }
+
+    /**
+     * Pack the channels of every MASTER_SLAVE Receiver from the old master/slave table
+     * <p/>
+     * Receivers with missing or invalid channels get {@link MasterSlaveChannels#DEFAULT}, so every MASTER_SLAVE
+     * Receiver has a valid address afterwards.
+     *
+     * @param db database
+     */
+    private static void updateMasterSlaveAddresses(SQLiteDatabase db) {
+        String[] columns = {MasterSlaveTable.COLUMN_RECEIVER_ID, MasterSlaveTable.COLUMN_MASTER,
+                MasterSlaveTable.COLUMN_SLAVE};
+        Cursor cursor = db.query(MasterSlaveTable.TABLE_NAME, columns, null, null, null, null, null);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            long receiverId = cursor.getLong(0);
+            String master = cursor.getString(1);
+            int slave = cursor.getInt(2);
+
+            short channels;
+            try {
+                channels = MasterSlaveChannels.pack(master.charAt(0), slave);
+            } catch (Exception e) {
+                Log.e("Invalid channels of Receiver " + receiverId + ": " + master + slave + ", using default", e);
+                channels = MasterSlaveChannels.DEFAULT;
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ADDRESS, channels);
+            db.update(TABLE_NAME, values, COLUMN_ID + "=" + receiverId, null);
+
+            cursor.moveToNext();
         }
+
+        cursor.close();
+
+        // Receivers without any row in the old table
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_ADDRESS, MasterSlaveChannels.DEFAULT);
+        int count = db.update(TABLE_NAME, values, COLUMN_TYPE + "=? AND " + COLUMN_ADDRESS + " IS NULL",
+                new String[]{Receiver.Type.MASTER_SLAVE.toString()});
+        if (count > 0) {
+            Log.w(count + " MASTER_SLAVE Receivers had no channels, using default");
+        }
+    }
+
+    /**
+     * Store the type code of every Receiver, based on its class name
+     *
+     * @param db database
+     */
+    private static void updateTypeCodes(SQLiteDatabase db) {
+        String[] columns = {COLUMN_CLASSNAME};
+        Cursor cursor = db.query(true, TABLE_NAME, columns, null, null, null, null, null, null);
+        cursor.moveToFirst();
+
+        while (!cursor.isAfterLast()) {
+            String className = cursor.getString(0);
+            ReceiverRegistry.Entry entry = ReceiverRegistry.getByClassName(className);
+            if (entry != null) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_TYPE_CODE, entry.getTypeCode());
+                db.update(TABLE_NAME, values, COLUMN_CLASSNAME + "=?", new String[]{className});
+            } else {
+                Log.w("Unknown Receiver class: " + className);
+            }
+
+            cursor.moveToNext();
+        }
+
+        cursor.close();
+    }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_ROOM_ID_CREATE);
     }
 }
@@ -33,6 +33,11 @@ public class UniversalButtonTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_ID, COLUMN_RECEIVER_ID, COLUMN_NAME, COLUMN_SIGNAL};
 
+    /**
+     * Index on the Buttons of a Receiver
+     */
+    public static final String INDEX_RECEIVER_ID = TABLE_NAME + "_receiver_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -43,10 +48,13 @@ public class UniversalButtonTable {
                 ReceiverTable.TABLE_NAME + "(" + ReceiverTable.COLUMN_ID +
             ")" +
     ");";
+    private static final String INDEX_RECEIVER_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_RECEIVER_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_RECEIVER_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -57,7 +65,26 @@ public class UniversalButtonTable {
             case 4:
                 onCreate(db);
                 break;
-
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_RECEIVER_ID_CREATE);
+    }
 }
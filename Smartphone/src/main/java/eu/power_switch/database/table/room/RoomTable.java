@@ -34,6 +34,11 @@ public class RoomTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_ID, COLUMN_APARTMENT_ID, COLUMN_NAME, COLUMN_POSITION, COLUMN_COLLAPSED};
 
+    /**
+     * Index on the Rooms of an Apartment, in order of their position
+     */
+    public static final String INDEX_APARTMENT_ID = TABLE_NAME + "_apartment_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -42,10 +47,13 @@ public class RoomTable {
             COLUMN_APARTMENT_ID + " integer not null, " +
             COLUMN_COLLAPSED + " integer not null" +
             ");";
+    private static final String INDEX_APARTMENT_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_APARTMENT_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_APARTMENT_ID + "," + COLUMN_POSITION + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -70,6 +78,17 @@ public class RoomTable {
             case 13:
                 db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_COLLAPSED +
                         " integer not null DEFAULT 0");
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_APARTMENT_ID_CREATE);
+    }
 }
\ No newline at end of file
@@ -33,6 +33,15 @@ public class SceneItemTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_ID, COLUMN_SCENE_ID, COLUMN_RECEIVER_ID, COLUMN_ACTIVE_BUTTON_ID};
 
+    /**
+     * Index on the items of a Scene
+     */
+    public static final String INDEX_SCENE_ID = TABLE_NAME + "_scene_id_index";
+    /**
+     * Index on the scene items of a Receiver
+     */
+    public static final String INDEX_RECEIVER_ID = TABLE_NAME + "_receiver_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -43,10 +52,15 @@ public class SceneItemTable {
                 SceneTable.TABLE_NAME + "(" + SceneTable.COLUMN_ID +
             ")" +
     ");";
+    private static final String INDEX_SCENE_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_SCENE_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_SCENE_ID + ");";
+    private static final String INDEX_RECEIVER_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_RECEIVER_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_RECEIVER_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -60,7 +74,28 @@ public class SceneItemTable {
                 onCreate(db);
                 break;
             case 3:
-                break;
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_SCENE_ID_CREATE);
+        db.execSQL(INDEX_RECEIVER_ID_CREATE);
+    }
 }
\ No newline at end of file
@@ -33,6 +33,11 @@ public class SceneTable {
 
     public static final String[] ALL_COLUMNS = {COLUMN_ID, COLUMN_APARTMENT_ID, COLUMN_NAME, COLUMN_POSITION};
 
+    /**
+     * Index on the Scenes of an Apartment, in order of their position
+     */
+    public static final String INDEX_APARTMENT_ID = TABLE_NAME + "_apartment_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -40,10 +45,13 @@ public class SceneTable {
             COLUMN_POSITION + " integer," +
             COLUMN_APARTMENT_ID + " integer not null " +
             ");";
+    private static final String INDEX_APARTMENT_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_APARTMENT_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_APARTMENT_ID + "," + COLUMN_POSITION + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -66,6 +74,20 @@ public class SceneTable {
             case 10:
                 db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_APARTMENT_ID +
                         " integer not null DEFAULT 0");
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_APARTMENT_ID_CREATE);
+    }
 }
\ No newline at end of file
@@ -33,6 +33,11 @@ public class TimerActionTable {
     public static final String COLUMN_TIMER_ID = "timer_id";
     public static final String COLUMN_ACTION_ID = "action_id";
 
+    /**
+     * Index on the Timer of an Action, the primary key already covers the other direction
+     */
+    public static final String INDEX_ACTION_ID = TABLE_NAME + "_action_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_TIMER_ID + " integer not null," +
@@ -43,10 +48,13 @@ public class TimerActionTable {
                 ActionTable.TABLE_NAME + "(" + ActionTable.COLUMN_ID + "), " +
             "PRIMARY KEY (" + COLUMN_TIMER_ID + ", " + COLUMN_ACTION_ID + ")" +
         ");";
+    private static final String INDEX_ACTION_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_ACTION_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_ACTION_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -65,6 +73,22 @@ public class TimerActionTable {
                 // upgrading data happens in Database.java
                 onCreate(db);
                 break;
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_ACTION_ID_CREATE);
+    }
 }
@@ -30,6 +30,11 @@ public class TimerWeekdayTable {
     public static final String COLUMN_EXECUTION_DAY = "execution_day";
     public static final String COLUMN_TIMER_ID = "timer_id";
 
+    /**
+     * Index on the weekdays of a Timer
+     */
+    public static final String INDEX_TIMER_ID = TABLE_NAME + "_timer_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -40,10 +45,13 @@ public class TimerWeekdayTable {
             ")" +
 
         ");";
+    private static final String INDEX_TIMER_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_TIMER_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_TIMER_ID + "," + COLUMN_EXECUTION_DAY + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -57,7 +65,24 @@ public class TimerWeekdayTable {
                 db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
                 onCreate(db);
                 break;
-
+            case 7:
+            case 8:
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_TIMER_ID_CREATE);
+    }
 }
\ No newline at end of file
@@ -31,6 +31,11 @@ public class ReceiverWidgetTable {
     public static final String COLUMN_RECEIVER_ID = "receiver";
     public static final String COLUMN_WIDGET_APP_ID = "widget";
 
+    /**
+     * Index on the Receiver of a widget
+     */
+    public static final String INDEX_WIDGET_APP_ID = TABLE_NAME + "_widget_app_id_index";
+
     //@formatter:off
     private static final String TABLE_CREATE = "CREATE TABLE " + TABLE_NAME + "(" +
             COLUMN_ID + " integer primary key autoincrement," +
@@ -38,10 +43,13 @@ public class ReceiverWidgetTable {
             COLUMN_RECEIVER_ID + " integer not null," +
             COLUMN_WIDGET_APP_ID + " integer not null" +
         ");";
+    private static final String INDEX_WIDGET_APP_ID_CREATE = "CREATE INDEX IF NOT EXISTS " + INDEX_WIDGET_APP_ID + " ON " +
+            TABLE_NAME + "(" + COLUMN_WIDGET_APP_ID + ");";
     //@formatter:on
 
     public static void onCreate(SQLiteDatabase db) {
         db.execSQL(TABLE_CREATE);
+        createIndices(db);
     }
 
     public static void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -51,8 +59,28 @@ public class ReceiverWidgetTable {
                 onCreate(db);
                 break;
             case 2:
-                break;
-
+            case 3:
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+            case 19:
+                createIndices(db);
         }
     }
+
+    private static void createIndices(SQLiteDatabase db) {
+        db.execSQL(INDEX_WIDGET_APP_ID_CREATE);
+    }
 }
\ No newline at end of file
@@ -21,6 +21,8 @@ package eu.power_switch.gui.adapter;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.os.AsyncTask;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
 import android.support.v4.app.FragmentActivity;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -32,9 +34,11 @@ import android.widget.TableRow;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import eu.power_switch.R;
 import eu.power_switch.action.ActionHandler;
+import eu.power_switch.database.handler.DatabaseHandler;
 import eu.power_switch.gui.dialog.ConfigureReceiverDialog;
 import eu.power_switch.gui.dialog.EditRoomDialog;
 import eu.power_switch.gui.fragment.RecyclerViewFragment;
@@ -44,6 +48,7 @@ import eu.power_switch.obj.receiver.Receiver;
 import eu.power_switch.settings.SmartphonePreferencesHandler;
 import eu.power_switch.shared.ThemeHelper;
 import eu.power_switch.shared.haptic_feedback.VibrationHandler;
+import eu.power_switch.shared.log.Log;
 
 /**
  * * Adapter to visualize Room items (containing Receivers) in RecyclerView
@@ -116,9 +121,9 @@ public class RoomRecyclerViewAdapter extends RecyclerView.Adapter<RoomRecyclerVi
 
                 android.widget.Button buttonView = (android.widget.Button) v;
                 String buttonName = buttonView.getText().toString();
-                new AsyncTask<String, Void, Void>() {
+                new AsyncTask<String, Void, List<Receiver>>() {
                     @Override
-                    protected Void doInBackground(String... buttonNames) {
+                    protected List<Receiver> doInBackground(String... buttonNames) {
                         try {
                             String buttonName = buttonNames[0];
 
@@ -130,11 +135,12 @@ public class RoomRecyclerViewAdapter extends RecyclerView.Adapter<RoomRecyclerVi
 
                         }
 
-                        return null;
+                        return loadReceivers(room);
                     }
 
                     @Override
-                    protected void onPostExecute(Void aVoid) {
+                    protected void onPostExecute(List<Receiver> receivers) {
+                        replaceReceivers(room, receivers);
                         updateReceiverViews(holder, room);
                     }
                 }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, buttonName);
@@ -168,6 +174,29 @@ public class RoomRecyclerViewAdapter extends RecyclerView.Adapter<RoomRecyclerVi
         }
     }
 
+    /**
+     * Load the current Receivers of a Room, as the last activated Buttons are only updated in the database
+     *
+     * @param room Room
+     * @return list of Receivers, null if they could not be loaded
+     */
+    @WorkerThread
+    private static List<Receiver> loadReceivers(Room room) {
+        try {
+            return DatabaseHandler.getRoom(room.getId()).getReceivers();
+        } catch (Exception e) {
+            Log.e(e);
+            return null;
+        }
+    }
+
+    private static void replaceReceivers(Room room, @Nullable List<Receiver> receivers) {
+        if (receivers != null) {
+            room.getReceivers().clear();
+            room.addReceivers(receivers);
+        }
+    }
+
     private void updateReceiverViews(final RoomRecyclerViewAdapter.ViewHolder holder, final Room room) {
         String inflaterString = Context.LAYOUT_INFLATER_SERVICE;
         LayoutInflater inflater = (LayoutInflater) fragmentActivity.getSystemService(inflaterString);
@@ -222,16 +251,17 @@ public class RoomRecyclerViewAdapter extends RecyclerView.Adapter<RoomRecyclerVi
                             VibrationHandler.vibrate(fragmentActivity, SmartphonePreferencesHandler.getVibrationDuration());
                         }
 
-                        new AsyncTask<Void, Void, Void>() {
+                        new AsyncTask<Void, Void, List<Receiver>>() {
                             @Override
-                            protected Void doInBackground(Void... params) {
+                            protected List<Receiver> doInBackground(Void... params) {
                                 // send signal
                                 ActionHandler.execute(fragmentActivity, receiver, button);
-                                return null;
+                                return loadReceivers(room);
                             }
 
                             @Override
-                            protected void onPostExecute(Void aVoid) {
+                            protected void onPostExecute(List<Receiver> receivers) {
+                                replaceReceivers(room, receivers);
                                 if (SmartphonePreferencesHandler.getHighlightLastActivatedButton()) {
                                     for (android.widget.Button button : buttonViews) {
                                         if (button != v) {
@@ -37,6 +37,7 @@ import java.util.Locale;
 import eu.power_switch.R;
 import eu.power_switch.google_play_services.geofence.GeofenceApiHandler;
 import eu.power_switch.gui.StatusMessageHandler;
+import eu.power_switch.gui.fragment.settings.GatewayTelemetryFragment;
 import eu.power_switch.settings.DeveloperPreferencesHandler;
 import uk.co.deanwild.materialshowcaseview.MaterialShowcaseView;
 
@@ -73,6 +74,15 @@ public class DeveloperOptionsDialog extends DialogFragment {
             }
         });
 
+        Button gatewayTelemetryButton = (Button) rootView.findViewById(R.id.button_gatewayTelemetry);
+        gatewayTelemetryButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                GatewayTelemetryFragment gatewayTelemetryFragment = new GatewayTelemetryFragment();
+                gatewayTelemetryFragment.show(getActivity().getSupportFragmentManager(), null);
+            }
+        });
+
         Button removeAllGeofences = (Button) rootView.findViewById(R.id.button_removeAllGeofences);
         removeAllGeofences.setOnClickListener(new View.OnClickListener() {
             @Override
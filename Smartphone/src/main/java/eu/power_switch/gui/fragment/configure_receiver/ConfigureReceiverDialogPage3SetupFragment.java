@@ -65,6 +65,7 @@ import eu.power_switch.obj.receiver.DipSwitch;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
 import eu.power_switch.obj.receiver.UniversalReceiver;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.constants.LocalBroadcastConstants;
 import eu.power_switch.shared.log.Log;
 
@@ -229,8 +230,8 @@ public class ConfigureReceiverDialogPage3SetupFragment extends ConfigurationDial
                     ArrayList<NetworkPackage> networkPackages = new ArrayList<>();
                     for (Gateway gateway : activeGateways) {
                         try {
-                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, getString(R.string.pair)));
-                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, getString(R.string.pair)));
+                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, DatabaseConstants.BUTTON_PAIR_ID));
+                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, DatabaseConstants.BUTTON_PAIR_ID));
                         } catch (Exception e) {
                             Log.e(e);
                         }
@@ -259,8 +260,8 @@ public class ConfigureReceiverDialogPage3SetupFragment extends ConfigurationDial
                     ArrayList<NetworkPackage> networkPackages = new ArrayList<>();
                     for (Gateway gateway : activeGateways) {
                         try {
-                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, getString(R.string.unpair)));
-                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, getString(R.string.unpair)));
+                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, DatabaseConstants.BUTTON_UNPAIR_ID));
+                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, DatabaseConstants.BUTTON_UNPAIR_ID));
                         } catch (Exception e) {
                             Log.e(e);
                         }
@@ -288,8 +289,8 @@ public class ConfigureReceiverDialogPage3SetupFragment extends ConfigurationDial
                     ArrayList<NetworkPackage> networkPackages = new ArrayList<>();
                     for (Gateway gateway : activeGateways) {
                         try {
-                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, getString(R.string.unpair_all)));
-                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, getString(R.string.unpair_all)));
+                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, DatabaseConstants.BUTTON_UNPAIR_ALL_ID));
+                            networkPackages.add(currentAutoPairReceiver.getNetworkPackage(gateway, DatabaseConstants.BUTTON_UNPAIR_ALL_ID));
                         } catch (Exception e) {
                             Log.e(e);
                         }
@@ -32,12 +32,12 @@ import android.support.v7.widget.SwitchCompat;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
 import android.widget.LinearLayout;
+import android.widget.Spinner;
 import android.widget.TextView;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import eu.power_switch.R;
@@ -54,11 +54,13 @@ import eu.power_switch.obj.Apartment;
 import eu.power_switch.obj.Room;
 import eu.power_switch.obj.UniversalButton;
 import eu.power_switch.obj.button.Button;
+import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.DipReceiver;
 import eu.power_switch.obj.receiver.DipSwitch;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.ReceiverRegistry;
 import eu.power_switch.obj.receiver.UniversalReceiver;
 import eu.power_switch.settings.SmartphonePreferencesHandler;
 import eu.power_switch.shared.constants.LocalBroadcastConstants;
@@ -99,6 +101,13 @@ public class ConfigureReceiverDialogPage4TabbedSummaryFragment extends Configura
     private LinearLayout linearLayoutUniversalButtons;
     private LinearLayout linearLayoutAutoPairReceiver;
     private TextView seed;
+    private Spinner preferredGateway;
+    private Spinner gatewayPolicy;
+
+    /**
+     * Gateways of the current Apartment, in the order of the preferred Gateway spinner (after "nearest")
+     */
+    private List<Gateway> gateways = new ArrayList<>();
 
     @Nullable
     @Override
@@ -168,6 +177,29 @@ public class ConfigureReceiverDialogPage4TabbedSummaryFragment extends Configura
         linearLayoutUniversalReceiver = (LinearLayout) rootView.findViewById(R.id.linearLayout_universalReceiver);
         linearLayoutUniversalButtons = (LinearLayout) rootView.findViewById(R.id.linearLayout_universalButtons);
 
+        List<String> gatewayNames = new ArrayList<>();
+        gatewayNames.add(getString(R.string.nearest_gateway));
+        try {
+            gateways = DatabaseHandler.getApartment(SmartphonePreferencesHandler.getCurrentApartmentId())
+                    .getAssociatedGateways();
+            for (Gateway gateway : gateways) {
+                gatewayNames.add(gateway.getName());
+            }
+        } catch (Exception e) {
+            StatusMessageHandler.showErrorMessage(getActivity(), e);
+        }
+        preferredGateway = (Spinner) rootView.findViewById(R.id.spinner_preferredGateway);
+        ArrayAdapter<String> gatewayAdapter = new ArrayAdapter<>(getActivity(),
+                android.R.layout.simple_spinner_item, gatewayNames);
+        gatewayAdapter.setDropDownViewResource(android.R.layout.simple_dropdown_item_1line);
+        preferredGateway.setAdapter(gatewayAdapter);
+
+        gatewayPolicy = (Spinner) rootView.findViewById(R.id.spinner_gatewayPolicy);
+        ArrayAdapter<CharSequence> gatewayPolicyAdapter = ArrayAdapter.createFromResource(getActivity(),
+                R.array.gateway_policy_array, android.R.layout.simple_spinner_item);
+        gatewayPolicyAdapter.setDropDownViewResource(android.R.layout.simple_dropdown_item_1line);
+        gatewayPolicy.setAdapter(gatewayPolicyAdapter);
+
         updateUi();
 
         Bundle args = getArguments();
@@ -210,6 +242,13 @@ public class ConfigureReceiverDialogPage4TabbedSummaryFragment extends Configura
                     break;
             }
 
+            for (int i = 0; i < gateways.size(); i++) {
+                if (gateways.get(i).getId().equals(receiver.getPreferredGatewayId())) {
+                    preferredGateway.setSelection(i + 1);
+                }
+            }
+            gatewayPolicy.setSelection(receiver.getGatewayPolicy().ordinal());
+
         } catch (Exception e) {
             StatusMessageHandler.showErrorMessage(getActivity(), e);
         }
@@ -357,36 +396,32 @@ public class ConfigureReceiverDialogPage4TabbedSummaryFragment extends Configura
         String receiverName = currentName;
         String modelName = currentModel;
 
-        String className = Receiver.receiverMap.get(modelName);
-        Receiver.Type type = ReceiverReflectionMagic.getType(className);
-
-        Constructor<?> constructor = ReceiverReflectionMagic.getConstructor(className, type);
+        ReceiverRegistry.Entry entry = ReceiverRegistry.getByModel(modelName);
+        ReceiverRegistry.Factory factory = entry.getFactory();
 
         Receiver receiver = null;
-        switch (type) {
+        switch (entry.getDefaultType()) {
             case DIPS:
-                LinkedList<Boolean> dipValues = new LinkedList<>();
-                for (DipSwitch dipSwitch : currentDips) {
-                    dipValues.add(dipSwitch.isChecked());
-                }
-
-                receiver = (Receiver) constructor.newInstance(
-                        getActivity(), currentId, receiverName, dipValues, room.getId());
+                receiver = factory.newDipReceiver(getActivity(), currentId, receiverName,
+                        DipSwitch.getMask(currentDips), room.getId());
                 break;
             case MASTER_SLAVE:
-                receiver = (Receiver) constructor.newInstance(
+                receiver = factory.newMasterSlaveReceiver(
                         getActivity(), currentId, receiverName, currentMaster, currentSlave, room.getId());
                 break;
             case UNIVERSAL:
-                receiver = new UniversalReceiver(
+                receiver = factory.newUniversalReceiver(
                         getActivity(), currentId, currentName, currentUniversalButtons, room.getId());
                 break;
             case AUTOPAIR:
-                receiver = (Receiver) constructor.newInstance(
+                receiver = factory.newAutoPairReceiver(
                         getActivity(), currentId, receiverName, currentSeed, room.getId());
                 break;
         }
 
+        receiver.setPreferredGatewayId(getSelectedPreferredGatewayId());
+        receiver.setGatewayPolicy(Receiver.GatewayPolicy.values()[gatewayPolicy.getSelectedItemPosition()]);
+
         if (currentId == -1) {
             DatabaseHandler.addReceiver(receiver);
         } else {
@@ -403,6 +438,18 @@ public class ConfigureReceiverDialogPage4TabbedSummaryFragment extends Configura
         StatusMessageHandler.showInfoMessage(((RecyclerViewFragment) getTargetFragment()).getRecyclerView(), R.string.receiver_saved, Snackbar.LENGTH_LONG);
     }
 
+    /**
+     * @return ID of the selected preferred Gateway, null if the nearest Gateway is selected
+     */
+    @Nullable
+    private Long getSelectedPreferredGatewayId() {
+        int position = preferredGateway.getSelectedItemPosition();
+        if (position <= 0) {
+            return null;
+        }
+        return gateways.get(position - 1).getId();
+    }
+
     @Override
     public void onStart() {
         super.onStart();
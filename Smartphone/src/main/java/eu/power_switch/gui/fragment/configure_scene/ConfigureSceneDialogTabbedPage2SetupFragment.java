@@ -134,8 +134,10 @@ public class ConfigureSceneDialogTabbedPage2SetupFragment extends ConfigurationD
                 }
 
                 if (!roomFound) {
-                    Room room = DatabaseHandler.getRoom(sceneItem.getReceiver().getRoomId());
-                    room.getReceivers().clear();
+                    // build a separate Room that only contains the Receivers of this Scene
+                    Room storedRoom = DatabaseHandler.getRoom(sceneItem.getReceiver().getRoomId());
+                    Room room = new Room(storedRoom.getId(), storedRoom.getApartmentId(), storedRoom.getName(),
+                            storedRoom.getPositionInApartment(), storedRoom.isCollapsed());
                     room.addReceiver(sceneItem.getReceiver());
                     checkedReceivers.add(room);
                 }
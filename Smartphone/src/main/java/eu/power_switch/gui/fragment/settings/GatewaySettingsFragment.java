@@ -158,7 +158,37 @@ public class GatewaySettingsFragment extends RecyclerViewFragment {
             @Override
             protected Void doInBackground(Void... params) {
                 try {
-                    final List<Gateway> foundGateways = NetworkHandler.searchGateways();
+                    final int[] unknownGatewaysCount = {0};
+                    final int[] existingGatewaysCount = {0};
+                    final int[] newGatewaysCount = {0};
+
+                    // save every Gateway as soon as it replied, so it shows up in the list right away
+                    final List<Gateway> foundGateways = NetworkHandler.searchGateways(0, new NetworkHandler.OnGatewayFoundListener() {
+                        @Override
+                        public void onGatewayFound(Gateway newGateway) {
+                            if (newGateway == null) {
+                                unknownGatewaysCount[0]++;
+                                return;
+                            }
+
+                            // save new Gateway if it doesn't exist already
+                            try {
+                                DatabaseHandler.addGateway(newGateway);
+                                newGatewaysCount[0]++;
+                            } catch (GatewayAlreadyExistsException e) {
+                                existingGatewaysCount[0]++;
+                                try {
+                                    DatabaseHandler.enableGateway(e.getIdOfExistingGateway());
+                                } catch (Exception e1) {
+                                    StatusMessageHandler.showErrorMessage(recyclerViewFragment.getRecyclerView(), e1);
+                                }
+                            } catch (Exception e) {
+                                StatusMessageHandler.showErrorMessage(recyclerViewFragment.getRecyclerView(), e);
+                            }
+
+                            sendGatewaysChangedBroadcast(recyclerViewFragment.getContext());
+                        }
+                    });
 
                     // stop animation
                     getActivity().runOnUiThread(new Runnable() {
@@ -168,39 +198,16 @@ public class GatewaySettingsFragment extends RecyclerViewFragment {
                         }
                     });
 
-                    if (foundGateways == null || foundGateways.isEmpty()) {
+                    if (foundGateways.isEmpty()) {
                         StatusMessageHandler.showInfoMessage(recyclerViewFragment.getRecyclerView(),
                                 R.string.no_gateway_found,
                                 Snackbar.LENGTH_LONG);
                         return null;
                     }
 
-                    int unknownGatewaysCount = 0;
-                    int existingGatewaysCount = 0;
-                    int newGatewaysCount = 0;
-                    for (Gateway newGateway : foundGateways) {
-                        if (newGateway == null) {
-                            unknownGatewaysCount++;
-                            continue;
-                        }
-
-                        // save new Gateway if it doesn't exist already
-                        try {
-                            DatabaseHandler.addGateway(newGateway);
-                            newGatewaysCount++;
-                        } catch (GatewayAlreadyExistsException e) {
-                            existingGatewaysCount++;
-                            DatabaseHandler.enableGateway(e.getIdOfExistingGateway());
-                        } catch (Exception e) {
-                            StatusMessageHandler.showErrorMessage(recyclerViewFragment.getRecyclerView(), e);
-                        }
-                    }
-
                     StatusMessageHandler.showInfoMessage(recyclerViewFragment.getRecyclerView(),
-                            getString(R.string.autodiscover_response_message, newGatewaysCount, existingGatewaysCount,
-                                    unknownGatewaysCount), Snackbar.LENGTH_LONG);
-
-                    sendGatewaysChangedBroadcast(recyclerViewFragment.getContext());
+                            getString(R.string.autodiscover_response_message, newGatewaysCount[0], existingGatewaysCount[0],
+                                    unknownGatewaysCount[0]), Snackbar.LENGTH_LONG);
                 } catch (Exception e) {
                     Log.e(e);
                 }
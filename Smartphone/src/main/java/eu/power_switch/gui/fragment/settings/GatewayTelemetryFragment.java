@@ -0,0 +1,187 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.gui.fragment.settings;
+
+import android.app.Dialog;
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.os.AsyncTask;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.v4.app.DialogFragment;
+import android.support.v7.app.AlertDialog;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import java.util.List;
+
+import eu.power_switch.R;
+import eu.power_switch.database.handler.DatabaseHandler;
+import eu.power_switch.gui.fragment.AsyncTaskResult;
+import eu.power_switch.network.GatewayTelemetry;
+import eu.power_switch.network.NetworkHandler;
+import eu.power_switch.network.RouteCache;
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Developer screen showing per Gateway send statistics (counters and latency histograms)
+ * <p/>
+ * The statistics are refreshed every second. The list of Gateways is loaded once in the background, so refreshing
+ * never touches the database. "Dump" writes them to the log and shares them as text.
+ */
+public class GatewayTelemetryFragment extends DialogFragment {
+
+    /**
+     * Refresh interval of the statistics in milliseconds
+     */
+    private static final int REFRESH_INTERVAL = 1000;
+
+    private TextView textViewTelemetry;
+    /**
+     * Gateways shown above the statistics, null while loading
+     */
+    private List<Gateway> gateways;
+    private final Handler handler = new Handler();
+    private final Runnable refreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updateUI();
+            handler.postDelayed(this, REFRESH_INTERVAL);
+        }
+    };
+
+    @NonNull
+    @Override
+    public Dialog onCreateDialog(Bundle savedInstanceState) {
+        LayoutInflater inflater = getActivity().getLayoutInflater();
+        View rootView = inflater.inflate(R.layout.fragment_gateway_telemetry, null);
+        textViewTelemetry = (TextView) rootView.findViewById(R.id.textView_telemetry);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+        builder.setView(rootView);
+        builder.setTitle("Gateway Telemetry");
+        builder.setPositiveButton("Dump", null);
+        builder.setNeutralButton("Reset", null);
+        builder.setNegativeButton(android.R.string.ok, null);
+
+        final AlertDialog dialog = builder.create();
+        dialog.setOnShowListener(new DialogInterface.OnShowListener() {
+            @Override
+            public void onShow(DialogInterface dialogInterface) {
+                // set listeners here, so the dialog is not closed by these buttons
+                dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        dump();
+                    }
+                });
+                dialog.getButton(AlertDialog.BUTTON_NEUTRAL).setOnClickListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        GatewayTelemetry telemetry = NetworkHandler.getTelemetry();
+                        if (telemetry != null) {
+                            telemetry.reset();
+                        }
+                        updateUI();
+                    }
+                });
+            }
+        });
+
+        loadGateways();
+
+        return dialog;
+    }
+
+    private void loadGateways() {
+        new AsyncTask<Void, Void, AsyncTaskResult<Gateway>>() {
+            @Override
+            protected AsyncTaskResult<Gateway> doInBackground(Void... params) {
+                try {
+                    List<Gateway> gateways = DatabaseHandler.getAllGateways();
+                    return new AsyncTaskResult<>(gateways.toArray(new Gateway[gateways.size()]));
+                } catch (Exception e) {
+                    return new AsyncTaskResult<>(e);
+                }
+            }
+
+            @Override
+            protected void onPostExecute(AsyncTaskResult<Gateway> result) {
+                if (result.isSuccess()) {
+                    gateways = result.getResult();
+                    updateUI();
+                } else {
+                    Log.e(result.getException());
+                }
+            }
+        }.execute();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        handler.post(refreshRunnable);
+    }
+
+    @Override
+    public void onPause() {
+        handler.removeCallbacks(refreshRunnable);
+        super.onPause();
+    }
+
+    private void updateUI() {
+        textViewTelemetry.setText(getDump());
+    }
+
+    private String getDump() {
+        GatewayTelemetry telemetry = NetworkHandler.getTelemetry();
+        if (telemetry == null) {
+            return "NetworkHandler not initialized";
+        }
+
+        StringBuilder stringBuilder = new StringBuilder();
+        if (gateways != null) {
+            for (Gateway gateway : gateways) {
+                stringBuilder.append("Gateway ").append(gateway.getId()).append(": ").append(gateway.getName())
+                        .append(" (").append(gateway.getModel()).append(")")
+                        .append(NetworkHandler.isGatewayDown(gateway, RouteCache.Route.WAN) ? " DOWN" :
+                                NetworkHandler.isGatewayDown(gateway, RouteCache.Route.LOCAL) ?
+                                        " MISSING FROM LOCAL NETWORK" : "")
+                        .append('\n');
+            }
+            stringBuilder.append('\n');
+        }
+        stringBuilder.append(telemetry.dump());
+        return stringBuilder.toString();
+    }
+
+    private void dump() {
+        String dump = getDump();
+        Log.d(GatewayTelemetryFragment.class, dump);
+
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_SUBJECT, "PowerSwitch Gateway Telemetry");
+        intent.putExtra(Intent.EXTRA_TEXT, dump);
+        startActivity(Intent.createChooser(intent, "Gateway Telemetry"));
+    }
+}
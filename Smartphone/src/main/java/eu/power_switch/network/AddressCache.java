@@ -0,0 +1,121 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Caches resolved host addresses of Gateways for a limited amount of time
+ * <p/>
+ * This avoids a DNS lookup for every NetworkPackage sent to a Gateway that is addressed by a host name
+ * (f.ex. a DynDNS name used as WAN address). The cache is cleared whenever the network connection changes.
+ */
+class AddressCache implements ConnectivityMonitor.OnNetworkChangeListener {
+
+    /**
+     * Time a resolved address is kept in the cache (in milliseconds)
+     */
+    static final long DEFAULT_TTL = 5 * 60 * 1000;
+
+    private final long ttl;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    AddressCache() {
+        this(DEFAULT_TTL);
+    }
+
+    AddressCache(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Get time the cached address of a host expires
+     *
+     * @param host host name or address
+     * @return elapsed realtime in milliseconds, 0 if the address is not cached
+     */
+    long getExpirationTime(@NonNull String host) {
+        Entry entry = entries.get(host);
+        return entry != null ? entry.expirationTime : 0;
+    }
+
+    @Override
+    public void onNetworkChanged() {
+        invalidate();
+    }
+
+    /**
+     * Remove all cached addresses
+     */
+    void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Remove the cached address of a single host
+     *
+     * @param host host name or address
+     */
+    void invalidate(@NonNull String host) {
+        entries.remove(host);
+    }
+
+    /**
+     * Get the address of a host, resolves it if it is not cached or has expired
+     *
+     * @param host host name or address
+     * @return resolved address
+     * @throws UnknownHostException if the host could not be resolved
+     */
+    @NonNull
+    @WorkerThread
+    InetAddress resolve(@NonNull String host) throws UnknownHostException {
+        long now = SystemClock.elapsedRealtime();
+
+        Entry entry = entries.get(host);
+        if (entry != null && entry.expirationTime > now) {
+            return entry.address;
+        }
+
+        InetAddress address = InetAddress.getByName(host);
+        entries.put(host, new Entry(address, now + ttl));
+        Log.d(this, "resolved " + host + " to " + address.getHostAddress());
+        return address;
+    }
+
+    private static class Entry {
+        private final InetAddress address;
+        private final long expirationTime;
+
+        private Entry(InetAddress address, long expirationTime) {
+            this.address = address;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -18,111 +18,271 @@
 
 package eu.power_switch.network;
 
-import android.content.Context;
-import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
 
+import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Set;
 
 import eu.power_switch.shared.log.Log;
 
 /**
- * Background thread to search through local network for Gateways
+ * Searches the local network for Gateways
+ * <p/>
+ * A single socket is bound for the whole search, so no reply is lost. The search request is broadcast to the subnet
+ * of every active network interface (and the global broadcast address) in several rounds, in case a packet is lost.
+ * Replies are de-duplicated by the MAC (if the Gateway sends one) or IP address of the Gateway and reported as soon
+ * as they arrive. The search finishes early once the expected number of Gateways has answered.
  */
-public class AutoGatewayDiscover extends AsyncTask<Void, Void, LinkedList<String>> {
+public class AutoGatewayDiscover {
 
-    Context context;
+    /**
+     * Port Gateways listen on for search requests and reply to
+     */
+    private static final int DISCOVERY_PORT = 49880;
+    /**
+     * Search request message
+     */
+    private static final String SEARCH_MESSAGE = "SEARCH HCGW";
+    /**
+     * Number of times the search request is broadcast
+     */
+    private static final int ROUNDS = 3;
+    /**
+     * Time between two rounds in milliseconds
+     */
+    private static final int ROUND_INTERVAL = 500;
+    /**
+     * Max duration of a search in milliseconds
+     */
+    private static final int TIMEOUT = 2000;
 
-    public AutoGatewayDiscover(Context context) {
-        this.context = context;
+    /**
+     * Only one search can use the discovery port at a time
+     */
+    private static final Object discoveryLock = new Object();
+
+    /**
+     * Search the local network for Gateways
+     *
+     * @param expectedCount number of Gateways after which the search is finished early, 0 to search until timeout
+     * @param listener      listener that is notified about every reply as soon as it arrives, may be null
+     * @return all replies (de-duplicated) in the order they arrived
+     */
+    @WorkerThread
+    public LinkedList<String> doDiscovery(int expectedCount, @Nullable OnMessageReceivedListener listener) {
+        LinkedList<String> receivedMessages = new LinkedList<>();
+
+        synchronized (discoveryLock) {
+            DatagramSocket socket = null;
+            try {
+                socket = new DatagramSocket(null);
+                socket.setReuseAddress(true);
+                socket.setBroadcast(true);
+                socket.bind(new InetSocketAddress(DISCOVERY_PORT));
+
+                Set<InetAddress> broadcastAddresses = getBroadcastAddresses();
+                Set<String> knownGateways = new HashSet<>();
+                byte[] buffer = new byte[128];
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+
+                long startTime = System.currentTimeMillis();
+                long deadline = startTime + TIMEOUT;
+                long nextRoundTime = startTime;
+                long lastRoundTime = startTime;
+                int round = 0;
+
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    if (now >= deadline) {
+                        Log.d(this, "AutoDetect Timeout Reached");
+                        break;
+                    }
+
+                    if (round < ROUNDS && now >= nextRoundTime) {
+                        sendSearchRequest(socket, broadcastAddresses);
+                        lastRoundTime = now;
+                        round++;
+                        nextRoundTime = now + ROUND_INTERVAL;
+                    }
+
+                    long waitUntil = round < ROUNDS ? Math.min(nextRoundTime, deadline) : deadline;
+                    socket.setSoTimeout((int) Math.max(1, waitUntil - now));
+
+                    try {
+                        // Reset the length of the packet before reusing it.
+                        packet.setLength(buffer.length);
+                        socket.receive(packet);
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    }
+
+                    long roundTripTime = System.currentTimeMillis() - lastRoundTime;
+                    String message = new String(buffer, 0, packet.getLength());
+                    if (message.startsWith(SEARCH_MESSAGE)) {
+                        // our own broadcast
+                        continue;
+                    }
+
+                    String hostAddress = packet.getAddress().getHostAddress();
+                    message = fixHostAddress(message, hostAddress);
+
+                    if (!knownGateways.add(getGatewayKey(message, hostAddress))) {
+                        continue;
+                    }
+
+                    Log.d("AutoGatewayDiscover", "Received: " + message);
+                    receivedMessages.add(message);
+                    if (listener != null) {
+                        listener.onMessageReceived(message, roundTripTime);
+                    }
+
+                    if (expectedCount > 0 && receivedMessages.size() >= expectedCount) {
+                        Log.d(this, "all expected Gateways found");
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                Log.e("AutoGatewayDiscover", e);
+            } finally {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+
+        return receivedMessages;
     }
 
-    @Override
-    protected LinkedList<String> doInBackground(Void... params) {
-        return doDiscovery();
+    private void sendSearchRequest(DatagramSocket socket, Set<InetAddress> broadcastAddresses) {
+        byte[] buffer = SEARCH_MESSAGE.getBytes();
+        for (InetAddress broadcastAddress : broadcastAddresses) {
+            try {
+                socket.send(new DatagramPacket(buffer, buffer.length, broadcastAddress, DISCOVERY_PORT));
+            } catch (IOException e) {
+                Log.e("Could not send search request to " + broadcastAddress.getHostAddress(), e);
+            }
+        }
     }
 
-    public LinkedList<String> doDiscovery() {
-        DatagramSocket socket = null;
-        LinkedList<String> receivedMessages = new LinkedList<>();
+    /**
+     * Get the broadcast address of every active IPv4 network interface
+     *
+     * @return broadcast addresses, always includes the global broadcast address
+     */
+    @NonNull
+    private Set<InetAddress> getBroadcastAddresses() {
+        Set<InetAddress> broadcastAddresses = new LinkedHashSet<>();
 
         try {
-            InetAddress ip = InetAddress.getByName("255.255.255.255");
-            int port = 49880;
-            // create new UDP Socket
-            socket = new DatagramSocket(port);
-            // make broadcast
-            socket.setBroadcast(true);
-            // prepare Data to send
-            byte[] buffer = "SEARCH HCGW".getBytes();
-
-            // create UDP Packet with data & destination(url+localPort)
-            DatagramPacket packet = new DatagramPacket(buffer, buffer.length, ip, port);
-
-            // send packet
-            socket.send(packet);
-            socket.disconnect();
-            socket.close();
-
-            // Create new UDP-Socket
-            socket = new DatagramSocket(port);
-            /* By magic we know, how much data will be waiting for us */
-            buffer = new byte[128];
-            // Prepare a UDP-Packet that can contain the data we want to
-            // receive
-            packet = new DatagramPacket(buffer, buffer.length);
-
-            // Set time to wait for input to 500 milliseconds
-            socket.setSoTimeout(2000);
-            String message;
-            // SocketTimeoutException will stop this loop
-            while (true) {
-                // Receive the UDP-Packet
-                socket.receive(packet);
-                message = new String(buffer, 0, packet.getLength());
-
-                String hostAddress = packet.getAddress().getHostAddress();
-
-                try {
-                    // Das ITGW schickt eine falsche IP mit, daher tausche ich sie aus, wenn sie nicht der HostIP
-                    // entspricht
-
-                    // read IP address version
-                    int start = message.indexOf("IP:") + 3;
-                    int end = message.indexOf(";;");
-                    String IP = message.substring(start, end);
-                    if (!IP.equals(hostAddress)) {
-                        message = message.replace(IP, hostAddress);
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                    continue;
+                }
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    if (interfaceAddress.getAddress() instanceof Inet4Address &&
+                            interfaceAddress.getBroadcast() != null) {
+                        broadcastAddresses.add(interfaceAddress.getBroadcast());
                     }
-
-                } catch (Exception e) {
-                    Log.e("malformed string, couldnt check IP", e);
                 }
-
-                receivedMessages.add(message);
-                // Reset the length of the packet before reusing it.
-                packet.setLength(buffer.length);
             }
+        } catch (SocketException e) {
+            Log.e("Could not read network interfaces", e);
+        }
 
-        } catch (SocketTimeoutException e) {
-            Log.d(this, "AutoDetect Timeout Reached");
-        } catch (Exception e) {
-            Log.e("AutoGatewayDiscover", e);
-        } finally {
+        try {
+            broadcastAddresses.add(InetAddress.getByName("255.255.255.255"));
+        } catch (IOException e) {
+            Log.e(e);
+        }
 
-            for (String message : receivedMessages) {
-                Log.d("AutoGatewayDiscover", "Received: " + message);
+        Log.d(this, "broadcast addresses: " + broadcastAddresses);
+        return broadcastAddresses;
+    }
+
+    /**
+     * Replace the IP address in a reply with the address the reply was sent from
+     *
+     * @param message     reply message
+     * @param hostAddress address the reply was sent from
+     * @return fixed message
+     */
+    private String fixHostAddress(String message, String hostAddress) {
+        try {
+            // Das ITGW schickt eine falsche IP mit, daher tausche ich sie aus, wenn sie nicht der HostIP
+            // entspricht
+
+            // read IP address version
+            int start = message.indexOf("IP:") + 3;
+            int end = message.indexOf(";;");
+            String IP = message.substring(start, end);
+            if (!IP.equals(hostAddress)) {
+                message = message.replace(IP, hostAddress);
             }
+        } catch (Exception e) {
+            Log.e("malformed string, couldnt check IP", e);
+        }
+        return message;
+    }
+
+    /**
+     * Get a key that identifies the Gateway that sent a reply
+     *
+     * @param message     reply message
+     * @param hostAddress address the reply was sent from
+     * @return MAC address if contained in the reply, IP address otherwise
+     */
+    private String getGatewayKey(String message, String hostAddress) {
+        String macAddress = parseMacAddress(message);
+        if (macAddress != null) {
+            return macAddress;
+        }
+        return hostAddress;
+    }
 
-            if (socket != null) {
-                socket.disconnect();
-                socket.close();
+    /**
+     * Get the MAC address of the Gateway that sent a reply
+     *
+     * @param message reply message
+     * @return MAC address in lower case, null if the reply does not contain one
+     */
+    @Nullable
+    static String parseMacAddress(String message) {
+        int start = message.indexOf("MAC:");
+        if (start != -1) {
+            int end = message.indexOf(';', start);
+            if (end != -1) {
+                return message.substring(start + 4, end).toLowerCase();
             }
         }
+        return null;
+    }
 
-        return receivedMessages;
+    /**
+     * Interface for receiving replies of Gateways while a search is running
+     */
+    public interface OnMessageReceivedListener {
+        /**
+         * Called on the searching thread for every Gateway that replied
+         *
+         * @param message       reply message of the Gateway
+         * @param roundTripTime time since the last search request was sent in milliseconds
+         *                      (approximate, the reply may belong to an earlier round)
+         */
+        void onMessageReceived(String message, long roundTripTime);
     }
 }
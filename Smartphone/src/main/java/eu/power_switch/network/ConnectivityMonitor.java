@@ -0,0 +1,281 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Keeps track of the current network connectivity state in the background
+ * <p/>
+ * The state (WiFi, Ethernet, Internet reachability and connected SSID) is updated whenever Android reports
+ * a connectivity change, so reading it is a simple field access instead of a system call or ping.
+ * Registered {@link OnNetworkChangeListener}s are notified after every change.
+ */
+class ConnectivityMonitor extends BroadcastReceiver {
+
+    /**
+     * Host used to check if the Internet is reachable (Google DNS)
+     */
+    private static final String INTERNET_CHECK_HOST = "8.8.8.8";
+    /**
+     * Port used to check if the Internet is reachable (DNS)
+     */
+    private static final int INTERNET_CHECK_PORT = 53;
+    /**
+     * Timeout for the Internet reachability check in milliseconds
+     */
+    private static final int INTERNET_CHECK_TIMEOUT = 1500;
+
+    private final Context context;
+
+    private final List<OnNetworkChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Executor used to check Internet reachability in the background
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private volatile boolean networkConnected;
+    private volatile boolean wifiConnected;
+    private volatile boolean ethernetConnected;
+    private volatile boolean gprsConnected;
+    private volatile String connectedWifiSsid = "";
+
+    /**
+     * Internet reachability, null if it has not been determined for the current network yet
+     */
+    private volatile Boolean internetConnected;
+
+    ConnectivityMonitor(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Start monitoring network changes
+     */
+    void start() {
+        update();
+
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+        intentFilter.addAction(WifiManager.NETWORK_STATE_CHANGED_ACTION);
+        context.registerReceiver(this, intentFilter);
+    }
+
+    /**
+     * Stop monitoring network changes
+     * <p/>
+     * A stopped ConnectivityMonitor can not be started again.
+     */
+    void stop() {
+        try {
+            context.unregisterReceiver(this);
+        } catch (IllegalArgumentException e) {
+            Log.e("ConnectivityMonitor was not registered", e);
+        }
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        Log.d(this, "received intent: " + intent.getAction());
+        update();
+    }
+
+    /**
+     * Add a listener that is notified when the network connection changes
+     *
+     * @param listener listener
+     */
+    void addListener(@NonNull OnNetworkChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added listener
+     *
+     * @param listener listener
+     */
+    void removeListener(@NonNull OnNetworkChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Read the current network state from the system and notify listeners if it changed
+     */
+    private void update() {
+        ConnectivityManager connMgr = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+
+        boolean connected = networkInfo != null && networkInfo.isConnectedOrConnecting();
+        boolean wifi = connected && ConnectivityManager.TYPE_WIFI == networkInfo.getType();
+        boolean ethernet = connected && ConnectivityManager.TYPE_ETHERNET == networkInfo.getType();
+        boolean gprs = connected && ConnectivityManager.TYPE_MOBILE == networkInfo.getType();
+        String ssid = wifi ? readWifiSsid() : "";
+
+        boolean changed = connected != networkConnected || wifi != wifiConnected ||
+                ethernet != ethernetConnected || gprs != gprsConnected || !ssid.equals(connectedWifiSsid);
+
+        networkConnected = connected;
+        wifiConnected = wifi;
+        ethernetConnected = ethernet;
+        gprsConnected = gprs;
+        connectedWifiSsid = ssid;
+
+        if (changed) {
+            Log.d(this, "network changed, connected: " + connected + ", WiFi: " + wifi + " (" + ssid + ")" +
+                    ", Ethernet: " + ethernet + ", GPRS: " + gprs);
+
+            internetConnected = null;
+            if (connected) {
+                scheduleInternetCheck();
+            } else {
+                internetConnected = false;
+            }
+
+            for (OnNetworkChangeListener listener : listeners) {
+                listener.onNetworkChanged();
+            }
+        }
+    }
+
+    private String readWifiSsid() {
+        WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        WifiInfo info = wifiManager.getConnectionInfo();
+        if (info == null || info.getSSID() == null) {
+            return "";
+        }
+        String ssid = info.getSSID();
+
+        // remove unnecessary quotation marks
+        if (ssid.startsWith("\"") && ssid.endsWith("\"")) {
+            ssid = ssid.substring(1, ssid.length() - 1);
+        }
+        return ssid;
+    }
+
+    private void scheduleInternetCheck() {
+        if (executor.isShutdown()) {
+            // stopped
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean reachable = checkInternetConnection();
+                if (internetConnected == null || internetConnected != reachable) {
+                    internetConnected = reachable;
+                    for (OnNetworkChangeListener listener : listeners) {
+                        listener.onNetworkChanged();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks if the Internet is reachable by opening a TCP connection to the Google DNS
+     *
+     * @return true if reachable, false otherwise
+     */
+    @WorkerThread
+    private boolean checkInternetConnection() {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(INTERNET_CHECK_HOST, INTERNET_CHECK_PORT), INTERNET_CHECK_TIMEOUT);
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                Log.e(e);
+            }
+        }
+    }
+
+    boolean isNetworkConnected() {
+        return networkConnected;
+    }
+
+    boolean isWifiConnected() {
+        return wifiConnected;
+    }
+
+    boolean isEthernetConnected() {
+        return ethernetConnected;
+    }
+
+    boolean isGprsConnected() {
+        return gprsConnected;
+    }
+
+    @NonNull
+    String getConnectedWifiSsid() {
+        return connectedWifiSsid;
+    }
+
+    /**
+     * Get Internet reachability of the current network
+     * <p/>
+     * If reachability has not been determined yet, it is checked synchronously.
+     *
+     * @return true if the Internet is reachable
+     */
+    @WorkerThread
+    boolean isInternetConnected() {
+        Boolean connected = internetConnected;
+        if (connected == null) {
+            connected = networkConnected && checkInternetConnection();
+            internetConnected = connected;
+        }
+        return connected;
+    }
+
+    /**
+     * Interface for receiving network change events
+     */
+    interface OnNetworkChangeListener {
+        /**
+         * Called when the network connection (or its Internet reachability) changed
+         */
+        void onNetworkChanged();
+    }
+}
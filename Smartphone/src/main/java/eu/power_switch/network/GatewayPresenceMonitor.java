@@ -0,0 +1,499 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import eu.power_switch.database.handler.DatabaseHandler;
+import eu.power_switch.gui.fragment.settings.GatewaySettingsFragment;
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Keeps track of which Gateways are reachable in the background
+ * <p/>
+ * Presence is learned passively from the result of every sent NetworkPackage and actively by a periodic
+ * (and cheap) search of the local network. When a known Gateway replies from a new address, its local address is
+ * updated in the database automatically. A moved Gateway is matched by the MAC address it replied with before, or
+ * by model and firmware if it is the only such Gateway configured for the current WiFi network.
+ * <p/>
+ * A Gateway is considered down if sending to it failed {@link #MAX_SEND_FAILURES} times in a row.
+ * A Gateway that did not reply to a search is only considered missing from the local network, and only if it is
+ * expected in the current WiFi network (configured for its SSID or found there before). Being missing never
+ * affects the WAN route. Both states expire after {@link #DOWN_TIMEOUT}, so a Gateway is never skipped for long
+ * based on old information.
+ */
+class GatewayPresenceMonitor implements ConnectivityMonitor.OnNetworkChangeListener,
+        NetworkPackageQueueHandler.OnSendListener {
+
+    /**
+     * Time between two searches in milliseconds
+     */
+    private static final long DISCOVERY_INTERVAL = 5 * 60 * 1000;
+    /**
+     * Min time between two searches in milliseconds
+     */
+    private static final long MIN_DISCOVERY_INTERVAL = 30 * 1000;
+    /**
+     * Delay of the search after the network changed in milliseconds
+     */
+    private static final long NETWORK_CHANGE_DISCOVERY_DELAY = 3000;
+    /**
+     * Number of failed sends in a row after which a Gateway is considered down
+     */
+    private static final int MAX_SEND_FAILURES = 2;
+    /**
+     * Time a Gateway is considered down in milliseconds
+     */
+    private static final long DOWN_TIMEOUT = 2 * 60 * 1000;
+
+    private final Context context;
+    private final ConnectivityMonitor connectivityMonitor;
+
+    /**
+     * Presence of every Gateway that was seen or sent to, by Gateway ID
+     */
+    private final ConcurrentHashMap<Long, Presence> presences = new ConcurrentHashMap<>();
+
+    /**
+     * MAC addresses Gateways replied with from their known address, by Gateway ID
+     */
+    private final ConcurrentHashMap<Long, String> macAddresses = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledDiscovery;
+    private long lastDiscoveryTime = 0;
+
+    GatewayPresenceMonitor(@NonNull Context context, @NonNull ConnectivityMonitor connectivityMonitor) {
+        this.context = context.getApplicationContext();
+        this.connectivityMonitor = connectivityMonitor;
+    }
+
+    /**
+     * Start periodic searches
+     */
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "GatewayPresenceMonitor");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        scheduleDiscovery(NETWORK_CHANGE_DISCOVERY_DELAY);
+    }
+
+    /**
+     * Stop periodic searches
+     */
+    synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdownNow();
+        scheduler = null;
+        scheduledDiscovery = null;
+    }
+
+    @Override
+    public void onNetworkChanged() {
+        // a different network may contain different Gateways
+        for (Presence presence : presences.values()) {
+            synchronized (presence) {
+                presence.down = false;
+                presence.missing = false;
+                presence.sendFailures = 0;
+            }
+        }
+        scheduleDiscovery(NETWORK_CHANGE_DISCOVERY_DELAY);
+    }
+
+    @Override
+    public void onSendSuccess(NetworkPackage networkPackage, String response, long duration) {
+        Presence presence = getPresence(networkPackage.getGatewayId());
+        if (presence == null) {
+            return;
+        }
+
+        synchronized (presence) {
+            presence.sendFailures = 0;
+            if (response != null) {
+                // only a response proves the Gateway is there, UDP is fire and forget
+                presence.markSeen(duration);
+            }
+        }
+    }
+
+    @Override
+    public void onSendError(NetworkPackage networkPackage, Exception e) {
+        Presence presence = getPresence(networkPackage.getGatewayId());
+        if (presence == null) {
+            return;
+        }
+
+        boolean becameDown;
+        synchronized (presence) {
+            presence.sendFailures++;
+            becameDown = !presence.isDown() && presence.sendFailures >= MAX_SEND_FAILURES;
+            if (becameDown) {
+                presence.markDown();
+            }
+        }
+
+        if (becameDown) {
+            Log.w("Gateway " + networkPackage.getGatewayId() + " seems to be down");
+            // it may have a new address
+            scheduleDiscovery(0);
+        }
+    }
+
+    /**
+     * Check if a Gateway is known to be down on a route
+     *
+     * @param gateway Gateway
+     * @param route   route that would be used to send to the Gateway, null if unknown
+     * @return true if the Gateway is down, false if it is up or unknown
+     */
+    boolean isDown(@NonNull Gateway gateway, @Nullable RouteCache.Route route) {
+        Presence presence = presences.get(gateway.getId());
+        if (presence == null) {
+            return false;
+        }
+        return presence.isDown() || (route == RouteCache.Route.LOCAL && presence.isMissing());
+    }
+
+    /**
+     * Get the last measured round trip time of a Gateway
+     *
+     * @param gateway Gateway
+     * @return round trip time in milliseconds, -1 if unknown
+     */
+    long getRoundTripTime(@NonNull Gateway gateway) {
+        Presence presence = presences.get(gateway.getId());
+        return presence == null ? -1 : presence.getRoundTripTime();
+    }
+
+    /**
+     * Get presence of a Gateway
+     *
+     * @param gatewayId ID of Gateway
+     * @return presence, null if the Gateway ID is unknown
+     */
+    @Nullable
+    Presence getPresence(@Nullable Long gatewayId) {
+        if (gatewayId == null) {
+            return null;
+        }
+
+        Presence presence = presences.get(gatewayId);
+        if (presence == null) {
+            presence = new Presence();
+            Presence previousPresence = presences.putIfAbsent(gatewayId, presence);
+            if (previousPresence != null) {
+                presence = previousPresence;
+            }
+        }
+        return presence;
+    }
+
+    private synchronized void scheduleDiscovery(long delay) {
+        if (scheduler == null) {
+            return;
+        }
+
+        long earliest = lastDiscoveryTime + MIN_DISCOVERY_INTERVAL - System.currentTimeMillis();
+        delay = Math.max(delay, earliest);
+
+        if (scheduledDiscovery != null) {
+            if (scheduledDiscovery.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+                // already scheduled early enough
+                return;
+            }
+            scheduledDiscovery.cancel(false);
+        }
+
+        scheduledDiscovery = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    discover();
+                } catch (Exception e) {
+                    Log.e("Error during gateway presence discovery", e);
+                }
+
+                synchronized (GatewayPresenceMonitor.this) {
+                    scheduledDiscovery = null;
+                }
+                scheduleDiscovery(DISCOVERY_INTERVAL);
+            }
+        }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Search the local network and update presence of all Gateways
+     */
+    @WorkerThread
+    private void discover() throws Exception {
+        synchronized (this) {
+            lastDiscoveryTime = System.currentTimeMillis();
+        }
+
+        if (!connectivityMonitor.isWifiConnected() && !connectivityMonitor.isEthernetConnected()) {
+            // Gateways can only be found in a local network
+            return;
+        }
+
+        final Map<String, Long> roundTripTimes = new HashMap<>();
+        final Map<String, String> foundMacAddresses = new HashMap<>();
+        final List<Gateway> foundGateways = new ArrayList<>();
+        new AutoGatewayDiscover().doDiscovery(0, new AutoGatewayDiscover.OnMessageReceivedListener() {
+            @Override
+            public void onMessageReceived(String message, long roundTripTime) {
+                Gateway gateway = NetworkHandler.parseMessageToGateway(message);
+                if (gateway != null) {
+                    foundGateways.add(gateway);
+                    roundTripTimes.put(gateway.getLocalHost(), roundTripTime);
+                    String macAddress = AutoGatewayDiscover.parseMacAddress(message);
+                    if (macAddress != null) {
+                        foundMacAddresses.put(gateway.getLocalHost(), macAddress);
+                    }
+                }
+            }
+        });
+
+        List<Gateway> knownGateways = DatabaseHandler.getAllGateways();
+        Set<Long> seenGatewayIds = new HashSet<>();
+        List<Gateway> unmatchedGateways = new ArrayList<>();
+
+        for (Gateway foundGateway : foundGateways) {
+            String macAddress = foundMacAddresses.get(foundGateway.getLocalHost());
+            boolean matched = false;
+            for (Gateway knownGateway : knownGateways) {
+                if (knownGateway.getLocalHost().equals(foundGateway.getLocalHost())) {
+                    seenGatewayIds.add(knownGateway.getId());
+                    if (macAddress != null) {
+                        macAddresses.put(knownGateway.getId(), macAddress);
+                    }
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                unmatchedGateways.add(foundGateway);
+            }
+        }
+
+        String ssid = connectivityMonitor.isWifiConnected() ? connectivityMonitor.getConnectedWifiSsid() : null;
+        boolean gatewaysChanged = false;
+        for (Gateway foundGateway : unmatchedGateways) {
+            String macAddress = foundMacAddresses.get(foundGateway.getLocalHost());
+            Gateway movedGateway = findMovedGateway(foundGateway, macAddress, ssid, knownGateways, seenGatewayIds);
+            if (movedGateway == null) {
+                continue;
+            }
+
+            Log.d("Gateway " + movedGateway.getName() + " moved from " + movedGateway.getLocalHost() + " to " +
+                    foundGateway.getLocalHost());
+            DatabaseHandler.updateGateway(movedGateway.getId(), movedGateway.getName(), movedGateway.getModel(),
+                    foundGateway.getLocalHost(), movedGateway.getLocalPort(), movedGateway.getWanHost(),
+                    movedGateway.getWanPort(), movedGateway.getSsids());
+            seenGatewayIds.add(movedGateway.getId());
+            if (macAddress != null) {
+                macAddresses.put(movedGateway.getId(), macAddress);
+            }
+            roundTripTimes.put(movedGateway.getLocalHost(), roundTripTimes.get(foundGateway.getLocalHost()));
+            gatewaysChanged = true;
+        }
+
+        for (Gateway knownGateway : knownGateways) {
+            Presence presence = getPresence(knownGateway.getId());
+            synchronized (presence) {
+                if (seenGatewayIds.contains(knownGateway.getId())) {
+                    Long roundTripTime = roundTripTimes.get(knownGateway.getLocalHost());
+                    if (ssid != null) {
+                        presence.discoverableSsids.add(ssid);
+                    }
+                    presence.markSeen(roundTripTime != null ? roundTripTime : -1);
+                } else if (isExpected(knownGateway, presence, ssid) && !presence.isMissing()) {
+                    Log.w("Gateway " + knownGateway.getName() + " did not reply to search");
+                    presence.markMissing();
+                }
+            }
+        }
+
+        if (gatewaysChanged) {
+            GatewaySettingsFragment.sendGatewaysChangedBroadcast(context);
+        }
+    }
+
+    /**
+     * Check if a Gateway is expected to reply to a search in the current network
+     *
+     * @param gateway  Gateway
+     * @param presence presence of the Gateway
+     * @param ssid     SSID of the current WiFi network, null if not connected to WiFi
+     * @return true if the Gateway is configured for the current WiFi network or answered a search there before
+     */
+    private static boolean isExpected(Gateway gateway, Presence presence, @Nullable String ssid) {
+        return ssid != null && (gateway.getSsids().contains(ssid) || presence.discoverableSsids.contains(ssid));
+    }
+
+    /**
+     * Find the known Gateway that moved to the address of a found Gateway
+     * <p/>
+     * A known MAC address always identifies the Gateway. Otherwise only Gateways configured for the current WiFi
+     * network are considered, so a Gateway of the same model in another network never overwrites the address of
+     * a Gateway at home.
+     *
+     * @param foundGateway   Gateway found at an unknown address
+     * @param macAddress     MAC address of the found Gateway, null if its reply did not contain one
+     * @param ssid           SSID of the current WiFi network, null if not connected to WiFi
+     * @param knownGateways  all Gateways in the database
+     * @param seenGatewayIds IDs of known Gateways that replied from their known address
+     * @return moved Gateway, null if there is no single matching Gateway
+     */
+    @Nullable
+    private Gateway findMovedGateway(Gateway foundGateway, @Nullable String macAddress, @Nullable String ssid,
+                                     List<Gateway> knownGateways, Set<Long> seenGatewayIds) {
+        if (macAddress != null) {
+            for (Gateway knownGateway : knownGateways) {
+                if (macAddress.equals(macAddresses.get(knownGateway.getId()))) {
+                    return seenGatewayIds.contains(knownGateway.getId()) ? null : knownGateway;
+                }
+            }
+        }
+
+        if (ssid == null) {
+            return null;
+        }
+
+        Gateway movedGateway = null;
+        for (Gateway knownGateway : knownGateways) {
+            if (seenGatewayIds.contains(knownGateway.getId()) ||
+                    !knownGateway.getSsids().contains(ssid) ||
+                    !knownGateway.getModel().equals(foundGateway.getModel()) ||
+                    !knownGateway.getFirmware().equals(foundGateway.getFirmware())) {
+                continue;
+            }
+
+            String knownMacAddress = macAddresses.get(knownGateway.getId());
+            if (knownMacAddress != null && macAddress != null) {
+                // replied with a different MAC before, so this is another device
+                continue;
+            }
+
+            if (movedGateway != null) {
+                // ambiguous, don't guess
+                return null;
+            }
+            movedGateway = knownGateway;
+        }
+        return movedGateway;
+    }
+
+    /**
+     * Presence of a single Gateway
+     */
+    static class Presence {
+
+        /**
+         * Time the Gateway was last seen, 0 if never
+         */
+        private long lastSeen = 0;
+        /**
+         * Last measured round trip time in milliseconds, -1 if unknown
+         */
+        private long roundTripTime = -1;
+        /**
+         * Number of failed sends in a row
+         */
+        private int sendFailures = 0;
+        /**
+         * SSIDs of the WiFi networks the Gateway answered a search in
+         */
+        private final Set<String> discoverableSsids = new HashSet<>();
+        private boolean down = false;
+        private long downSince = 0;
+        /**
+         * true if the Gateway did not reply to a search in a network it was expected in
+         */
+        private boolean missing = false;
+        private long missingSince = 0;
+
+        private void markSeen(long roundTripTime) {
+            this.lastSeen = System.currentTimeMillis();
+            this.roundTripTime = roundTripTime;
+            this.sendFailures = 0;
+            this.down = false;
+            this.missing = false;
+        }
+
+        private void markDown() {
+            this.down = true;
+            this.downSince = System.currentTimeMillis();
+        }
+
+        private void markMissing() {
+            this.missing = true;
+            this.missingSince = System.currentTimeMillis();
+        }
+
+        synchronized boolean isDown() {
+            return down && System.currentTimeMillis() - downSince < DOWN_TIMEOUT;
+        }
+
+        synchronized boolean isMissing() {
+            return missing && System.currentTimeMillis() - missingSince < DOWN_TIMEOUT;
+        }
+
+        synchronized long getLastSeen() {
+            return lastSeen;
+        }
+
+        synchronized long getRoundTripTime() {
+            return roundTripTime;
+        }
+
+        synchronized int getSendFailures() {
+            return sendFailures;
+        }
+    }
+}
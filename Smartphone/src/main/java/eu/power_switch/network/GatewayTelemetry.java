@@ -0,0 +1,208 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per Gateway counters and histograms of the NetworkPackageQueueHandler
+ * <p/>
+ * Statistics are kept per lane (Gateway host and port) and cover:
+ * <ul>
+ * <li>packets sent and send errors</li>
+ * <li>queue wait: time from queueing a package until it is sent</li>
+ * <li>time on wire: time it takes to send a package (and read the response)</li>
+ * <li>pacing delay: time a lane waits because of the Gateway rate limit or an error backoff</li>
+ * </ul>
+ */
+public class GatewayTelemetry {
+
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Time these statistics were last reset
+     */
+    private volatile long since = System.currentTimeMillis();
+
+    /**
+     * Get statistics of a lane, creates them if necessary
+     *
+     * @param key lane key (host and port)
+     * @return statistics
+     */
+    @NonNull
+    Stats getStats(@NonNull String key) {
+        Stats laneStats = stats.get(key);
+        if (laneStats == null) {
+            laneStats = new Stats(key);
+            Stats previousStats = stats.putIfAbsent(key, laneStats);
+            if (previousStats != null) {
+                laneStats = previousStats;
+            }
+        }
+        return laneStats;
+    }
+
+    /**
+     * Get statistics of all lanes, slowest lane (by average time on wire and pacing) first
+     *
+     * @return list of statistics
+     */
+    @NonNull
+    public List<Stats> getAllStats() {
+        List<Stats> allStats = new ArrayList<>(stats.values());
+        Collections.sort(allStats, new Comparator<Stats>() {
+            @Override
+            public int compare(Stats lhs, Stats rhs) {
+                long lhsCost = lhs.timeOnWire.getAverage() + lhs.pacingDelay.getAverage();
+                long rhsCost = rhs.timeOnWire.getAverage() + rhs.pacingDelay.getAverage();
+                return lhsCost < rhsCost ? 1 : (lhsCost == rhsCost ? 0 : -1);
+            }
+        });
+        return allStats;
+    }
+
+    /**
+     * Remove all statistics
+     */
+    public void reset() {
+        stats.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Get a human readable dump of all statistics
+     *
+     * @return dump
+     */
+    @NonNull
+    public String dump() {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("Gateway telemetry (last ")
+                .append((System.currentTimeMillis() - since) / 1000)
+                .append("s)\n");
+
+        List<Stats> allStats = getAllStats();
+        if (allStats.isEmpty()) {
+            stringBuilder.append("no packages sent\n");
+        }
+        for (Stats laneStats : allStats) {
+            stringBuilder.append('\n').append(laneStats.toString());
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Statistics of a single lane (Gateway host and port)
+     */
+    public static class Stats {
+
+        private final String key;
+        private volatile Long gatewayId;
+        private final AtomicLong packetsSent = new AtomicLong();
+        private final AtomicLong sendErrors = new AtomicLong();
+        private final Histogram queueWait = new Histogram();
+        private final Histogram timeOnWire = new Histogram();
+        private final Histogram pacingDelay = new Histogram();
+        private volatile String lastError;
+
+        private Stats(String key) {
+            this.key = key;
+        }
+
+        void onSent(NetworkPackage networkPackage, long queueWait, long timeOnWire) {
+            gatewayId = networkPackage.getGatewayId();
+            packetsSent.incrementAndGet();
+            this.queueWait.record(queueWait);
+            this.timeOnWire.record(timeOnWire);
+        }
+
+        void onError(NetworkPackage networkPackage, long queueWait, long timeOnWire, Exception e) {
+            gatewayId = networkPackage.getGatewayId();
+            sendErrors.incrementAndGet();
+            this.queueWait.record(queueWait);
+            this.timeOnWire.record(timeOnWire);
+            lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        void onPacingDelay(long delay) {
+            pacingDelay.record(delay);
+        }
+
+        /**
+         * @return lane key (host and port)
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return ID of the Gateway of the last package sent through this lane, null if unknown
+         */
+        public Long getGatewayId() {
+            return gatewayId;
+        }
+
+        public long getPacketsSent() {
+            return packetsSent.get();
+        }
+
+        public long getSendErrors() {
+            return sendErrors.get();
+        }
+
+        public Histogram getQueueWait() {
+            return queueWait;
+        }
+
+        public Histogram getTimeOnWire() {
+            return timeOnWire;
+        }
+
+        public Histogram getPacingDelay() {
+            return pacingDelay;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append(key).append(" (Gateway: ").append(gatewayId).append(")\n")
+                    .append("  sent: ").append(packetsSent.get())
+                    .append(", errors: ").append(sendErrors.get()).append('\n')
+                    .append("  queue wait:   ").append(queueWait).append('\n')
+                    .append("  time on wire: ").append(timeOnWire).append('\n')
+                    .append("  pacing delay: ").append(pacingDelay).append('\n');
+            if (lastError != null) {
+                stringBuilder.append("  last error: ").append(lastError).append('\n');
+            }
+            return stringBuilder.toString();
+        }
+    }
+}
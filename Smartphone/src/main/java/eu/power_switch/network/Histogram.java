@@ -0,0 +1,128 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import java.util.Locale;
+
+/**
+ * Histogram of durations in milliseconds with exponential buckets (0, 1, 2, 4, ... ms)
+ * <p/>
+ * Recording a value is constant time and uses no memory, so it can be done for every NetworkPackage.
+ */
+public class Histogram {
+
+    /**
+     * Number of buckets, the last one holds everything above 2^(BUCKET_COUNT - 2) ms (~32 s)
+     */
+    private static final int BUCKET_COUNT = 17;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    /**
+     * Record a value
+     *
+     * @param value duration in milliseconds
+     */
+    public synchronized void record(long value) {
+        value = Math.max(0, value);
+        buckets[getBucket(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    private static int getBucket(long value) {
+        if (value == 0) {
+            return 0;
+        }
+        // bucket i (i >= 1) holds values in [2^(i-1), 2^i)
+        int bucket = 64 - Long.numberOfLeadingZeros(value);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Get number of recorded values
+     *
+     * @return count
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Get average of all recorded values
+     *
+     * @return average in milliseconds, 0 if nothing was recorded
+     */
+    public synchronized long getAverage() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Get max of all recorded values
+     *
+     * @return max in milliseconds
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Get an upper bound for a percentile of all recorded values
+     *
+     * @param percentile percentile (0 - 100)
+     * @return upper bound of the bucket containing the percentile in milliseconds
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return i == BUCKET_COUNT - 1 ? max : Math.min(max, (1L << i) - 1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Remove all recorded values
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = 0;
+        }
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "n=%d avg=%dms p50<=%dms p90<=%dms p99<=%dms max=%dms",
+                count, getAverage(), getPercentile(50), getPercentile(90), getPercentile(99), max);
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Pool of persistent HTTP/1.1 (keep-alive) connections, one for each Gateway endpoint (host and port)
+ * <p/>
+ * A burst of requests to the same Gateway reuses a single TCP connection instead of doing a handshake for every
+ * request. A batch of requests is pipelined: all requests are written at once and the responses are read in
+ * order afterwards. Idle connections are closed after {@link #KEEP_ALIVE_TIMEOUT} and all connections are closed
+ * whenever the network connection changes.
+ * <p/>
+ * Responses are framed as specified in RFC 7230 section 3.3.3, so responses without a body (1xx, 204, 304 and
+ * responses to HEAD requests) never wait for the end of the connection.
+ */
+class HttpConnectionPool implements ConnectivityMonitor.OnNetworkChangeListener {
+
+    /**
+     * Timeout for establishing a connection in milliseconds
+     */
+    private static final int CONNECT_TIMEOUT = 3000;
+    /**
+     * Timeout for reading a response in milliseconds
+     */
+    private static final int READ_TIMEOUT = 5000;
+    /**
+     * Time an idle connection is kept open in milliseconds
+     */
+    private static final long KEEP_ALIVE_TIMEOUT = 15000;
+    /**
+     * Max number of requests that are pipelined on a connection
+     */
+    static final int MAX_PIPELINE_DEPTH = 8;
+    /**
+     * Max size of a response body in bytes
+     */
+    private static final int MAX_RESPONSE_SIZE = 256 * 1024;
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final String METHOD = "GET";
+
+    private final AddressCache addressCache;
+
+    /**
+     * Idle connections, a connection is removed while it is in use
+     */
+    private final Map<String, Connection> connections = new HashMap<>();
+
+    HttpConnectionPool(@NonNull AddressCache addressCache) {
+        this.addressCache = addressCache;
+    }
+
+    @Override
+    public void onNetworkChanged() {
+        closeAll();
+    }
+
+    /**
+     * Send a GET request to a Gateway endpoint
+     *
+     * @param host host name or address
+     * @param port port
+     * @param path request path (without leading "/")
+     * @return response body, null if empty
+     * @throws IOException if the request failed or the Gateway responded with an error status
+     */
+    @Nullable
+    @WorkerThread
+    String get(@NonNull String host, int port, @NonNull String path) throws IOException {
+        return get(host, port, Collections.singletonList(path)).get(0).getBody();
+    }
+
+    /**
+     * Send a batch of GET requests to a Gateway endpoint, pipelined on a single connection
+     * <p/>
+     * If the Gateway closes the connection before all requests were answered, the remaining requests are sent
+     * again on a new connection. If that fails as well, the remaining responses carry the error.
+     *
+     * @param host  host name or address
+     * @param port  port
+     * @param paths request paths (without leading "/"), at most {@link #MAX_PIPELINE_DEPTH}
+     * @return one response for each request, in order
+     */
+    @NonNull
+    @WorkerThread
+    List<Response> get(@NonNull String host, int port, @NonNull List<String> paths) {
+        String key = getKey(host, port);
+        List<Response> responses = new ArrayList<>(paths.size());
+
+        Connection connection = takeIdleConnection(key);
+        boolean reused = connection != null;
+        while (responses.size() < paths.size()) {
+            List<String> remainingPaths = paths.subList(responses.size(), paths.size());
+            try {
+                if (connection == null) {
+                    connection = open(host, port);
+                    reused = false;
+                }
+
+                boolean keepAlive = connection.execute(host, port, remainingPaths, responses);
+                if (keepAlive) {
+                    release(key, connection);
+                } else {
+                    connection.close();
+                }
+                connection = null;
+            } catch (NoResponseException e) {
+                connection.close();
+                connection = null;
+                if (!reused) {
+                    failRemaining(responses, paths.size(), e);
+                }
+                // the Gateway closed the idle connection in the meantime, requests were not processed
+                Log.d(this, "connection to " + key + " went stale, reconnecting");
+            } catch (IOException e) {
+                if (connection != null) {
+                    connection.close();
+                    connection = null;
+                }
+                addressCache.invalidate(host);
+                failRemaining(responses, paths.size(), e);
+            }
+        }
+
+        for (Response response : responses) {
+            if (response.statusCode >= 400) {
+                response.error = new IOException("HTTP " + response.statusCode + " from " + key);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Close all connections
+     */
+    void closeAll() {
+        List<Connection> closingConnections;
+        synchronized (connections) {
+            closingConnections = new ArrayList<>(connections.values());
+            connections.clear();
+        }
+
+        for (Connection connection : closingConnections) {
+            connection.close();
+        }
+    }
+
+    private static void failRemaining(List<Response> responses, int count, IOException error) {
+        while (responses.size() < count) {
+            Response response = new Response();
+            response.error = error;
+            responses.add(response);
+        }
+    }
+
+    private Connection takeIdleConnection(String key) {
+        Connection connection;
+        synchronized (connections) {
+            connection = connections.remove(key);
+        }
+
+        if (connection != null && connection.isExpired()) {
+            connection.close();
+            return null;
+        }
+        return connection;
+    }
+
+    private void release(String key, Connection connection) {
+        Connection previousConnection;
+        synchronized (connections) {
+            previousConnection = connections.put(key, connection);
+        }
+        if (previousConnection != null) {
+            previousConnection.close();
+        }
+    }
+
+    private Connection open(String host, int port) throws IOException {
+        InetAddress address = addressCache.resolve(host);
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(READ_TIMEOUT);
+            socket.connect(new InetSocketAddress(address, port), CONNECT_TIMEOUT);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+        Log.d(this, "opened connection to " + address.getHostAddress() + ":" + port);
+
+        return new Connection(socket);
+    }
+
+    private static String getKey(String host, int port) {
+        return host + ":" + port;
+    }
+
+    /**
+     * Check if a response has a body, see RFC 7230 section 3.3.3
+     *
+     * @param method     method of the request
+     * @param statusCode status code of the response
+     * @return true if the response has a body (which may still be empty)
+     */
+    static boolean hasBody(String method, int statusCode) {
+        return !method.equals("HEAD") && statusCode >= 200 && statusCode != 204 && statusCode != 304;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            Log.e("Error closing HTTP connection", e);
+        }
+    }
+
+    /**
+     * A single persistent connection to a Gateway
+     */
+    private static class Connection {
+
+        private final Socket socket;
+        private final InputStream inputStream;
+        private final OutputStream outputStream;
+
+        /**
+         * Time this connection was last used
+         */
+        private long lastUsed;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.inputStream = new BufferedInputStream(socket.getInputStream());
+            this.outputStream = socket.getOutputStream();
+            this.lastUsed = SystemClock.elapsedRealtime();
+        }
+
+        private boolean isExpired() {
+            return socket.isClosed() || SystemClock.elapsedRealtime() - lastUsed > KEEP_ALIVE_TIMEOUT;
+        }
+
+        /**
+         * Write all requests at once and read their responses in order
+         *
+         * @param host      host name or address
+         * @param port      port
+         * @param paths     request paths
+         * @param responses receives the response of each request that was answered
+         * @return true if the connection can be used for further requests
+         * @throws NoResponseException if the connection was closed before the first response
+         */
+        private boolean execute(String host, int port, List<String> paths, List<Response> responses)
+                throws IOException {
+            StringBuilder requests = new StringBuilder();
+            for (String path : paths) {
+                requests.append(METHOD).append(" /").append(path).append(" HTTP/1.1\r\n")
+                        .append("Host: ").append(host).append(':').append(port).append("\r\n")
+                        .append("Connection: keep-alive\r\n")
+                        .append("Accept-Encoding: identity\r\n")
+                        .append("\r\n");
+            }
+            try {
+                outputStream.write(requests.toString().getBytes(CHARSET));
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new NoResponseException(e);
+            }
+
+            for (int i = 0; i < paths.size(); i++) {
+                Response response = readResponse(i == 0);
+                responses.add(response);
+                lastUsed = SystemClock.elapsedRealtime();
+                if (!response.keepAlive) {
+                    // remaining requests will not be answered on this connection
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Response readResponse(boolean firstResponse) throws IOException {
+            Response response = new Response();
+            long contentLength;
+            boolean chunked;
+            do {
+                contentLength = -1;
+                chunked = false;
+
+                String statusLine = readLine(firstResponse);
+                String[] statusParts = statusLine.split(" ", 3);
+                if (statusParts.length < 2 || !statusParts[0].startsWith("HTTP/")) {
+                    throw new IOException("Invalid HTTP status line: " + statusLine);
+                }
+
+                try {
+                    response.statusCode = Integer.parseInt(statusParts[1]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid HTTP status line: " + statusLine);
+                }
+                response.keepAlive = !statusParts[0].equals("HTTP/1.0");
+
+                String line;
+                while (!(line = readLine(false)).isEmpty()) {
+                    int separator = line.indexOf(':');
+                    if (separator <= 0) {
+                        continue;
+                    }
+                    String name = line.substring(0, separator).trim().toLowerCase(Locale.US);
+                    String value = line.substring(separator + 1).trim().toLowerCase(Locale.US);
+                    switch (name) {
+                        case "content-length":
+                            contentLength = Long.parseLong(value);
+                            break;
+                        case "transfer-encoding":
+                            chunked = value.contains("chunked");
+                            break;
+                        case "connection":
+                            if (value.contains("close")) {
+                                response.keepAlive = false;
+                            } else if (value.contains("keep-alive")) {
+                                response.keepAlive = true;
+                            }
+                            break;
+                    }
+                }
+                // skip interim responses (f.ex. 100 Continue), the final response follows
+            } while (response.statusCode >= 100 && response.statusCode < 200);
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            // responses without a body end after the header, regardless of any header fields
+            if (hasBody(METHOD, response.statusCode)) {
+                if (chunked) {
+                    long chunkSize;
+                    while ((chunkSize = parseChunkSize(readLine(false))) > 0) {
+                        readBody(body, chunkSize);
+                        readLine(false);
+                    }
+                    // skip trailers
+                    while (!readLine(false).isEmpty()) {
+                    }
+                } else if (contentLength >= 0) {
+                    readBody(body, contentLength);
+                } else {
+                    // body is delimited by the end of the stream
+                    readBody(body, -1);
+                    response.keepAlive = false;
+                }
+            }
+
+            if (body.size() > 0) {
+                response.body = new String(body.toByteArray(), CHARSET);
+                Log.d("HTTP Response", response.body);
+            }
+            return response;
+        }
+
+        /**
+         * Read the body (or a part of it) into a buffer
+         *
+         * @param body   buffer
+         * @param length number of bytes to read, -1 to read until the end of the stream
+         */
+        private void readBody(ByteArrayOutputStream body, long length) throws IOException {
+            byte[] buffer = new byte[4096];
+            long remaining = length;
+            while (length < 0 || remaining > 0) {
+                int toRead = length < 0 ? buffer.length : (int) Math.min(buffer.length, remaining);
+                int read = inputStream.read(buffer, 0, toRead);
+                if (read == -1) {
+                    if (length < 0) {
+                        return;
+                    }
+                    throw new EOFException("Unexpected end of HTTP response");
+                }
+                if (body.size() + read > MAX_RESPONSE_SIZE) {
+                    throw new IOException("HTTP response exceeds " + MAX_RESPONSE_SIZE + " bytes");
+                }
+                body.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+
+        /**
+         * Read a single line (terminated by CRLF) of the response header
+         *
+         * @param firstLine true if this is the first line of the response
+         * @return line without line terminator
+         */
+        private String readLine(boolean firstLine) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = inputStream.read()) != '\n') {
+                if (c == -1) {
+                    if (firstLine && line.length() == 0) {
+                        throw new NoResponseException(null);
+                    }
+                    throw new EOFException("Unexpected end of HTTP response");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        private static long parseChunkSize(String line) throws IOException {
+            int extension = line.indexOf(';');
+            if (extension != -1) {
+                line = line.substring(0, extension);
+            }
+            try {
+                return Long.parseLong(line.trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid HTTP chunk size: " + line);
+            }
+        }
+
+        private void close() {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Response of a Gateway to a single request
+     */
+    static class Response {
+        private int statusCode;
+        private boolean keepAlive;
+        private String body;
+        private IOException error;
+
+        /**
+         * Get body of this response
+         *
+         * @return response body, null if empty
+         * @throws IOException if the request failed or the Gateway responded with an error status
+         */
+        @Nullable
+        String getBody() throws IOException {
+            if (error != null) {
+                throw error;
+            }
+            return body;
+        }
+    }
+
+    /**
+     * Thrown if a connection was closed before the Gateway started to respond
+     */
+    private static class NoResponseException extends IOException {
+        private NoResponseException(Throwable cause) {
+            super("Connection closed before response", cause);
+        }
+    }
+}
@@ -19,20 +19,14 @@
 package eu.power_switch.network;
 
 import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
-import android.os.AsyncTask;
-import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.WorkerThread;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -52,9 +46,11 @@ import eu.power_switch.shared.log.Log;
  */
 public abstract class NetworkHandler {
 
-    protected static final List<NetworkPackage> networkPackagesQueue = new LinkedList<>();
-    protected static final Object lockObject = new Object();
     protected static NetworkPackageQueueHandler networkPackageQueueHandler;
+    protected static ConnectivityMonitor connectivityMonitor;
+    protected static RouteCache routeCache;
+    protected static Outbox outbox;
+    protected static GatewayPresenceMonitor gatewayPresenceMonitor;
     protected static Context context;
 
     /**
@@ -66,48 +62,75 @@ public abstract class NetworkHandler {
         throw new UnsupportedOperationException("This class is non-instantiable. Use static one time initialization via init() method instead.");
     }
 
-    public static void init(Context context) {
+    public static synchronized void init(Context context) {
         if (NetworkHandler.context != null) {
             return;
         }
 
         NetworkHandler.context = context;
 
-        if (networkPackageQueueHandler == null) {
-            networkPackageQueueHandler = new NetworkPackageQueueHandler(context);
+        connectivityMonitor = new ConnectivityMonitor(context);
+        routeCache = new RouteCache(connectivityMonitor);
+        connectivityMonitor.addListener(routeCache);
+
+        AddressCache addressCache = new AddressCache();
+        UdpChannelPool udpChannelPool = new UdpChannelPool(addressCache);
+        connectivityMonitor.addListener(udpChannelPool);
+        HttpConnectionPool httpConnectionPool = new HttpConnectionPool(addressCache);
+        connectivityMonitor.addListener(httpConnectionPool);
+
+        outbox = new Outbox(context);
+
+        networkPackageQueueHandler = new NetworkPackageQueueHandler(context, udpChannelPool, httpConnectionPool,
+                outbox);
+        connectivityMonitor.addListener(networkPackageQueueHandler);
+
+        gatewayPresenceMonitor = new GatewayPresenceMonitor(context, connectivityMonitor);
+        connectivityMonitor.addListener(gatewayPresenceMonitor);
+        networkPackageQueueHandler.addOnSendListener(gatewayPresenceMonitor);
+
+        connectivityMonitor.start();
+        networkPackageQueueHandler.start();
+        gatewayPresenceMonitor.start();
+    }
+
+    /**
+     * Stops sending of queued NetworkPackages and releases all resources
+     * <p/>
+     * NetworkPackages that have not been sent yet are discarded.
+     * NetworkHandler can be used again after calling init() again.
+     */
+    public static synchronized void shutdown() {
+        if (networkPackageQueueHandler != null) {
+            networkPackageQueueHandler.shutdown();
         }
 
-        if (networkPackageQueueHandler.getStatus() != AsyncTask.Status.RUNNING) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
-                networkPackageQueueHandler.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-            } else {
-                networkPackageQueueHandler.execute();
-            }
+        if (gatewayPresenceMonitor != null) {
+            gatewayPresenceMonitor.stop();
         }
+
+        if (connectivityMonitor != null) {
+            connectivityMonitor.stop();
+        }
+
+        if (outbox != null) {
+            outbox.shutdown();
+        }
+
+        NetworkHandler.context = null;
     }
 
     /**
      * Checks if Internet access is connected
      * <p/>
-     * Works by pinging the Google DNS
+     * Reachability is checked in the background whenever the network connection changes,
+     * so this is usually a simple lookup.
      *
      * @return true if connected, false otherwise
-     * @see <a href="http://google.com">http://stackoverflow.com/questions/1560788/how-to-check-internet-access-on-android-inetaddress-never-timeouts</a>
      */
+    @WorkerThread
     public static boolean isInternetConnected() {
-        boolean isInternetconnected = false;
-
-        Runtime runtime = Runtime.getRuntime();
-        try {
-            Process ipProcess = runtime.exec("/system/bin/ping -c 1 8.8.8.8");
-            int exitValue = ipProcess.waitFor();
-            isInternetconnected = (exitValue == 0);
-        } catch (IOException e) {
-            e.printStackTrace();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
+        boolean isInternetconnected = connectivityMonitor.isInternetConnected();
         Log.d("isInternetConnected: " + isInternetconnected);
         return isInternetconnected;
     }
@@ -118,11 +141,7 @@ public abstract class NetworkHandler {
      * @return false if WLAN is not connected
      */
     public static boolean isWifiConnected() {
-        ConnectivityManager connMgr = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-
-        boolean isWificonnected = (networkInfo != null &&
-                ConnectivityManager.TYPE_WIFI == networkInfo.getType() && networkInfo.isConnectedOrConnecting());
+        boolean isWificonnected = connectivityMonitor.isWifiConnected();
         Log.d("isWifiConnected: " + isWificonnected);
         return isWificonnected;
     }
@@ -133,13 +152,9 @@ public abstract class NetworkHandler {
      * @return false if Ethernet is not connected
      */
     public static boolean isEthernetConnected() {
-        ConnectivityManager connMgr = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-
-        boolean isWificonnected = (networkInfo != null &&
-                ConnectivityManager.TYPE_ETHERNET == networkInfo.getType() && networkInfo.isConnectedOrConnecting());
-        Log.d("isEthernetConnected: " + isWificonnected);
-        return isWificonnected;
+        boolean isEthernetconnected = connectivityMonitor.isEthernetConnected();
+        Log.d("isEthernetConnected: " + isEthernetconnected);
+        return isEthernetconnected;
     }
 
     /**
@@ -148,11 +163,7 @@ public abstract class NetworkHandler {
      * @return false if GPRS is not connected
      */
     public static boolean isGprsConnected() {
-        ConnectivityManager connMgr = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-
-        boolean isGprsconnected = (networkInfo != null &&
-                ConnectivityManager.TYPE_MOBILE == networkInfo.getType() && networkInfo.isConnectedOrConnecting());
+        boolean isGprsconnected = connectivityMonitor.isGprsConnected();
         Log.d("isGprsConnected: " + isGprsconnected);
         return isGprsconnected;
     }
@@ -163,10 +174,7 @@ public abstract class NetworkHandler {
      * @return true if a network connection is connected, false otherwise
      */
     public static boolean isNetworkConnected() {
-        ConnectivityManager connMgr = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-
-        boolean isconnected = (networkInfo != null && networkInfo.isConnectedOrConnecting());
+        boolean isconnected = connectivityMonitor.isNetworkConnected();
         Log.d("isNetworkConnected: " + isconnected);
         return isconnected;
     }
@@ -177,50 +185,96 @@ public abstract class NetworkHandler {
      * @return SSID of connected WiFi Network, empty string if no WiFi connection
      */
     public static String getConnectedWifiSSID() {
-        if (isWifiConnected()) {
-            WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
-            WifiInfo info = wifiManager.getConnectionInfo();
-            String ssid = info.getSSID();
-
-            // remove unnecessary quotation marks
-            if (ssid.startsWith("\"") && ssid.endsWith("\"")) {
-                ssid = ssid.substring(1, ssid.length() - 1);
-            }
+        String ssid = connectivityMonitor.getConnectedWifiSsid();
+        Log.d("connected SSID: " + ssid);
+        return ssid;
+    }
 
-            Log.d("connected SSID: " + ssid);
-            return ssid;
-        } else {
-            return "";
-        }
+    /**
+     * Get the route (local or WAN address) that should be used to reach a Gateway
+     * <p/>
+     * Routes are cached until the network connection changes.
+     *
+     * @param routingContext routing context of the apartment the gateway is associated with
+     * @param gateway        gateway
+     * @return route to use
+     * @throws Exception if the gateway has neither a valid local nor a valid WAN address
+     */
+    @WorkerThread
+    public static RouteCache.Route getRoute(RoutingContext routingContext, Gateway gateway) throws Exception {
+        return routeCache.getRoute(routingContext, gateway);
     }
 
     /**
      * sends a list of NetworkPackages
      *
      * @param networkPackages list of network packages
+     * @return result that is completed when every package is sent or has failed
      */
-    public static synchronized void send(List<NetworkPackage> networkPackages) {
+    @NonNull
+    public static synchronized SendResult send(List<NetworkPackage> networkPackages) {
         if (networkPackages == null) {
-            return;
+            return new SendResult(Collections.<PackageOutcome>emptyList());
         }
 
-        // add NetworkPackages to queue
-        synchronized (networkPackagesQueue) {
-            networkPackagesQueue.addAll(networkPackages);
-        }
-        // notify worker thread to handle new packages
-        synchronized (NetworkPackageQueueHandler.lock) {
-            NetworkPackageQueueHandler.lock.notify();
+        List<PackageOutcome> outcomes = new ArrayList<>();
+        for (NetworkPackage networkPackage : networkPackages) {
+            outcomes.add(networkPackage.newOutcome());
         }
+        SendResult result = new SendResult(outcomes);
+
+        // add NetworkPackages to queue
+        networkPackageQueueHandler.enqueue(networkPackages);
+
+        return result;
     }
 
     /**
      * sends an array of NetworkPackages
      *
      * @param networkPackages array of network packages
+     * @return result that is completed when every package is sent or has failed
+     */
+    @NonNull
+    public static synchronized SendResult send(NetworkPackage... networkPackages) {
+        return send(Arrays.asList(networkPackages));
+    }
+
+    /**
+     * Get per Gateway statistics of sent NetworkPackages
+     *
+     * @return statistics, null if NetworkHandler is not initialized
+     */
+    @Nullable
+    public static GatewayTelemetry getTelemetry() {
+        if (networkPackageQueueHandler == null) {
+            return null;
+        }
+        return networkPackageQueueHandler.getTelemetry();
+    }
+
+    /**
+     * Check if a Gateway is known to be unreachable on a route at the moment
+     * <p/>
+     * Gateways that nothing is known about yet are never considered down. A Gateway that is only missing from
+     * the local network is not considered down on the WAN route.
+     *
+     * @param gateway Gateway
+     * @param route   route that would be used to send to the Gateway, null if unknown
+     * @return true if the Gateway is down
+     */
+    public static boolean isGatewayDown(@NonNull Gateway gateway, @Nullable RouteCache.Route route) {
+        return gatewayPresenceMonitor != null && gatewayPresenceMonitor.isDown(gateway, route);
+    }
+
+    /**
+     * Get the last measured round trip time of a Gateway
+     *
+     * @param gateway Gateway
+     * @return round trip time in milliseconds, -1 if unknown
      */
-    public static synchronized void send(NetworkPackage... networkPackages) {
-        send(Arrays.asList(networkPackages));
+    public static long getGatewayRoundTripTime(@NonNull Gateway gateway) {
+        return gatewayPresenceMonitor == null ? -1 : gatewayPresenceMonitor.getRoundTripTime(gateway);
     }
 
     /**
@@ -230,24 +284,36 @@ public abstract class NetworkHandler {
      */
     @WorkerThread
     public static List<Gateway> searchGateways() {
-        List<Gateway> foundGateways = new ArrayList<>();
-        Log.d("NetworkManager", "searchGateways");
+        return searchGateways(0, null);
+    }
 
-        synchronized (lockObject) {
-            try {
-                LinkedList<String> messages;
+    /**
+     * Automatically search local network for available gateways
+     * <p/>
+     * Several searches can not run at the same time, but a search does not block sending NetworkPackages.
+     *
+     * @param expectedCount number of Gateways after which the search is finished early, 0 to search until timeout
+     * @param listener      listener that is notified about every found Gateway as soon as it replied, may be null
+     * @return List of found Gateways, contains null for replies that could not be parsed
+     */
+    @WorkerThread
+    public static List<Gateway> searchGateways(int expectedCount, @Nullable final OnGatewayFoundListener listener) {
+        final List<Gateway> foundGateways = new ArrayList<>();
+        Log.d("NetworkManager", "searchGateways");
 
-                AutoGatewayDiscover autoGatewayDiscover = new AutoGatewayDiscover(context);
-                messages = autoGatewayDiscover.doDiscovery();
-//                messages = new AutoGatewayDiscover(context).
-//                        executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, (Void[]) null).get();
-                for (String message : messages) {
+        try {
+            new AutoGatewayDiscover().doDiscovery(expectedCount, new AutoGatewayDiscover.OnMessageReceivedListener() {
+                @Override
+                public void onMessageReceived(String message, long roundTripTime) {
                     Gateway newGateway = parseMessageToGateway(message);
                     foundGateways.add(newGateway);
+                    if (listener != null) {
+                        listener.onGatewayFound(newGateway);
+                    }
                 }
-            } catch (Exception e) {
-                Log.e(e);
-            }
+            });
+        } catch (Exception e) {
+            Log.e(e);
         }
 
         return foundGateways;
@@ -261,7 +327,7 @@ public abstract class NetworkHandler {
      * @return Gateway null if message could not be parsed
      */
 
-    private static Gateway parseMessageToGateway(String message) {
+    static Gateway parseMessageToGateway(String message) {
         Log.d("parsing Gateway Message: " + message);
 
         int start;
@@ -358,4 +424,16 @@ public abstract class NetworkHandler {
 
         return sensors;
     }
-}
\ No newline at end of file
+
+    /**
+     * Interface for receiving Gateways while a search is running
+     */
+    public interface OnGatewayFoundListener {
+        /**
+         * Called on the searching thread for every Gateway that replied
+         *
+         * @param gateway found Gateway, null if the reply could not be parsed
+         */
+        void onGatewayFound(@Nullable Gateway gateway);
+    }
+}
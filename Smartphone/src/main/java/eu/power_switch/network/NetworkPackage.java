@@ -18,11 +18,24 @@
 
 package eu.power_switch.network;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import eu.power_switch.shared.constants.DatabaseConstants;
+
 /**
  * Internal representation of a network package that is used in NetworkHandler
  */
 public class NetworkPackage {
 
+    /**
+     * Charset used to convert String messages
+     */
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
     /**
      * Destination localHost of this network package
      */
@@ -32,17 +45,53 @@ public class NetworkPackage {
      */
     private int port;
     /**
-     * Message of this network package
+     * Message of this network package, as it is sent over the wire
      */
-    private String message;
+    private byte[] message;
     /**
      * Time to wait after sending this package before sending the next one
      */
     private int timeout;
+    /**
+     * Number of packages the Gateway accepts in a row without waiting
+     */
+    private int burstSize;
     /**
      * Type of this Network Package
      */
     private CommunicationType communicationType;
+    /**
+     * ID of the Gateway this package is sent to, null if unknown
+     */
+    private Long gatewayId;
+    /**
+     * ID of the Receiver this package is meant for, null if unknown
+     */
+    private Long receiverId;
+    /**
+     * ID of the Button this package was created for
+     */
+    private Long buttonId;
+    /**
+     * Priority of this Network Package
+     */
+    private Priority priority;
+    /**
+     * Outcome of the last time this Network Package was queued
+     */
+    private volatile PackageOutcome outcome;
+    /**
+     * Callback that receives the response of the Gateway, null if the response is not needed
+     */
+    private NetworkResponseCallback responseCallback;
+    /**
+     * Time this Network Package was added to a SendLane
+     */
+    private volatile long queueTime;
+    /**
+     * Key used to coalesce pending packages, null if this package must never be coalesced
+     */
+    private String coalescingKey;
 
     /**
      * Default Constructor
@@ -53,11 +102,91 @@ public class NetworkPackage {
      * @param timeout Timeout
      */
     public NetworkPackage(CommunicationType communicationType, String host, int port, String message, int timeout) {
+        this(communicationType, host, port, message, timeout, null, null);
+    }
+
+    /**
+     * Constructor for a NetworkPackage with a known target
+     * <p/>
+     * Packages with a known Receiver can be coalesced while they are waiting in the queue.
+     *
+     * @param host       Host address
+     * @param port       Port
+     * @param message    Message
+     * @param timeout    Timeout
+     * @param gatewayId  ID of the Gateway this package is sent to
+     * @param receiverId ID of the Receiver this package is meant for
+     */
+    public NetworkPackage(CommunicationType communicationType, String host, int port, String message, int timeout,
+                          Long gatewayId, Long receiverId) {
+        this(communicationType, host, port, message, timeout, gatewayId, receiverId, Priority.AUTOMATION);
+    }
+
+    /**
+     * Constructor for a NetworkPackage with a known target and priority
+     *
+     * @param host       Host address
+     * @param port       Port
+     * @param message    Message
+     * @param timeout    Timeout
+     * @param gatewayId  ID of the Gateway this package is sent to
+     * @param receiverId ID of the Receiver this package is meant for
+     * @param priority   Priority
+     */
+    public NetworkPackage(CommunicationType communicationType, String host, int port, String message, int timeout,
+                          Long gatewayId, Long receiverId, Priority priority) {
+        this(communicationType, host, port, message, timeout, gatewayId, receiverId, null, priority, 1);
+    }
+
+    /**
+     * Constructor for a NetworkPackage with a known target, priority and Gateway limits
+     *
+     * @param host       Host address
+     * @param port       Port
+     * @param message    Message
+     * @param timeout    Timeout
+     * @param gatewayId  ID of the Gateway this package is sent to
+     * @param receiverId ID of the Receiver this package is meant for
+     * @param buttonId   ID of the Button this package was created for, null if unknown
+     * @param priority   Priority
+     * @param burstSize  Number of packages the Gateway accepts in a row without waiting
+     */
+    public NetworkPackage(CommunicationType communicationType, String host, int port, String message, int timeout,
+                          Long gatewayId, Long receiverId, Long buttonId, Priority priority, int burstSize) {
+        this(communicationType, host, port, message.getBytes(CHARSET), timeout, gatewayId, receiverId, buttonId,
+                priority, burstSize);
+    }
+
+    /**
+     * Constructor for a NetworkPackage with an already encoded message
+     * <p/>
+     * The message is not copied, so it must not be modified afterwards.
+     * This allows sharing cached signals between packages without any conversion.
+     *
+     * @param host       Host address
+     * @param port       Port
+     * @param message    Message as it is sent over the wire
+     * @param timeout    Timeout
+     * @param gatewayId  ID of the Gateway this package is sent to
+     * @param receiverId ID of the Receiver this package is meant for
+     * @param buttonId   ID of the Button this package was created for, null if unknown
+     * @param priority   Priority
+     * @param burstSize  Number of packages the Gateway accepts in a row without waiting
+     */
+    public NetworkPackage(CommunicationType communicationType, String host, int port, @NonNull byte[] message,
+                          int timeout, Long gatewayId, Long receiverId, Long buttonId, Priority priority,
+                          int burstSize) {
         this.communicationType = communicationType;
         this.host = host;
         this.port = port;
         this.message = message;
         this.timeout = timeout;
+        this.gatewayId = gatewayId;
+        this.receiverId = receiverId;
+        this.buttonId = buttonId;
+        this.priority = priority;
+        this.burstSize = burstSize;
+        this.coalescingKey = createCoalescingKey();
     }
 
     /**
@@ -87,13 +216,47 @@ public class NetworkPackage {
         return port;
     }
 
+    /**
+     * Change the address this NetworkPackage is sent to
+     * <p/>
+     * Must only be called while the package is not queued in a SendLane, e.g. while it is waiting in the outbox.
+     *
+     * @param host Host address
+     * @param port Port
+     */
+    void setAddress(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.coalescingKey = createCoalescingKey();
+    }
+
     /**
      * Get message that should be sent
+     * <p/>
+     * This creates a new String every time, use {@link #writeMessage(ByteBuffer)} to send the message.
      *
      * @return message
      */
     public String getMessage() {
-        return message;
+        return new String(message, CHARSET);
+    }
+
+    /**
+     * Get length of the message in bytes
+     *
+     * @return length
+     */
+    public int getMessageLength() {
+        return message.length;
+    }
+
+    /**
+     * Write the message to a buffer
+     *
+     * @param buffer buffer with at least {@link #getMessageLength()} bytes remaining
+     */
+    public void writeMessage(@NonNull ByteBuffer buffer) {
+        buffer.put(message);
     }
 
     /**
@@ -109,8 +272,176 @@ public class NetworkPackage {
         return timeout;
     }
 
+    /**
+     * Get number of packages the Gateway accepts in a row without waiting for the timeout
+     *
+     * @return burst size
+     * @see eu.power_switch.obj.gateway.Gateway#getBurstSize()
+     */
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    /**
+     * Get ID of the Gateway this NetworkPackage is sent to
+     *
+     * @return Gateway ID, null if unknown
+     */
+    public Long getGatewayId() {
+        return gatewayId;
+    }
+
+    /**
+     * Get ID of the Receiver this NetworkPackage is meant for
+     *
+     * @return Receiver ID, null if unknown
+     */
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    /**
+     * Get ID of the Button this NetworkPackage was created for
+     *
+     * @return Button ID, null if unknown
+     */
+    public Long getButtonId() {
+        return buttonId;
+    }
+
+    /**
+     * Get priority of this NetworkPackage
+     *
+     * @return priority {@see Priority}
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Get outcome of the last time this NetworkPackage was queued
+     *
+     * @return outcome, null if this package was never queued
+     */
+    public PackageOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Create a new outcome for this NetworkPackage, called when it is queued
+     *
+     * @return new outcome
+     */
+    PackageOutcome newOutcome() {
+        outcome = new PackageOutcome(this);
+        return outcome;
+    }
+
+    /**
+     * Get time this NetworkPackage was added to a SendLane
+     *
+     * @return time in milliseconds
+     */
+    long getQueueTime() {
+        return queueTime;
+    }
+
+    void setQueueTime(long queueTime) {
+        this.queueTime = queueTime;
+    }
+
+    /**
+     * Get callback that receives the response of the Gateway
+     *
+     * @return callback, null if none is set
+     */
+    public NetworkResponseCallback getResponseCallback() {
+        return responseCallback;
+    }
+
+    /**
+     * Set callback that receives the response of the Gateway
+     *
+     * @param responseCallback callback, null to ignore the response
+     */
+    public void setResponseCallback(NetworkResponseCallback responseCallback) {
+        this.responseCallback = responseCallback;
+    }
+
+    /**
+     * Check if this NetworkPackage sets a state of its Receiver
+     * <p/>
+     * Sending a state command twice has the same effect as sending it once. Step commands (e.g. dimming or
+     * moving a roller shutter) change the Receiver relative to its current state and must never be dropped.
+     *
+     * @return true if this is an on/off command for a known Receiver
+     */
+    public boolean isStateCommand() {
+        return receiverId != null && buttonId != null &&
+                (buttonId == DatabaseConstants.BUTTON_ON_ID || buttonId == DatabaseConstants.BUTTON_OFF_ID);
+    }
+
+    /**
+     * Check if this NetworkPackage changes its Receiver relative to its current state
+     * <p/>
+     * This is true for every Button other than on/off, e.g. dimming, moving a roller shutter or pairing.
+     * Step commands are never dropped, not even if the same one is pending already.
+     *
+     * @return true if this is a step command
+     */
+    public boolean isStepCommand() {
+        return buttonId != null && !isStateCommand();
+    }
+
+    /**
+     * Get key used to coalesce pending packages
+     * <p/>
+     * A newer package with the same key makes an older one obsolete. On and off commands for the same Receiver
+     * share one key, so only the latest state is sent. Other packages share a key if they are exactly the same.
+     *
+     * @return key of the state or message of this package, null if this package must never be coalesced
+     */
+    @Nullable
+    public String getCoalescingKey() {
+        return coalescingKey;
+    }
+
+    private String createCoalescingKey() {
+        if (isStateCommand()) {
+            return "state|" + gatewayId + "|" + host + ":" + port + "|" + receiverId;
+        } else if (isStepCommand()) {
+            return null;
+        } else {
+            return "message|" + communicationType + "|" + host + ":" + port + "|" + getMessage();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return communicationType + " " + host + ":" + port + " (Gateway: " + gatewayId + ", Receiver: " + receiverId +
+                ", Button: " + buttonId + ", Priority: " + priority + "): " + getMessage();
+    }
+
     public enum CommunicationType {
         UDP,
         HTTP
     }
+
+    /**
+     * Priority classes of NetworkPackages, in descending order
+     */
+    public enum Priority {
+        /**
+         * Commands triggered directly by the user (App, Widget, Wear, NFC etc.)
+         */
+        INTERACTIVE,
+        /**
+         * Commands triggered by automations (Timers, Geofences, Alarm Clock etc.)
+         */
+        AUTOMATION,
+        /**
+         * Large batches of commands (Scenes)
+         */
+        BULK
+    }
 }
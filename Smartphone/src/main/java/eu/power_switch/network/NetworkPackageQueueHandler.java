@@ -19,33 +19,52 @@
 package eu.power_switch.network;
 
 import android.content.Context;
-import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
 import android.support.design.widget.Snackbar;
 
-import java.io.BufferedInputStream;
-import java.io.InputStream;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.HttpURLConnection;
-import java.net.InetAddress;
-import java.net.URL;
+import java.io.IOException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import eu.power_switch.R;
+import eu.power_switch.database.handler.DatabaseHandler;
 import eu.power_switch.gui.StatusMessageHandler;
+import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.shared.log.Log;
 
 /**
  * This Class is responsible for sending NetworkPackages that are queued up to be sent
  * <p/>
+ * Queued NetworkPackages are distributed to one {@link SendLane} per Gateway (host and port).
+ * Lanes are worked off concurrently, so only packages for the same Gateway have to wait for each other.
+ * <p/>
+ * Packages are dispatched by delayed tasks on a dedicated scheduler, so no thread is blocked while
+ * waiting for a Gateway to finish sending a signal.
+ * <p/>
+ * Packages that can not be sent because there is no network connection are kept in the {@link Outbox}
+ * and replayed as soon as the network is connected again.
+ * <p/>
  * Created by Markus on 29.10.2015.
  */
-public class NetworkPackageQueueHandler extends AsyncTask<Void, Void, Void> {
+public class NetworkPackageQueueHandler implements ConnectivityMonitor.OnNetworkChangeListener {
 
     /**
-     * Lock Object used to lock thread on empty queue and wakeup again on notify
+     * Number of threads used to dispatch NetworkPackages
      */
-    public static final Object lock = new Object();
+    private static final int SCHEDULER_POOL_SIZE = 2;
 
     /**
      * Context
@@ -53,175 +72,458 @@ public class NetworkPackageQueueHandler extends AsyncTask<Void, Void, Void> {
     private Context context;
 
     /**
-     * Socket used to send NetworkPackages over UDP
+     * Lanes of NetworkPackages, one for each Gateway (host and port)
+     */
+    private final Map<String, SendLane> lanes = new HashMap<>();
+
+    /**
+     * Number of lanes that are currently sending
      */
-    private DatagramSocket socket;
+    private final AtomicInteger activeLanes = new AtomicInteger(0);
 
-    public NetworkPackageQueueHandler(Context context) {
+    /**
+     * Scheduler used to dispatch NetworkPackages
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Channels used to send NetworkPackages over UDP
+     */
+    private final UdpChannelPool udpChannelPool;
+
+    /**
+     * Connections used to send NetworkPackages over HTTP
+     */
+    private final HttpConnectionPool httpConnectionPool;
+
+    /**
+     * Packages waiting for a network connection
+     */
+    private final Outbox outbox;
+
+    /**
+     * Listeners that are notified about every sent NetworkPackage
+     */
+    private final List<OnSendListener> sendListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Per Gateway statistics
+     */
+    private final GatewayTelemetry telemetry = new GatewayTelemetry();
+
+    public NetworkPackageQueueHandler(Context context, UdpChannelPool udpChannelPool,
+                                      HttpConnectionPool httpConnectionPool, Outbox outbox) {
         this.context = context;
+        this.udpChannelPool = udpChannelPool;
+        this.httpConnectionPool = httpConnectionPool;
+        this.outbox = outbox;
     }
 
-    @Override
-    protected Void doInBackground(Void... voids) {
-        while (true) {
-            // start working
+    /**
+     * Start the scheduler of this queue handler, does nothing if it is already running
+     */
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
 
-            Log.d(this, "start working");
+        Log.d(this, "start");
+        scheduler = Executors.newScheduledThreadPool(SCHEDULER_POOL_SIZE, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger(0);
 
-            int queueSize;
-            synchronized (NetworkHandler.networkPackagesQueue) {
-                queueSize = NetworkHandler.networkPackagesQueue.size();
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "NetworkPackageQueueHandler-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // the outbox is read from disk, so it is loaded on the scheduler before it is replayed the first time
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                outbox.load();
+                replayOutbox();
             }
+        });
+    }
+
+    /**
+     * Stop the scheduler of this queue handler and discard all NetworkPackages that have not been sent yet
+     */
+    public synchronized void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+
+        Log.d(this, "shutdown");
+        scheduler.shutdownNow();
+        scheduler = null;
 
-            if (queueSize > 0) {
-                processQueue();
+        synchronized (lanes) {
+            for (SendLane lane : lanes.values()) {
+                lane.clear();
             }
+            lanes.clear();
+        }
+        activeLanes.set(0);
 
-            // queue is empty
-            Log.d(this, "queue is empty, wait for notify...");
+        udpChannelPool.closeAll();
+        httpConnectionPool.closeAll();
+    }
 
-            // Put Thread asleep and wait for wakeup from NetworkHandler
-            synchronized (lock) {
-                try {
-                    lock.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    return null;
-                }
-                Log.d(this, "waking up");
+    /**
+     * Check if the scheduler of this queue handler is running
+     *
+     * @return true if running, false otherwise
+     */
+    public synchronized boolean isRunning() {
+        return scheduler != null && !scheduler.isShutdown();
+    }
+
+    /**
+     * Add NetworkPackages to the queue
+     *
+     * @param networkPackages list of network packages
+     */
+    public void enqueue(List<NetworkPackage> networkPackages) {
+        if (!NetworkHandler.isNetworkConnected()) {
+            for (NetworkPackage networkPackage : networkPackages) {
+                outbox.add(networkPackage);
             }
+            StatusMessageHandler.showInfoMessage(context, R.string.missing_network_connection_commands_queued,
+                    Snackbar.LENGTH_LONG);
+            return;
+        }
+
+        // distribute NetworkPackages to their gateway specific lanes
+        for (NetworkPackage networkPackage : networkPackages) {
+            getLane(networkPackage).enqueue(networkPackage);
         }
     }
 
-    private void processQueue() {
-        if (NetworkHandler.isNetworkConnected()) {
-            StatusMessageHandler.showInfoMessage(context, R.string.sending, Snackbar.LENGTH_INDEFINITE);
+    @Override
+    public void onNetworkChanged() {
+        replayOutbox();
+    }
+
+    /**
+     * Send all packages from the outbox that have not expired yet, if the network is connected
+     * <p/>
+     * Nothing is sent before the outbox is loaded, so packages of a previous run are replayed first.
+     */
+    private void replayOutbox() {
+        if (!outbox.isLoaded() || outbox.isEmpty() || !isRunning() || !NetworkHandler.isNetworkConnected()) {
+            return;
+        }
 
-            NetworkPackage currentNetworkPackage;
-            while (NetworkHandler.networkPackagesQueue.size() > 0) {
+        List<NetworkPackage> networkPackages = outbox.takeAll();
+        if (!networkPackages.isEmpty()) {
+            Log.d(this, "replaying " + networkPackages.size() + " packages from outbox");
+            Map<Long, RoutingContext> routingContexts = new HashMap<>();
+            for (NetworkPackage networkPackage : networkPackages) {
+                reroute(networkPackage, routingContexts);
+            }
+            enqueue(networkPackages);
+        }
+    }
 
-                synchronized (NetworkHandler.networkPackagesQueue) {
-                    currentNetworkPackage = NetworkHandler.networkPackagesQueue.get(0);
-                }
-                try {
-                    send(currentNetworkPackage);
-
-                    int delay = 1000;
-                    synchronized (NetworkHandler.networkPackagesQueue) {
-                        // calculate time to wait before sending next package
-                        if (NetworkHandler.networkPackagesQueue.size() > 1) {
-                            NetworkPackage nextNetworkPackage = NetworkHandler.networkPackagesQueue.get(1);
-                            if (currentNetworkPackage.getHost().equals(nextNetworkPackage.getHost()) &&
-                                    currentNetworkPackage.getPort() == nextNetworkPackage.getPort()) {
-                                // if same gateway, wait gateway-specific time
-                                Log.d("Waiting Gateway specific time (" + currentNetworkPackage.getTimeout() + "ms) " +
-                                        "before sending next signal...");
-                                delay = currentNetworkPackage.getTimeout();
-                            }
-                        }
-
-                        // remove NetworkPackage from queue
-                        NetworkHandler.networkPackagesQueue.remove(0);
-                    }
-
-                    Log.d("Waiting for Gateway to finish sending Signal before sending next...");
-                    Thread.sleep(delay);
-                } catch (UnknownHostException e) {
-                    removeQueueHead();
-
-                    StatusMessageHandler.showInfoMessage(context, R.string.unknown_host, Snackbar.LENGTH_LONG);
-                    Log.e("UDP Sender", e);
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException e1) {
-                        e1.printStackTrace();
-                        Log.e("UDP Sender", e1);
-                    }
-                } catch (Exception e) {
-                    removeQueueHead();
-
-                    StatusMessageHandler.showErrorMessage(context, e);
-                    Log.e("UDP Sender: Unknown error while sending message in background:", e);
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException e1) {
-                        e1.printStackTrace();
-                        Log.e("UDP Sender", e1);
-                    }
-                } finally {
-                    if (socket != null) {
-                        socket.disconnect();
-                        socket.close();
-                    }
+    /**
+     * Update the address of a NetworkPackage from the outbox to the current route of its Gateway
+     * <p/>
+     * The route was chosen when the package was created, e.g. a package created while offline uses the WAN address
+     * even if it is replayed in the home WiFi. Packages without a known Gateway keep their address.
+     *
+     * @param networkPackage  NetworkPackage
+     * @param routingContexts RoutingContexts already loaded during this replay, by Receiver ID
+     */
+    @WorkerThread
+    private void reroute(NetworkPackage networkPackage, Map<Long, RoutingContext> routingContexts) {
+        if (networkPackage.getGatewayId() == null) {
+            return;
+        }
+
+        try {
+            Gateway gateway = DatabaseHandler.getGateway(networkPackage.getGatewayId());
+
+            Long receiverId = networkPackage.getReceiverId();
+            RoutingContext routingContext = routingContexts.get(receiverId);
+            if (routingContext == null) {
+                if (receiverId != null) {
+                    routingContext = DatabaseHandler.getRoutingContext(DatabaseHandler.getReceiver(receiverId));
+                } else {
+                    routingContext = new RoutingContext(Collections.<Gateway>emptyList(), false);
                 }
+                routingContexts.put(receiverId, routingContext);
             }
 
-            // queue worked off
-            StatusMessageHandler.showInfoMessage(context, R.string.sent, Snackbar.LENGTH_SHORT);
-        } else {
-            clearQueue();
+            switch (NetworkHandler.getRoute(routingContext, gateway)) {
+                case LOCAL:
+                    networkPackage.setAddress(gateway.getLocalHost(), gateway.getLocalPort());
+                    break;
+                case WAN:
+                    networkPackage.setAddress(gateway.getWanHost(), gateway.getWanPort());
+                    break;
+            }
+        } catch (Exception e) {
+            Log.e("Could not update route of " + networkPackage + ", using its previous address", e);
+        }
+    }
 
-            StatusMessageHandler.showInfoMessage(context, R.string.missing_network_connection, Snackbar.LENGTH_LONG);
+    /**
+     * Schedule the next dispatch of a SendLane
+     *
+     * @param lane  SendLane
+     * @param delay time to wait before dispatching in milliseconds
+     */
+    synchronized void schedule(SendLane lane, long delay) {
+        if (!isRunning()) {
+            Log.w("NetworkPackageQueueHandler is not running, discarding lane " + lane.getKey());
+            lane.abort();
+            onLaneFinished(lane);
+            return;
+        }
+
+        if (delay > 0) {
+            telemetry.getStats(lane.getKey()).onPacingDelay(delay);
+        }
+
+        try {
+            scheduler.schedule(lane, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.e("Could not schedule lane " + lane.getKey(), e);
+            lane.abort();
+            onLaneFinished(lane);
         }
     }
 
-    private void removeQueueHead() {
-        synchronized (NetworkHandler.networkPackagesQueue) {
-            // remove NetworkPackage from queue
-            NetworkHandler.networkPackagesQueue.remove(0);
+    /**
+     * Get the SendLane for the Gateway a NetworkPackage is bound for, creates a new lane if necessary
+     *
+     * @param networkPackage NetworkPackage
+     * @return SendLane
+     */
+    private SendLane getLane(NetworkPackage networkPackage) {
+        String key = SendLane.getKey(networkPackage);
+        synchronized (lanes) {
+            SendLane lane = lanes.get(key);
+            if (lane == null) {
+                lane = new SendLane(key, this);
+                lanes.put(key, lane);
+            }
+            return lane;
         }
     }
 
-    private void clearQueue() {
-        synchronized (NetworkHandler.networkPackagesQueue) {
-            // remove NetworkPackage from queue
-            NetworkHandler.networkPackagesQueue.clear();
+    /**
+     * Get per Gateway statistics of this queue handler
+     *
+     * @return statistics
+     */
+    @NonNull
+    public GatewayTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    /**
+     * Add a listener that is notified about every sent NetworkPackage
+     *
+     * @param listener listener
+     */
+    public void addOnSendListener(@NonNull OnSendListener listener) {
+        sendListeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added listener
+     *
+     * @param listener listener
+     */
+    public void removeOnSendListener(@NonNull OnSendListener listener) {
+        sendListeners.remove(listener);
+    }
+
+    /**
+     * Called by a SendLane when a NetworkPackage was sent
+     *
+     * @param networkPackage NetworkPackage
+     * @param response       response of the Gateway, null if there is none
+     * @param duration       time it took to send the package in milliseconds
+     */
+    void onSendSuccess(NetworkPackage networkPackage, String response, long duration) {
+        for (OnSendListener listener : sendListeners) {
+            listener.onSendSuccess(networkPackage, response, duration);
         }
     }
 
-    private void send(NetworkPackage networkPackage) throws Exception {
-        switch (networkPackage.getCommunicationType()) {
-            case UDP:
-                InetAddress host = InetAddress.getByName(networkPackage.getHost());
-                int port = networkPackage.getPort();
+    /**
+     * Called by a SendLane when sending a NetworkPackage failed
+     *
+     * @param networkPackage NetworkPackage that could not be sent
+     * @param e              error
+     */
+    void onSendError(NetworkPackage networkPackage, Exception e) {
+        if (!NetworkHandler.isNetworkConnected()) {
+            // connection was lost while sending, try again when it is back
+            Log.d(this, "network lost, moving to outbox: " + networkPackage);
+            outbox.add(networkPackage);
+            return;
+        }
 
-                socket = new DatagramSocket(null);
-                socket.setReuseAddress(true);
-                socket.connect(host, port);
+        networkPackage.getOutcome().fail(e);
 
-                byte[] messageBuffer = networkPackage.getMessage().getBytes();
-                DatagramPacket messagePacket = new DatagramPacket(messageBuffer, messageBuffer.length, host, port);
-                socket.send(messagePacket);
+        for (OnSendListener listener : sendListeners) {
+            listener.onSendError(networkPackage, e);
+        }
 
-                Log.d("UDP Sender", "Host: " + host.getHostAddress() + ":" + port
-                        + " Message: \"" + new String(messageBuffer) + "\" sent.");
+        if (e instanceof UnknownHostException) {
+            StatusMessageHandler.showInfoMessage(context, R.string.unknown_host, Snackbar.LENGTH_LONG);
+            Log.e("UDP Sender", e);
+        } else {
+            StatusMessageHandler.showErrorMessage(context, e);
+            Log.e("UDP Sender: Unknown error while sending message in background:", e);
+        }
+    }
 
-                socket.disconnect();
-                socket.close();
-                break;
-            case HTTP:
-                URL url = new URL("http://" + networkPackage.getHost() + ":" + networkPackage.getPort() + "/" +
-                        networkPackage.getMessage());
-                HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-                try {
-                    InputStream in = new BufferedInputStream(urlConnection.getInputStream());
-                    readStream(in);
-                } finally {
-                    urlConnection.disconnect();
-                }
-                break;
+    /**
+     * Called by a SendLane when it starts sending after being idle
+     *
+     * @param lane SendLane
+     */
+    void onLaneStarted(SendLane lane) {
+        Log.d(this, "lane " + lane.getKey() + " started");
+
+        if (activeLanes.getAndIncrement() == 0) {
+            StatusMessageHandler.showInfoMessage(context, R.string.sending, Snackbar.LENGTH_INDEFINITE);
         }
     }
 
-    private void readStream(InputStream inputStream) {
-        String response;
+    /**
+     * Called by a SendLane when it has no more NetworkPackages to send
+     *
+     * @param lane SendLane
+     */
+    void onLaneFinished(SendLane lane) {
+        Log.d(this, "lane " + lane.getKey() + " is empty");
+
+        int active;
+        do {
+            active = activeLanes.get();
+            if (active == 0) {
+                // counter was reset by shutdown()
+                return;
+            }
+        } while (!activeLanes.compareAndSet(active, active - 1));
 
-        java.util.Scanner s = new java.util.Scanner(inputStream).useDelimiter("\\A");
-        if (s.hasNext()) {
-            response = s.next();
-            Log.d("HTTP Response", response);
-        } else {
-            return;
+        if (active == 1) {
+            // queue worked off
+            StatusMessageHandler.showInfoMessage(context, R.string.sent, Snackbar.LENGTH_SHORT);
+        }
+    }
+
+    /**
+     * Send a single NetworkPackage
+     * <p/>
+     * This method is called concurrently from different SendLanes
+     *
+     * @param lane           SendLane the package is sent from
+     * @param networkPackage NetworkPackage
+     * @return response of the Gateway, null if there is none
+     * @throws Exception
+     */
+    String send(SendLane lane, NetworkPackage networkPackage) throws Exception {
+        GatewayTelemetry.Stats stats = telemetry.getStats(lane.getKey());
+        long startTime = System.currentTimeMillis();
+        long queueWait = startTime - networkPackage.getQueueTime();
+
+        try {
+            String response = sendPackage(lane, networkPackage);
+            stats.onSent(networkPackage, queueWait, System.currentTimeMillis() - startTime);
+            return response;
+        } catch (Exception e) {
+            stats.onError(networkPackage, queueWait, System.currentTimeMillis() - startTime, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Send a batch of NetworkPackages to an HTTP Gateway, pipelined on a single connection
+     * <p/>
+     * This method is called concurrently from different SendLanes
+     *
+     * @param lane            SendLane the packages are sent from
+     * @param networkPackages NetworkPackages, all for the endpoint of the lane
+     * @return one response for each package, in order
+     */
+    List<HttpConnectionPool.Response> send(SendLane lane, List<NetworkPackage> networkPackages) {
+        GatewayTelemetry.Stats stats = telemetry.getStats(lane.getKey());
+        long startTime = System.currentTimeMillis();
+
+        NetworkPackage firstPackage = networkPackages.get(0);
+        List<String> paths = new ArrayList<>(networkPackages.size());
+        for (NetworkPackage networkPackage : networkPackages) {
+            paths.add(networkPackage.getMessage());
+        }
+        List<HttpConnectionPool.Response> responses =
+                httpConnectionPool.get(firstPackage.getHost(), firstPackage.getPort(), paths);
+
+        long timeOnWire = System.currentTimeMillis() - startTime;
+        for (int i = 0; i < networkPackages.size(); i++) {
+            NetworkPackage networkPackage = networkPackages.get(i);
+            long queueWait = startTime - networkPackage.getQueueTime();
+            try {
+                responses.get(i).getBody();
+                stats.onSent(networkPackage, queueWait, timeOnWire);
+            } catch (IOException e) {
+                stats.onError(networkPackage, queueWait, timeOnWire, e);
+            }
+        }
+        return responses;
+    }
+
+    private String sendPackage(SendLane lane, NetworkPackage networkPackage) throws Exception {
+        switch (networkPackage.getCommunicationType()) {
+            case UDP:
+                ByteBuffer buffer = lane.getSendBuffer(networkPackage.getMessageLength());
+                networkPackage.writeMessage(buffer);
+                buffer.flip();
+                udpChannelPool.send(lane.getKey(), networkPackage.getHost(), networkPackage.getPort(), buffer);
+
+                if (Log.isDebugEnabled()) {
+                    Log.d("UDP Sender", "Host: " + lane.getKey() + " Message: \"" + networkPackage.getMessage()
+                            + "\" sent.");
+                }
+                return null;
+            case HTTP:
+                return httpConnectionPool.get(networkPackage.getHost(), networkPackage.getPort(),
+                        networkPackage.getMessage());
+            default:
+                return null;
         }
     }
+
+    /**
+     * Interface for receiving the result of every NetworkPackage that was sent
+     * <p/>
+     * Methods are called on the sending thread and should return quickly.
+     */
+    public interface OnSendListener {
+        /**
+         * Called after a NetworkPackage was sent
+         *
+         * @param networkPackage NetworkPackage
+         * @param response       response of the Gateway, null if there is none
+         * @param duration       time it took to send the package in milliseconds
+         */
+        void onSendSuccess(NetworkPackage networkPackage, String response, long duration);
+
+        /**
+         * Called after sending a NetworkPackage failed
+         *
+         * @param networkPackage NetworkPackage
+         * @param e              error
+         */
+        void onSendError(NetworkPackage networkPackage, Exception e);
+    }
 }
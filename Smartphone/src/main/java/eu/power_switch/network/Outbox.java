@@ -0,0 +1,465 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Persistent outbox for NetworkPackages that could not be sent because there was no network connection
+ * <p/>
+ * Packages are kept in order and replayed as soon as the network is connected again, to the address that fits the
+ * network at that time. Only the latest on/off command for each Receiver is kept, every package expires after a priority dependent time and the number of
+ * packages is limited to {@link #MAX_SIZE}, so the cost of the outbox stays bounded no matter how many commands
+ * pile up.
+ * <p/>
+ * The outbox is written to disk in the background, so commands survive a restart of the app.
+ */
+class Outbox {
+
+    /**
+     * Max number of packages in the outbox, oldest packages are dropped first
+     */
+    static final int MAX_SIZE = 200;
+
+    private static final String FILE_NAME = "network_outbox.json";
+
+    private static final String KEY_EXPIRATION_TIME = "expirationTime";
+    private static final String KEY_COMMUNICATION_TYPE = "communicationType";
+    private static final String KEY_HOST = "host";
+    private static final String KEY_PORT = "port";
+    private static final String KEY_MESSAGE = "message";
+    private static final String KEY_TIMEOUT = "timeout";
+    private static final String KEY_GATEWAY_ID = "gatewayId";
+    private static final String KEY_RECEIVER_ID = "receiverId";
+    private static final String KEY_BUTTON_ID = "buttonId";
+    private static final String KEY_PRIORITY = "priority";
+    private static final String KEY_BURST_SIZE = "burstSize";
+
+    private final File file;
+
+    /**
+     * Pending entries in insertion order, guarded by itself
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Counter used to create keys for packages that must not be coalesced
+     */
+    private long sequence = 0;
+
+    /**
+     * Executor used to write the outbox to disk
+     */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    /**
+     * true if a write is scheduled but not started yet
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+
+    /**
+     * true once the packages of a previous run have been loaded, the file is not written before
+     */
+    private volatile boolean loaded = false;
+
+    Outbox(@NonNull Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * Get time a NetworkPackage is kept in the outbox
+     *
+     * @param priority priority of the package
+     * @return time to live in milliseconds
+     */
+    static long getTimeToLive(NetworkPackage.Priority priority) {
+        switch (priority) {
+            case INTERACTIVE:
+                // the user probably does not expect a button press to take effect much later
+                return 2 * 60 * 1000;
+            case BULK:
+                return 10 * 60 * 1000;
+            case AUTOMATION:
+            default:
+                return 30 * 60 * 1000;
+        }
+    }
+
+    /**
+     * Add a NetworkPackage to the outbox, replacing a pending on/off command for the same Receiver
+     * or an identical package
+     *
+     * @param networkPackage NetworkPackage
+     */
+    void add(@NonNull NetworkPackage networkPackage) {
+        long expirationTime = System.currentTimeMillis() + getTimeToLive(networkPackage.getPriority());
+
+        synchronized (entries) {
+            add(new Entry(networkPackage, expirationTime));
+        }
+        scheduleWrite();
+    }
+
+    private void add(Entry entry) {
+        String key = getKey(entry.networkPackage);
+
+        // remove first, so the newest command for a receiver is replayed in its own position
+        Entry previousEntry = entries.remove(key);
+        if (previousEntry != null) {
+            Log.d(this, "replacing " + previousEntry.networkPackage + " with " + entry.networkPackage);
+            finish(previousEntry, true);
+        }
+        entries.put(key, entry);
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > MAX_SIZE && iterator.hasNext()) {
+            Entry oldestEntry = iterator.next();
+            iterator.remove();
+            Log.w("Outbox is full, dropping " + oldestEntry.networkPackage);
+            finish(oldestEntry, false);
+        }
+    }
+
+    /**
+     * Get key of a NetworkPackage in the outbox
+     * <p/>
+     * The address of a state command is chosen again when it is replayed, so state commands for the same Receiver
+     * share one key, no matter which address they were created for.
+     * Step commands are never coalesced, see {@link NetworkPackage#getCoalescingKey()}.
+     */
+    private String getKey(NetworkPackage networkPackage) {
+        if (networkPackage.isStateCommand()) {
+            return "state|" + networkPackage.getGatewayId() + "|" + networkPackage.getReceiverId();
+        }
+
+        String key = networkPackage.getCoalescingKey();
+        if (key == null) {
+            key = String.valueOf(sequence++);
+        }
+        return key;
+    }
+
+    /**
+     * Check if the packages of a previous run have been loaded
+     *
+     * @return true if loaded
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Check if there are pending packages in the outbox
+     *
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        synchronized (entries) {
+            return entries.isEmpty();
+        }
+    }
+
+    /**
+     * Remove all packages from the outbox that have not expired yet
+     *
+     * @return NetworkPackages in the order they were added
+     */
+    @NonNull
+    List<NetworkPackage> takeAll() {
+        long now = System.currentTimeMillis();
+        List<NetworkPackage> networkPackages = new ArrayList<>();
+
+        synchronized (entries) {
+            if (entries.isEmpty()) {
+                return networkPackages;
+            }
+
+            for (Entry entry : entries.values()) {
+                if (entry.expirationTime > now) {
+                    networkPackages.add(entry.networkPackage);
+                } else {
+                    Log.d(this, "expired: " + entry.networkPackage);
+                    finish(entry, false);
+                }
+            }
+            entries.clear();
+        }
+        scheduleWrite();
+
+        return networkPackages;
+    }
+
+    /**
+     * Remove all packages from the outbox
+     */
+    void clear() {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                finish(entry, false);
+            }
+            entries.clear();
+        }
+        scheduleWrite();
+    }
+
+    private void finish(Entry entry, boolean superseded) {
+        PackageOutcome outcome = entry.networkPackage.getOutcome();
+        if (outcome == null) {
+            return;
+        }
+        if (superseded) {
+            outcome.supersede();
+        } else {
+            outcome.discard();
+        }
+    }
+
+    /**
+     * Load packages that were stored by a previous run of the app
+     * <p/>
+     * The outbox file is small (at most {@link #MAX_SIZE} packages), so this is cheap, but it must not be called on
+     * the main thread. Packages added before loading was finished are kept behind the loaded ones.
+     * Does nothing if the outbox was loaded already.
+     */
+    @WorkerThread
+    void load() {
+        if (loaded) {
+            return;
+        }
+
+        try {
+            if (file.exists()) {
+                JSONArray jsonArray = new JSONArray(readFile());
+                long now = System.currentTimeMillis();
+
+                synchronized (entries) {
+                    List<Entry> addedEntries = new ArrayList<>(entries.values());
+                    entries.clear();
+
+                    for (int i = 0; i < jsonArray.length(); i++) {
+                        JSONObject jsonObject = jsonArray.getJSONObject(i);
+                        long expirationTime = jsonObject.getLong(KEY_EXPIRATION_TIME);
+                        if (expirationTime <= now) {
+                            continue;
+                        }
+
+                        NetworkPackage networkPackage = fromJson(jsonObject);
+                        networkPackage.newOutcome();
+                        add(new Entry(networkPackage, expirationTime));
+                    }
+                    Log.d(this, "loaded " + entries.size() + " packages");
+
+                    for (Entry entry : addedEntries) {
+                        add(entry);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.e("Error loading outbox, discarding it", e);
+            if (!file.delete()) {
+                Log.w("Could not delete outbox file");
+            }
+        } finally {
+            loaded = true;
+        }
+
+        // packages added while loading have not been written yet
+        scheduleWrite();
+    }
+
+    /**
+     * Stop writing the outbox to disk, pending writes are finished first
+     */
+    void shutdown() {
+        writer.shutdown();
+    }
+
+    private void scheduleWrite() {
+        if (!writeScheduled.compareAndSet(false, true)) {
+            // the scheduled write will pick up this change
+            return;
+        }
+
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeScheduled.set(false);
+                    write();
+                }
+            });
+        } catch (Exception e) {
+            writeScheduled.set(false);
+            Log.e("Could not schedule outbox write", e);
+        }
+    }
+
+    @WorkerThread
+    private void write() {
+        if (!loaded) {
+            // don't overwrite the packages of a previous run, load() writes the outbox afterwards
+            return;
+        }
+
+        JSONArray jsonArray = new JSONArray();
+        try {
+            synchronized (entries) {
+                for (Entry entry : entries.values()) {
+                    jsonArray.put(toJson(entry));
+                }
+            }
+        } catch (JSONException e) {
+            Log.e("Error serializing outbox", e);
+            return;
+        }
+
+        if (jsonArray.length() == 0) {
+            if (file.exists() && !file.delete()) {
+                Log.w("Could not delete outbox file");
+            }
+            return;
+        }
+
+        // write to a temporary file first, so a crash never leaves a corrupt outbox behind
+        File tempFile = new File(file.getPath() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tempFile);
+            outputStream.write(jsonArray.toString().getBytes("UTF-8"));
+            outputStream.close();
+            outputStream = null;
+
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Could not rename " + tempFile + " to " + file);
+            }
+        } catch (IOException e) {
+            Log.e("Error writing outbox", e);
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    Log.e(e);
+                }
+            }
+        }
+    }
+
+    private String readFile() throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return content.toString("UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static JSONObject toJson(Entry entry) throws JSONException {
+        NetworkPackage networkPackage = entry.networkPackage;
+
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(KEY_EXPIRATION_TIME, entry.expirationTime);
+        jsonObject.put(KEY_COMMUNICATION_TYPE, networkPackage.getCommunicationType().name());
+        jsonObject.put(KEY_HOST, networkPackage.getHost());
+        jsonObject.put(KEY_PORT, networkPackage.getPort());
+        jsonObject.put(KEY_MESSAGE, networkPackage.getMessage());
+        jsonObject.put(KEY_TIMEOUT, networkPackage.getTimeout());
+        if (networkPackage.getGatewayId() != null) {
+            jsonObject.put(KEY_GATEWAY_ID, networkPackage.getGatewayId());
+        }
+        if (networkPackage.getReceiverId() != null) {
+            jsonObject.put(KEY_RECEIVER_ID, networkPackage.getReceiverId());
+        }
+        if (networkPackage.getButtonId() != null) {
+            jsonObject.put(KEY_BUTTON_ID, networkPackage.getButtonId());
+        }
+        jsonObject.put(KEY_PRIORITY, networkPackage.getPriority().name());
+        jsonObject.put(KEY_BURST_SIZE, networkPackage.getBurstSize());
+        return jsonObject;
+    }
+
+    private static NetworkPackage fromJson(JSONObject jsonObject) throws JSONException {
+        Long gatewayId = null;
+        if (jsonObject.has(KEY_GATEWAY_ID)) {
+            gatewayId = jsonObject.getLong(KEY_GATEWAY_ID);
+        }
+        Long receiverId = null;
+        if (jsonObject.has(KEY_RECEIVER_ID)) {
+            receiverId = jsonObject.getLong(KEY_RECEIVER_ID);
+        }
+        Long buttonId = null;
+        if (jsonObject.has(KEY_BUTTON_ID)) {
+            buttonId = jsonObject.getLong(KEY_BUTTON_ID);
+        }
+
+        return new NetworkPackage(
+                NetworkPackage.CommunicationType.valueOf(jsonObject.getString(KEY_COMMUNICATION_TYPE)),
+                jsonObject.getString(KEY_HOST),
+                jsonObject.getInt(KEY_PORT),
+                jsonObject.getString(KEY_MESSAGE),
+                jsonObject.getInt(KEY_TIMEOUT),
+                gatewayId,
+                receiverId,
+                buttonId,
+                NetworkPackage.Priority.valueOf(jsonObject.getString(KEY_PRIORITY)),
+                jsonObject.optInt(KEY_BURST_SIZE, 1));
+    }
+
+    /**
+     * A NetworkPackage waiting in the outbox
+     */
+    private static class Entry {
+        private final NetworkPackage networkPackage;
+        private final long expirationTime;
+
+        private Entry(NetworkPackage networkPackage, long expirationTime) {
+            this.networkPackage = networkPackage;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
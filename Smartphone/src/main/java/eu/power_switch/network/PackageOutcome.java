@@ -0,0 +1,222 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Outcome of sending a single NetworkPackage
+ * <p/>
+ * An outcome is created when the NetworkPackage is queued and completed exactly once,
+ * when the package is on the wire, has failed or was dropped from the queue.
+ */
+public class PackageOutcome {
+
+    private final NetworkPackage networkPackage;
+
+    /**
+     * Results that are waiting for this outcome
+     */
+    private final List<SendResult> results = new CopyOnWriteArrayList<>();
+
+    private volatile State state = State.PENDING;
+    private final long queuedTime;
+    private volatile long completionTime;
+    private volatile Exception error;
+    private volatile String response;
+
+    PackageOutcome(@NonNull NetworkPackage networkPackage) {
+        this.networkPackage = networkPackage;
+        this.queuedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Get NetworkPackage this outcome belongs to
+     *
+     * @return NetworkPackage
+     */
+    @NonNull
+    public NetworkPackage getNetworkPackage() {
+        return networkPackage;
+    }
+
+    /**
+     * Get current state
+     *
+     * @return state {@see State}
+     */
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Check if this outcome is completed
+     *
+     * @return true if the NetworkPackage is not waiting to be sent anymore
+     */
+    public boolean isDone() {
+        return state != State.PENDING;
+    }
+
+    /**
+     * Check if this outcome is completed without error
+     *
+     * @return true if the NetworkPackage (or a newer one replacing it) was sent
+     */
+    public boolean isSuccessful() {
+        return state == State.SENT || state == State.SUPERSEDED;
+    }
+
+    /**
+     * Get time the NetworkPackage was queued
+     *
+     * @return time in milliseconds
+     */
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    /**
+     * Get time this outcome was completed
+     *
+     * @return time in milliseconds, 0 if still pending
+     */
+    public long getCompletionTime() {
+        return completionTime;
+    }
+
+    /**
+     * Get error that occurred while sending
+     *
+     * @return error, null if there was none
+     */
+    @Nullable
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * Get response received from the Gateway
+     *
+     * @return response, null if there was none
+     */
+    @Nullable
+    public String getResponse() {
+        return response;
+    }
+
+    /**
+     * Register a result that is notified when this outcome is completed
+     *
+     * @param result result
+     * @return false if this outcome is already completed and the result was not registered
+     */
+    synchronized boolean addResult(SendResult result) {
+        if (isDone()) {
+            return false;
+        }
+        results.add(result);
+        return true;
+    }
+
+    /**
+     * Mark the NetworkPackage as sent
+     *
+     * @param response response received from the Gateway, may be null
+     */
+    void complete(@Nullable String response) {
+        this.response = response;
+        finish(State.SENT, null);
+    }
+
+    /**
+     * Mark the NetworkPackage as failed
+     *
+     * @param error error that occurred while sending
+     */
+    void fail(@NonNull Exception error) {
+        finish(State.FAILED, error);
+    }
+
+    /**
+     * Mark the NetworkPackage as replaced by a newer package for the same Receiver
+     */
+    void supersede() {
+        finish(State.SUPERSEDED, null);
+    }
+
+    /**
+     * Mark the NetworkPackage as discarded without being sent
+     */
+    void discard() {
+        finish(State.DISCARDED, null);
+    }
+
+    private void finish(State state, Exception error) {
+        synchronized (this) {
+            if (isDone()) {
+                return;
+            }
+            this.error = error;
+            this.completionTime = System.currentTimeMillis();
+            this.state = state;
+        }
+
+        for (SendResult result : results) {
+            result.onOutcomeCompleted();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return state + " (queued: " + queuedTime + ", completed: " + completionTime + "): " + networkPackage +
+                (error != null ? " error: " + error.getMessage() : "");
+    }
+
+    /**
+     * States of a PackageOutcome
+     */
+    public enum State {
+        /**
+         * Waiting in the queue
+         */
+        PENDING,
+        /**
+         * Sent to the Gateway
+         */
+        SENT,
+        /**
+         * Error while sending
+         */
+        FAILED,
+        /**
+         * Replaced by a newer package for the same Receiver, or dropped as a duplicate of a pending one
+         */
+        SUPERSEDED,
+        /**
+         * Removed from the queue without being sent (f.ex. missing network connection)
+         */
+        DISCARDED
+    }
+}
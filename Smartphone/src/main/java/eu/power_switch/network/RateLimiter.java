@@ -0,0 +1,135 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+/**
+ * Token bucket rate limiter for a single Gateway
+ * <p/>
+ * The bucket holds up to {@code burstSize} tokens and gains one token every {@code refillInterval} milliseconds.
+ * Sending a NetworkPackage takes one token. A refill interval of 0 means the Gateway is not limited at all.
+ * <p/>
+ * After a send error the Gateway is backed off exponentially, starting at {@link #INITIAL_BACKOFF}
+ * (or the refill interval, if longer) up to {@link #MAX_BACKOFF}. The backoff is reset by the next successful send.
+ * <p/>
+ * All times must be taken from a monotonic clock like {@link android.os.SystemClock#elapsedRealtime()},
+ * so changing the wall clock neither stalls nor floods a Gateway.
+ */
+class RateLimiter {
+
+    /**
+     * Time to wait after the first send error in milliseconds
+     */
+    static final long INITIAL_BACKOFF = 500;
+    /**
+     * Max time to wait after consecutive send errors in milliseconds
+     */
+    static final long MAX_BACKOFF = 30000;
+
+    private int burstSize = 1;
+    private long refillInterval = 0;
+
+    /**
+     * Tokens currently available
+     */
+    private double tokens = 1;
+    /**
+     * Time tokens were last refilled
+     */
+    private long lastRefillTime = 0;
+
+    /**
+     * Current backoff, 0 if the last send was successful
+     */
+    private long backoff = 0;
+    /**
+     * Time until which nothing is sent because of a previous error
+     */
+    private long backoffUntil = 0;
+
+    /**
+     * Set limits of this rate limiter, tokens that are already available are kept (up to the new burst size)
+     *
+     * @param burstSize      max number of packages that can be sent in a row without waiting
+     * @param refillInterval time to regain one token in milliseconds
+     */
+    synchronized void configure(int burstSize, long refillInterval) {
+        this.burstSize = Math.max(1, burstSize);
+        this.refillInterval = Math.max(0, refillInterval);
+        tokens = Math.min(tokens, this.burstSize);
+    }
+
+    /**
+     * Get time to wait until the next package may be sent
+     *
+     * @param now elapsed realtime in milliseconds
+     * @return delay in milliseconds, 0 if a package may be sent right away
+     */
+    synchronized long getDelay(long now) {
+        refill(now);
+
+        long delay = 0;
+        if (tokens < 1) {
+            delay = (long) Math.ceil((1 - tokens) * refillInterval);
+        }
+        return Math.max(delay, backoffUntil - now);
+    }
+
+    /**
+     * Take a token for sending a package
+     *
+     * @param now elapsed realtime in milliseconds
+     */
+    synchronized void acquire(long now) {
+        refill(now);
+        tokens = Math.max(0, tokens - 1);
+    }
+
+    /**
+     * Report a successful send, resets the backoff
+     */
+    synchronized void onSuccess() {
+        backoff = 0;
+        backoffUntil = 0;
+    }
+
+    /**
+     * Report a send error, increases the backoff
+     *
+     * @param now elapsed realtime in milliseconds
+     * @return time to wait before the next package may be sent in milliseconds
+     */
+    synchronized long onError(long now) {
+        if (backoff == 0) {
+            backoff = Math.max(INITIAL_BACKOFF, refillInterval);
+        } else {
+            backoff = Math.min(MAX_BACKOFF, backoff * 2);
+        }
+        backoffUntil = now + backoff;
+        return backoff;
+    }
+
+    private void refill(long now) {
+        if (refillInterval == 0) {
+            tokens = burstSize;
+        } else if (now > lastRefillTime) {
+            tokens = Math.min(burstSize, tokens + (double) (now - lastRefillTime) / refillInterval);
+        }
+        lastRefillTime = now;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Caches the decision whether a Gateway is reached via its local or its WAN address
+ * <p/>
+ * The cache is cleared whenever the network connection changes.
+ */
+public class RouteCache implements ConnectivityMonitor.OnNetworkChangeListener {
+
+    private final ConnectivityMonitor connectivityMonitor;
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    RouteCache(@NonNull ConnectivityMonitor connectivityMonitor) {
+        this.connectivityMonitor = connectivityMonitor;
+    }
+
+    @Override
+    public void onNetworkChanged() {
+        invalidate();
+    }
+
+    /**
+     * Remove all cached routes
+     */
+    void invalidate() {
+        routes.clear();
+    }
+
+    /**
+     * Get the route that should be used to reach a Gateway
+     *
+     * @param routingContext routing context of the apartment the gateway is associated with
+     * @param gateway        gateway
+     * @return route to use
+     * @throws Exception if the gateway has neither a valid local nor a valid WAN address
+     */
+    @NonNull
+    @WorkerThread
+    Route getRoute(@NonNull RoutingContext routingContext, @NonNull Gateway gateway) throws Exception {
+        boolean insideGeofence = routingContext.isInsideGeofence();
+
+        String key = getKey(gateway, insideGeofence);
+        Route route = routes.get(key);
+        if (route == null) {
+            route = findRoute(gateway, insideGeofence);
+            routes.put(key, route);
+        }
+        return route;
+    }
+
+    /**
+     * Get cache key for a Gateway, includes all Gateway properties the route depends on
+     */
+    private String getKey(Gateway gateway, boolean insideGeofence) {
+        return gateway.getId() + "|" + gateway.getLocalHost() + ":" + gateway.getLocalPort() + "|" +
+                gateway.getWanHost() + ":" + gateway.getWanPort() + "|" + gateway.getSsids().hashCode() + "|" +
+                insideGeofence;
+    }
+
+    private Route findRoute(Gateway gateway, boolean insideGeofence) throws Exception {
+        if (gateway.hasValidLocalAddress() && !gateway.hasValidWanAddress()) {
+            // only valid local address
+            Log.d("Using local address");
+            return Route.LOCAL;
+        } else if (!gateway.hasValidLocalAddress() && gateway.hasValidWanAddress()) {
+            // only valid WAN address
+            Log.d("Using WAN address");
+            return Route.WAN;
+        } else if (gateway.hasValidLocalAddress() && gateway.hasValidWanAddress()) {
+            // decide if local or WAN address should be used
+            if (connectivityMonitor.isWifiConnected() || connectivityMonitor.isEthernetConnected()) {
+                if (connectivityMonitor.isInternetConnected()) {
+                    if (!gateway.getSsids().isEmpty()) {
+                        if (gateway.getSsids().contains(connectivityMonitor.getConnectedWifiSsid())) {
+                            Log.d("Using local address, connected to SSID specified in Gateway");
+                            return Route.LOCAL;
+                        } else {
+                            Log.d("Using WAN address, connected to unspecified SSID");
+                            return Route.WAN;
+                        }
+                    } else {
+                        if (insideGeofence) {
+                            Log.d("Using local address, inside geofence");
+                            return Route.LOCAL;
+                        } else {
+                            Log.d("Using WAN address, outside or missing geofence data");
+                            return Route.WAN;
+                        }
+                    }
+                } else {
+                    Log.d("Using local address, no WAN (Internet connection) available");
+                    return Route.LOCAL;
+                }
+            } else {
+                Log.d("Using WAN address, no WiFi or LAN available");
+                return Route.WAN;
+            }
+        } else {
+            throw new Exception("Invalid Gateway configuration!");
+        }
+    }
+
+    /**
+     * Address of a Gateway that is used to send NetworkPackages
+     */
+    public enum Route {
+        LOCAL,
+        WAN
+    }
+}
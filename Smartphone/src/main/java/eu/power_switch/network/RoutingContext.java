@@ -0,0 +1,63 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+import eu.power_switch.obj.gateway.Gateway;
+
+/**
+ * Everything needed to route a signal in an Apartment
+ * <p/>
+ * This is a narrow projection of an Apartment, it contains the associated Gateways (with their SSIDs) and the
+ * state of the Apartment's Geofence only. Rooms, Scenes and the Geofence itself are not loaded.
+ */
+public class RoutingContext {
+
+    private final List<Gateway> associatedGateways;
+    private final boolean insideGeofence;
+
+    /**
+     * Constructor
+     *
+     * @param associatedGateways Gateways associated with the Apartment
+     * @param insideGeofence     true if the Apartment has an active Geofence and the device is inside of it
+     */
+    public RoutingContext(@NonNull List<Gateway> associatedGateways, boolean insideGeofence) {
+        this.associatedGateways = associatedGateways;
+        this.insideGeofence = insideGeofence;
+    }
+
+    /**
+     * @return Gateways associated with the Apartment
+     */
+    @NonNull
+    public List<Gateway> getAssociatedGateways() {
+        return associatedGateways;
+    }
+
+    /**
+     * @return true if the Apartment has an active Geofence and the device is inside of it
+     */
+    public boolean isInsideGeofence() {
+        return insideGeofence;
+    }
+}
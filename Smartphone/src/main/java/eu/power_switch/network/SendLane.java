@@ -0,0 +1,381 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * A SendLane holds all NetworkPackages that are bound for the same Gateway (host and port).
+ * <p/>
+ * Packages in one lane are sent strictly in order, paced by a {@link RateLimiter} that is configured with the limits
+ * of the Gateway.
+ * Different lanes are independent of each other and are worked off concurrently.
+ * <p/>
+ * A lane never blocks a thread while waiting for its Gateway. Instead each package is dispatched
+ * by a delayed task on the scheduler of the {@link NetworkPackageQueueHandler}.
+ * <p/>
+ * Pending packages are coalesced: a newer on/off command replaces an older one for the same Receiver that has not
+ * been sent yet and exact duplicates are dropped. Step commands (dimmer, roller shutter etc.) are never dropped.
+ * <p/>
+ * Packages are served by their {@link NetworkPackage.Priority}. To avoid starvation every waiting priority class
+ * is served once it was passed over {@link #MAX_PRIORITY_STREAK} times in a row.
+ * <p/>
+ * Every lane owns a send buffer that the message of each package is copied into,
+ * so sending does not create any garbage. Packages for HTTP Gateways are sent in pipelined batches instead.
+ */
+class SendLane implements Runnable {
+
+    /**
+     * Max number of packages that are sent in a row while packages of a lower priority class are waiting
+     */
+    static final int MAX_PRIORITY_STREAK = 4;
+
+    /**
+     * Initial size of the send buffer, large enough for all known Gateway signals
+     */
+    private static final int INITIAL_SEND_BUFFER_SIZE = 2048;
+
+    /**
+     * Key of this lane
+     */
+    private final String key;
+
+    /**
+     * Queue handler this lane reports to
+     */
+    private final NetworkPackageQueueHandler queueHandler;
+
+    /**
+     * NetworkPackages waiting to be sent through this lane, one queue per priority, guarded by itself
+     */
+    private final Map<NetworkPackage.Priority, LinkedList<NetworkPackage>> queues =
+            new EnumMap<>(NetworkPackage.Priority.class);
+
+    /**
+     * Number of packages sent in a row while packages of a priority class were waiting, indexed by ordinal
+     */
+    private final int[] skipCounts = new int[NetworkPackage.Priority.values().length];
+
+    /**
+     * true if a dispatch of this lane is currently scheduled or running
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Rate limiter pacing the packages of this lane
+     */
+    private final RateLimiter rateLimiter = new RateLimiter();
+
+    /**
+     * Buffer the message of a package is written to before sending,
+     * only used by {@link #run()} which is never executed concurrently for the same lane
+     */
+    private ByteBuffer sendBuffer = ByteBuffer.allocateDirect(INITIAL_SEND_BUFFER_SIZE);
+
+    SendLane(@NonNull String key, @NonNull NetworkPackageQueueHandler queueHandler) {
+        this.key = key;
+        this.queueHandler = queueHandler;
+
+        for (NetworkPackage.Priority priority : NetworkPackage.Priority.values()) {
+            queues.put(priority, new LinkedList<NetworkPackage>());
+        }
+    }
+
+    /**
+     * Get the lane key for a NetworkPackage
+     *
+     * @param networkPackage NetworkPackage
+     * @return key identifying the Gateway (host and port) this package is sent to
+     */
+    @NonNull
+    static String getKey(@NonNull NetworkPackage networkPackage) {
+        return networkPackage.getHost() + ":" + networkPackage.getPort();
+    }
+
+    /**
+     * Get key of this lane
+     *
+     * @return key
+     */
+    @NonNull
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the send buffer of this lane, cleared and with at least the given capacity
+     * <p/>
+     * Must only be called while sending a package of this lane.
+     *
+     * @param capacity minimum capacity in bytes
+     * @return send buffer
+     */
+    @NonNull
+    ByteBuffer getSendBuffer(int capacity) {
+        if (sendBuffer.capacity() < capacity) {
+            sendBuffer = ByteBuffer.allocateDirect(Math.max(capacity, sendBuffer.capacity() * 2));
+        }
+        sendBuffer.clear();
+        return sendBuffer;
+    }
+
+    /**
+     * Add a NetworkPackage to the end of this lane and make sure the lane is being worked off
+     *
+     * @param networkPackage NetworkPackage
+     */
+    void enqueue(@NonNull NetworkPackage networkPackage) {
+        rateLimiter.configure(networkPackage.getBurstSize(), networkPackage.getTimeout());
+        networkPackage.setQueueTime(System.currentTimeMillis());
+
+        synchronized (queues) {
+            coalesce(networkPackage);
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            queueHandler.onLaneStarted(this);
+            queueHandler.schedule(this, getDelay());
+        }
+    }
+
+    /**
+     * Remove all pending NetworkPackages from this lane
+     */
+    void clear() {
+        synchronized (queues) {
+            for (LinkedList<NetworkPackage> queue : queues.values()) {
+                for (NetworkPackage networkPackage : queue) {
+                    networkPackage.getOutcome().discard();
+                }
+                queue.clear();
+            }
+            Arrays.fill(skipCounts, 0);
+        }
+    }
+
+    /**
+     * Remove all pending NetworkPackages from this lane after it could not be scheduled
+     * <p/>
+     * The lane is marked as idle again, so it is scheduled again on the next {@link #enqueue(NetworkPackage)}.
+     */
+    void abort() {
+        clear();
+        scheduled.set(false);
+    }
+
+    /**
+     * Add a NetworkPackage to the queue, replacing a pending package with the same coalescing key
+     * <p/>
+     * The newer package is always added to the end of the queue of its own priority, so it is still sent after
+     * all other pending commands for the same Receiver.
+     * Must be called while holding the queue lock.
+     *
+     * @param networkPackage NetworkPackage
+     * @see NetworkPackage#getCoalescingKey()
+     */
+    private void coalesce(NetworkPackage networkPackage) {
+        String coalescingKey = networkPackage.getCoalescingKey();
+        if (coalescingKey != null) {
+            for (LinkedList<NetworkPackage> queue : queues.values()) {
+                Iterator<NetworkPackage> iterator = queue.iterator();
+                while (iterator.hasNext()) {
+                    NetworkPackage pendingPackage = iterator.next();
+                    if (coalescingKey.equals(pendingPackage.getCoalescingKey())) {
+                        Log.d("Lane " + key + ": replacing " + pendingPackage + " with " + networkPackage);
+                        iterator.remove();
+                        pendingPackage.getOutcome().supersede();
+                    }
+                }
+            }
+        }
+
+        queues.get(networkPackage.getPriority()).add(networkPackage);
+    }
+
+    /**
+     * Get the next NetworkPackage that should be sent
+     * <p/>
+     * This is the package of the highest priority class, unless a lower priority class has been passed over
+     * {@link #MAX_PRIORITY_STREAK} times. In that case the lowest of those classes is served first,
+     * so every waiting class is served eventually, even while all classes above it are busy.
+     *
+     * @return next NetworkPackage, null if lane is empty
+     */
+    private NetworkPackage poll() {
+        synchronized (queues) {
+            NetworkPackage.Priority highest = null;
+            NetworkPackage.Priority starved = null;
+            for (Map.Entry<NetworkPackage.Priority, LinkedList<NetworkPackage>> entry : queues.entrySet()) {
+                NetworkPackage.Priority priority = entry.getKey();
+                if (entry.getValue().isEmpty()) {
+                    skipCounts[priority.ordinal()] = 0;
+                } else if (highest == null) {
+                    highest = priority;
+                } else if (skipCounts[priority.ordinal()] >= MAX_PRIORITY_STREAK) {
+                    starved = priority;
+                }
+            }
+
+            if (highest == null) {
+                return null;
+            }
+
+            NetworkPackage.Priority served = starved != null ? starved : highest;
+            for (Map.Entry<NetworkPackage.Priority, LinkedList<NetworkPackage>> entry : queues.entrySet()) {
+                NetworkPackage.Priority priority = entry.getKey();
+                if (priority == served || priority == highest) {
+                    skipCounts[priority.ordinal()] = 0;
+                } else if (!entry.getValue().isEmpty()) {
+                    skipCounts[priority.ordinal()]++;
+                }
+            }
+            return queues.get(served).poll();
+        }
+    }
+
+    private boolean isEmpty() {
+        synchronized (queues) {
+            for (LinkedList<NetworkPackage> queue : queues.values()) {
+                if (!queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sends the next NetworkPackage of this lane and schedules the one after that
+     */
+    @Override
+    public void run() {
+        long delay = getDelay();
+        if (delay > 0) {
+            // not allowed to send yet
+            queueHandler.schedule(this, delay);
+            return;
+        }
+
+        NetworkPackage networkPackage = poll();
+        if (networkPackage != null) {
+            long startTime = SystemClock.elapsedRealtime();
+            rateLimiter.acquire(startTime);
+            if (networkPackage.getCommunicationType() == NetworkPackage.CommunicationType.HTTP) {
+                sendPipelined(networkPackage, startTime);
+            } else {
+                try {
+                    onSent(networkPackage, queueHandler.send(this, networkPackage), startTime);
+                    rateLimiter.onSuccess();
+                } catch (Exception e) {
+                    backOff();
+                    queueHandler.onSendError(networkPackage, e);
+                }
+            }
+        }
+
+        if (!isEmpty()) {
+            queueHandler.schedule(this, getDelay());
+            return;
+        }
+
+        scheduled.set(false);
+        // a package may have been added after the check above
+        if (!isEmpty() && scheduled.compareAndSet(false, true)) {
+            queueHandler.schedule(this, getDelay());
+        } else {
+            queueHandler.onLaneFinished(this);
+        }
+    }
+
+    /**
+     * Send a NetworkPackage together with as many following packages as the rate limit allows right away,
+     * pipelined on a single HTTP connection
+     * <p/>
+     * All packages of a lane go to the same Gateway endpoint, so they all use the same communication type.
+     *
+     * @param networkPackage first NetworkPackage of the batch, its token was acquired already
+     * @param startTime      time sending started
+     */
+    private void sendPipelined(NetworkPackage networkPackage, long startTime) {
+        List<NetworkPackage> batch = new ArrayList<>();
+        batch.add(networkPackage);
+        while (batch.size() < HttpConnectionPool.MAX_PIPELINE_DEPTH && rateLimiter.getDelay(startTime) <= 0) {
+            NetworkPackage nextPackage = poll();
+            if (nextPackage == null) {
+                break;
+            }
+            rateLimiter.acquire(startTime);
+            batch.add(nextPackage);
+        }
+
+        List<HttpConnectionPool.Response> responses = queueHandler.send(this, batch);
+        boolean failed = false;
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                onSent(batch.get(i), responses.get(i).getBody(), startTime);
+            } catch (IOException e) {
+                failed = true;
+                queueHandler.onSendError(batch.get(i), e);
+            }
+        }
+
+        if (failed) {
+            backOff();
+        } else {
+            rateLimiter.onSuccess();
+        }
+    }
+
+    private void onSent(NetworkPackage networkPackage, String response, long startTime) {
+        networkPackage.getOutcome().complete(response);
+        queueHandler.onSendSuccess(networkPackage, response, SystemClock.elapsedRealtime() - startTime);
+
+        if (response != null && networkPackage.getResponseCallback() != null) {
+            networkPackage.getResponseCallback().receiveResponse(response);
+        }
+    }
+
+    private void backOff() {
+        long backoff = rateLimiter.onError(SystemClock.elapsedRealtime());
+        Log.d("Lane " + key + ": backing off for " + backoff + "ms");
+    }
+
+    /**
+     * Get time to wait before the next NetworkPackage of this lane may be sent
+     *
+     * @return delay in milliseconds
+     */
+    private long getDelay() {
+        return Math.max(0, rateLimiter.getDelay(SystemClock.elapsedRealtime()));
+    }
+}
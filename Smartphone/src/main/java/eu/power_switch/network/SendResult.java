@@ -0,0 +1,176 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Handle for a number of NetworkPackages passed to {@link NetworkHandler#send(List)}
+ * <p/>
+ * The result is completed when every package is on the wire, has failed or was dropped from the queue.
+ * Callers can either wait for completion or register an {@link OnCompleteListener}.
+ */
+public class SendResult {
+
+    private final List<PackageOutcome> outcomes;
+
+    private final CountDownLatch latch;
+
+    private final List<OnCompleteListener> listeners = new CopyOnWriteArrayList<>();
+
+    SendResult(@NonNull List<PackageOutcome> outcomes) {
+        this.outcomes = Collections.unmodifiableList(new ArrayList<>(outcomes));
+        this.latch = new CountDownLatch(outcomes.size());
+
+        for (PackageOutcome outcome : outcomes) {
+            if (!outcome.addResult(this)) {
+                // already completed
+                onOutcomeCompleted();
+            }
+        }
+    }
+
+    /**
+     * Create a result that is completed when all of the given results are completed
+     *
+     * @param results results to combine
+     * @return combined result
+     */
+    @NonNull
+    public static SendResult combine(@NonNull List<SendResult> results) {
+        List<PackageOutcome> outcomes = new ArrayList<>();
+        for (SendResult result : results) {
+            if (result != null) {
+                outcomes.addAll(result.getOutcomes());
+            }
+        }
+        return new SendResult(outcomes);
+    }
+
+    /**
+     * Get outcomes of all NetworkPackages of this result
+     *
+     * @return list of outcomes, in the order the packages were passed
+     */
+    @NonNull
+    public List<PackageOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * Check if all NetworkPackages have been handled
+     *
+     * @return true if completed
+     */
+    public boolean isDone() {
+        return latch.getCount() == 0;
+    }
+
+    /**
+     * Check if all NetworkPackages have been sent successfully
+     *
+     * @return true if completed and no package failed or was discarded
+     */
+    public boolean isSuccessful() {
+        if (!isDone()) {
+            return false;
+        }
+        for (PackageOutcome outcome : outcomes) {
+            if (!outcome.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until all NetworkPackages have been handled
+     *
+     * @param timeout max time to wait
+     * @param unit    unit of timeout
+     * @return true if completed, false if the timeout elapsed before
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @WorkerThread
+    public boolean await(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        return latch.await(timeout, unit);
+    }
+
+    /**
+     * Add a listener that is called once this result is completed
+     * <p/>
+     * If the result is already completed, the listener is called immediately.
+     * Listeners are called on the thread that completed the last NetworkPackage.
+     *
+     * @param listener listener
+     */
+    public void addOnCompleteListener(@NonNull OnCompleteListener listener) {
+        listeners.add(listener);
+        if (isDone() && listeners.remove(listener)) {
+            listener.onComplete(this);
+        }
+    }
+
+    void onOutcomeCompleted() {
+        latch.countDown();
+
+        if (isDone()) {
+            for (OnCompleteListener listener : listeners) {
+                if (listeners.remove(listener)) {
+                    try {
+                        listener.onComplete(this);
+                    } catch (Exception e) {
+                        Log.e("Error in OnCompleteListener", e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("SendResult (done: " + isDone() + ")");
+        for (PackageOutcome outcome : outcomes) {
+            stringBuilder.append("\n").append(outcome.toString());
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Interface for receiving the completion of a SendResult
+     */
+    public interface OnCompleteListener {
+        /**
+         * Called once all NetworkPackages of a SendResult have been handled
+         *
+         * @param result completed result
+         */
+        void onComplete(SendResult result);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.network;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Pool of long-lived, connected UDP channels, one for each Gateway endpoint (host and port)
+ * <p/>
+ * Channels are opened on first use and kept open, so sending a NetworkPackage only costs a single write.
+ * All channels are closed (and resolved addresses are dropped) whenever the network connection changes.
+ * <p/>
+ * Writing to a stale address does not fail for UDP, so a channel is only used as long as its resolved address
+ * is valid in the {@link AddressCache}. After that the host is resolved again and the channel is reconnected
+ * if the address has changed (f.ex. the WAN address behind a DynDNS name).
+ */
+class UdpChannelPool implements ConnectivityMonitor.OnNetworkChangeListener {
+
+    private final AddressCache addressCache;
+
+    private final Map<String, PooledChannel> channels = new HashMap<>();
+
+    UdpChannelPool(@NonNull AddressCache addressCache) {
+        this.addressCache = addressCache;
+    }
+
+    @Override
+    public void onNetworkChanged() {
+        addressCache.invalidate();
+        closeAll();
+    }
+
+    /**
+     * Send data to a Gateway endpoint
+     *
+     * @param key  key of the endpoint, as returned by {@link SendLane#getKey(NetworkPackage)}
+     * @param host host name or address
+     * @param port port
+     * @param data data to send
+     * @throws IOException if the host could not be resolved or sending failed
+     */
+    @WorkerThread
+    void send(@NonNull String key, @NonNull String host, int port, @NonNull ByteBuffer data) throws IOException {
+        DatagramChannel channel = getChannel(key, host, port);
+        try {
+            channel.write(data);
+        } catch (IOException e) {
+            // channel or address may be stale, start from scratch on next send
+            close(key);
+            addressCache.invalidate(host);
+            throw e;
+        }
+    }
+
+    /**
+     * Close all channels
+     */
+    void closeAll() {
+        List<PooledChannel> closingChannels;
+        synchronized (channels) {
+            closingChannels = new ArrayList<>(channels.values());
+            channels.clear();
+        }
+
+        for (PooledChannel pooledChannel : closingChannels) {
+            closeQuietly(pooledChannel.channel);
+        }
+    }
+
+    private DatagramChannel getChannel(String key, String host, int port) throws IOException {
+        long now = SystemClock.elapsedRealtime();
+
+        PooledChannel pooledChannel;
+        synchronized (channels) {
+            pooledChannel = channels.get(key);
+        }
+        if (pooledChannel != null && pooledChannel.channel.isOpen() && pooledChannel.expirationTime > now) {
+            return pooledChannel.channel;
+        }
+
+        InetAddress address = addressCache.resolve(host);
+        long expirationTime = addressCache.getExpirationTime(host);
+        if (pooledChannel != null && pooledChannel.channel.isOpen() && pooledChannel.address.equals(address)) {
+            // address is still the same, keep the connected channel
+            pooledChannel.expirationTime = expirationTime;
+            return pooledChannel.channel;
+        }
+
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.socket().setReuseAddress(true);
+            channel.connect(new InetSocketAddress(address, port));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        Log.d(this, "opened channel to " + address.getHostAddress() + ":" + port);
+
+        PooledChannel previousChannel;
+        synchronized (channels) {
+            previousChannel = channels.put(key, new PooledChannel(channel, address, expirationTime));
+        }
+        if (previousChannel != null) {
+            closeQuietly(previousChannel.channel);
+        }
+        return channel;
+    }
+
+    private void close(String key) {
+        PooledChannel pooledChannel;
+        synchronized (channels) {
+            pooledChannel = channels.remove(key);
+        }
+        if (pooledChannel != null) {
+            closeQuietly(pooledChannel.channel);
+        }
+    }
+
+    private static void closeQuietly(DatagramChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.e("Error closing UDP channel", e);
+        }
+    }
+
+    /**
+     * A connected channel and the address it is connected to
+     */
+    private static class PooledChannel {
+        private final DatagramChannel channel;
+        private final InetAddress address;
+        /**
+         * Time the address has to be resolved again
+         */
+        private volatile long expirationTime;
+
+        private PooledChannel(DatagramChannel channel, InetAddress address, long expirationTime) {
+            this.channel = channel;
+            this.address = address;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -86,6 +86,30 @@ public class Button {
         }
     }
 
+    /**
+     * Get the ID of a static Button by its name, ignoring case
+     * <p/>
+     * This resolves localized names (e.g. from Tasker or Intents) once, so Buttons can be matched by ID afterwards.
+     *
+     * @param name Name of Button
+     * @return ID of Button, null if there is no static Button with this name
+     */
+    public static Long getStaticButtonId(Context context, String name) {
+        if (context.getString(R.string.on).equalsIgnoreCase(name)) {
+            return DatabaseConstants.BUTTON_ON_ID;
+        } else if (context.getString(R.string.off).equalsIgnoreCase(name)) {
+            return DatabaseConstants.BUTTON_OFF_ID;
+        } else if (context.getString(R.string.up).equalsIgnoreCase(name)) {
+            return DatabaseConstants.BUTTON_UP_ID;
+        } else if (context.getString(R.string.stop).equalsIgnoreCase(name)) {
+            return DatabaseConstants.BUTTON_STOP_ID;
+        } else if (context.getString(R.string.down).equalsIgnoreCase(name)) {
+            return DatabaseConstants.BUTTON_DOWN_ID;
+        } else {
+            return null;
+        }
+    }
+
     /**
      * Get ID of this Button
      *
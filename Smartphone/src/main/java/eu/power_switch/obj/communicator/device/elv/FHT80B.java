@@ -46,7 +46,9 @@ public class FHT80B extends Communicator implements HeatingControl {
     public Object requestValue(Gateway gateway, Object key) {
         String signal = getSignal(gateway, key);
         NetworkPackage networkPackage = new NetworkPackage(gateway.getCommunicationType(), gateway.getLocalHost(), gateway
-                .getLocalPort(), signal, gateway.getTimeout());
+                .getLocalPort(), signal, gateway.getTimeout(), gateway.getId(), null, null, NetworkPackage.Priority.AUTOMATION,
+                gateway.getBurstSize());
+        networkPackage.setResponseCallback(this);
         NetworkHandler.send(networkPackage);
 
         return null;
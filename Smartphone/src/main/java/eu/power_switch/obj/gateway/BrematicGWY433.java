@@ -44,6 +44,11 @@ public class BrematicGWY433 extends Gateway {
         return 0;
     }
 
+    @Override
+    public int getBurstSize() {
+        return 1;
+    }
+
     @Override
     protected Integer getDefaultLocalPort() {
         return 49880;
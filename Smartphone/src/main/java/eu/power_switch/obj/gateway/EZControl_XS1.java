@@ -73,6 +73,11 @@ public class EZControl_XS1 extends Gateway {
         return 0;
     }
 
+    @Override
+    public int getBurstSize() {
+        return 1;
+    }
+
     @Override
     public NetworkPackage.CommunicationType getCommunicationType() {
         return NetworkPackage.CommunicationType.HTTP;
@@ -98,11 +98,25 @@ public abstract class Gateway {
 
     /**
      * Returns the time to wait between sending NetworkPackages to not overwhelm the Gateway
+     * <p/>
+     * This is the time it takes the Gateway to be ready for another NetworkPackage
+     * (the refill interval of its rate limit), 0 if the Gateway is not limited.
      *
      * @return time in milliseconds
      */
     public abstract int getTimeout();
 
+    /**
+     * Returns the number of NetworkPackages that can be sent to this Gateway in a row without waiting
+     * for the timeout in between
+     * <p/>
+     * Together with {@link #getTimeout()} this is the rate limit of the Gateway firmware.
+     * It has no effect for Gateways without a timeout.
+     *
+     * @return burst size, at least 1
+     */
+    public abstract int getBurstSize();
+
     /**
      * Get ID of this Gateway
      *
@@ -42,6 +42,11 @@ public class ITGW433 extends Gateway {
         return 1000;
     }
 
+    @Override
+    public int getBurstSize() {
+        return 2;
+    }
+
     @Override
     protected Integer getDefaultLocalPort() {
         return 49880;
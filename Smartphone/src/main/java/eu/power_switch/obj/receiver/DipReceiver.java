@@ -26,6 +26,13 @@ import java.util.List;
  */
 public interface DipReceiver {
 
+    /**
+     * Get the states of all Dips as a bitmask
+     *
+     * @return bitmask, bit n is set if dip n is checked
+     */
+    int getDipMask();
+
     /**
      * Get a list of all Dips
      *
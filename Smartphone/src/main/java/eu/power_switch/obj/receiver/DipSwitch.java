@@ -18,11 +18,24 @@
 
 package eu.power_switch.obj.receiver;
 
+import android.support.annotation.NonNull;
+
+import java.util.LinkedList;
+import java.util.List;
+
 /**
  * Represents a dip switch used in DipReceivers
+ * <p/>
+ * DipReceivers store the states of all of their dips as a bitmask, bit n is the state of dip n (counted from 0).
+ * DipSwitch objects are only created for the GUI (see {@link #fromMask(String[], int)}).
  */
 public class DipSwitch {
 
+    /**
+     * Maximum number of dips in a bitmask
+     */
+    public static final int MAX_DIPS = Integer.SIZE;
+
     /**
      * Name of Dip
      */
@@ -62,4 +75,41 @@ public class DipSwitch {
         return state;
     }
 
+    /**
+     * Get the bitmask of a list of dips
+     *
+     * @param dips list of dips
+     * @return bitmask, bit n is set if dip n is checked
+     */
+    public static int getMask(@NonNull List<DipSwitch> dips) {
+        if (dips.size() > MAX_DIPS) {
+            throw new IllegalArgumentException("too many dips: " + dips.size());
+        }
+
+        int mask = 0;
+        int position = 0;
+        for (DipSwitch dip : dips) {
+            if (dip.isChecked()) {
+                mask |= 1 << position;
+            }
+            position++;
+        }
+        return mask;
+    }
+
+    /**
+     * Create a list of dips from a bitmask
+     *
+     * @param names names of all dips of a DipReceiver, in order
+     * @param mask  bitmask, bit n is set if dip n is checked
+     * @return list of dips
+     */
+    @NonNull
+    public static LinkedList<DipSwitch> fromMask(@NonNull String[] names, int mask) {
+        LinkedList<DipSwitch> dips = new LinkedList<>();
+        for (int i = 0; i < names.length; i++) {
+            dips.add(new DipSwitch(names[i], (mask >> i & 1) == 1));
+        }
+        return dips;
+    }
 }
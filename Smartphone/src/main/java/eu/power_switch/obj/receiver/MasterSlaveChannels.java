@@ -0,0 +1,78 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver;
+
+/**
+ * Packs the Master and Slave channel of a MasterSlaveReceiver into a single short
+ * <p/>
+ * The Master channel character is stored in the upper byte, the Slave channel number in the lower byte.
+ */
+public final class MasterSlaveChannels {
+
+    /**
+     * Channels used if the stored channels of a Receiver are missing or invalid (Master 'A', Slave 1)
+     */
+    public static final short DEFAULT = 'A' << 8 | 1;
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private MasterSlaveChannels() {
+        throw new UnsupportedOperationException("This class is non-instantiable.");
+    }
+
+    /**
+     * Pack Master and Slave channel
+     *
+     * @param master Master channel (ASCII character)
+     * @param slave  Slave channel (0-255)
+     * @return packed channels
+     */
+    public static short pack(char master, int slave) {
+        if (master > 0x7F) {
+            throw new IllegalArgumentException("master channel must be ASCII: " + master);
+        }
+        if (slave < 0 || slave > 0xFF) {
+            throw new IllegalArgumentException("slave channel out of range: " + slave);
+        }
+        return (short) (master << 8 | slave);
+    }
+
+    /**
+     * Get Master channel
+     *
+     * @param channels packed channels
+     * @return Master channel
+     */
+    public static char getMaster(short channels) {
+        return (char) (channels >> 8 & 0xFF);
+    }
+
+    /**
+     * Get Slave channel
+     *
+     * @param channels packed channels
+     * @return Slave channel
+     */
+    public static int getSlave(short channels) {
+        return channels & 0xFF;
+    }
+}
@@ -25,6 +25,13 @@ import java.util.ArrayList;
  */
 public interface MasterSlaveReceiver {
 
+    /**
+     * Get Master and Slave channel packed into one value (see {@link MasterSlaveChannels})
+     *
+     * @return packed channels
+     */
+    short getChannels();
+
     /**
      * Get Master Channel
      *
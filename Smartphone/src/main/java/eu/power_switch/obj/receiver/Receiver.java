@@ -26,12 +26,13 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Set;
 
+import eu.power_switch.R;
 import eu.power_switch.network.NetworkHandler;
 import eu.power_switch.network.NetworkPackage;
 import eu.power_switch.obj.button.Button;
 import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 import eu.power_switch.shared.log.Log;
@@ -121,6 +122,18 @@ public abstract class Receiver {
         }
     };
 
+    /**
+     * Map <ClassName> -> <Receiver Model>
+     * Inverse of {@link #receiverMap}
+     */
+    private static final Map<String, String> modelMap = new HashMap<>();
+
+    static {
+        for (Map.Entry<String, String> entry : receiverMap.entrySet()) {
+            modelMap.put(entry.getValue(), entry.getKey());
+        }
+    }
+
     protected Context context;
     /**
      * ID of this Receiver
@@ -161,6 +174,21 @@ public abstract class Receiver {
      */
     protected Long lastActivatedButtonId = (long) -1;
 
+    /**
+     * ID of the Gateway signals are sent through first, null to use the nearest Gateway
+     */
+    protected Long preferredGatewayId;
+
+    /**
+     * How signals are sent if more than one Gateway supports this Receiver
+     */
+    protected GatewayPolicy gatewayPolicy = GatewayPolicy.SINGLE;
+
+    /**
+     * True if this Receiver is shared and must not be changed anymore (see {@link #makeImmutable()})
+     */
+    private volatile boolean immutable;
+
     /**
      * Constructor
      *
@@ -201,15 +229,7 @@ public abstract class Receiver {
      */
     @Nullable
     public static String getModelName(@NonNull String javaPath) {
-        Set<Map.Entry<String, String>> entrySet = receiverMap.entrySet();
-
-        for (Map.Entry<String, String> entry : entrySet) {
-            String value = entry.getValue();
-            if (value.equals(javaPath)) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        return modelMap.get(javaPath);
     }
 
     /**
@@ -251,12 +271,30 @@ public abstract class Receiver {
     /**
      * Get all Buttons of this Receiver
      *
-     * @return List of Buttons
+     * @return List of Buttons, a copy if this Receiver is immutable
      */
     public LinkedList<Button> getButtons() {
+        if (immutable) {
+            return new LinkedList<>(buttons);
+        }
         return buttons;
     }
 
+    /**
+     * Make this Receiver immutable, all setters throw an {@link UnsupportedOperationException} afterwards
+     * <p/>
+     * Receivers read from the Database are immutable, so they can be shared by the Database cache.
+     */
+    public void makeImmutable() {
+        immutable = true;
+    }
+
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("Receiver " + id + " is immutable");
+        }
+    }
+
     /**
      * Get ID of Room this Receiver is associated with
      *
@@ -290,6 +328,7 @@ public abstract class Receiver {
      * @param positionInRoom position in room
      */
     public void setPositionInRoom(int positionInRoom) {
+        checkMutable();
         this.positionInRoom = positionInRoom;
     }
 
@@ -308,9 +347,50 @@ public abstract class Receiver {
      * @param lastActivatedButtonId ID of last activated Button
      */
     public void setLastActivatedButtonId(Long lastActivatedButtonId) {
+        checkMutable();
         this.lastActivatedButtonId = lastActivatedButtonId;
     }
 
+    /**
+     * Get ID of the Gateway signals are sent through first
+     *
+     * @return ID of Gateway, null if the nearest Gateway is used
+     */
+    @Nullable
+    public Long getPreferredGatewayId() {
+        return preferredGatewayId;
+    }
+
+    /**
+     * Set ID of the Gateway signals are sent through first
+     *
+     * @param preferredGatewayId ID of Gateway, null to use the nearest Gateway
+     */
+    public void setPreferredGatewayId(@Nullable Long preferredGatewayId) {
+        checkMutable();
+        this.preferredGatewayId = preferredGatewayId;
+    }
+
+    /**
+     * Get how signals are sent if more than one Gateway supports this Receiver
+     *
+     * @return gateway policy
+     */
+    @NonNull
+    public GatewayPolicy getGatewayPolicy() {
+        return gatewayPolicy;
+    }
+
+    /**
+     * Set how signals are sent if more than one Gateway supports this Receiver
+     *
+     * @param gatewayPolicy gateway policy
+     */
+    public void setGatewayPolicy(@NonNull GatewayPolicy gatewayPolicy) {
+        checkMutable();
+        this.gatewayPolicy = gatewayPolicy;
+    }
+
     /**
      * Get NetworkPackage for a Gateway/Action combination for this Receiver
      *
@@ -321,36 +401,107 @@ public abstract class Receiver {
      * @throws ActionNotSupportedException  thrown if this Receiver doesn't support the given Action
      */
     public NetworkPackage getNetworkPackage(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        String signal = getSignal(gateway, action);
+        return getNetworkPackage(gateway, getButtonId(action));
+    }
+
+    /**
+     * Get NetworkPackage for a Gateway/Button combination for this Receiver
+     *
+     * @param gateway  Gateway
+     * @param buttonId Button ID (see {@link DatabaseConstants})
+     * @return NetworkPackage
+     * @throws GatewayNotSupportedException thrown if this Receiver doesn't support the given Gateway
+     * @throws ActionNotSupportedException  thrown if this Receiver doesn't support the given Button
+     */
+    public NetworkPackage getNetworkPackage(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        String signal = getSignal(gateway, buttonId);
         if (gateway.hasValidLocalAddress()) {
 
             if (NetworkHandler.isWifiConnected()) {
                 Log.d("Using local address");
                 return new NetworkPackage(gateway.getCommunicationType(), gateway.getLocalHost(), gateway.getLocalPort(), signal,
-                        gateway.getTimeout());
+                        gateway.getTimeout(), gateway.getId(), getId(), buttonId, NetworkPackage.Priority.AUTOMATION,
+                        gateway.getBurstSize());
             } else {
                 Log.d("Using WAN address");
                 return new NetworkPackage(gateway.getCommunicationType(), gateway.getWanHost(), gateway.getWanPort(), signal,
-                        gateway.getTimeout());
+                        gateway.getTimeout(), gateway.getId(), getId(), buttonId, NetworkPackage.Priority.AUTOMATION,
+                        gateway.getBurstSize());
             }
         } else {
             Log.d("Using WAN address");
             return new NetworkPackage(gateway.getCommunicationType(), gateway.getWanHost(), gateway.getWanPort(), signal,
-                    gateway.getTimeout());
+                    gateway.getTimeout(), gateway.getId(), getId(), buttonId, NetworkPackage.Priority.AUTOMATION,
+                    gateway.getBurstSize());
         }
     }
 
     /**
      * Get network signal for a given Gateway/Action combination
+     * <p/>
+     * The action name is resolved to a Button ID first, use {@link #getSignal(Gateway, long)} if the ID is known.
      *
-     * @param gateway
-     * @param action
+     * @param gateway Gateway
+     * @param action  Action name (Button name)
      * @return Network signal
      * @throws GatewayNotSupportedException thrown if this Receiver doesn't support the given Gateway
      * @throws ActionNotSupportedException  thrown if this Receiver doesn't support the given Action
      */
+    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
+        return getSignal(gateway, getButtonId(action));
+    }
+
+    /**
+     * Get network signal for a given Gateway/Button combination
+     *
+     * @param gateway  Gateway
+     * @param buttonId Button ID, one of the Button IDs of this Receiver or a pairing action
+     *                 (see {@link DatabaseConstants})
+     * @return Network signal
+     * @throws GatewayNotSupportedException thrown if this Receiver doesn't support the given Gateway
+     * @throws ActionNotSupportedException  thrown if this Receiver doesn't support the given Button
+     */
+    public abstract String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException;
 
-    public abstract String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException;
+    /**
+     * Get the Button ID of an action name
+     *
+     * @param action Action name (Button name or pairing action)
+     * @return Button ID
+     * @throws ActionNotSupportedException thrown if this Receiver has no Button with the given name
+     */
+    protected long getButtonId(String action) throws ActionNotSupportedException {
+        for (Button button : buttons) {
+            if (button.getId() != null && button.getName().equals(action)) {
+                return button.getId();
+            }
+        }
+
+        if (context.getString(R.string.pair).equals(action)) {
+            return DatabaseConstants.BUTTON_PAIR_ID;
+        } else if (context.getString(R.string.unpair).equals(action)) {
+            return DatabaseConstants.BUTTON_UNPAIR_ID;
+        } else if (context.getString(R.string.unpair_all).equals(action)) {
+            return DatabaseConstants.BUTTON_UNPAIR_ALL_ID;
+        }
+
+        throw new ActionNotSupportedException(action);
+    }
+
+    /**
+     * Check if this Receiver has a Button with the given ID
+     *
+     * @param buttonId Button ID
+     * @return true if this Receiver has such a Button
+     */
+    protected boolean hasButton(long buttonId) {
+        for (Button button : buttons) {
+            if (button.getId() != null && button.getId() == buttonId) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
      * Get a Button of this Receiver by its name
@@ -456,6 +607,41 @@ public abstract class Receiver {
         }
     }
 
+    /**
+     * Gateway policy constants
+     */
+    public enum GatewayPolicy {
+        /**
+         * Send through the preferred or nearest Gateway only
+         */
+        SINGLE,
+        /**
+         * Send through the preferred or nearest Gateway, and through the next one if sending fails
+         */
+        FALLBACK,
+        /**
+         * Send through every compatible Gateway
+         */
+        ALL;
+
+        /**
+         * Get enum from string representation
+         *
+         * @param name name of enum, may be null
+         * @return enum, {@link #SINGLE} if unknown
+         */
+        @NonNull
+        public static GatewayPolicy getEnum(@Nullable String name) {
+            for (GatewayPolicy v : values()) {
+                if (v.name().equalsIgnoreCase(name)) {
+                    return v;
+                }
+            }
+
+            return SINGLE;
+        }
+    }
+
     /**
      * Brand constants
      */
@@ -0,0 +1,684 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import eu.power_switch.obj.UniversalButton;
+import eu.power_switch.obj.receiver.device.bat.RC3500_A_IP44_DE;
+import eu.power_switch.obj.receiver.device.bat.RC_AAA1000_A_IP44_Outdoor;
+import eu.power_switch.obj.receiver.device.bat.RC_AAA3680_A_IP20;
+import eu.power_switch.obj.receiver.device.brennenstuhl.RC3600;
+import eu.power_switch.obj.receiver.device.brennenstuhl.RCS1000NComfort;
+import eu.power_switch.obj.receiver.device.brennenstuhl.RCS1044NComfort;
+import eu.power_switch.obj.receiver.device.elro.AB440D_200W;
+import eu.power_switch.obj.receiver.device.elro.AB440D_300W;
+import eu.power_switch.obj.receiver.device.elro.AB440ID;
+import eu.power_switch.obj.receiver.device.elro.AB440IS;
+import eu.power_switch.obj.receiver.device.elro.AB440L;
+import eu.power_switch.obj.receiver.device.elro.AB440S;
+import eu.power_switch.obj.receiver.device.elro.AB440SC;
+import eu.power_switch.obj.receiver.device.elro.AB440WD;
+import eu.power_switch.obj.receiver.device.hama.Hama;
+import eu.power_switch.obj.receiver.device.intertechno.CMR1000;
+import eu.power_switch.obj.receiver.device.intertechno.CMR1224;
+import eu.power_switch.obj.receiver.device.intertechno.CMR300;
+import eu.power_switch.obj.receiver.device.intertechno.CMR500;
+import eu.power_switch.obj.receiver.device.intertechno.GRR300;
+import eu.power_switch.obj.receiver.device.intertechno.GRR3500;
+import eu.power_switch.obj.receiver.device.intertechno.IT1500;
+import eu.power_switch.obj.receiver.device.intertechno.IT2300;
+import eu.power_switch.obj.receiver.device.intertechno.ITDL1000;
+import eu.power_switch.obj.receiver.device.intertechno.ITDM250;
+import eu.power_switch.obj.receiver.device.intertechno.ITL1000;
+import eu.power_switch.obj.receiver.device.intertechno.ITL150;
+import eu.power_switch.obj.receiver.device.intertechno.ITL210;
+import eu.power_switch.obj.receiver.device.intertechno.ITL230;
+import eu.power_switch.obj.receiver.device.intertechno.ITL250;
+import eu.power_switch.obj.receiver.device.intertechno.ITL300;
+import eu.power_switch.obj.receiver.device.intertechno.ITL3500;
+import eu.power_switch.obj.receiver.device.intertechno.ITL500;
+import eu.power_switch.obj.receiver.device.intertechno.ITLR300;
+import eu.power_switch.obj.receiver.device.intertechno.ITLR3500;
+import eu.power_switch.obj.receiver.device.intertechno.ITLR3500T;
+import eu.power_switch.obj.receiver.device.intertechno.ITR1500;
+import eu.power_switch.obj.receiver.device.intertechno.ITR300;
+import eu.power_switch.obj.receiver.device.intertechno.ITR3500;
+import eu.power_switch.obj.receiver.device.intertechno.ITR7000;
+import eu.power_switch.obj.receiver.device.intertechno.ITWR3500;
+import eu.power_switch.obj.receiver.device.intertechno.LBUR100;
+import eu.power_switch.obj.receiver.device.intertechno.PA3_1000;
+import eu.power_switch.obj.receiver.device.intertechno.PAR_1500;
+import eu.power_switch.obj.receiver.device.intertechno.YCR1000;
+import eu.power_switch.obj.receiver.device.intertek.Model_1919361;
+import eu.power_switch.obj.receiver.device.mumbi.m_FS300;
+import eu.power_switch.obj.receiver.device.pollin_electronic.Set2605;
+import eu.power_switch.obj.receiver.device.rev.Ritter;
+import eu.power_switch.obj.receiver.device.rev.Telecontrol;
+import eu.power_switch.obj.receiver.device.rohrmotor24.RMF_Motor;
+import eu.power_switch.obj.receiver.device.rohrmotor24.RMF_R1;
+import eu.power_switch.obj.receiver.device.rohrmotor24.RMF_R1_UP;
+import eu.power_switch.obj.receiver.device.universal.HX2262_Comp;
+import eu.power_switch.obj.receiver.device.vivanco.FSS31000W;
+import eu.power_switch.obj.receiver.device.vivanco.FSS33600W;
+
+/**
+ * Registry of all Receiver models
+ * <p/>
+ * Every model is registered explicitly with a factory that calls its constructors directly,
+ * so Receivers can be created without any reflection.
+ * Models are identified by a compact type code that is stored in the database (see ReceiverTable),
+ * by their model name and by their class name.
+ * <p/>
+ * Type codes are persisted, so a registered type code must never be changed or reused.
+ * New models get the next free type code.
+ */
+public final class ReceiverRegistry {
+
+    /**
+     * Map <Type code> -> <Entry>
+     */
+    private static final Map<Integer, Entry> entriesByTypeCode = new HashMap<>();
+    /**
+     * Map <Model> -> <Entry>
+     */
+    private static final Map<String, Entry> entriesByModel = new HashMap<>();
+    /**
+     * Map <Class name> -> <Entry>
+     */
+    private static final Map<String, Entry> entriesByClassName = new HashMap<>();
+
+    static {
+        // BAT
+        register(1, RC3500_A_IP44_DE.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new RC3500_A_IP44_DE(context, id, name, dipMask, roomId);
+            }
+        });
+        register(2, RC_AAA1000_A_IP44_Outdoor.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new RC_AAA1000_A_IP44_Outdoor(context, id, name, dipMask, roomId);
+            }
+        });
+        register(3, RC_AAA3680_A_IP20.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new RC_AAA3680_A_IP20(context, id, name, seed, roomId);
+            }
+        });
+
+        // Brennenstuhl
+        register(4, RC3600.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new RC3600(context, id, name, seed, roomId);
+            }
+        });
+        register(5, RCS1000NComfort.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new RCS1000NComfort(context, id, name, dipMask, roomId);
+            }
+        });
+        register(6, RCS1044NComfort.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new RCS1044NComfort(context, id, name, dipMask, roomId);
+            }
+        });
+
+        // Elro
+        register(7, AB440D_200W.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440D_200W(context, id, name, dipMask, roomId);
+            }
+        });
+        register(8, AB440D_300W.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440D_300W(context, id, name, dipMask, roomId);
+            }
+        });
+        register(9, AB440ID.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440ID(context, id, name, dipMask, roomId);
+            }
+        });
+        register(10, AB440IS.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440IS(context, id, name, dipMask, roomId);
+            }
+        });
+        register(11, AB440L.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440L(context, id, name, dipMask, roomId);
+            }
+        });
+        register(12, AB440S.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440S(context, id, name, dipMask, roomId);
+            }
+        });
+        register(13, AB440SC.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440SC(context, id, name, dipMask, roomId);
+            }
+        });
+        register(14, AB440WD.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new AB440WD(context, id, name, dipMask, roomId);
+            }
+        });
+
+        // Hama
+        register(15, Hama.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new Hama(context, id, name, seed, roomId);
+            }
+        });
+
+        // Intertechno
+        register(16, CMR300.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new CMR300(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(17, CMR500.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new CMR500(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(18, CMR1000.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new CMR1000(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(19, CMR1224.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new CMR1224(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(20, GRR300.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new GRR300(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(21, GRR3500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new GRR3500(context, id, name, seed, roomId);
+            }
+        });
+        register(22, IT1500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new IT1500(context, id, name, channelMaster, channelSlave, roomId);
+            }
+
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new IT1500(context, id, name, seed, roomId);
+            }
+        });
+        register(23, IT2300.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new IT2300(context, id, name, seed, roomId);
+            }
+        });
+        register(24, ITDL1000.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITDL1000(context, id, name, seed, roomId);
+            }
+        });
+        register(25, ITDM250.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITDM250(context, id, name, seed, roomId);
+            }
+        });
+        register(26, ITL150.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL150(context, id, name, seed, roomId);
+            }
+        });
+        register(27, ITL210.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL210(context, id, name, seed, roomId);
+            }
+        });
+        register(28, ITL230.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL230(context, id, name, seed, roomId);
+            }
+        });
+        register(29, ITL250.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL250(context, id, name, seed, roomId);
+            }
+        });
+        register(30, ITL300.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL300(context, id, name, seed, roomId);
+            }
+        });
+        register(31, ITL500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL500(context, id, name, seed, roomId);
+            }
+        });
+        register(32, ITL1000.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL1000(context, id, name, seed, roomId);
+            }
+        });
+        register(33, ITL3500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITL3500(context, id, name, seed, roomId);
+            }
+        });
+        register(34, ITLR300.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITLR300(context, id, name, seed, roomId);
+            }
+        });
+        register(35, ITLR3500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITLR3500(context, id, name, seed, roomId);
+            }
+        });
+        register(36, ITLR3500T.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITLR3500T(context, id, name, seed, roomId);
+            }
+        });
+        register(37, ITR300.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new ITR300(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(38, ITR1500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new ITR1500(context, id, name, channelMaster, channelSlave, roomId);
+            }
+
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITR1500(context, id, name, seed, roomId);
+            }
+        });
+        register(39, ITR3500.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new ITR3500(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(40, ITR7000.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITR7000(context, id, name, seed, roomId);
+            }
+        });
+        register(41, ITWR3500.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new ITWR3500(context, id, name, seed, roomId);
+            }
+        });
+        register(42, LBUR100.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new LBUR100(context, id, name, seed, roomId);
+            }
+        });
+        register(43, PA3_1000.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new PA3_1000(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(44, PAR_1500.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new PAR_1500(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+        register(45, YCR1000.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new YCR1000(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+
+        // Intertek
+        register(46, Model_1919361.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new Model_1919361(context, id, name, dipMask, roomId);
+            }
+        });
+
+        // Mumbi
+        register(47, m_FS300.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new m_FS300(context, id, name, dipMask, roomId);
+            }
+        });
+
+        // Pollin
+        register(48, Set2605.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new Set2605(context, id, name, dipMask, roomId);
+            }
+        });
+
+        // Rev
+        register(49, Ritter.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new Ritter(context, id, name, dipMask, roomId);
+            }
+        });
+        register(50, Telecontrol.class, Receiver.Type.MASTER_SLAVE, new Factory() {
+            @Override
+            public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                                   int channelSlave, Long roomId) {
+                return new Telecontrol(context, id, name, channelMaster, channelSlave, roomId);
+            }
+        });
+
+        // Rohrmotor 24
+        register(51, RMF_Motor.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new RMF_Motor(context, id, name, seed, roomId);
+            }
+        });
+        register(52, RMF_R1.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new RMF_R1(context, id, name, seed, roomId);
+            }
+        });
+        register(53, RMF_R1_UP.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new RMF_R1_UP(context, id, name, seed, roomId);
+            }
+        });
+
+        // Vivanco
+        register(54, FSS31000W.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new FSS31000W(context, id, name, dipMask, roomId);
+            }
+        });
+        register(55, FSS33600W.class, Receiver.Type.DIPS, new Factory() {
+            @Override
+            public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+                return new FSS33600W(context, id, name, dipMask, roomId);
+            }
+        });
+
+        // Universal
+        register(56, UniversalReceiver.class, Receiver.Type.UNIVERSAL, new Factory() {
+            @Override
+            public Receiver newUniversalReceiver(Context context, Long id, String name, List<UniversalButton> buttons,
+                                                 Long roomId) {
+                return new UniversalReceiver(context, id, name, buttons, roomId);
+            }
+        });
+        register(57, HX2262_Comp.class, Receiver.Type.AUTOPAIR, new Factory() {
+            @Override
+            public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+                return new HX2262_Comp(context, id, name, seed, roomId);
+            }
+        });
+    }
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private ReceiverRegistry() {
+        throw new UnsupportedOperationException("This class is non-instantiable.");
+    }
+
+    private static void register(int typeCode, Class<? extends Receiver> receiverClass, Receiver.Type defaultType,
+                                 Factory factory) {
+        String model = Receiver.getModelName(receiverClass.getName());
+        if (model == null) {
+            throw new IllegalArgumentException("Missing model name of " + receiverClass.getName());
+        }
+
+        Entry entry = new Entry(typeCode, model, receiverClass, defaultType, factory);
+        if (entriesByTypeCode.put(typeCode, entry) != null) {
+            throw new IllegalArgumentException("Duplicate type code " + typeCode);
+        }
+        entriesByModel.put(model, entry);
+        entriesByClassName.put(receiverClass.getName(), entry);
+    }
+
+    /**
+     * Get the registry entry of a type code
+     *
+     * @param typeCode type code
+     * @return entry, null if unknown
+     */
+    @Nullable
+    public static Entry getByTypeCode(int typeCode) {
+        return entriesByTypeCode.get(typeCode);
+    }
+
+    /**
+     * Get the registry entry of a model
+     *
+     * @param model model name
+     * @return entry, null if unknown
+     */
+    @Nullable
+    public static Entry getByModel(@Nullable String model) {
+        return entriesByModel.get(model);
+    }
+
+    /**
+     * Get the registry entry of a Receiver class
+     *
+     * @param className class name
+     * @return entry, null if unknown
+     */
+    @Nullable
+    public static Entry getByClassName(@Nullable String className) {
+        return entriesByClassName.get(className);
+    }
+
+    /**
+     * Get the registry entry of a Receiver
+     *
+     * @param receiver Receiver
+     * @return entry, null if the class of the Receiver is not registered
+     */
+    @Nullable
+    public static Entry get(@NonNull Receiver receiver) {
+        return entriesByClassName.get(receiver.getClass().getName());
+    }
+
+    /**
+     * A registered Receiver model
+     */
+    public static final class Entry {
+
+        private final int typeCode;
+        private final String model;
+        private final Class<? extends Receiver> receiverClass;
+        private final Receiver.Type defaultType;
+        private final Factory factory;
+
+        private Entry(int typeCode, String model, Class<? extends Receiver> receiverClass, Receiver.Type defaultType,
+                      Factory factory) {
+            this.typeCode = typeCode;
+            this.model = model;
+            this.receiverClass = receiverClass;
+            this.defaultType = defaultType;
+            this.factory = factory;
+        }
+
+        /**
+         * @return type code stored in the database
+         */
+        public int getTypeCode() {
+            return typeCode;
+        }
+
+        /**
+         * @return model name
+         */
+        public String getModel() {
+            return model;
+        }
+
+        /**
+         * @return Receiver class
+         */
+        public Class<? extends Receiver> getReceiverClass() {
+            return receiverClass;
+        }
+
+        /**
+         * Get the type of new Receivers of this model
+         * <p/>
+         * Some models support more than one type, stored Receivers keep the type they were created with.
+         *
+         * @return type
+         */
+        public Receiver.Type getDefaultType() {
+            return defaultType;
+        }
+
+        /**
+         * @return factory creating Receivers of this model
+         */
+        public Factory getFactory() {
+            return factory;
+        }
+
+        /**
+         * Create an empty dummy Receiver of this model
+         *
+         * @param context any suitable context
+         * @return Receiver
+         */
+        @NonNull
+        public Receiver newDummy(Context context) {
+            long dummyReceiverId = 0;
+            String dummyReceiverName = "dummy";
+
+            switch (defaultType) {
+                case MASTER_SLAVE:
+                    return factory.newMasterSlaveReceiver(context, dummyReceiverId, dummyReceiverName, 'A', 0, null);
+                case DIPS:
+                    return factory.newDipReceiver(context, dummyReceiverId, dummyReceiverName, 0, null);
+                case AUTOPAIR:
+                    return factory.newAutoPairReceiver(context, dummyReceiverId, dummyReceiverName, -1, null);
+                case UNIVERSAL:
+                default:
+                    return factory.newUniversalReceiver(context, dummyReceiverId, dummyReceiverName,
+                            new LinkedList<UniversalButton>(), null);
+            }
+        }
+    }
+
+    /**
+     * Creates Receivers of one model, one method for every type of Receiver
+     * <p/>
+     * A model only overrides the methods of the types it supports.
+     */
+    public static abstract class Factory {
+
+        public Receiver newDipReceiver(Context context, Long id, String name, int dipMask, Long roomId) {
+            throw new UnsupportedOperationException("Model does not support type " + Receiver.Type.DIPS);
+        }
+
+        public Receiver newMasterSlaveReceiver(Context context, Long id, String name, char channelMaster,
+                                               int channelSlave, Long roomId) {
+            throw new UnsupportedOperationException("Model does not support type " + Receiver.Type.MASTER_SLAVE);
+        }
+
+        public Receiver newAutoPairReceiver(Context context, Long id, String name, long seed, Long roomId) {
+            throw new UnsupportedOperationException("Model does not support type " + Receiver.Type.AUTOPAIR);
+        }
+
+        public Receiver newUniversalReceiver(Context context, Long id, String name, List<UniversalButton> buttons,
+                                             Long roomId) {
+            throw new UnsupportedOperationException("Model does not support type " + Receiver.Type.UNIVERSAL);
+        }
+    }
+}
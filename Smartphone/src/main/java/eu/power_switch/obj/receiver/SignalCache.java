@@ -0,0 +1,205 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.power_switch.obj.button.Button;
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
+import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
+import eu.power_switch.shared.log.Log;
+
+/**
+ * Cache for Receiver signals
+ * <p/>
+ * The signal of a Receiver only depends on its configuration, the type of Gateway and the Button,
+ * so it is computed once and reused afterwards.
+ * Signals are cached per Receiver ID, Gateway class and Button ID. The model and address of the Receiver are
+ * remembered with its signals, so signals of a changed Receiver are never used, even if it was not invalidated
+ * (see {@link #invalidate(Long)}).
+ * <p/>
+ * Signals are cached in their encoded form, so they can be sent without any conversion.
+ * Looking up a cached signal does not create any garbage.
+ */
+public class SignalCache {
+
+    /**
+     * Charset used to encode signals
+     */
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Map <Receiver ID> -> signals of the Receiver
+     */
+    private static final ConcurrentHashMap<Long, ReceiverSignals> signals = new ConcurrentHashMap<>();
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private SignalCache() {
+        throw new UnsupportedOperationException("This class is non-instantiable.");
+    }
+
+    /**
+     * Get network signal of a Receiver for a given Gateway/Button combination
+     *
+     * @param receiver Receiver
+     * @param gateway  Gateway
+     * @param button   Button
+     * @return encoded network signal, null if the Receiver has no signal for this combination.
+     * The returned array is shared and must not be modified.
+     * @throws GatewayNotSupportedException thrown if the Receiver doesn't support the given Gateway
+     * @throws ActionNotSupportedException  thrown if the Receiver doesn't support the given Button
+     */
+    @Nullable
+    public static byte[] getSignal(@NonNull Receiver receiver, @NonNull Gateway gateway, @NonNull Button button)
+            throws GatewayNotSupportedException, ActionNotSupportedException {
+        if (receiver.getId() == null || button.getId() == null) {
+            // not stored in database yet, so it can only be resolved by name
+            return encode(receiver.getSignal(gateway, button.getName()));
+        }
+
+        long address = getAddress(receiver);
+        ReceiverSignals receiverSignals = signals.get(receiver.getId());
+        if (receiverSignals == null || !receiverSignals.matches(receiver.getModel(), address)) {
+            // unknown or changed Receiver
+            receiverSignals = new ReceiverSignals(receiver.getModel(), address);
+            signals.put(receiver.getId(), receiverSignals);
+        }
+
+        ConcurrentHashMap<Long, byte[]> gatewaySignals = receiverSignals.signals.get(gateway.getClass());
+        if (gatewaySignals == null) {
+            gatewaySignals = new ConcurrentHashMap<>();
+            ConcurrentHashMap<Long, byte[]> previousSignals =
+                    receiverSignals.signals.putIfAbsent(gateway.getClass(), gatewaySignals);
+            if (previousSignals != null) {
+                gatewaySignals = previousSignals;
+            }
+        }
+
+        byte[] signal = gatewaySignals.get(button.getId());
+        if (signal == null) {
+            signal = encode(receiver.getSignal(gateway, button.getId()));
+            if (signal != null) {
+                gatewaySignals.put(button.getId(), signal);
+            }
+        }
+        return signal;
+    }
+
+    private static byte[] encode(String signal) {
+        return signal != null ? signal.getBytes(CHARSET) : null;
+    }
+
+    /**
+     * Get the address a Receiver is controlled by, the signals depend on
+     *
+     * @param receiver Receiver
+     * @return channels, DIP mask or seed of the Receiver, 0 if it has no address
+     */
+    private static long getAddress(Receiver receiver) {
+        if (receiver instanceof MasterSlaveReceiver) {
+            return ((MasterSlaveReceiver) receiver).getChannels();
+        } else if (receiver instanceof DipReceiver) {
+            return ((DipReceiver) receiver).getDipMask();
+        } else if (receiver instanceof AutoPairReceiver) {
+            return ((AutoPairReceiver) receiver).getSeed();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Remove all cached signals of a Receiver
+     *
+     * @param receiverId ID of Receiver
+     */
+    public static void invalidate(@Nullable Long receiverId) {
+        if (receiverId != null) {
+            signals.remove(receiverId);
+        }
+    }
+
+    /**
+     * Remove all cached signals
+     */
+    public static void invalidateAll() {
+        signals.clear();
+    }
+
+    /**
+     * Compute the signals of all Buttons of the given Receivers for every type of the given Gateways
+     *
+     * @param receivers Receivers
+     * @param gateways  Gateways
+     */
+    @WorkerThread
+    public static void warmUp(@NonNull List<Receiver> receivers, @NonNull List<Gateway> gateways) {
+        int count = 0;
+        for (Receiver receiver : receivers) {
+            for (Gateway gateway : gateways) {
+                for (Button button : receiver.getButtons()) {
+                    try {
+                        if (getSignal(receiver, gateway, button) != null) {
+                            count++;
+                        }
+                    } catch (GatewayNotSupportedException | ActionNotSupportedException e) {
+                        // nothing to cache
+                    } catch (Exception e) {
+                        Log.e("Error computing signal of Receiver " + receiver.getName(), e);
+                    }
+                }
+            }
+        }
+        Log.d(SignalCache.class, "cached " + count + " signals");
+    }
+
+    /**
+     * Signals of a single Receiver, together with the configuration they were computed for
+     */
+    private static class ReceiverSignals {
+
+        private final String model;
+        private final long address;
+
+        /**
+         * Map <Gateway class> -> (<Button ID> -> <Signal>)
+         */
+        private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Long, byte[]>> signals =
+                new ConcurrentHashMap<>();
+
+        private ReceiverSignals(String model, long address) {
+            this.model = model;
+            this.address = address;
+        }
+
+        private boolean matches(String model, long address) {
+            return this.address == address && this.model.equals(model);
+        }
+    }
+}
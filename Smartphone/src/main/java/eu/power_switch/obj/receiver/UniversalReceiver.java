@@ -41,6 +41,7 @@ public class UniversalReceiver extends Receiver {
 
     @Override
     public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
+        // Universal Buttons that are not stored in the database yet have no ID
         try {
             for (Button button : buttons) {
                 if (button.getName().equals(action)) {
@@ -54,4 +55,20 @@ public class UniversalReceiver extends Receiver {
             return null;
         }
     }
+
+    @Override
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        try {
+            for (Button button : buttons) {
+                if (button.getId() != null && button.getId() == buttonId) {
+                    return ((UniversalButton) button).getSignal();
+                }
+            }
+
+            throw new ActionNotSupportedException(buttonId);
+        } catch (Exception e) {
+            Log.e(e);
+            return null;
+        }
+    }
 }
@@ -22,8 +22,6 @@ import android.content.Context;
 
 import java.util.Random;
 
-import eu.power_switch.R;
-import eu.power_switch.obj.button.Button;
 import eu.power_switch.obj.button.OffButton;
 import eu.power_switch.obj.button.OnButton;
 import eu.power_switch.obj.gateway.BrematicGWY433;
@@ -32,6 +30,7 @@ import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.gateway.ITGW433;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 
@@ -65,16 +64,9 @@ public class RC_AAA3680_A_IP20 extends Receiver implements AutoPairReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        boolean actionSupported = false;
-        for (Button button : buttons) {
-            if (button.getName().equals(action)) {
-                actionSupported = true;
-                break;
-            }
-        }
-        if (!actionSupported) {
-            throw new ActionNotSupportedException(action);
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        if (!hasButton(buttonId)) {
+            throw new ActionNotSupportedException(buttonId);
         }
 
         String lo = "1,";
@@ -101,13 +93,13 @@ public class RC_AAA3680_A_IP20 extends Receiver implements AutoPairReceiver {
         }
 
         // action
-        if (action.equals(context.getString(R.string.pair))) {
-        } else if (action.equals(context.getString(R.string.on))) {
+        if (buttonId == DatabaseConstants.BUTTON_PAIR_ID) {
+        } else if (buttonId == DatabaseConstants.BUTTON_ON_ID) {
             // TODO
-        } else if (action.equals(context.getString(R.string.off))) {
+        } else if (buttonId == DatabaseConstants.BUTTON_OFF_ID) {
             // TODO
         } else {
-            throw new ActionNotSupportedException(action);
+            throw new ActionNotSupportedException(buttonId);
         }
 
         if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
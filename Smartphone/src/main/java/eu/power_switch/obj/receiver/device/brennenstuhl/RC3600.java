@@ -43,7 +43,7 @@ public class RC3600 extends Receiver implements AutoPairReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
         return null;
     }
 
@@ -20,7 +20,9 @@ package eu.power_switch.obj.receiver.device.elro;
 
 import android.content.Context;
 
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 
 import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.receiver.DipReceiver;
@@ -35,35 +37,25 @@ public class AB440IS extends AB440ID implements DipReceiver {
 
     private static final String MODEL = Receiver.getModelName(AB440IS.class.getCanonicalName());
 
-    public AB440IS(Context context, Long id, String name, LinkedList<Boolean> dips, Long roomId) {
-        super(context, id, name, dips, roomId);
-        dipList = new LinkedList<>();
-
-        if (dips != null && dips.size() == 8) {
-            dipList.add(new DipSwitch("1", dips.get(0)));
-            dipList.add(new DipSwitch("2", dips.get(1)));
-            dipList.add(new DipSwitch("3", dips.get(2)));
-            dipList.add(new DipSwitch("4", dips.get(3)));
-            dipList.add(new DipSwitch("5", dips.get(4)));
-            dipList.add(new DipSwitch("A", dips.get(5)));
-            dipList.add(new DipSwitch("B", dips.get(6)));
-            dipList.add(new DipSwitch("C", dips.get(7)));
-        } else {
-            dipList.add(new DipSwitch("1", false));
-            dipList.add(new DipSwitch("2", false));
-            dipList.add(new DipSwitch("3", false));
-            dipList.add(new DipSwitch("4", false));
-            dipList.add(new DipSwitch("5", false));
-            dipList.add(new DipSwitch("A", false));
-            dipList.add(new DipSwitch("B", false));
-            dipList.add(new DipSwitch("C", false));
-        }
+    private static final String[] DIP_NAMES = {"1", "2", "3", "4", "5", "A", "B", "C"};
 
+    public AB440IS(Context context, Long id, String name, int dipMask, Long roomId) {
+        super(context, id, name, dipMask, roomId);
         model = MODEL;
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        return super.getSignal(gateway, action);
+    public List<String> getDipNames() {
+        return new LinkedList<>(Arrays.asList(DIP_NAMES));
+    }
+
+    @Override
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        return super.getSignal(gateway, buttonId);
+    }
+
+    @Override
+    public LinkedList<DipSwitch> getDips() {
+        return DipSwitch.fromMask(DIP_NAMES, dipMask);
     }
 }
@@ -22,15 +22,15 @@ import android.content.Context;
 
 import java.util.Random;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.button.OffButton;
 import eu.power_switch.obj.button.OnButton;
-import eu.power_switch.obj.gateway.BrematicGWY433;
-import eu.power_switch.obj.gateway.ConnAir;
 import eu.power_switch.obj.gateway.Gateway;
-import eu.power_switch.obj.gateway.ITGW433;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.protocol.AddressLayout;
+import eu.power_switch.obj.receiver.protocol.Protocols;
+import eu.power_switch.obj.receiver.protocol.SignalEncoder;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 
@@ -39,11 +39,7 @@ public class Hama extends Receiver implements AutoPairReceiver {
     private static final Brand BRAND = Brand.HAMA;
     private static final String MODEL = Receiver.getModelName(Hama.class.getCanonicalName());
 
-    private String headAutoPairConnAir = "TXP:0,0,5,10976,98,66,3,29,";
-    private String headAutoPairITGW = "0,0,5,10976,98,67,0,3,29,";
-
-    private String tailAutoPairConnAir = "3,126";
-    private String tailAutoPairITGW = "3,112,0";
+    private static final SignalEncoder PROTOCOL = Protocols.newIntertechnoAutoPairDescriptor("1,", "5,").compile();
 
     private long seed = -1;
 
@@ -61,99 +57,36 @@ public class Hama extends Receiver implements AutoPairReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        String lo = "1,";
-        String hi = "5,";
-        String seqLo = lo + lo + lo + hi;
-        String seqFl = lo + hi + lo + lo;
-        String h = seqFl;
-        String l = seqLo;
-        String on = seqLo + seqLo + seqFl;
-        String off = seqLo + seqLo + seqLo;
-        String additional = seqLo + seqLo;
-
-        Random ran = new Random(seed);
-
-        String signal = "";
-        if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
-            signal += headAutoPairConnAir;
-        } else if (gateway instanceof ITGW433) {
-            signal += headAutoPairITGW;
-        } else {
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        if (!PROTOCOL.supports(gateway)) {
             throw new GatewayNotSupportedException();
         }
 
-        // action
-        // not supported?
-        if (action.equals(context.getString(R.string.unpair_all))) {
-
-            for (int i = 0; i < 24; i++) {
-                signal += l;
-            }
-
-            signal += l + l + h + l;
-            signal += l + l + l + l;
-
-        } else if (action.equals(context.getString(R.string.on)) || action.equals(context.getString(R.string.pair))) {
-
-            signal += h;
-
-            for (int i = 0; i < 24; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
-
-            signal += on;
-
-            for (int i = 0; i < 2; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
-
-            signal += additional;
-
-        } else if (action.equals(context.getString(R.string.off)) || action.equals(context.getString(R.string.unpair))) {
-
-            signal += h;
-
-            for (int i = 0; i < 24; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
-
-            signal += off;
-
-            for (int i = 0; i < 2; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
-
-            signal += additional;
-        } else {
-            throw new ActionNotSupportedException(action);
-        }
+        Random ran = new Random(seed);
+        StringBuilder symbols = new StringBuilder();
 
-        if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
-            signal += tailAutoPairConnAir;
-        } else if (gateway instanceof ITGW433) {
-            signal += tailAutoPairITGW;
+        // action
+        if (buttonId == DatabaseConstants.BUTTON_UNPAIR_ALL_ID) {
+            symbols.append("000000000000000000000000");
+            symbols.append("0010");
+            symbols.append("0000");
+        } else if (buttonId == DatabaseConstants.BUTTON_ON_ID || buttonId == DatabaseConstants.BUTTON_PAIR_ID) {
+            symbols.append('1');
+            AddressLayout.appendRandomBits(symbols, ran, 24, '1', '0');
+            symbols.append("001");
+            AddressLayout.appendRandomBits(symbols, ran, 2, '1', '0');
+            symbols.append("00");
+        } else if (buttonId == DatabaseConstants.BUTTON_OFF_ID || buttonId == DatabaseConstants.BUTTON_UNPAIR_ID) {
+            symbols.append('1');
+            AddressLayout.appendRandomBits(symbols, ran, 24, '1', '0');
+            symbols.append("000");
+            AddressLayout.appendRandomBits(symbols, ran, 2, '1', '0');
+            symbols.append("00");
         } else {
-            throw new GatewayNotSupportedException();
+            throw new ActionNotSupportedException(buttonId);
         }
 
-        return signal;
+        return PROTOCOL.encode(gateway, symbols);
     }
 
     @Override
@@ -22,15 +22,15 @@ import android.content.Context;
 
 import java.util.ArrayList;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.button.OffButton;
 import eu.power_switch.obj.button.OnButton;
-import eu.power_switch.obj.gateway.BrematicGWY433;
-import eu.power_switch.obj.gateway.ConnAir;
 import eu.power_switch.obj.gateway.Gateway;
-import eu.power_switch.obj.gateway.ITGW433;
+import eu.power_switch.obj.receiver.MasterSlaveChannels;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.protocol.AddressLayout;
+import eu.power_switch.obj.receiver.protocol.Protocols;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 import eu.power_switch.shared.log.Log;
@@ -40,25 +40,13 @@ public class CMR1000 extends Receiver implements MasterSlaveReceiver {
     private static final Brand BRAND = Brand.INTERTECHNO;
     private static final String MODEL = Receiver.getModelName(CMR1000.class.getCanonicalName());
 
-    private String tx433version = "1,";
-
-    private String sSpeedConnAir = "140";
-    private String headConnAir = "TXP:0,0,6,11125,89,25,";
-    private String headITGW = "0,0,6,11125,89,26,0,";
-
-    private String sSpeedITGW = "125,";
-    private String tailConnAir = tx433version + sSpeedConnAir + ";";
-    private String tailITGW = tx433version + sSpeedITGW + "0";
-
-    private Character channelMaster;
-    private int channelSlave;
+    private short channels;
 
     public CMR1000(Context context, Long id, String name, char channelMaster, int channelSlave, Long roomId) {
         super(context, id, name, BRAND, MODEL, Type.MASTER_SLAVE, roomId);
         buttons.add(new OnButton(context, id));
         buttons.add(new OffButton(context, id));
-        this.channelMaster = channelMaster;
-        this.channelSlave = channelSlave;
+        this.channels = MasterSlaveChannels.pack(channelMaster, channelSlave);
     }
 
     @Override
@@ -106,173 +94,56 @@ public class CMR1000 extends Receiver implements MasterSlaveReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws ActionNotSupportedException, GatewayNotSupportedException {
+    public String getSignal(Gateway gateway, long buttonId) throws ActionNotSupportedException, GatewayNotSupportedException {
+        if (!Protocols.INTERTECHNO.supports(gateway)) {
+            throw new GatewayNotSupportedException();
+        }
 
-        String lo = "4,";
-        String hi = "12,";
-        String seqLo = lo + hi + lo + hi;
-        String seqFl = lo + hi + hi + lo;
-        String h = seqFl;
-        String l = seqLo;
-        String on = seqFl + seqFl;
-        String off = seqFl + seqLo;
-        String additional = seqLo + seqFl;
+        StringBuilder symbols = new StringBuilder();
+        char channelMaster = MasterSlaveChannels.getMaster(channels);
+        int channelSlave = MasterSlaveChannels.getSlave(channels);
 
-        // switch channelMaster (character)
-        String master = "";
-        switch (channelMaster) {
-            case 'A':
-                master = l + l + l + l;
-                break;
-            case 'B':
-                master = h + l + l + l;
-                break;
-            case 'C':
-                master = l + h + l + l;
-                break;
-            case 'D':
-                master = h + h + l + l;
-                break;
-            case 'E':
-                master = l + l + h + l;
-                break;
-            case 'F':
-                master = h + l + h + l;
-                break;
-            case 'G':
-                master = l + h + h + l;
-                break;
-            case 'H':
-                master = h + h + h + l;
-                break;
-            case 'I':
-                master = l + l + l + h;
-                break;
-            case 'J':
-                master = h + l + l + h;
-                break;
-            case 'K':
-                master = l + h + l + h;
-                break;
-            case 'L':
-                master = h + h + l + h;
-                break;
-            case 'M':
-                master = l + l + h + h;
-                break;
-            case 'N':
-                master = h + l + h + h;
-                break;
-            case 'O':
-                master = l + h + h + h;
-                break;
-            case 'P':
-                master = h + h + h + h;
-                break;
-            default:
-                Log.e("Switch", "No Matching Master");
-                break;
+        // channelMaster (character)
+        if (channelMaster >= 'A' && channelMaster <= 'P') {
+            AddressLayout.appendBits(symbols, channelMaster - 'A', 4, 'F', '0');
+        } else {
+            Log.e("Switch", "No Matching Master");
         }
 
-        // switch channelSlave (number)
-        String slave = "";
-        switch (channelSlave) {
-            case 1:
-                slave = l + l + l + l;
-                break;
-            case 2:
-                slave = h + l + l + l;
-                break;
-            case 3:
-                slave = l + h + l + l;
-                break;
-            case 4:
-                slave = h + h + l + l;
-                break;
-            case 5:
-                slave = l + l + h + l;
-                break;
-            case 6:
-                slave = h + l + h + l;
-                break;
-            case 7:
-                slave = l + h + h + l;
-                break;
-            case 8:
-                slave = h + h + h + l;
-                break;
-            case 9:
-                slave = l + l + l + h;
-                break;
-            case 10:
-                slave = h + l + l + h;
-                break;
-            case 11:
-                slave = l + h + l + h;
-                break;
-            case 12:
-                slave = h + h + l + h;
-                break;
-            case 13:
-                slave = l + l + h + h;
-                break;
-            case 14:
-                slave = h + l + h + h;
-                break;
-            case 15:
-                slave = l + h + h + h;
-                break;
-            case 16:
-                slave = h + h + h + h;
-                break;
-            default:
-                Log.e("Switch", "No Matching Slave");
-                break;
+        // channelSlave (number)
+        if (channelSlave >= 1 && channelSlave <= 16) {
+            AddressLayout.appendBits(symbols, channelSlave - 1, 4, 'F', '0');
+        } else {
+            Log.e("Switch", "No Matching Slave");
         }
 
-        if (gateway instanceof ConnAir) {
-            if (action.equals(context.getString(R.string.on))) {
-                String ON = headConnAir + master + slave + additional + on + tailConnAir;
-                return ON;
-            } else if (action.equals(context.getString(R.string.off))) {
-                String OFF = headConnAir + master + slave + additional + off + tailConnAir;
-                return OFF;
-            } else {
-                throw new ActionNotSupportedException(action);
-            }
-        } else if (gateway instanceof BrematicGWY433) {
-            if (action.equals(context.getString(R.string.on))) {
-                String ON = headConnAir + master + slave + additional + on + tailConnAir;
-                return ON;
-            } else if (action.equals(context.getString(R.string.off))) {
-                String OFF = headConnAir + master + slave + additional + off + tailConnAir;
-                return OFF;
-            } else {
-                throw new ActionNotSupportedException(action);
-            }
-        } else if (gateway instanceof ITGW433) {
-            if (action.equals(context.getString(R.string.on))) {
-                String ON = headITGW + master + slave + additional + on + tailITGW;
-                return ON;
-            } else if (action.equals(context.getString(R.string.off))) {
-                String OFF = headITGW + master + slave + additional + off + tailITGW;
-                return OFF;
-            } else {
-                throw new ActionNotSupportedException(action);
-            }
+        // additional
+        symbols.append("0F");
+
+        if (buttonId == DatabaseConstants.BUTTON_ON_ID) {
+            symbols.append("FF");
+        } else if (buttonId == DatabaseConstants.BUTTON_OFF_ID) {
+            symbols.append("F0");
         } else {
-            throw new GatewayNotSupportedException();
+            throw new ActionNotSupportedException(buttonId);
         }
+
+        return Protocols.INTERTECHNO.encode(gateway, symbols);
     }
 
     @Override
     public char getMaster() {
-        return channelMaster;
+        return MasterSlaveChannels.getMaster(channels);
     }
 
     @Override
     public int getSlave() {
-        return channelSlave;
+        return MasterSlaveChannels.getSlave(channels);
+    }
+
+    @Override
+    public short getChannels() {
+        return channels;
     }
 
 }
\ No newline at end of file
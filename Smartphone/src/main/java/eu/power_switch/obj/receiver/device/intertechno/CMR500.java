@@ -36,7 +36,7 @@ public class CMR500 extends CMR1000 implements MasterSlaveReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        return super.getSignal(gateway, action);
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        return super.getSignal(gateway, buttonId);
     }
 }
@@ -23,16 +23,16 @@ import android.content.Context;
 import java.util.ArrayList;
 import java.util.Random;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.button.OffButton;
 import eu.power_switch.obj.button.OnButton;
-import eu.power_switch.obj.gateway.BrematicGWY433;
-import eu.power_switch.obj.gateway.ConnAir;
 import eu.power_switch.obj.gateway.Gateway;
-import eu.power_switch.obj.gateway.ITGW433;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
+import eu.power_switch.obj.receiver.MasterSlaveChannels;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.obj.receiver.protocol.AddressLayout;
+import eu.power_switch.obj.receiver.protocol.Protocols;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 import eu.power_switch.shared.log.Log;
@@ -42,31 +42,15 @@ public class IT1500 extends Receiver implements AutoPairReceiver, MasterSlaveRec
     private static final Brand BRAND = Brand.INTERTECHNO;
     private static final String MODEL = Receiver.getModelName(IT1500.class.getCanonicalName());
 
-    private String tx433version = "1,";
-
-    private String sSpeedConnAir = "140";
-    private String headConnAir = "TXP:0,0,6,11125,89,25,";
-    private String headITGW = "0,0,6,11125,89,26,0,";
-    private String headAutoPairConnAir = "TXP:0,0,5,10976,98,66,3,29,";
-    private String headAutoPairITGW = "0,0,5,10976,98,67,0,3,29,";
-
-    private String sSpeedITGW = "125,";
-    private String tailConnAir = tx433version + sSpeedConnAir + ";";
-    private String tailITGW = tx433version + sSpeedITGW + "0";
-    private String tailAutoPairConnAir = "3,126";
-    private String tailAutoPairITGW = "3,112,0";
-
     private long seed = -1;
 
-    private Character channelMaster;
-    private int channelSlave;
+    private short channels;
 
     public IT1500(Context context, Long id, String name, char channelMaster, int channelSlave, Long roomId) {
         super(context, id, name, BRAND, MODEL, Type.MASTER_SLAVE, roomId);
         buttons.add(new OnButton(context, id));
         buttons.add(new OffButton(context, id));
-        this.channelMaster = channelMaster;
-        this.channelSlave = channelSlave;
+        this.channels = MasterSlaveChannels.pack(channelMaster, channelSlave);
     }
 
     public IT1500(Context context, Long id, String name, long seed, Long roomId) {
@@ -128,268 +112,95 @@ public class IT1500 extends Receiver implements AutoPairReceiver, MasterSlaveRec
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
         if (getType().equals(Type.MASTER_SLAVE)) {
-            return getMasterSlaveSignal(gateway, action);
+            return getMasterSlaveSignal(gateway, buttonId);
         } else {
-            return getAutoPairSignal(gateway, action);
+            return getAutoPairSignal(gateway, buttonId);
         }
     }
 
-    private String getMasterSlaveSignal(Gateway gateway, String action) {
-        String lo = "4,";
-        String hi = "12,";
-        String seqLo = lo + hi + lo + hi;
-        String seqFl = lo + hi + hi + lo;
-        String h = seqFl;
-        String l = seqLo;
-        String on = seqFl + seqFl;
-        String off = seqFl + seqLo;
-        String additional = seqLo + seqFl;
-
-        // switch channelMaster (character)
-        String master = "";
-        switch (channelMaster) {
-            case 'A':
-                master = l + l + l + l;
-                break;
-            case 'B':
-                master = h + l + l + l;
-                break;
-            case 'C':
-                master = l + h + l + l;
-                break;
-            case 'D':
-                master = h + h + l + l;
-                break;
-            case 'E':
-                master = l + l + h + l;
-                break;
-            case 'F':
-                master = h + l + h + l;
-                break;
-            case 'G':
-                master = l + h + h + l;
-                break;
-            case 'H':
-                master = h + h + h + l;
-                break;
-            case 'I':
-                master = l + l + l + h;
-                break;
-            case 'J':
-                master = h + l + l + h;
-                break;
-            case 'K':
-                master = l + h + l + h;
-                break;
-            case 'L':
-                master = h + h + l + h;
-                break;
-            case 'M':
-                master = l + l + h + h;
-                break;
-            case 'N':
-                master = h + l + h + h;
-                break;
-            case 'O':
-                master = l + h + h + h;
-                break;
-            case 'P':
-                master = h + h + h + h;
-                break;
-            default:
-                Log.e("Switch", "No Matching Master");
-                break;
+    private String getMasterSlaveSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException {
+        if (!Protocols.INTERTECHNO.supports(gateway)) {
+            return null;
         }
 
-        // switch channelSlave (number)
-        String slave = "";
-        switch (channelSlave) {
-            case 1:
-                slave = l + l + l + l;
-                break;
-            case 2:
-                slave = h + l + l + l;
-                break;
-            case 3:
-                slave = l + h + l + l;
-                break;
-            case 4:
-                slave = h + h + l + l;
-                break;
-            case 5:
-                slave = l + l + h + l;
-                break;
-            case 6:
-                slave = h + l + h + l;
-                break;
-            case 7:
-                slave = l + h + h + l;
-                break;
-            case 8:
-                slave = h + h + h + l;
-                break;
-            case 9:
-                slave = l + l + l + h;
-                break;
-            case 10:
-                slave = h + l + l + h;
-                break;
-            case 11:
-                slave = l + h + l + h;
-                break;
-            case 12:
-                slave = h + h + l + h;
-                break;
-            case 13:
-                slave = l + l + h + h;
-                break;
-            case 14:
-                slave = h + l + h + h;
-                break;
-            case 15:
-                slave = l + h + h + h;
-                break;
-            case 16:
-                slave = h + h + h + h;
-                break;
-            default:
-                Log.e("Switch", "No Matching Slave");
-                break;
-        }
+        StringBuilder symbols = new StringBuilder();
+        char channelMaster = MasterSlaveChannels.getMaster(channels);
+        int channelSlave = MasterSlaveChannels.getSlave(channels);
 
-        if (gateway instanceof ConnAir) {
-            if (action.equals(context.getString(R.string.on))) {
-                String ON = headConnAir + master + slave + additional + on + tailConnAir;
-                return ON;
-            } else {
-                String OFF = headConnAir + master + slave + additional + off + tailConnAir;
-                return OFF;
-            }
-        } else if (gateway instanceof BrematicGWY433) {
-            if (action.equals(context.getString(R.string.on))) {
-                String ON = headConnAir + master + slave + additional + on + tailConnAir;
-                return ON;
-            } else {
-                String OFF = headConnAir + master + slave + additional + off + tailConnAir;
-                return OFF;
-            }
-        } else if (gateway instanceof ITGW433) {
-            if (action.equals(context.getString(R.string.on))) {
-                String ON = headITGW + master + slave + additional + on + tailITGW;
-                return ON;
-            } else {
-                String OFF = headITGW + master + slave + additional + off + tailITGW;
-                return OFF;
-            }
+        // channelMaster (character)
+        if (channelMaster >= 'A' && channelMaster <= 'P') {
+            AddressLayout.appendBits(symbols, channelMaster - 'A', 4, 'F', '0');
         } else {
-            return null;
+            Log.e("Switch", "No Matching Master");
         }
-    }
-
-    private String getAutoPairSignal(Gateway gateway, String action) throws GatewayNotSupportedException,
-            ActionNotSupportedException {
 
-        String lo = "3,";
-        String hi = "15,";
-        String seqLo = lo + lo + lo + hi;
-        String seqFl = lo + hi + lo + lo;
-        String h = seqFl;
-        String l = seqLo;
-        String on = seqLo + seqLo + seqFl;
-        String off = seqLo + seqLo + seqLo;
-        String additional = seqLo + seqLo;
-
-        Random ran = new Random(seed);
-
-        String signal = "";
-        if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
-            signal += headAutoPairConnAir;
-        } else if (gateway instanceof ITGW433) {
-            signal += headAutoPairITGW;
+        // channelSlave (number)
+        if (channelSlave >= 1 && channelSlave <= 16) {
+            AddressLayout.appendBits(symbols, channelSlave - 1, 4, 'F', '0');
         } else {
-            throw new GatewayNotSupportedException();
+            Log.e("Switch", "No Matching Slave");
         }
 
-        // action
-        if (action.equals(context.getString(R.string.unpair_all))) {
-
-            for (int i = 0; i < 24; i++) {
-                signal += l;
-            }
-
-            signal += l + l + h + l;
-            signal += l + l + l + l;
-
-        } else if (action.equals(context.getString(R.string.on)) || action.equals(context.getString(R.string.pair))) {
-
-            signal += h;
+        // additional
+        symbols.append("0F");
 
-            for (int i = 0; i < 24; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
-
-            signal += on;
-
-            for (int i = 0; i < 2; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
-
-            signal += additional;
-
-        } else if (action.equals(context.getString(R.string.off)) || action.equals(context.getString(R.string.unpair))) {
-
-            signal += h;
+        if (buttonId == DatabaseConstants.BUTTON_ON_ID) {
+            symbols.append("FF");
+        } else {
+            symbols.append("F0");
+        }
 
-            for (int i = 0; i < 24; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
+        return Protocols.INTERTECHNO.encode(gateway, symbols);
+    }
 
-            signal += off;
+    private String getAutoPairSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException,
+            ActionNotSupportedException {
+        if (!Protocols.INTERTECHNO_AUTOPAIR.supports(gateway)) {
+            throw new GatewayNotSupportedException();
+        }
 
-            for (int i = 0; i < 2; i++) {
-                if (ran.nextBoolean()) {
-                    signal += h;
-                } else {
-                    signal += l;
-                }
-            }
+        Random ran = new Random(seed);
+        StringBuilder symbols = new StringBuilder();
 
-            signal += additional;
+        // action
+        if (buttonId == DatabaseConstants.BUTTON_UNPAIR_ALL_ID) {
+            symbols.append("000000000000000000000000");
+            symbols.append("0010");
+            symbols.append("0000");
+        } else if (buttonId == DatabaseConstants.BUTTON_ON_ID || buttonId == DatabaseConstants.BUTTON_PAIR_ID) {
+            symbols.append('1');
+            AddressLayout.appendRandomBits(symbols, ran, 24, '1', '0');
+            symbols.append("001");
+            AddressLayout.appendRandomBits(symbols, ran, 2, '1', '0');
+            symbols.append("00");
+        } else if (buttonId == DatabaseConstants.BUTTON_OFF_ID || buttonId == DatabaseConstants.BUTTON_UNPAIR_ID) {
+            symbols.append('1');
+            AddressLayout.appendRandomBits(symbols, ran, 24, '1', '0');
+            symbols.append("000");
+            AddressLayout.appendRandomBits(symbols, ran, 2, '1', '0');
+            symbols.append("00");
         } else {
-            throw new ActionNotSupportedException(action);
+            throw new ActionNotSupportedException(buttonId);
         }
 
-        if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
-            signal += tailAutoPairConnAir;
-        } else if (gateway instanceof ITGW433) {
-            signal += tailAutoPairITGW;
-        }
-
-        return signal;
+        return Protocols.INTERTECHNO_AUTOPAIR.encode(gateway, symbols);
     }
 
     @Override
     public char getMaster() {
-        return channelMaster;
+        return MasterSlaveChannels.getMaster(channels);
     }
 
     @Override
     public int getSlave() {
-        return channelSlave;
+        return MasterSlaveChannels.getSlave(channels);
+    }
+
+    @Override
+    public short getChannels() {
+        return channels;
     }
 
     @Override
@@ -22,16 +22,16 @@ import android.content.Context;
 
 import java.util.ArrayList;
 
-import eu.power_switch.R;
-import eu.power_switch.obj.button.Button;
 import eu.power_switch.obj.button.OffButton;
 import eu.power_switch.obj.button.OnButton;
 import eu.power_switch.obj.gateway.BrematicGWY433;
 import eu.power_switch.obj.gateway.ConnAir;
 import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.gateway.ITGW433;
+import eu.power_switch.obj.receiver.MasterSlaveChannels;
 import eu.power_switch.obj.receiver.MasterSlaveReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 import eu.power_switch.shared.log.Log;
@@ -51,15 +51,13 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
     private String headITGW = "0,0,10,11200,350,26,0,";
     private String tailITGW = tx433version + sSpeedITGW + "0";
 
-    private Character channelMaster;
-    private int channelSlave;
+    private short channels;
 
     public Telecontrol(Context context, Long id, String name, char channelMaster, int channelSlave, Long roomId) {
         super(context, id, name, BRAND, MODEL, Type.MASTER_SLAVE, roomId);
         buttons.add(new OnButton(context, id));
         buttons.add(new OffButton(context, id));
-        this.channelMaster = channelMaster;
-        this.channelSlave = channelSlave;
+        this.channels = MasterSlaveChannels.pack(channelMaster, channelSlave);
     }
 
     public ArrayList<String> getMasterNames() {
@@ -80,16 +78,9 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        boolean actionSupported = false;
-        for (Button button : buttons) {
-            if (button.getName().equals(action)) {
-                actionSupported = true;
-                break;
-            }
-        }
-        if (!actionSupported) {
-            throw new ActionNotSupportedException(action);
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        if (!hasButton(buttonId)) {
+            throw new ActionNotSupportedException(buttonId);
         }
 
         String lo = "1,";
@@ -105,7 +96,7 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
 
         // switch channelMaster (character)
         String master = "";
-        switch (channelMaster) {
+        switch (MasterSlaveChannels.getMaster(channels)) {
             case 'A':
                 master = l + h + h + h;
                 break;
@@ -125,7 +116,7 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
 
         // switch channelSlave (number)
         String slave = "";
-        switch (channelSlave) {
+        switch (MasterSlaveChannels.getSlave(channels)) {
             case 1:
                 slave = l + h + h;
                 break;
@@ -141,7 +132,7 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
         }
 
         if (gateway instanceof ConnAir) {
-            if (action.equals(context.getString(R.string.on))) {
+            if (buttonId == DatabaseConstants.BUTTON_ON_ID) {
                 String ON = headConnAir + master + slave + additional + on + tailConnAir;
                 return ON;
             } else {
@@ -149,7 +140,7 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
                 return OFF;
             }
         } else if (gateway instanceof BrematicGWY433) {
-            if (action.equals(context.getString(R.string.on))) {
+            if (buttonId == DatabaseConstants.BUTTON_ON_ID) {
                 String ON = headConnAir + master + slave + additional + on + tailConnAir;
                 return ON;
             } else {
@@ -157,7 +148,7 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
                 return OFF;
             }
         } else if (gateway instanceof ITGW433) {
-            if (action.equals(context.getString(R.string.on))) {
+            if (buttonId == DatabaseConstants.BUTTON_ON_ID) {
                 String ON = headITGW + master + slave + additional + on + tailITGW;
                 return ON;
             } else {
@@ -171,11 +162,16 @@ public class Telecontrol extends Receiver implements MasterSlaveReceiver {
 
     @Override
     public char getMaster() {
-        return channelMaster;
+        return MasterSlaveChannels.getMaster(channels);
     }
 
     @Override
     public int getSlave() {
-        return channelSlave;
+        return MasterSlaveChannels.getSlave(channels);
+    }
+
+    @Override
+    public short getChannels() {
+        return channels;
     }
 }
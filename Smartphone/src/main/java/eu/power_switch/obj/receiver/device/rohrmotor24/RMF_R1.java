@@ -22,7 +22,6 @@ import android.content.Context;
 
 import java.util.Random;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.button.DownButton;
 import eu.power_switch.obj.button.StopButton;
 import eu.power_switch.obj.button.UpButton;
@@ -32,6 +31,7 @@ import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.gateway.ITGW433;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 
@@ -66,7 +66,7 @@ public class RMF_R1 extends Receiver implements AutoPairReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
         String lo = "4,";
         String hi = "8,";
         String seqLo = lo + hi;
@@ -89,7 +89,7 @@ public class RMF_R1 extends Receiver implements AutoPairReceiver {
         }
 
         // action
-        if (action.equals(context.getString(R.string.pair))) {
+        if (buttonId == DatabaseConstants.BUTTON_PAIR_ID) {
             for (int i = 0; i < 32; i++) {
                 if (ran.nextBoolean()) {
                     signal += h;
@@ -109,7 +109,7 @@ public class RMF_R1 extends Receiver implements AutoPairReceiver {
                 throw new GatewayNotSupportedException();
             }
 
-        } else if (action.equals(context.getString(R.string.up))) {
+        } else if (buttonId == DatabaseConstants.BUTTON_UP_ID) {
             for (int i = 0; i < 32; i++) {
                 if (ran.nextBoolean()) {
                     signal += h;
@@ -119,7 +119,7 @@ public class RMF_R1 extends Receiver implements AutoPairReceiver {
             }
 
             signal += up;
-        } else if (action.equals(context.getString(R.string.stop))) {
+        } else if (buttonId == DatabaseConstants.BUTTON_STOP_ID) {
             for (int i = 0; i < 32; i++) {
                 if (ran.nextBoolean()) {
                     signal += h;
@@ -129,7 +129,7 @@ public class RMF_R1 extends Receiver implements AutoPairReceiver {
             }
 
             signal += stop;
-        } else if (action.equals(context.getString(R.string.down))) {
+        } else if (buttonId == DatabaseConstants.BUTTON_DOWN_ID) {
             for (int i = 0; i < 32; i++) {
                 if (ran.nextBoolean()) {
                     signal += h;
@@ -140,7 +140,7 @@ public class RMF_R1 extends Receiver implements AutoPairReceiver {
 
             signal += down;
         } else {
-            throw new ActionNotSupportedException(action);
+            throw new ActionNotSupportedException(buttonId);
         }
 
         if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
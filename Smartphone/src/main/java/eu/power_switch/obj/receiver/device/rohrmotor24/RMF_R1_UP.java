@@ -22,7 +22,6 @@ import android.content.Context;
 
 import java.util.Random;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.button.UpButton;
 import eu.power_switch.obj.gateway.BrematicGWY433;
 import eu.power_switch.obj.gateway.ConnAir;
@@ -30,6 +29,7 @@ import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.gateway.ITGW433;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 
@@ -62,7 +62,7 @@ public class RMF_R1_UP extends Receiver implements AutoPairReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
         String lo = "4,";
         String hi = "8,";
         String seqLo = lo + hi;
@@ -77,7 +77,7 @@ public class RMF_R1_UP extends Receiver implements AutoPairReceiver {
 
 
         // action
-        if (action.equals(context.getString(R.string.pair))) {
+        if (buttonId == DatabaseConstants.BUTTON_PAIR_ID) {
             String signal = "";
 
             if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
@@ -116,7 +116,7 @@ public class RMF_R1_UP extends Receiver implements AutoPairReceiver {
             throw new GatewayNotSupportedException();
         }
 
-        if (action.equals(context.getString(R.string.up))) {
+        if (buttonId == DatabaseConstants.BUTTON_UP_ID) {
             for (int i = 0; i < 32; i++) {
                 if (ran.nextBoolean()) {
                     signal += h;
@@ -127,7 +127,7 @@ public class RMF_R1_UP extends Receiver implements AutoPairReceiver {
 
             signal += up;
         } else {
-            throw new ActionNotSupportedException(action);
+            throw new ActionNotSupportedException(buttonId);
         }
 
         if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
@@ -22,7 +22,6 @@ import android.content.Context;
 
 import java.util.Random;
 
-import eu.power_switch.R;
 import eu.power_switch.obj.button.OffButton;
 import eu.power_switch.obj.button.OnButton;
 import eu.power_switch.obj.gateway.BrematicGWY433;
@@ -31,6 +30,7 @@ import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.gateway.ITGW433;
 import eu.power_switch.obj.receiver.AutoPairReceiver;
 import eu.power_switch.obj.receiver.Receiver;
+import eu.power_switch.shared.constants.DatabaseConstants;
 import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
 import eu.power_switch.shared.exception.receiver.ActionNotSupportedException;
 
@@ -70,11 +70,11 @@ public class HX2262_Comp extends Receiver implements AutoPairReceiver {
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        return getAutoPairSignal(gateway, action);
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        return getAutoPairSignal(gateway, buttonId);
     }
 
-    private String getAutoPairSignal(Gateway gateway, String action) throws GatewayNotSupportedException,
+    private String getAutoPairSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException,
             ActionNotSupportedException {
 
         String lo = "3,";
@@ -99,7 +99,7 @@ public class HX2262_Comp extends Receiver implements AutoPairReceiver {
         }
 
         // action
-        if (action.equals(context.getString(R.string.unpair_all))) {
+        if (buttonId == DatabaseConstants.BUTTON_UNPAIR_ALL_ID) {
 
             for (int i = 0; i < 24; i++) {
                 signal += l;
@@ -108,7 +108,7 @@ public class HX2262_Comp extends Receiver implements AutoPairReceiver {
             signal += l + l + h + l;
             signal += l + l + l + l;
 
-        } else if (action.equals(context.getString(R.string.on)) || action.equals(context.getString(R.string.pair))) {
+        } else if (buttonId == DatabaseConstants.BUTTON_ON_ID || buttonId == DatabaseConstants.BUTTON_PAIR_ID) {
 
             signal += h;
 
@@ -132,7 +132,7 @@ public class HX2262_Comp extends Receiver implements AutoPairReceiver {
 
             signal += additional;
 
-        } else if (action.equals(context.getString(R.string.off)) || action.equals(context.getString(R.string.unpair))) {
+        } else if (buttonId == DatabaseConstants.BUTTON_OFF_ID || buttonId == DatabaseConstants.BUTTON_UNPAIR_ID) {
 
             signal += h;
 
@@ -156,7 +156,7 @@ public class HX2262_Comp extends Receiver implements AutoPairReceiver {
 
             signal += additional;
         } else {
-            throw new ActionNotSupportedException(action);
+            throw new ActionNotSupportedException(buttonId);
         }
 
         if (gateway instanceof ConnAir || gateway instanceof BrematicGWY433) {
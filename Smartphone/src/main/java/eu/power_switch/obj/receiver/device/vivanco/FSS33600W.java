@@ -20,8 +20,6 @@ package eu.power_switch.obj.receiver.device.vivanco;
 
 import android.content.Context;
 
-import java.util.LinkedList;
-
 import eu.power_switch.obj.gateway.Gateway;
 import eu.power_switch.obj.receiver.DipReceiver;
 import eu.power_switch.obj.receiver.Receiver;
@@ -33,13 +31,13 @@ public class FSS33600W extends FSS31000W implements DipReceiver {
 
     private static final String MODEL = Receiver.getModelName(FSS33600W.class.getCanonicalName());
 
-    public FSS33600W(Context context, Long id, String name, LinkedList<Boolean> dips, Long roomId) {
-        super(context, id, name, dips, roomId);
+    public FSS33600W(Context context, Long id, String name, int dipMask, Long roomId) {
+        super(context, id, name, dipMask, roomId);
         model = MODEL;
     }
 
     @Override
-    public String getSignal(Gateway gateway, String action) throws GatewayNotSupportedException, ActionNotSupportedException {
-        return super.getSignal(gateway, action);
+    public String getSignal(Gateway gateway, long buttonId) throws GatewayNotSupportedException, ActionNotSupportedException {
+        return super.getSignal(gateway, buttonId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver.protocol;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+/**
+ * Helpers to write the address of a Receiver as symbols of its protocol
+ */
+public final class AddressLayout {
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private AddressLayout() {
+        throw new UnsupportedOperationException("This class is non-instantiable.");
+    }
+
+    /**
+     * Append a range of dip switches
+     *
+     * @param symbols   symbols to append to
+     * @param dipMask   states of all dip switches, bit n is set if dip switch n is checked
+     * @param from      index of first dip switch (inclusive)
+     * @param to        index of last dip switch (exclusive)
+     * @param checked   symbol of a checked dip switch
+     * @param unchecked symbol of an unchecked dip switch
+     */
+    public static void appendDips(@NonNull StringBuilder symbols, int dipMask, int from, int to,
+                                  char checked, char unchecked) {
+        for (int i = from; i < to; i++) {
+            symbols.append((dipMask >> i & 1) == 1 ? checked : unchecked);
+        }
+    }
+
+    /**
+     * Append the lowest bits of a value, least significant bit first
+     *
+     * @param symbols  symbols to append to
+     * @param value    value
+     * @param bitCount number of bits
+     * @param one      symbol of a set bit
+     * @param zero     symbol of a cleared bit
+     */
+    public static void appendBits(@NonNull StringBuilder symbols, int value, int bitCount, char one, char zero) {
+        for (int i = 0; i < bitCount; i++) {
+            symbols.append((value >> i & 1) == 1 ? one : zero);
+        }
+    }
+
+    /**
+     * Append random bits
+     * <p/>
+     * The random generator should be seeded with the seed of the Receiver, so the same address is generated every time.
+     *
+     * @param symbols  symbols to append to
+     * @param random   random generator
+     * @param bitCount number of bits
+     * @param one      symbol of a set bit
+     * @param zero     symbol of a cleared bit
+     */
+    public static void appendRandomBits(@NonNull StringBuilder symbols, @NonNull Random random, int bitCount,
+                                        char one, char zero) {
+        for (int i = 0; i < bitCount; i++) {
+            symbols.append(random.nextBoolean() ? one : zero);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver.protocol;
+
+import android.support.annotation.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import eu.power_switch.obj.gateway.Gateway;
+
+/**
+ * Describes the RF protocol of a Receiver
+ * <p/>
+ * A protocol consists of:
+ * <ul>
+ * <li>timing: the length of a short (lo) and a long (hi) pulse</li>
+ * <li>symbol table: every symbol (e.g. '0', '1', 'F') is a pattern of lo ('0') and hi ('1') pulses</li>
+ * <li>framing: head and tail of the signal, for every supported Gateway type</li>
+ * </ul>
+ * The address and command of a signal are written as a sequence of symbols (see {@link AddressLayout}).
+ * A descriptor is compiled into a {@link SignalEncoder} once, usually in a static field of the Receiver class.
+ */
+public class ProtocolDescriptor {
+
+    /**
+     * Length of a short pulse, including separator
+     */
+    private final String lo;
+    /**
+     * Length of a long pulse, including separator
+     */
+    private final String hi;
+    /**
+     * Map <Symbol> -> <Pulse pattern>
+     */
+    private final Map<Character, String> symbols = new LinkedHashMap<>();
+    /**
+     * Map <Gateway class> -> {<Head>, <Tail>}
+     */
+    private final Map<Class<? extends Gateway>, String[]> framings = new LinkedHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param lo length of a short pulse, including separator (e.g. "1,")
+     * @param hi length of a long pulse, including separator (e.g. "3,")
+     */
+    public ProtocolDescriptor(@NonNull String lo, @NonNull String hi) {
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * Add a symbol to the symbol table
+     *
+     * @param symbol  symbol
+     * @param pattern pulse pattern of the symbol, '0' for a short and '1' for a long pulse (e.g. "0110")
+     * @return this descriptor
+     */
+    public ProtocolDescriptor addSymbol(char symbol, @NonNull String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char pulse = pattern.charAt(i);
+            if (pulse != '0' && pulse != '1') {
+                throw new IllegalArgumentException("invalid pulse pattern: " + pattern);
+            }
+        }
+        symbols.put(symbol, pattern);
+        return this;
+    }
+
+    /**
+     * Add the framing for a type of Gateway
+     * <p/>
+     * The framing also applies to subclasses of the Gateway class, an existing framing for the same class is replaced.
+     *
+     * @param gatewayClass type of Gateway
+     * @param head         head of the signal
+     * @param tail         tail of the signal
+     * @return this descriptor
+     */
+    public ProtocolDescriptor addFraming(@NonNull Class<? extends Gateway> gatewayClass,
+                                         @NonNull String head, @NonNull String tail) {
+        framings.put(gatewayClass, new String[]{head, tail});
+        return this;
+    }
+
+    /**
+     * Compile this descriptor into an encoder
+     *
+     * @return encoder
+     */
+    @NonNull
+    public SignalEncoder compile() {
+        Map<Character, String> symbolPulses = new LinkedHashMap<>();
+        for (Map.Entry<Character, String> symbol : symbols.entrySet()) {
+            StringBuilder pulses = new StringBuilder();
+            String pattern = symbol.getValue();
+            for (int i = 0; i < pattern.length(); i++) {
+                pulses.append(pattern.charAt(i) == '1' ? hi : lo);
+            }
+            symbolPulses.put(symbol.getKey(), pulses.toString());
+        }
+        return new SignalEncoder(symbolPulses, framings);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver.protocol;
+
+import android.support.annotation.NonNull;
+
+import eu.power_switch.obj.gateway.BrematicGWY433;
+import eu.power_switch.obj.gateway.ConnAir;
+import eu.power_switch.obj.gateway.ITGW433;
+
+/**
+ * Protocols shared by many Receiver models
+ */
+public final class Protocols {
+
+    /**
+     * PT2262 (dip switch) protocol
+     * <p/>
+     * Symbols: '0' (low) and 'F' (floating)
+     */
+    public static final SignalEncoder PT2262 = newPT2262Descriptor("0,0,10,11200,350,26,0,", "125,").compile();
+
+    /**
+     * Intertechno master/slave (code wheel) protocol
+     * <p/>
+     * Symbols: '0' (low) and 'F' (floating)
+     */
+    public static final SignalEncoder INTERTECHNO = new ProtocolDescriptor("4,", "12,")
+            .addSymbol('0', "0101")
+            .addSymbol('F', "0110")
+            .addFraming(ConnAir.class, "TXP:0,0,6,11125,89,25,", "1,140;")
+            .addFraming(BrematicGWY433.class, "TXP:0,0,6,11125,89,25,", "1,140;")
+            .addFraming(ITGW433.class, "0,0,6,11125,89,26,0,", "1,125,0")
+            .compile();
+
+    /**
+     * Intertechno self learning (autopair) protocol
+     * <p/>
+     * Symbols: '0' and '1'
+     */
+    public static final SignalEncoder INTERTECHNO_AUTOPAIR = newIntertechnoAutoPairDescriptor("3,", "15,").compile();
+
+    /**
+     * Private Constructor
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private Protocols() {
+        throw new UnsupportedOperationException("This class is non-instantiable.");
+    }
+
+    /**
+     * Create a descriptor of the Intertechno self learning (autopair) protocol with custom timing
+     *
+     * @param lo length of a short pulse
+     * @param hi length of a long pulse
+     * @return descriptor
+     */
+    @NonNull
+    public static ProtocolDescriptor newIntertechnoAutoPairDescriptor(@NonNull String lo, @NonNull String hi) {
+        return new ProtocolDescriptor(lo, hi)
+                .addSymbol('0', "0001")
+                .addSymbol('1', "0100")
+                .addFraming(ConnAir.class, "TXP:0,0,5,10976,98,66,3,29,", "3,126")
+                .addFraming(BrematicGWY433.class, "TXP:0,0,5,10976,98,66,3,29,", "3,126")
+                .addFraming(ITGW433.class, "0,0,5,10976,98,67,0,3,29,", "3,112,0");
+    }
+
+    /**
+     * Create a descriptor of the PT2262 (dip switch) protocol
+     * <p/>
+     * Symbols: '0' (low) and 'F' (floating)
+     *
+     * @param itgwHead  head of the signal for ITGW433 Gateways
+     * @param itgwSpeed speed parameter of the signal for ITGW433 Gateways
+     * @return descriptor
+     */
+    @NonNull
+    public static ProtocolDescriptor newPT2262Descriptor(@NonNull String itgwHead, @NonNull String itgwSpeed) {
+        return new ProtocolDescriptor("1,", "3,")
+                .addSymbol('0', "0101")
+                .addSymbol('F', "0110")
+                .addFraming(ConnAir.class, "TXP:0,0,10,5600,350,25,", "1,14;")
+                .addFraming(BrematicGWY433.class, "TXP:0,0,10,5600,350,25,", "1,14;")
+                .addFraming(ITGW433.class, itgwHead, "1," + itgwSpeed + "0");
+    }
+}
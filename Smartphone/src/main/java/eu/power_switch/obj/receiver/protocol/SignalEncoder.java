@@ -0,0 +1,171 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.power_switch.obj.receiver.protocol;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.power_switch.obj.gateway.Gateway;
+import eu.power_switch.shared.exception.gateway.GatewayNotSupportedException;
+
+/**
+ * Compiled form of a {@link ProtocolDescriptor}
+ * <p/>
+ * Every symbol and the head and tail of every Gateway type are precomputed as ASCII bytes,
+ * so encoding a signal only copies these templates into a buffer of the right size.
+ * Signals can be encoded into an existing buffer (see {@link #encode(Gateway, CharSequence, ByteBuffer)})
+ * to avoid creating any garbage.
+ */
+public class SignalEncoder {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * Marker for Gateway types without framing
+     */
+    private static final byte[][] NOT_SUPPORTED = new byte[0][];
+
+    /**
+     * Pulses of every symbol, indexed by symbol
+     */
+    private final byte[][] symbolTable = new byte[128][];
+    /**
+     * Map <Gateway class> -> {<Head>, <Tail>}, as declared in the descriptor
+     */
+    private final Map<Class<? extends Gateway>, byte[][]> framings = new HashMap<>();
+    /**
+     * Map <Gateway class> -> {<Head>, <Tail>}, including subclasses of declared Gateway classes
+     */
+    private final ConcurrentHashMap<Class<?>, byte[][]> resolvedFramings = new ConcurrentHashMap<>();
+
+    SignalEncoder(Map<Character, String> symbolPulses, Map<Class<? extends Gateway>, String[]> framings) {
+        for (Map.Entry<Character, String> symbol : symbolPulses.entrySet()) {
+            char character = symbol.getKey();
+            if (character >= symbolTable.length) {
+                throw new IllegalArgumentException("symbol must be ASCII: " + character);
+            }
+            symbolTable[character] = symbol.getValue().getBytes(ASCII);
+        }
+
+        for (Map.Entry<Class<? extends Gateway>, String[]> framing : framings.entrySet()) {
+            this.framings.put(framing.getKey(), new byte[][]{
+                    framing.getValue()[0].getBytes(ASCII),
+                    framing.getValue()[1].getBytes(ASCII)});
+        }
+    }
+
+    /**
+     * Check if a Gateway is supported by this protocol
+     *
+     * @param gateway Gateway
+     * @return true if there is a framing for the type of Gateway
+     */
+    public boolean supports(@NonNull Gateway gateway) {
+        return getFraming(gateway) != NOT_SUPPORTED;
+    }
+
+    /**
+     * Encode a signal
+     *
+     * @param gateway Gateway the signal is sent through
+     * @param symbols address and command of the signal as symbols
+     * @return network signal
+     * @throws GatewayNotSupportedException if there is no framing for the type of Gateway
+     */
+    @NonNull
+    public String encode(@NonNull Gateway gateway, @NonNull CharSequence symbols) throws GatewayNotSupportedException {
+        byte[] signal = new byte[getEncodedLength(gateway, symbols)];
+        encode(gateway, symbols, ByteBuffer.wrap(signal));
+        return new String(signal, ASCII);
+    }
+
+    /**
+     * Encode a signal into a buffer
+     *
+     * @param gateway Gateway the signal is sent through
+     * @param symbols address and command of the signal as symbols
+     * @param buffer  buffer with at least {@link #getEncodedLength(Gateway, CharSequence)} bytes remaining
+     * @throws GatewayNotSupportedException if there is no framing for the type of Gateway
+     */
+    public void encode(@NonNull Gateway gateway, @NonNull CharSequence symbols, @NonNull ByteBuffer buffer)
+            throws GatewayNotSupportedException {
+        byte[][] framing = getSupportedFraming(gateway);
+        buffer.put(framing[0]);
+        for (int i = 0; i < symbols.length(); i++) {
+            buffer.put(getPulses(symbols.charAt(i)));
+        }
+        buffer.put(framing[1]);
+    }
+
+    /**
+     * Get length of an encoded signal
+     *
+     * @param gateway Gateway the signal is sent through
+     * @param symbols address and command of the signal as symbols
+     * @return length in bytes
+     * @throws GatewayNotSupportedException if there is no framing for the type of Gateway
+     */
+    public int getEncodedLength(@NonNull Gateway gateway, @NonNull CharSequence symbols)
+            throws GatewayNotSupportedException {
+        byte[][] framing = getSupportedFraming(gateway);
+        int length = framing[0].length + framing[1].length;
+        for (int i = 0; i < symbols.length(); i++) {
+            length += getPulses(symbols.charAt(i)).length;
+        }
+        return length;
+    }
+
+    private byte[] getPulses(char symbol) {
+        byte[] pulses = symbol < symbolTable.length ? symbolTable[symbol] : null;
+        if (pulses == null) {
+            throw new IllegalArgumentException("unknown symbol: " + symbol);
+        }
+        return pulses;
+    }
+
+    private byte[][] getSupportedFraming(Gateway gateway) throws GatewayNotSupportedException {
+        byte[][] framing = getFraming(gateway);
+        if (framing == NOT_SUPPORTED) {
+            throw new GatewayNotSupportedException();
+        }
+        return framing;
+    }
+
+    private byte[][] getFraming(Gateway gateway) {
+        Class<?> gatewayClass = gateway.getClass();
+        byte[][] framing = resolvedFramings.get(gatewayClass);
+        if (framing == null) {
+            framing = NOT_SUPPORTED;
+            for (Class<?> c = gatewayClass; c != null; c = c.getSuperclass()) {
+                byte[][] declaredFraming = framings.get(c);
+                if (declaredFraming != null) {
+                    framing = declaredFraming;
+                    break;
+                }
+            }
+            resolvedFramings.put(gatewayClass, framing);
+        }
+        return framing;
+    }
+}
@@ -26,6 +26,7 @@ import android.widget.Toast;
 import java.io.File;
 
 import eu.power_switch.backup.BackupHandler;
+import eu.power_switch.database.handler.DatabaseHandler;
 import eu.power_switch.developer.PlayStoreModeDataModel;
 import eu.power_switch.shared.constants.SettingsConstants;
 import eu.power_switch.shared.log.Log;
@@ -111,10 +112,10 @@ public class SmartphonePreferencesHandler {
         stockAlarmClockEnabledCache = sharedPreferences.getBoolean(SettingsConstants.STOCK_ALARM_CLOCK_ENABLED_KEY, true);
 
         if (!DeveloperPreferencesHandler.getPlayStoreMode()) {
-            currentApartmentIdCache = sharedPreferences.getLong(SettingsConstants.CURRENT_APARTMENT_ID_KEY, SettingsConstants.INVALID_APARTMENT_ID);
+            updateCurrentApartmentIdCache(sharedPreferences.getLong(SettingsConstants.CURRENT_APARTMENT_ID_KEY, SettingsConstants.INVALID_APARTMENT_ID));
         } else {
             PlayStoreModeDataModel playStoreModeDataModel = new PlayStoreModeDataModel(SmartphonePreferencesHandler.context);
-            currentApartmentIdCache = PlayStoreModeDataModel.getApartments().get(0).getId();
+            updateCurrentApartmentIdCache(PlayStoreModeDataModel.getApartments().get(0).getId());
         }
 
         Log.d(SmartphonePreferencesHandler.class, "AutoDiscover: " + autoDiscoverCache);
@@ -447,7 +448,15 @@ public class SmartphonePreferencesHandler {
         editor.putLong(SettingsConstants.CURRENT_APARTMENT_ID_KEY, apartmentId);
         editor.apply();
 
-        currentApartmentIdCache = apartmentId;
+        updateCurrentApartmentIdCache(apartmentId);
+    }
+
+    private static void updateCurrentApartmentIdCache(long apartmentId) {
+        if (apartmentId != currentApartmentIdCache) {
+            currentApartmentIdCache = apartmentId;
+            // the active state of all cached Apartments depends on it
+            DatabaseHandler.invalidateCache();
+        }
     }
 
     /**
@@ -0,0 +1,224 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package eu.power_switch.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link HttpConnectionPool}
+ * <p/>
+ * Every test talks to a local server that answers each request path with a canned raw response and keeps the
+ * connection open unless the response says otherwise. The timeouts of the tests are below the read timeout
+ * of the pool, so a response that is not framed correctly makes the test fail instead of just being slow.
+ */
+public class HttpConnectionPoolTest {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String HOST = "127.0.0.1";
+
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger(0);
+
+    private ServerSocket serverSocket;
+    private HttpConnectionPool connectionPool;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getByName(HOST));
+        Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        connectionCount.incrementAndGet();
+                        new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        }).start();
+                    }
+                } catch (IOException e) {
+                    // server socket closed
+                }
+            }
+        });
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        connectionPool = new HttpConnectionPool(new AddressCache());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        connectionPool.closeAll();
+        serverSocket.close();
+    }
+
+    @Test(timeout = 2000)
+    public void noContentResponseEndsAfterHeader() throws Exception {
+        responses.put("/empty", "HTTP/1.1 204 No Content\r\n\r\n");
+        responses.put("/ok", "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        assertNull(get("empty"));
+        assertEquals("ok", get("ok"));
+        assertEquals(1, connectionCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void notModifiedResponseHasNoBodyDespiteContentLength() throws Exception {
+        responses.put("/cached", "HTTP/1.1 304 Not Modified\r\nContent-Length: 10\r\n\r\n");
+        responses.put("/ok", "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        assertNull(get("cached"));
+        assertEquals("ok", get("ok"));
+        assertEquals(1, connectionCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void interimResponsesAreSkipped() throws Exception {
+        responses.put("/ok", "HTTP/1.1 100 Continue\r\n\r\n" +
+                "HTTP/1.1 102 Processing\r\n\r\n" +
+                "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        assertEquals("ok", get("ok"));
+        assertEquals("ok", get("ok"));
+        assertEquals(1, connectionCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void chunkedResponseIsRead() throws Exception {
+        responses.put("/chunked", "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "3\r\nfoo\r\n3\r\nbar\r\n0\r\n\r\n");
+
+        assertEquals("foobar", get("chunked"));
+        assertEquals("foobar", get("chunked"));
+        assertEquals(1, connectionCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void pipelinedResponsesAreReturnedInOrder() throws Exception {
+        responses.put("/a", "HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\na");
+        responses.put("/b", "HTTP/1.1 204 No Content\r\n\r\n");
+        responses.put("/c", "HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\nc");
+
+        List<HttpConnectionPool.Response> result = connectionPool.get(HOST, serverSocket.getLocalPort(),
+                Arrays.asList("a", "b", "c"));
+
+        assertEquals(3, result.size());
+        assertEquals("a", result.get(0).getBody());
+        assertNull(result.get(1).getBody());
+        assertEquals("c", result.get(2).getBody());
+        assertEquals(1, connectionCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void remainingRequestsAreSentAgainAfterConnectionClose() throws Exception {
+        responses.put("/close", "HTTP/1.1 200 OK\r\nContent-Length: 5\r\nConnection: close\r\n\r\nclose");
+        responses.put("/ok", "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        List<HttpConnectionPool.Response> result = connectionPool.get(HOST, serverSocket.getLocalPort(),
+                Arrays.asList("close", "ok"));
+
+        assertEquals("close", result.get(0).getBody());
+        assertEquals("ok", result.get(1).getBody());
+        assertEquals(2, connectionCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void errorStatusFailsOnlyItsOwnRequest() throws Exception {
+        responses.put("/missing", "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n");
+        responses.put("/ok", "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        List<HttpConnectionPool.Response> result = connectionPool.get(HOST, serverSocket.getLocalPort(),
+                Arrays.asList("missing", "ok"));
+
+        try {
+            result.get(0).getBody();
+            throw new AssertionError("expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals("ok", result.get(1).getBody());
+    }
+
+    @Test
+    public void bodilessResponsesFollowRfc7230() {
+        assertFalse(HttpConnectionPool.hasBody("GET", 100));
+        assertFalse(HttpConnectionPool.hasBody("GET", 204));
+        assertFalse(HttpConnectionPool.hasBody("GET", 304));
+        assertFalse(HttpConnectionPool.hasBody("HEAD", 200));
+        assertTrue(HttpConnectionPool.hasBody("GET", 200));
+        assertTrue(HttpConnectionPool.hasBody("GET", 404));
+    }
+
+    private String get(String path) throws IOException {
+        return connectionPool.get(HOST, serverSocket.getLocalPort(), path);
+    }
+
+    /**
+     * Answer all requests of a connection with the canned responses
+     */
+    private void serve(Socket socket) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), CHARSET));
+            OutputStream outputStream = socket.getOutputStream();
+            String requestLine;
+            while ((requestLine = reader.readLine()) != null) {
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    // skip header
+                }
+
+                String response = responses.get(requestLine.split(" ")[1]);
+                outputStream.write(response.getBytes(CHARSET));
+                outputStream.flush();
+                if (response.contains("Connection: close")) {
+                    break;
+                }
+            }
+            socket.close();
+        } catch (IOException e) {
+            // connection closed by the client
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package eu.power_switch.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link RateLimiter}
+ */
+public class RateLimiterTest {
+
+    private static final long START = 10000;
+
+    private RateLimiter rateLimiter;
+
+    @Before
+    public void setUp() {
+        rateLimiter = new RateLimiter();
+    }
+
+    @Test
+    public void unlimitedGatewayNeverWaits() {
+        rateLimiter.configure(1, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, rateLimiter.getDelay(START));
+            rateLimiter.acquire(START);
+        }
+        assertEquals(0, rateLimiter.getDelay(START));
+    }
+
+    @Test
+    public void burstIsSentWithoutWaiting() {
+        rateLimiter.configure(3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.getDelay(START));
+            rateLimiter.acquire(START);
+        }
+        assertEquals(100, rateLimiter.getDelay(START));
+    }
+
+    @Test
+    public void tokensAreRefilledOverTime() {
+        rateLimiter.configure(2, 100);
+        rateLimiter.acquire(START);
+        rateLimiter.acquire(START);
+
+        assertEquals(100, rateLimiter.getDelay(START));
+        assertEquals(50, rateLimiter.getDelay(START + 50));
+        assertEquals(0, rateLimiter.getDelay(START + 100));
+
+        rateLimiter.acquire(START + 100);
+        assertEquals(100, rateLimiter.getDelay(START + 100));
+    }
+
+    @Test
+    public void refillIsCappedAtBurstSize() {
+        rateLimiter.configure(2, 100);
+        rateLimiter.getDelay(START);
+
+        // a long idle period must not allow more than one burst
+        long now = START + 100000;
+        rateLimiter.acquire(now);
+        rateLimiter.acquire(now);
+        assertEquals(100, rateLimiter.getDelay(now));
+    }
+
+    @Test
+    public void errorsBackOffExponentially() {
+        rateLimiter.configure(5, 0);
+
+        assertEquals(RateLimiter.INITIAL_BACKOFF, rateLimiter.onError(START));
+        assertEquals(RateLimiter.INITIAL_BACKOFF, rateLimiter.getDelay(START));
+        assertEquals(0, rateLimiter.getDelay(START + RateLimiter.INITIAL_BACKOFF));
+
+        assertEquals(RateLimiter.INITIAL_BACKOFF * 2, rateLimiter.onError(START));
+        assertEquals(RateLimiter.INITIAL_BACKOFF * 4, rateLimiter.onError(START));
+        assertEquals(RateLimiter.INITIAL_BACKOFF * 4, rateLimiter.getDelay(START));
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        rateLimiter.configure(1, 0);
+
+        long backoff = 0;
+        for (int i = 0; i < 20; i++) {
+            backoff = rateLimiter.onError(START);
+        }
+        assertEquals(RateLimiter.MAX_BACKOFF, backoff);
+        assertEquals(RateLimiter.MAX_BACKOFF, rateLimiter.getDelay(START));
+    }
+
+    @Test
+    public void backoffStartsAtRefillIntervalIfLonger() {
+        rateLimiter.configure(1, RateLimiter.INITIAL_BACKOFF * 3);
+
+        assertEquals(RateLimiter.INITIAL_BACKOFF * 3, rateLimiter.onError(START));
+    }
+
+    @Test
+    public void successResetsBackoff() {
+        rateLimiter.configure(1, 0);
+        rateLimiter.onError(START);
+        rateLimiter.onError(START);
+
+        rateLimiter.onSuccess();
+        assertEquals(0, rateLimiter.getDelay(START));
+        assertEquals(RateLimiter.INITIAL_BACKOFF, rateLimiter.onError(START));
+    }
+}
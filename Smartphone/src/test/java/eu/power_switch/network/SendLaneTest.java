@@ -0,0 +1,201 @@
+/*
+ *     PowerSwitch by Max Rosin & Markus Ressel
+ *     Copyright (C) 2015  Markus Ressel
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package eu.power_switch.network;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import eu.power_switch.shared.constants.DatabaseConstants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link SendLane}
+ */
+public class SendLaneTest {
+
+    private static final String HOST = "192.168.2.10";
+    private static final int PORT = 49880;
+
+    private static final String SIGNAL = "TXP:0,0,10,5600,350,25,1,3,1,3,3,1,1,3,3,1;";
+
+    private NetworkPackageQueueHandler queueHandler;
+    private SendLane lane;
+    private int messageCount = 0;
+
+    @Before
+    public void setUp() {
+        queueHandler = mock(NetworkPackageQueueHandler.class);
+        lane = new SendLane(HOST + ":" + PORT, queueHandler);
+    }
+
+    @Test
+    public void lowerPriorityIsSentAfterMaxStreak() throws Exception {
+        int interactiveCount = SendLane.MAX_PRIORITY_STREAK + 2;
+        NetworkPackage[] interactive = new NetworkPackage[interactiveCount];
+        for (int i = 0; i < interactiveCount; i++) {
+            interactive[i] = enqueue(null, null, NetworkPackage.Priority.INTERACTIVE);
+        }
+        NetworkPackage bulk1 = enqueue(null, null, NetworkPackage.Priority.BULK);
+        NetworkPackage bulk2 = enqueue(null, null, NetworkPackage.Priority.BULK);
+
+        List<NetworkPackage> sent = runAll(interactiveCount + 2);
+
+        assertEquals(Arrays.asList(
+                interactive[0], interactive[1], interactive[2], interactive[3],
+                bulk1,
+                interactive[4], interactive[5],
+                bulk2), sent);
+    }
+
+    @Test
+    public void everyLowerPriorityIsServedWhileHigherOnesAreBusy() throws Exception {
+        int interactiveCount = SendLane.MAX_PRIORITY_STREAK + 2;
+        NetworkPackage[] interactive = new NetworkPackage[interactiveCount];
+        for (int i = 0; i < interactiveCount; i++) {
+            interactive[i] = enqueue(null, null, NetworkPackage.Priority.INTERACTIVE);
+        }
+        NetworkPackage automation1 = enqueue(null, null, NetworkPackage.Priority.AUTOMATION);
+        NetworkPackage automation2 = enqueue(null, null, NetworkPackage.Priority.AUTOMATION);
+        NetworkPackage bulk1 = enqueue(null, null, NetworkPackage.Priority.BULK);
+        NetworkPackage bulk2 = enqueue(null, null, NetworkPackage.Priority.BULK);
+
+        List<NetworkPackage> sent = runAll(interactiveCount + 4);
+
+        assertEquals(Arrays.asList(
+                interactive[0], interactive[1], interactive[2], interactive[3],
+                bulk1, automation1,
+                interactive[4], interactive[5],
+                automation2, bulk2), sent);
+    }
+
+    @Test
+    public void higherPriorityIsSentFirstWithinStreak() throws Exception {
+        NetworkPackage bulk = enqueue(null, null, NetworkPackage.Priority.BULK);
+        NetworkPackage automation = enqueue(null, null, NetworkPackage.Priority.AUTOMATION);
+        NetworkPackage interactive = enqueue(null, null, NetworkPackage.Priority.INTERACTIVE);
+
+        assertEquals(Arrays.asList(interactive, automation, bulk), runAll(3));
+    }
+
+    @Test
+    public void newerStateCommandReplacesPendingOne() throws Exception {
+        NetworkPackage on1 = enqueue(1L, DatabaseConstants.BUTTON_ON_ID, NetworkPackage.Priority.INTERACTIVE);
+        NetworkPackage other = enqueue(2L, DatabaseConstants.BUTTON_ON_ID, NetworkPackage.Priority.INTERACTIVE);
+        NetworkPackage on2 = enqueue(1L, DatabaseConstants.BUTTON_ON_ID, NetworkPackage.Priority.INTERACTIVE);
+
+        assertEquals(PackageOutcome.State.SUPERSEDED, on1.getOutcome().getState());
+        // the newer package keeps its place at the end of the queue
+        assertEquals(Arrays.asList(other, on2), runAll(2));
+    }
+
+    @Test
+    public void stateCommandIsReplacedAcrossPriorities() throws Exception {
+        NetworkPackage bulk = enqueue(1L, DatabaseConstants.BUTTON_OFF_ID, NetworkPackage.Priority.BULK);
+        NetworkPackage interactive = enqueue(1L, DatabaseConstants.BUTTON_OFF_ID,
+                NetworkPackage.Priority.INTERACTIVE);
+
+        assertEquals(PackageOutcome.State.SUPERSEDED, bulk.getOutcome().getState());
+        assertEquals(Arrays.asList(interactive), runAll(1));
+    }
+
+    @Test
+    public void offReplacesPendingOnForSameReceiver() throws Exception {
+        NetworkPackage on = enqueue(1L, DatabaseConstants.BUTTON_ON_ID, NetworkPackage.Priority.INTERACTIVE);
+        NetworkPackage off = enqueue(1L, DatabaseConstants.BUTTON_OFF_ID, NetworkPackage.Priority.INTERACTIVE);
+
+        assertEquals(PackageOutcome.State.SUPERSEDED, on.getOutcome().getState());
+        assertEquals(Arrays.asList(off), runAll(1));
+    }
+
+    @Test
+    public void exactDuplicatesAreDropped() throws Exception {
+        NetworkPackage first = enqueue(null, null, NetworkPackage.Priority.INTERACTIVE, "A");
+        NetworkPackage other = enqueue(null, null, NetworkPackage.Priority.INTERACTIVE, "B");
+        NetworkPackage duplicate = enqueue(null, null, NetworkPackage.Priority.INTERACTIVE, "A");
+
+        assertEquals(PackageOutcome.State.SUPERSEDED, first.getOutcome().getState());
+        assertEquals(Arrays.asList(other, duplicate), runAll(2));
+    }
+
+    @Test
+    public void stepCommandsAreNeverCoalesced() throws Exception {
+        NetworkPackage up1 = enqueue(1L, DatabaseConstants.BUTTON_UP_ID, NetworkPackage.Priority.INTERACTIVE,
+                SIGNAL);
+        NetworkPackage up2 = enqueue(1L, DatabaseConstants.BUTTON_UP_ID, NetworkPackage.Priority.INTERACTIVE,
+                SIGNAL);
+        NetworkPackage pair1 = enqueue(1L, DatabaseConstants.BUTTON_PAIR_ID, NetworkPackage.Priority.INTERACTIVE,
+                SIGNAL);
+        NetworkPackage pair2 = enqueue(1L, DatabaseConstants.BUTTON_PAIR_ID, NetworkPackage.Priority.INTERACTIVE,
+                SIGNAL);
+
+        assertFalse(up1.getOutcome().isDone());
+        assertFalse(pair1.getOutcome().isDone());
+        assertEquals(Arrays.asList(up1, up2, pair1, pair2), runAll(4));
+    }
+
+    @Test
+    public void laneIsScheduledOnceUntilFinished() throws Exception {
+        enqueue(null, null, NetworkPackage.Priority.INTERACTIVE);
+        enqueue(null, null, NetworkPackage.Priority.INTERACTIVE);
+
+        verify(queueHandler, times(1)).onLaneStarted(lane);
+        verify(queueHandler, times(1)).schedule(same(lane), anyLong());
+
+        runAll(2);
+        verify(queueHandler, times(1)).onLaneFinished(lane);
+    }
+
+    private NetworkPackage enqueue(Long receiverId, Long buttonId, NetworkPackage.Priority priority) {
+        return enqueue(receiverId, buttonId, priority, SIGNAL + messageCount++);
+    }
+
+    private NetworkPackage enqueue(Long receiverId, Long buttonId, NetworkPackage.Priority priority,
+                                   String message) {
+        NetworkPackage networkPackage = new NetworkPackage(NetworkPackage.CommunicationType.UDP, HOST, PORT,
+                message, 0, 1L, receiverId, buttonId, priority, 1);
+        networkPackage.newOutcome();
+        lane.enqueue(networkPackage);
+        return networkPackage;
+    }
+
+    /**
+     * Run the lane as often as the queue handler would and collect all packages that were sent
+     */
+    private List<NetworkPackage> runAll(int expectedCount) throws Exception {
+        for (int i = 0; i < expectedCount; i++) {
+            lane.run();
+        }
+
+        ArgumentCaptor<NetworkPackage> captor = ArgumentCaptor.forClass(NetworkPackage.class);
+        verify(queueHandler, times(expectedCount)).send(same(lane), captor.capture());
+        return captor.getAllValues();
+    }
+}